@@ -24,9 +24,11 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
@@ -42,10 +44,7 @@ import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 import javax.annotation.Nullable;
-import javax.cache.Cache;
 import javax.inject.Inject;
 import javax.ws.rs.BadRequestException;
 
@@ -55,6 +54,7 @@ import org.apache.ignite.ci.analysis.Expirable;
 import org.apache.ignite.ci.analysis.IVersionedEntity;
 import org.apache.ignite.ci.analysis.LogCheckResult;
 import org.apache.ignite.ci.analysis.RunStat;
+import org.apache.ignite.ci.analysis.RunStatTops;
 import org.apache.ignite.ci.analysis.SingleBuildRunCtx;
 import org.apache.ignite.ci.analysis.SuiteInBranch;
 import org.apache.ignite.ci.analysis.TestInBranch;
@@ -65,6 +65,7 @@ import org.apache.ignite.ci.di.cache.GuavaCached;
 import org.apache.ignite.ci.tcmodel.agent.Agent;
 import org.apache.ignite.ci.tcmodel.changes.Change;
 import org.apache.ignite.ci.tcmodel.changes.ChangesList;
+import org.apache.ignite.ci.tcmodel.changes.ChangesListFull;
 import org.apache.ignite.ci.tcmodel.conf.BuildType;
 import org.apache.ignite.ci.tcmodel.hist.BuildRef;
 import org.apache.ignite.ci.tcmodel.result.Build;
@@ -78,10 +79,13 @@ import org.apache.ignite.ci.tcmodel.result.tests.TestOccurrences;
 import org.apache.ignite.ci.tcmodel.result.tests.TestOccurrencesFull;
 import org.apache.ignite.ci.tcmodel.result.tests.TestRef;
 import org.apache.ignite.ci.tcmodel.user.User;
+import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
+import org.apache.ignite.ci.teamcity.ignited.IStringCompactor;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.TestCompacted;
 import org.apache.ignite.ci.util.CacheUpdateUtil;
-import org.apache.ignite.ci.util.CollectionUtil;
 import org.apache.ignite.ci.util.ObjectInterner;
 import org.apache.ignite.ci.web.rest.parms.FullQueryParams;
+import org.apache.ignite.lang.IgniteClosure;
 import org.jetbrains.annotations.NotNull;
 import org.xml.sax.SAXParseException;
 
@@ -120,6 +124,11 @@ public class IgnitePersistentTeamcity implements IAnalyticsEnabledTeamcity, ITea
 
     @Inject
     private Ignite ignite;
+
+    /** Tops of run statistics. */
+    @Inject
+    private RunStatTops runStatTops;
+
     /**
      * Teamcity
      */
@@ -714,7 +723,9 @@ public class IgnitePersistentTeamcity implements IAnalyticsEnabledTeamcity, ITea
 
         SuiteInBranch key = keyForBuild(loaded);
 
-        buildsFailureRunStatCache().invoke(key, (entry, arguments) -> {
+        IgniteCache<SuiteInBranch, RunStat> cache = buildsFailureRunStatCache();
+
+        double[] scores = cache.invoke(key, (entry, arguments) -> {
             SuiteInBranch suiteInBranch = entry.getKey();
 
             Build build = (Build)arguments[0];
@@ -728,8 +739,10 @@ public class IgnitePersistentTeamcity implements IAnalyticsEnabledTeamcity, ITea
 
             entry.setValue(val);
 
-            return null;
+            return RunStatTops.scores(val);
         }, loaded);
+
+        runStatTops.onUpdate(cache.getName(), key, key.getBranch(), scores);
     }
 
     @NotNull private SuiteInBranch keyForBuild(Build loaded) {
@@ -791,7 +804,9 @@ public class IgnitePersistentTeamcity implements IAnalyticsEnabledTeamcity, ITea
         if (buildId != null && !Strings.isNullOrEmpty(suiteId)) {
             SuiteInBranch key = new SuiteInBranch(suiteId, normalizeBranch(build));
 
-            buildsFailureRunStatCache().invoke(key, (entry, arguments) -> {
+            IgniteCache<SuiteInBranch, RunStat> cache = buildsFailureRunStatCache();
+
+            double[] scores = cache.invoke(key, (entry, arguments) -> {
                 SuiteInBranch suiteInBranch = entry.getKey();
 
                 Integer bId = (Integer)arguments[0];
@@ -805,8 +820,10 @@ public class IgnitePersistentTeamcity implements IAnalyticsEnabledTeamcity, ITea
 
                 entry.setValue(val);
 
-                return null;
+                return RunStatTops.scores(val);
             }, buildId);
+
+            runStatTops.onUpdate(cache.getName(), key, key.getBranch(), scores);
         }
     }
 
@@ -894,12 +911,12 @@ public class IgnitePersistentTeamcity implements IAnalyticsEnabledTeamcity, ITea
 
     /** {@inheritDoc} */
     @Override public List<RunStat> topTestFailing(int cnt) {
-        return CollectionUtil.top(allTestAnalysis(), cnt, Comparator.comparing(RunStat::getFailRate));
+        return topTests(RunStatTops.Metric.FAIL_RATE, cnt);
     }
 
     /** {@inheritDoc} */
     @Override public List<RunStat> topTestsLongRunning(int cnt) {
-        return CollectionUtil.top(allTestAnalysis(), cnt, Comparator.comparing(RunStat::getAverageDurationMs));
+        return topTests(RunStatTops.Metric.AVERAGE_DURATION, cnt);
     }
 
     /** {@inheritDoc} */
@@ -914,9 +931,28 @@ public class IgnitePersistentTeamcity implements IAnalyticsEnabledTeamcity, ITea
         return testRunStatCache().get(key);
     }
 
-    private Stream<RunStat> allTestAnalysis() {
-        return StreamSupport.stream(testRunStatCache().spliterator(), false)
-            .map(Cache.Entry::getValue);
+    /**
+     * @param metric Metric.
+     * @param cnt Count of tests.
+     * @return Statistics of tests in all branches with greatest metric.
+     */
+    private List<RunStat> topTests(RunStatTops.Metric metric, int cnt) {
+        IgniteCache<TestInBranch, RunStat> cache = testRunStatCache();
+
+        IgniteClosure<TestInBranch, String> branchOf = key -> key.branch;
+
+        return getAllInOrder(cache, runStatTops.top(cache.getName(), metric, cnt, branchOf));
+    }
+
+    /**
+     * @param cache Cache.
+     * @param keys Keys.
+     * @return Statistics found for keys in order of keys.
+     */
+    private static <K> List<RunStat> getAllInOrder(IgniteCache<K, RunStat> cache, List<K> keys) {
+        Map<K, RunStat> stats = cache.getAll(new HashSet<>(keys));
+
+        return keys.stream().map(stats::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
     private IgniteCache<TestInBranch, RunStat> testRunStatCache() {
@@ -940,11 +976,6 @@ public class IgnitePersistentTeamcity implements IAnalyticsEnabledTeamcity, ITea
         return buildsFailureRunStatCache().get(key);
     }
 
-    private Stream<RunStat> buildsFailureAnalysis() {
-        return StreamSupport.stream(buildsFailureRunStatCache().spliterator(), false)
-            .map(Cache.Entry::getValue);
-    }
-
     /**
      * @return cache from suite name to its failure statistics
      */
@@ -966,7 +997,9 @@ public class IgnitePersistentTeamcity implements IAnalyticsEnabledTeamcity, ITea
 
         TestInBranch k = new TestInBranch(name, normalizedBranch);
 
-        testRunStatCache().invoke(k, (entry, arguments) -> {
+        IgniteCache<TestInBranch, RunStat> cache = testRunStatCache();
+
+        double[] scores = cache.invoke(k, (entry, arguments) -> {
             TestInBranch key = entry.getKey();
             TestOccurrence testOccurrence = (TestOccurrence)arguments[0];
 
@@ -978,8 +1011,10 @@ public class IgnitePersistentTeamcity implements IAnalyticsEnabledTeamcity, ITea
 
             entry.setValue(val);
 
-            return null;
+            return RunStatTops.scores(val);
         }, next);
+
+        runStatTops.onUpdate(cache.getName(), k, k.branch, scores);
     }
 
     private void migrateOccurrencesToLatest(TestOccurrences val) {
@@ -997,7 +1032,9 @@ public class IgnitePersistentTeamcity implements IAnalyticsEnabledTeamcity, ITea
 
         TestInBranch k = new TestInBranch(name, ITeamcity.DEFAULT);
 
-        testRunStatCache().invoke(k, (entry, arguments) -> {
+        IgniteCache<TestInBranch, RunStat> cache = testRunStatCache();
+
+        double[] scores = cache.invoke(k, (entry, arguments) -> {
             TestInBranch key = entry.getKey();
             TestOccurrence testOccurrence = (TestOccurrence)arguments[0];
 
@@ -1009,14 +1046,20 @@ public class IgnitePersistentTeamcity implements IAnalyticsEnabledTeamcity, ITea
 
             entry.setValue(val);
 
-            return null;
+            return RunStatTops.scores(val);
         }, next);
+
+        runStatTops.onUpdate(cache.getName(), k, k.branch, scores);
     }
 
     /** {@inheritDoc} */
     @Override
     public List<RunStat> topFailingSuite(int cnt) {
-        return CollectionUtil.top(buildsFailureAnalysis(), cnt, Comparator.comparing(RunStat::getFailRate));
+        IgniteCache<SuiteInBranch, RunStat> cache = buildsFailureRunStatCache();
+
+        IgniteClosure<SuiteInBranch, String> branchOf = SuiteInBranch::getBranch;
+
+        return getAllInOrder(cache, runStatTops.top(cache.getName(), RunStatTops.Metric.FAIL_RATE, cnt, branchOf));
     }
 
     /** {@inheritDoc} */
@@ -1126,6 +1169,11 @@ public class IgnitePersistentTeamcity implements IAnalyticsEnabledTeamcity, ITea
         return teamcity.getChangesList(buildId);
     }
 
+    /** {@inheritDoc} */
+    @Override public ChangesListFull getChangesPage(int buildId, String href) {
+        return teamcity.getChangesPage(buildId, href);
+    }
+
     @Override
     public Change getChange(int changeId) {
         return teamcity.getChange(changeId);
@@ -1180,4 +1228,16 @@ public class IgnitePersistentTeamcity implements IAnalyticsEnabledTeamcity, ITea
     @Override public TestOccurrencesFull getTestsPage(int buildId, String href, boolean testDtls) {
         return teamcity.getTestsPage(buildId, href, testDtls);
     }
+
+    /** {@inheritDoc} */
+    @Override public List<BuildRefCompacted> getBuildRefsPageCompacted(String fullUrl,
+        AtomicReference<String> nextPage, IStringCompactor compactor) {
+        return teamcity.getBuildRefsPageCompacted(fullUrl, nextPage, compactor);
+    }
+
+    /** {@inheritDoc} */
+    @Override public List<TestCompacted> getTestsPageCompacted(int buildId, String href, boolean testDtls,
+        AtomicReference<String> nextPage, IStringCompactor compactor) {
+        return teamcity.getTestsPageCompacted(buildId, href, testDtls, nextPage, compactor);
+    }
 }
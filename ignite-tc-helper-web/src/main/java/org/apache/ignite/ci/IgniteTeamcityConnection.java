@@ -36,6 +36,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
@@ -46,16 +47,17 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
 import org.apache.ignite.ci.analysis.ISuiteResults;
 import org.apache.ignite.ci.analysis.LogCheckResult;
 import org.apache.ignite.ci.analysis.LogCheckTask;
 import org.apache.ignite.ci.analysis.SingleBuildRunCtx;
 import org.apache.ignite.ci.di.AutoProfiling;
-import org.apache.ignite.ci.logs.BuildLogStreamChecker;
 import org.apache.ignite.ci.tcmodel.agent.Agent;
 import org.apache.ignite.ci.tcmodel.agent.AgentsRef;
 import org.apache.ignite.ci.tcmodel.changes.Change;
 import org.apache.ignite.ci.tcmodel.changes.ChangesList;
+import org.apache.ignite.ci.tcmodel.changes.ChangesListFull;
 import org.apache.ignite.ci.tcmodel.conf.BuildType;
 import org.apache.ignite.ci.tcmodel.conf.Project;
 import org.apache.ignite.ci.tcmodel.conf.bt.BuildTypeFull;
@@ -72,7 +74,12 @@ import org.apache.ignite.ci.tcmodel.result.tests.TestOccurrencesFull;
 import org.apache.ignite.ci.tcmodel.result.tests.TestRef;
 import org.apache.ignite.ci.tcmodel.user.User;
 import org.apache.ignite.ci.tcmodel.user.Users;
+import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
+import org.apache.ignite.ci.teamcity.ignited.CompactedXmlReader;
+import org.apache.ignite.ci.teamcity.ignited.IStringCompactor;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.TestCompacted;
 import org.apache.ignite.ci.teamcity.pure.ITeamcityHttpConnection;
+import org.apache.ignite.ci.util.CopyingInputStream;
 import org.apache.ignite.ci.util.ExceptionUtil;
 import org.apache.ignite.ci.util.HttpUtil;
 import org.apache.ignite.ci.util.UrlUtil;
@@ -99,6 +106,22 @@ public class IgniteTeamcityConnection implements ITeamcity {
     /** Logger. */
     private static final Logger logger = LoggerFactory.getLogger(IgniteTeamcityConnection.class);
 
+    /** Changes requested by one page of changes with details. */
+    public static final int CHANGES_PAGE_SIZE = 100;
+
+    /** Threads for build logs analysis. */
+    private static final int LOG_CHECK_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /** Executor for build logs chunks analysis, shared by all servers. */
+    private static final ExecutorService LOG_CHECK_EXECUTOR = Executors.newFixedThreadPool(LOG_CHECK_THREADS, r -> {
+        Thread thread = Executors.defaultThreadFactory().newThread(r);
+
+        thread.setName("log-check-" + thread.getName());
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
     /** Executor. */
     private Executor executor;
 
@@ -220,18 +243,14 @@ public class IgniteTeamcityConnection implements ITeamcity {
 
     @AutoProfiling
     public CompletableFuture<File> downloadBuildLogZip(int buildId) {
-        boolean archive = true;
         Supplier<File> supplier = () -> {
-            String buildIdStr = Integer.toString(buildId);
-            final File buildDir = ensureDirExist(new File(logsDir, "buildId" + buildIdStr));
-            final File file = new File(buildDir,
-                "build.log" + (archive ? ".zip" : ""));
-            if (file.exists() && file.canRead() && file.length() > 0) {
+            final File file = buildLogZipFile(buildId);
+            if (isCachedLocally(file)) {
                 logger.info("Nothing to do, file is cached locally: [" + file + "]");
 
                 return file;
             }
-            String url = host + "downloadBuildLog.html" + "?buildId=" + buildIdStr + "&archived=true";
+            String url = buildLogZipUrl(buildId);
 
             try {
                 HttpUtil.sendGetCopyToFile(basicAuthTok, url, file);
@@ -245,6 +264,31 @@ public class IgniteTeamcityConnection implements ITeamcity {
         return supplyAsync(supplier, executor);
     }
 
+    /**
+     * @param buildId Build id.
+     * @return Local file for build log archive.
+     */
+    private File buildLogZipFile(int buildId) {
+        final File buildDir = ensureDirExist(new File(logsDir, "buildId" + buildId));
+
+        return new File(buildDir, "build.log.zip");
+    }
+
+    /**
+     * @param buildId Build id.
+     * @return URL to download build log archive.
+     */
+    private String buildLogZipUrl(int buildId) {
+        return host + "downloadBuildLog.html" + "?buildId=" + buildId + "&archived=true";
+    }
+
+    /**
+     * @param file File.
+     */
+    private static boolean isCachedLocally(File file) {
+        return file.exists() && file.canRead() && file.length() > 0;
+    }
+
     @AutoProfiling
     @Override public CompletableFuture<LogCheckResult> analyzeBuildLog(Integer buildId, SingleBuildRunCtx ctx) {
         final Stopwatch started = Stopwatch.createStarted();
@@ -339,6 +383,18 @@ public class IgniteTeamcityConnection implements ITeamcity {
         return getJaxbUsingHref(href, ChangesList.class);
     }
 
+    /** {@inheritDoc} */
+    @AutoProfiling
+    @Override public ChangesListFull getChangesPage(int buildId, @Nullable String href) {
+        if (!Strings.isNullOrEmpty(href))
+            return getJaxbUsingHref(href, ChangesListFull.class);
+
+        return getJaxbUsingHref("app/rest/latest/changes" +
+            "?locator=build:(id:" + buildId + "),count:" + CHANGES_PAGE_SIZE +
+            "&fields=nextHref,change(id,version,username,date,webUrl,comment,user(id,username,name))",
+            ChangesListFull.class);
+    }
+
     @AutoProfiling
     @Override public Change getChange(int changeId) {
         String href = "app/rest/latest/changes/id:" + + changeId +"";
@@ -583,25 +639,34 @@ public class IgniteTeamcityConnection implements ITeamcity {
     }
 
     private CompletableFuture<LogCheckTask> checkBuildLogNoCache(int buildId, ISuiteResults ctx) {
-        final CompletableFuture<File> zipFut = downloadBuildLogZip(buildId);
         boolean dumpLastTest = ctx.hasSuiteIncompleteFailure();
 
-        return zipFut.thenApplyAsync(zipFile -> runCheckForZippedLog(dumpLastTest, zipFile), executor);
+        return supplyAsync(() -> runCheckForZippedLog(dumpLastTest, buildId), executor);
     }
 
+    /**
+     * Analyzes build log archive, archive is unzipped and analyzed while downloading if it is not cached locally.
+     *
+     * @param dumpLastTest Dump last test.
+     * @param buildId Build ID.
+     */
     @SuppressWarnings("WeakerAccess")
     @AutoProfiling
-    @NotNull protected LogCheckTask runCheckForZippedLog(boolean dumpLastTest, File zipFile) {
+    @NotNull protected LogCheckTask runCheckForZippedLog(boolean dumpLastTest, int buildId) {
+        File zipFile = buildLogZipFile(buildId);
         LogCheckTask task = new LogCheckTask(zipFile);
 
         try {
+            InputStream zipStream = isCachedLocally(zipFile)
+                ? new FileInputStream(zipFile)
+                : new CopyingInputStream(HttpUtil.sendGetWithBasicAuth(basicAuthTok, buildLogZipUrl(buildId)), zipFile);
+
             //get the zip file content
-            try (ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFile))) {
+            try (ZipInputStream zis = new ZipInputStream(zipStream)) {
                 ZipEntry ze = zis.getNextEntry();    //get the zipped file list entry
 
                 while (ze != null) {
-                    BuildLogStreamChecker checker = task.createChecker();
-                    checker.apply(zis, zipFile);
+                    task.check(zis, LOG_CHECK_EXECUTOR, LOG_CHECK_THREADS * 2);
                     task.finalize(dumpLastTest);
 
                     ze = zis.getNextEntry();
@@ -648,22 +713,68 @@ public class IgniteTeamcityConnection implements ITeamcity {
     /** {@inheritDoc} */
     @AutoProfiling
     @Override public List<BuildRef> getBuildRefsPage(String fullUrl, AtomicReference<String> outNextPage) {
-        String relPath = "app/rest/latest/builds?locator=defaultFilter:false";
-        String relPathSelected = Strings.isNullOrEmpty(fullUrl) ? relPath : fullUrl;
-        String url = host + (relPathSelected.startsWith("/") ? relPathSelected.substring(1) : relPathSelected);
-        Builds builds = sendGetXmlParseJaxb(url, Builds.class);
+        Builds builds = sendGetXmlParseJaxb(buildRefsPageUrl(fullUrl), Builds.class);
 
         outNextPage.set(Strings.emptyToNull(builds.nextHref()));
 
         return builds.getBuildsNonNull();
     }
 
+    /** {@inheritDoc} */
+    @AutoProfiling
+    @Override public List<BuildRefCompacted> getBuildRefsPageCompacted(String fullUrl,
+        AtomicReference<String> outNextPage, IStringCompactor compactor) {
+        try (InputStream inputStream = teamcityHttpConn.sendGet(basicAuthTok, buildRefsPageUrl(fullUrl))) {
+            return CompactedXmlReader.readBuildRefs(inputStream, compactor, outNextPage);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        catch (XMLStreamException e) {
+            throw ExceptionUtil.propagateException(e);
+        }
+    }
+
+    /**
+     * @param fullUrl Full url, null activates first page.
+     */
+    @NotNull private String buildRefsPageUrl(@Nullable String fullUrl) {
+        String relPath = "app/rest/latest/builds?locator=defaultFilter:false";
+        String relPathSelected = Strings.isNullOrEmpty(fullUrl) ? relPath : fullUrl;
+
+        return host + (relPathSelected.startsWith("/") ? relPathSelected.substring(1) : relPathSelected);
+    }
+
     /** {@inheritDoc} */
     @AutoProfiling
     @Override public TestOccurrencesFull getTestsPage(int buildId, @Nullable String href, boolean testDtls) {
+        return sendGetXmlParseJaxb(testsPageUrl(buildId, href, testDtls), TestOccurrencesFull.class);
+    }
+
+    /** {@inheritDoc} */
+    @AutoProfiling
+    @Override public List<TestCompacted> getTestsPageCompacted(int buildId, @Nullable String href, boolean testDtls,
+        AtomicReference<String> outNextPage, IStringCompactor compactor) {
+        try (InputStream inputStream = teamcityHttpConn.sendGet(basicAuthTok, testsPageUrl(buildId, href, testDtls))) {
+            return CompactedXmlReader.readTests(inputStream, compactor, outNextPage);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        catch (XMLStreamException e) {
+            throw ExceptionUtil.propagateException(e);
+        }
+    }
+
+    /**
+     * @param buildId Build id.
+     * @param href Href. Null activates first page.
+     * @param testDtls request test details string
+     */
+    @NotNull private String testsPageUrl(int buildId, @Nullable String href, boolean testDtls) {
         String relPathSelected = Strings.isNullOrEmpty(href) ? testsStartHref(buildId, testDtls) : href;
-        String url = host + (relPathSelected.startsWith("/") ? relPathSelected.substring(1) : relPathSelected);
-        return sendGetXmlParseJaxb(url, TestOccurrencesFull.class);
+
+        return host + (relPathSelected.startsWith("/") ? relPathSelected.substring(1) : relPathSelected);
     }
 
     /**
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.analysis;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+
+/**
+ * Bounded top of keys by score, is updated with each change of key score. Keys below top are not stored, maximum score
+ * of keys dropped is remembered instead: top of requested size is exact only if all its keys have score not less than
+ * maximum dropped score. Otherwise top should be rebuilt from full data, see {@link #merge(BoundedTop)}.
+ *
+ * @param <K> Key type.
+ */
+public class BoundedTop<K extends Comparable<K>> implements Serializable {
+    /** Serial version uid. */
+    private static final long serialVersionUID = 0L;
+
+    /** Max keys to keep. */
+    private final int capacity;
+
+    /** Key -> Score. */
+    private final Map<K, Double> scores = new HashMap<>();
+
+    /** Keys ordered by score, ascending. */
+    private final TreeSet<Scored<K>> ordered = new TreeSet<>();
+
+    /** Maximum score of keys dropped from top, or negative infinity if top contains all keys offered. */
+    private double droppedMax = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param capacity Max keys to keep.
+     */
+    public BoundedTop(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param key Key.
+     * @param score New score of key.
+     */
+    public void offer(K key, double score) {
+        Double prev = scores.get(key);
+
+        if (prev != null) {
+            if (prev == score)
+                return;
+
+            ordered.remove(new Scored<>(key, prev));
+        }
+        else if (scores.size() >= capacity) {
+            Scored<K> min = ordered.first();
+
+            if (score <= min.score) {
+                droppedMax = Math.max(droppedMax, score);
+
+                return;
+            }
+
+            ordered.pollFirst();
+            scores.remove(min.key);
+
+            droppedMax = Math.max(droppedMax, min.score);
+        }
+
+        scores.put(key, score);
+        ordered.add(new Scored<>(key, score));
+    }
+
+    /**
+     * Adds keys of other top, keys should be disjoint with keys of this top, e.g. top of other partition.
+     *
+     * @param other Other top.
+     */
+    public void merge(BoundedTop<K> other) {
+        for (Scored<K> scored : other.ordered)
+            offer(scored.key, scored.score);
+
+        droppedMax = Math.max(droppedMax, other.droppedMax);
+    }
+
+    /**
+     * @param cnt Count of keys requested.
+     * @return Keys and scores ordered by score descending, or {@code null} if exact top can't be provided by this
+     * instance.
+     */
+    @Nullable public List<Scored<K>> top(int cnt) {
+        List<Scored<K>> res = new ArrayList<>(Math.min(cnt, ordered.size()));
+
+        for (Iterator<Scored<K>> it = ordered.descendingIterator(); it.hasNext() && res.size() < cnt; ) {
+            Scored<K> scored = it.next();
+
+            if (scored.score < droppedMax)
+                return null;
+
+            res.add(scored);
+        }
+
+        if (res.size() < cnt && droppedMax != Double.NEGATIVE_INFINITY)
+            return null;
+
+        return res;
+    }
+
+    /**
+     * @return Keys count kept.
+     */
+    public int size() {
+        return scores.size();
+    }
+
+    /**
+     * Key with its score.
+     */
+    public static class Scored<K extends Comparable<K>> implements Comparable<Scored<K>>, Serializable {
+        /** Serial version uid. */
+        private static final long serialVersionUID = 0L;
+
+        /** Key. */
+        private final K key;
+
+        /** Score. */
+        private final double score;
+
+        /**
+         * @param key Key.
+         * @param score Score.
+         */
+        Scored(K key, double score) {
+            this.key = key;
+            this.score = score;
+        }
+
+        /**
+         * @return Key.
+         */
+        public K key() {
+            return key;
+        }
+
+        /**
+         * @return Score.
+         */
+        public double score() {
+            return score;
+        }
+
+        /** {@inheritDoc} */
+        @Override public int compareTo(Scored<K> o) {
+            int res = Double.compare(score, o.score);
+
+            return res != 0 ? res : key.compareTo(o.key);
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean equals(Object o) {
+            if (this == o)
+                return true;
+
+            if (o == null || getClass() != o.getClass())
+                return false;
+
+            Scored<?> scored = (Scored<?>)o;
+
+            return Double.compare(scored.score, score) == 0 && key.equals(scored.key);
+        }
+
+        /** {@inheritDoc} */
+        @Override public int hashCode() {
+            return 31 * key.hashCode() + Double.hashCode(score);
+        }
+    }
+}
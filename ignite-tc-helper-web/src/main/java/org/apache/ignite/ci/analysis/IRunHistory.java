@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.analysis;
+
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.apache.ignite.ci.issue.EventTemplate;
+import org.apache.ignite.ci.issue.EventTemplates;
+
+/**
+ * Test or suite run history: statistics for latest runs.
+ */
+public interface IRunHistory {
+    public int getRunsCount();
+
+    public int getFailuresCount();
+
+    public int getCriticalFailuresCount();
+
+    public long getAverageDurationMs();
+
+    /**
+     * @return run results codes (see {@link RunStat.RunStatus}) from oldest to newest run.
+     */
+    @Nullable public List<Integer> getLatestRunResults();
+
+    /**
+     * @param t Template.
+     * @return ID of build of the first event of template found in latest runs, or {@code null} if not found.
+     */
+    @Nullable public Integer detectTemplate(EventTemplate t);
+
+    /**
+     * Detects all {@link EventTemplates#templates} by one pass over latest runs.
+     *
+     * @return Template -> ID of build of the first event of template, for templates found in latest runs.
+     */
+    public Map<EventTemplate, Integer> detectTemplates();
+
+    /**
+     * @return float representing fail rate
+     */
+    public default float getFailRate() {
+        int runs = getRunsCount();
+
+        if (runs == 0)
+            return 1.0f;
+
+        return 1.0f * getFailuresCount() / runs;
+    }
+
+    /**
+     * @return float representing critical fail rate
+     */
+    public default float getCriticalFailRate() {
+        int runs = getRunsCount();
+
+        if (runs == 0)
+            return 1.0f;
+
+        return 1.0f * getCriticalFailuresCount() / runs;
+    }
+
+    public default String getFailPercentPrintable() {
+        return getPercentPrintable(getFailRate() * 100.0f);
+    }
+
+    public default String getCriticalFailPercentPrintable() {
+        return getPercentPrintable(getCriticalFailRate() * 100.0f);
+    }
+
+    /**
+     * @param percent Percent.
+     */
+    public static String getPercentPrintable(float percent) {
+        return String.format("%.1f", percent).replace(".", ",");
+    }
+}
@@ -124,6 +124,17 @@ public class LogCheckResult implements IVersionedEntity {
         buildCustomProblems.add(code);
     }
 
+    /**
+     * Adds test results and problems found in other part of same build log.
+     *
+     * @param other Other result.
+     */
+    public void merge(LogCheckResult other) {
+        other.testLogCheckResult.forEach((name, testRes) -> getOrCreateTestResult(name).merge(testRes));
+
+        other.getCustomProblems().forEach(this::addProblem);
+    }
+
     public boolean hasProblem(String deadlock) {
         return buildCustomProblems != null && buildCustomProblems.contains(deadlock);
     }
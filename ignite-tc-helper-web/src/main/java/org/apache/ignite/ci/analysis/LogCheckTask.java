@@ -18,7 +18,10 @@
 package org.apache.ignite.ci.analysis;
 
 import java.io.File;
-import org.apache.ignite.ci.logs.BuildLogStreamChecker;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.apache.ignite.ci.logs.ChunkedLogChecker;
 import org.apache.ignite.ci.logs.handlers.TestLogHandler;
 import org.apache.ignite.ci.logs.handlers.ThreadDumpInMemoryHandler;
 
@@ -32,8 +35,11 @@ public class LogCheckTask {
     private File zipFile;
     final ThreadDumpInMemoryHandler threadDumpCp = new ThreadDumpInMemoryHandler();
 
-    /** Test logger handler. */
-    final TestLogHandler testLogHandler = new TestLogHandler();
+    /** Results merged from all chunks processed. */
+    private final LogCheckResult mergedRes = new LogCheckResult();
+
+    /** Last test name observed. */
+    private String lastTestName;
 
     public LogCheckTask(File zipFile) {
         this.zipFile = zipFile;
@@ -43,15 +49,34 @@ public class LogCheckTask {
         return result;
     }
 
-    public BuildLogStreamChecker createChecker() {
-        return new BuildLogStreamChecker(threadDumpCp, testLogHandler);
+    /**
+     * Analyzes one log file from archive. Log is split into chunks by test boundaries, chunks are analyzed by executor.
+     *
+     * @param is Input stream of log file, stream is not closed.
+     * @param executor Executor for chunks processing.
+     * @param maxInFlight Max chunks submitted to executor and not yet processed.
+     */
+    public void check(InputStream is, Executor executor, int maxInFlight) {
+        ChunkedLogChecker<TestLogHandler> checker
+            = new ChunkedLogChecker<>(executor, maxInFlight, TestLogHandler::new, threadDumpCp);
+
+        List<TestLogHandler> chunks = checker.apply(is, zipFile);
+
+        for (TestLogHandler chunk : chunks) {
+            mergedRes.merge(chunk.getResult(false));
+
+            if (chunk.getLastTestName() != null)
+                lastTestName = chunk.getLastTestName();
+        }
     }
 
     public void finalize(boolean isIncompleteSuite) {
-        LogCheckResult logCheckRes = testLogHandler.getResult(isIncompleteSuite);
+        LogCheckResult logCheckRes = mergedRes;
 
-        if (isIncompleteSuite)
+        if (isIncompleteSuite) {
+            logCheckRes.setLastStartedTest(lastTestName);
             logCheckRes.setLastThreadDump(threadDumpCp.getLastThreadDump());
+        }
         else if(logCheckRes.hasProblem(JAVA_LEVEL_DEADLOCK))
             logCheckRes.setLastThreadDump(threadDumpCp.getLastThreadDump());
 
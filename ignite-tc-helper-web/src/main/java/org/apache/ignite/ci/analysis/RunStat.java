@@ -27,6 +27,7 @@ import javax.annotation.Nullable;
 
 import org.apache.ignite.ci.db.Persisted;
 import org.apache.ignite.ci.issue.EventTemplate;
+import org.apache.ignite.ci.issue.EventTemplateMatcher;
 import org.apache.ignite.ci.tcmodel.result.Build;
 import org.apache.ignite.ci.tcmodel.result.tests.TestOccurrence;
 import org.jetbrains.annotations.NotNull;
@@ -40,9 +41,24 @@ import static org.apache.ignite.ci.analysis.RunStat.RunStatus.RES_OK;
  * Test or Build run statistics.
  */
 @Persisted
-public class RunStat {
+public class RunStat implements IRunHistory {
     public static final int MAX_LATEST_RUNS = 100;
 
+    /** Initial capacity of latest runs columns, columns grow up to {@link #MAX_LATEST_RUNS}. */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /** Bits of run result or changes state code in the packed column. */
+    private static final int CODE_BITS = 2;
+
+    /** Mask of code in the packed column. */
+    private static final int CODE_MASK = (1 << CODE_BITS) - 1;
+
+    /** Codes in one word of the packed column. */
+    private static final int CODES_PER_WORD = Long.SIZE / CODE_BITS;
+
+    /** Mask of the lower bit of each code in the word. */
+    private static final long LOW_BITS = 0x5555_5555_5555_5555L;
+
     /**
      * Runs registered all the times.
      */
@@ -67,15 +83,40 @@ public class RunStat {
     private String name;
 
     /**
-     * @deprecated {@link #latestRuns} should be used.
+     * @deprecated latest runs columns should be used.
      */
     @Deprecated
     @Nullable
     SortedMap<TestId, Integer> latestRunResults;
 
+    /**
+     * @deprecated latest runs columns should be used, map is converted to columns on first access.
+     */
+    @Deprecated
     @Nullable
     SortedMap<TestId, RunInfo> latestRuns;
 
+    /** Count of latest runs kept in columns below. */
+    private int latestCnt;
+
+    /** Build IDs of latest runs, runs are ordered by {@link TestId}: build ID, then test ID. */
+    @Nullable private int[] latestBuildIds;
+
+    /** Test IDs of latest runs. */
+    @Nullable private int[] latestTestIds;
+
+    /** Durations of latest runs, or -1 if unknown. */
+    @Nullable private int[] latestDurations;
+
+    /** Results of latest runs, {@link RunStatus#getCode()} packed by 2 bits, the oldest run uses lowest bits. */
+    @Nullable private long[] latestResults;
+
+    /** Changes states of latest runs, {@link ChangesState#ordinal()} packed by 2 bits. */
+    @Nullable private long[] latestChanges;
+
+    /** Results of latest runs unpacked for templates detection, reset when latest runs are modified. */
+    @Nullable private transient int[] latestHist;
+
     /**
      * @param name Name of test or suite.
      */
@@ -114,7 +155,9 @@ public class RunStat {
             return;
         }
 
-        addRunToLatest(id, new RunInfo(testToResCode(testOccurrence), changesState));
+        int duration = testOccurrence.duration == null ? -1 : testOccurrence.duration.intValue();
+
+        addRunToLatest(id, testToResCode(testOccurrence), changesState, duration);
     }
 
     public static TestId extractFullId(String id) {
@@ -160,14 +203,157 @@ public class RunStat {
         return testOccurrence.isNotMutedOrIgnoredTest() ? RES_FAILURE : RES_MUTED_FAILURE;
     }
 
-    private void addRunToLatest(TestId id, RunInfo runInfo) {
-        if (latestRuns == null)
-            latestRuns = new TreeMap<>();
+    /**
+     * Adds or replaces run in latest runs. If {@link #MAX_LATEST_RUNS} are kept, the oldest run is evicted.
+     *
+     * @param id Test ID.
+     * @param status Run status.
+     * @param changesState Changes state.
+     * @param duration Duration, or -1 if unknown.
+     */
+    private void addRunToLatest(TestId id, RunStatus status, ChangesState changesState, int duration) {
+        assert status.code <= CODE_MASK : status;
+
+        convertLatestRuns();
+
+        latestHist = null;
+
+        int idx = searchLatest(id.buildId, id.testId);
+
+        if (idx < 0) {
+            int pos = -(idx + 1);
+
+            if (latestCnt == MAX_LATEST_RUNS) {
+                if (pos == 0)
+                    return; // Older than all runs kept.
+
+                removeOldestRun();
+                pos--;
+            }
+
+            ensureLatestCapacity(latestCnt + 1);
+
+            for (int i = latestCnt; i > pos; i--)
+                copyRun(i - 1, i);
+
+            latestCnt++;
+            idx = pos;
+        }
+
+        latestBuildIds[idx] = id.buildId;
+        latestTestIds[idx] = id.testId;
+        latestDurations[idx] = duration;
+        setCode(latestResults, idx, status.code);
+        setCode(latestChanges, idx, changesState.ordinal());
+    }
+
+    /**
+     * @param buildId Build ID.
+     * @param testId Test ID.
+     * @return index of run if found, otherwise {@code -(insertion point) - 1}.
+     */
+    private int searchLatest(int buildId, int testId) {
+        int low = 0;
+        int high = latestCnt - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = latestBuildIds[mid] != buildId
+                ? Integer.compare(latestBuildIds[mid], buildId)
+                : Integer.compare(latestTestIds[mid], testId);
+
+            if (cmp < 0)
+                low = mid + 1;
+            else if (cmp > 0)
+                high = mid - 1;
+            else
+                return mid;
+        }
+
+        return -(low + 1);
+    }
+
+    /**
+     * Removes the oldest run, unused codes are kept zero.
+     */
+    private void removeOldestRun() {
+        for (int i = 1; i < latestCnt; i++)
+            copyRun(i, i - 1);
+
+        latestCnt--;
+
+        setCode(latestResults, latestCnt, 0);
+        setCode(latestChanges, latestCnt, 0);
+    }
+
+    /**
+     * @param src Source index.
+     * @param dst Destination index.
+     */
+    private void copyRun(int src, int dst) {
+        latestBuildIds[dst] = latestBuildIds[src];
+        latestTestIds[dst] = latestTestIds[src];
+        latestDurations[dst] = latestDurations[src];
+        setCode(latestResults, dst, code(latestResults, src));
+        setCode(latestChanges, dst, code(latestChanges, src));
+    }
+
+    /**
+     * @param cap Required capacity.
+     */
+    private void ensureLatestCapacity(int cap) {
+        int curCap = latestBuildIds == null ? 0 : latestBuildIds.length;
+
+        if (cap <= curCap)
+            return;
+
+        int newCap = Math.min(MAX_LATEST_RUNS, Math.max(INITIAL_CAPACITY, curCap * 2));
+        int words = (newCap + CODES_PER_WORD - 1) / CODES_PER_WORD;
+
+        latestBuildIds = latestBuildIds == null ? new int[newCap] : Arrays.copyOf(latestBuildIds, newCap);
+        latestTestIds = latestTestIds == null ? new int[newCap] : Arrays.copyOf(latestTestIds, newCap);
+        latestDurations = latestDurations == null ? new int[newCap] : Arrays.copyOf(latestDurations, newCap);
+        latestResults = latestResults == null ? new long[words] : Arrays.copyOf(latestResults, words);
+        latestChanges = latestChanges == null ? new long[words] : Arrays.copyOf(latestChanges, words);
+    }
+
+    /**
+     * @param words Packed column.
+     * @param idx Run index.
+     * @return code of run.
+     */
+    private static int code(long[] words, int idx) {
+        return (int)(words[idx / CODES_PER_WORD] >>> (idx % CODES_PER_WORD * CODE_BITS)) & CODE_MASK;
+    }
 
-        latestRuns.put(id, runInfo);
+    /**
+     * @param words Packed column.
+     * @param idx Run index.
+     * @param code Code of run.
+     */
+    private static void setCode(long[] words, int idx, int code) {
+        int shift = idx % CODES_PER_WORD * CODE_BITS;
+        int w = idx / CODES_PER_WORD;
 
-        if (latestRuns.size() > MAX_LATEST_RUNS)
-            latestRuns.remove(latestRuns.firstKey());
+        words[w] = words[w] & ~((long)CODE_MASK << shift) | (long)code << shift;
+    }
+
+    /**
+     * Converts latest runs persisted as map by previous versions to columns.
+     */
+    @SuppressWarnings("deprecation")
+    private void convertLatestRuns() {
+        SortedMap<TestId, RunInfo> runs = latestRuns;
+
+        if (runs == null)
+            return;
+
+        latestRuns = null;
+
+        runs.forEach((id, info) -> {
+            if (info != null && info.status != null && info.status.code <= CODE_MASK)
+                addRunToLatest(id, info.status, info.changesState == null ? ChangesState.UNKNOWN : info.changesState, -1);
+        });
     }
 
     public String name() {
@@ -221,21 +407,40 @@ public class RunStat {
     }
 
     public int getFailuresCount() {
-        if (latestRuns == null)
+        convertLatestRuns();
+
+        if (latestResults == null)
             return 0;
 
-        return (int)latestRuns.values().stream().filter(res -> res.status != RES_OK).count();
+        int res = 0;
+
+        // Codes of runs not kept are zero (OK), so whole words are counted.
+        for (long word : latestResults)
+            res += Long.bitCount((word | word >>> 1) & LOW_BITS);
+
+        return res;
     }
 
     public int getCriticalFailuresCount() {
-        if (latestRuns == null)
+        convertLatestRuns();
+
+        if (latestResults == null)
             return 0;
 
-        return (int)latestRuns.values().stream().filter(res -> res.status == RES_CRITICAL_FAILURE).count();
+        assert RES_CRITICAL_FAILURE.code == CODE_MASK;
+
+        int res = 0;
+
+        for (long word : latestResults)
+            res += Long.bitCount(word & word >>> 1 & LOW_BITS);
+
+        return res;
     }
 
     public int getRunsCount() {
-        return latestRuns == null ? 0 : latestRuns.size();
+        convertLatestRuns();
+
+        return latestCnt;
     }
 
     public String getFailPercentPrintable() {
@@ -250,7 +455,25 @@ public class RunStat {
         return String.format("%.1f", percent).replace(".", ",");
     }
 
+    /**
+     * @return average duration of latest runs, or of all runs registered if durations of latest runs are unknown.
+     */
     public long getAverageDurationMs() {
+        convertLatestRuns();
+
+        long latestDuration = 0;
+        int latestWithDuration = 0;
+
+        for (int i = 0; i < latestCnt; i++) {
+            if (latestDurations[i] >= 0) {
+                latestDuration += latestDurations[i];
+                latestWithDuration++;
+            }
+        }
+
+        if (latestWithDuration > 0)
+            return (long)(1.0 * latestDuration / latestWithDuration);
+
         if (runsWithDuration == 0)
             return 0;
         return (long)(1.0 * totalDurationMs / runsWithDuration);
@@ -272,11 +495,11 @@ public class RunStat {
 
         RunStatus resCode = build.isSuccess() ? RES_OK : RES_FAILURE;
 
-        setBuildResCode(build.getId(), new RunInfo(resCode, ChangesState.UNKNOWN));
+        setBuildResCode(build.getId(), resCode);
     }
 
-    private void setBuildResCode(Integer buildId, RunInfo runInfo) {
-        addRunToLatest(new TestId(buildId, 0), runInfo);
+    private void setBuildResCode(Integer buildId, RunStatus resCode) {
+        addRunToLatest(new TestId(buildId, 0), resCode, ChangesState.UNKNOWN, -1);
     }
 
     /**
@@ -284,7 +507,7 @@ public class RunStat {
      * @param buildId Build id.
      */
     public void setBuildCriticalError(Integer buildId) {
-        setBuildResCode(buildId, new RunInfo(RES_CRITICAL_FAILURE, ChangesState.UNKNOWN));
+        setBuildResCode(buildId, RES_CRITICAL_FAILURE);
     }
 
     /**
@@ -302,78 +525,52 @@ public class RunStat {
      */
     @Nullable
     public List<Integer> getLatestRunResults() {
-        if (latestRuns == null)
-            return Collections.emptyList();
+        int[] hist = latestHist();
 
-        return latestRuns.values().stream().map(info -> info.status.code).collect(Collectors.toList());
-    }
+        List<Integer> res = new ArrayList<>(hist.length);
 
-    private int[] concatArr(int[] arr1, int[] arr2) {
-        int[] arr1and2 = new int[arr1.length + arr2.length];
-        System.arraycopy(arr1, 0, arr1and2, 0, arr1.length);
-        System.arraycopy(arr2, 0, arr1and2, arr1.length, arr2.length);
+        for (int code : hist)
+            res.add(code);
 
-        return arr1and2;
+        return res;
     }
 
-    @Nullable
-    public TestId detectTemplate(EventTemplate t) {
-        if (latestRuns == null)
-            return null;
-
-        int centralEvtBuild = t.beforeEvent().length;
-
-        int[] template = concatArr(t.beforeEvent(), t.eventAndAfter());
-
-        assert centralEvtBuild < template.length;
-        assert centralEvtBuild >= 0;
-
-        Set<Map.Entry<TestId, RunInfo>> entries = latestRuns.entrySet();
+    /**
+     * @return Results codes of latest runs from oldest to newest run, array is shared and should not be modified.
+     */
+    private int[] latestHist() {
+        convertLatestRuns();
 
-        if (entries.size() < template.length)
-            return null;
+        int[] hist = latestHist;
 
-        List<Map.Entry<TestId, RunInfo>> histAsArr = new ArrayList<>(entries);
+        if (hist == null) {
+            hist = new int[latestCnt];
 
-        TestId detectedAt = null;
-        if (t.shouldBeFirst()) {
-            if (histAsArr.size() >= runs) // skip if total runs can't fit to latest runs
-                detectedAt = checkTemplateAtPos(template, centralEvtBuild, histAsArr, 0);
-        }
-        else {
-            //startIgnite from the end to find most recent
-            for (int idx = histAsArr.size() - template.length; idx >= 0; idx--) {
-                detectedAt = checkTemplateAtPos(template, centralEvtBuild, histAsArr, idx);
+            for (int i = 0; i < latestCnt; i++)
+                hist[i] = code(latestResults, i);
 
-                if (detectedAt != null)
-                    break;
-            }
+            latestHist = hist;
         }
 
-        return detectedAt;
+        return hist;
     }
 
+    /** {@inheritDoc} */
     @Nullable
-    private TestId checkTemplateAtPos(int[] template, int centralEvtBuild, List<Map.Entry<TestId, RunInfo>> histAsArr,
-        int idx) {
-        for (int tIdx = 0; tIdx < template.length; tIdx++) {
-            RunInfo curStatus = histAsArr.get(idx + tIdx).getValue();
+    @Override public Integer detectTemplate(EventTemplate t) {
+        // templates which should be first are skipped if total runs can't fit to latest runs
+        int idx = EventTemplateMatcher.eventIndex(t, latestHist(), latestCnt >= runs);
 
-            if (curStatus == null)
-                break;
+        return idx < 0 ? null : latestBuildIds[idx];
+    }
 
-            RunStatus tmpl = RunStatus.byCode(template[tIdx]);
+    /** {@inheritDoc} */
+    @Override public Map<EventTemplate, Integer> detectTemplates() {
+        Map<EventTemplate, Integer> res = EventTemplateMatcher.eventIndexes(latestHist(), latestCnt >= runs);
 
-            if ((tmpl == RunStatus.RES_OK_OR_FAILURE && (curStatus.status == RES_OK || curStatus.status == RES_FAILURE))
-                || curStatus.status == tmpl) {
-                if (tIdx == template.length - 1)
-                    return histAsArr.get(idx + centralEvtBuild).getKey();
-            }
-            else
-                break;
-        }
+        res.replaceAll((t, idx) -> latestBuildIds[idx]);
 
-        return null;
+        return res;
     }
 
     public boolean isFlaky() {
@@ -382,32 +579,26 @@ public class RunStat {
 
     @Nullable
     public String getFlakyComments() {
-        if (latestRuns == null)
-            return null;
+        convertLatestRuns();
 
         int statusChange = 0;
 
-        RunInfo prev = null;
-
-        for (RunInfo cur : latestRuns.values()) {
-            if (prev != null && cur != null) {
-                if (prev.status != cur.status
-                    && cur.changesState == ChangesState.NONE
-                    && prev.changesState != ChangesState.UNKNOWN)
-                    statusChange++;
-            }
-            prev = cur;
+        for (int i = 1; i < latestCnt; i++) {
+            if (code(latestResults, i - 1) != code(latestResults, i)
+                && code(latestChanges, i) == ChangesState.NONE.ordinal()
+                && code(latestChanges, i - 1) != ChangesState.UNKNOWN.ordinal())
+                statusChange++;
         }
 
         if (statusChange < 1)
             return null;
 
         return "Test seems to be flaky: " +
-            "changed its status [" + statusChange + "/" + latestRuns.size() + "] without code modifications";
+            "changed its status [" + statusChange + "/" + latestCnt + "] without code modifications";
     }
 
     /**
-     * Migrate data from latestRunResults to latestRuns.
+     * Migrate data from latestRunResults to latest runs columns.
      *
      * @deprecated need to be remove after migrate.
      */
@@ -416,13 +607,21 @@ public class RunStat {
         if(latestRunResults == null)
             return;
 
-        if (latestRuns == null)
-            latestRuns = new TreeMap<>();
-        else
-            latestRuns.clear();
+        latestRuns = null;
+        latestHist = null;
+        latestCnt = 0;
+        latestBuildIds = null;
+        latestTestIds = null;
+        latestDurations = null;
+        latestResults = null;
+        latestChanges = null;
+
+        for (Map.Entry<TestId, Integer> entry : latestRunResults.entrySet()) {
+            RunStatus status = RunStatus.byCode(entry.getValue());
 
-        for (Map.Entry<TestId, Integer> entry : latestRunResults.entrySet())
-            latestRuns.put(entry.getKey(), new RunInfo(RunStatus.byCode(entry.getValue()), ChangesState.UNKNOWN));
+            if (status != null && status.code <= CODE_MASK)
+                addRunToLatest(entry.getKey(), status, ChangesState.UNKNOWN, -1);
+        }
     }
 
     /**
@@ -478,7 +677,7 @@ public class RunStat {
     }
 
     /**
-     * Run info for storage in cache.
+     * Run info, was used for storage in cache by previous versions.
      */
     public static class RunInfo {
         /** Status of run. */
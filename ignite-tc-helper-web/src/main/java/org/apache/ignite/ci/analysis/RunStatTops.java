@@ -0,0 +1,386 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.analysis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import javax.cache.Cache;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.ci.di.AutoProfiling;
+import org.apache.ignite.lang.IgniteCallable;
+import org.apache.ignite.lang.IgniteClosure;
+import org.apache.ignite.lang.IgniteFuture;
+import org.apache.ignite.resources.IgniteInstanceResource;
+
+/**
+ * Tops of run statistics caches by server and branch. Tops are updated by each run statistics change, so top is
+ * provided without cache scan. If top can't be provided exactly (not yet built, or too many keys dropped from it),
+ * top is rebuilt by distributed scan: partial tops are calculated for each partition at node owning it and merged.
+ */
+public class RunStatTops {
+    /** Keys count to keep for each metric and branch, greater than count usually requested. */
+    public static final int CAPACITY = 100;
+
+    /** Ignite provider. */
+    @Inject private Provider<Ignite> igniteProvider;
+
+    /** Cache name (includes server) -> Tops of keys of cache. */
+    private final ConcurrentMap<String, CacheTops<?>> tops = new ConcurrentHashMap<>();
+
+    /**
+     * Metric of run statistics.
+     */
+    public enum Metric {
+        /** Fail rate. */
+        FAIL_RATE(RunStat::getFailRate),
+
+        /** Average duration. */
+        AVERAGE_DURATION(RunStat::getAverageDurationMs);
+
+        /** Score of statistics. */
+        private final ToDoubleFunction<RunStat> score;
+
+        /**
+         * @param score Score of statistics.
+         */
+        Metric(ToDoubleFunction<RunStat> score) {
+            this.score = score;
+        }
+    }
+
+    /**
+     * @param stat Run statistics.
+     * @return Scores of each {@link Metric} by ordinal, is returned from entry processors updating statistics.
+     */
+    public static double[] scores(RunStat stat) {
+        Metric[] metrics = Metric.values();
+        double[] res = new double[metrics.length];
+
+        for (Metric metric : metrics)
+            res[metric.ordinal()] = metric.score.applyAsDouble(stat);
+
+        return res;
+    }
+
+    /**
+     * @param cacheName Cache name.
+     * @param key Key of statistics updated.
+     * @param branch Branch of key.
+     * @param scores Scores of updated statistics, see {@link #scores(RunStat)}.
+     */
+    @SuppressWarnings("unchecked")
+    public <K extends Comparable<K>> void onUpdate(String cacheName, K key, String branch, @Nullable double[] scores) {
+        CacheTops<K> cacheTops = (CacheTops<K>)tops.get(cacheName);
+
+        if (cacheTops != null && scores != null)
+            cacheTops.onUpdate(key, branch, scores);
+    }
+
+    /**
+     * @param cacheName Cache name.
+     * @param metric Metric.
+     * @param cnt Count of keys requested.
+     * @param branchOf Closure to get branch of key.
+     * @return Keys of top over all branches, ordered by metric descending.
+     */
+    @SuppressWarnings("unchecked")
+    @AutoProfiling
+    public <K extends Comparable<K>> List<K> top(String cacheName, Metric metric, int cnt,
+        IgniteClosure<K, String> branchOf) {
+        CacheTops<K> cacheTops = (CacheTops<K>)tops.computeIfAbsent(cacheName, k -> new CacheTops<K>());
+
+        List<K> res = cacheTops.top(metric, cnt);
+
+        if (res != null)
+            return res;
+
+        boolean install = cnt <= CAPACITY && cacheTops.startRebuild();
+
+        Map<String, EnumMap<Metric, BoundedTop<K>>> scanned;
+
+        try {
+            scanned = scan(cacheName, Math.max(cnt, CAPACITY), branchOf);
+        }
+        catch (RuntimeException e) {
+            if (install)
+                cacheTops.install(null);
+
+            throw e;
+        }
+
+        res = top(scanned, metric, cnt);
+
+        if (install)
+            cacheTops.install(scanned);
+
+        return res;
+    }
+
+    /**
+     * Calculates tops by partitions at nodes owning them.
+     *
+     * @param cacheName Cache name.
+     * @param capacity Keys count to keep for each metric and branch.
+     * @param branchOf Closure to get branch of key.
+     * @return Branch -> Metric -> Top.
+     */
+    private <K extends Comparable<K>> Map<String, EnumMap<Metric, BoundedTop<K>>> scan(String cacheName,
+        int capacity, IgniteClosure<K, String> branchOf) {
+        Ignite ignite = igniteProvider.get();
+
+        int parts = ignite.affinity(cacheName).partitions();
+
+        List<IgniteFuture<Map<String, EnumMap<Metric, BoundedTop<K>>>>> futs = new ArrayList<>(parts);
+
+        for (int part = 0; part < parts; part++) {
+            PartitionTopTask<K> task = new PartitionTopTask<>(cacheName, part, capacity, branchOf);
+
+            futs.add(ignite.compute().affinityCallAsync(Collections.singletonList(cacheName), part, task));
+        }
+
+        Map<String, EnumMap<Metric, BoundedTop<K>>> res = new HashMap<>();
+
+        for (IgniteFuture<Map<String, EnumMap<Metric, BoundedTop<K>>>> fut : futs) {
+            fut.get().forEach((branch, partTops) -> {
+                EnumMap<Metric, BoundedTop<K>> branchTops = res.computeIfAbsent(branch, b -> newTops(capacity));
+
+                partTops.forEach((metric, top) -> branchTops.get(metric).merge(top));
+            });
+        }
+
+        return res;
+    }
+
+    /**
+     * @param capacity Keys count to keep.
+     * @return Empty top for each metric.
+     */
+    private static <K extends Comparable<K>> EnumMap<Metric, BoundedTop<K>> newTops(int capacity) {
+        EnumMap<Metric, BoundedTop<K>> res = new EnumMap<>(Metric.class);
+
+        for (Metric metric : Metric.values())
+            res.put(metric, new BoundedTop<>(capacity));
+
+        return res;
+    }
+
+    /**
+     * @param branchTops Branch -> Metric -> Top.
+     * @param metric Metric.
+     * @param cnt Count of keys requested.
+     * @return Keys of top over all branches, or {@code null} if top of some branch is not exact.
+     */
+    @Nullable private static <K extends Comparable<K>> List<K> top(
+        Map<String, EnumMap<Metric, BoundedTop<K>>> branchTops, Metric metric, int cnt) {
+        List<BoundedTop.Scored<K>> all = new ArrayList<>();
+
+        for (EnumMap<Metric, BoundedTop<K>> tops : branchTops.values()) {
+            List<BoundedTop.Scored<K>> top = tops.get(metric).top(cnt);
+
+            if (top == null)
+                return null;
+
+            all.addAll(top);
+        }
+
+        return all.stream()
+            .sorted(Collections.reverseOrder())
+            .limit(cnt)
+            .map(BoundedTop.Scored::key)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Tops of keys of one cache.
+     */
+    private static class CacheTops<K extends Comparable<K>> {
+        /** Branch -> Metric -> Top, or {@code null} if tops were not built yet. */
+        @Nullable private Map<String, EnumMap<Metric, BoundedTop<K>>> branchTops;
+
+        /** Updates received during rebuild, or {@code null} if there is no rebuild in progress. */
+        @Nullable private List<Update<K>> pending;
+
+        /**
+         * @param key Key.
+         * @param branch Branch.
+         * @param scores Scores.
+         */
+        synchronized void onUpdate(K key, String branch, double[] scores) {
+            if (pending != null)
+                pending.add(new Update<>(key, branch, scores));
+
+            if (branchTops != null)
+                apply(branchTops, key, branch, scores);
+        }
+
+        /**
+         * @param metric Metric.
+         * @param cnt Count of keys requested.
+         * @return Keys of top, or {@code null} if top can't be provided exactly.
+         */
+        @Nullable synchronized List<K> top(Metric metric, int cnt) {
+            return branchTops == null ? null : RunStatTops.top(branchTops, metric, cnt);
+        }
+
+        /**
+         * @return {@code True} if rebuild was started by caller, {@code false} if other rebuild is in progress.
+         */
+        synchronized boolean startRebuild() {
+            if (pending != null)
+                return false;
+
+            pending = new ArrayList<>();
+
+            return true;
+        }
+
+        /**
+         * Installs tops scanned and applies updates received during scan, these updates are the most recent ones.
+         *
+         * @param scanned Tops scanned, or {@code null} if scan failed.
+         */
+        synchronized void install(@Nullable Map<String, EnumMap<Metric, BoundedTop<K>>> scanned) {
+            if (scanned != null) {
+                for (Update<K> update : pending)
+                    apply(scanned, update.key, update.branch, update.scores);
+
+                branchTops = scanned;
+            }
+
+            pending = null;
+        }
+
+        /**
+         * @param branchTops Branch -> Metric -> Top.
+         * @param key Key.
+         * @param branch Branch.
+         * @param scores Scores.
+         */
+        private static <K extends Comparable<K>> void apply(Map<String, EnumMap<Metric, BoundedTop<K>>> branchTops,
+            K key, String branch, double[] scores) {
+            EnumMap<Metric, BoundedTop<K>> tops = branchTops.computeIfAbsent(branch, b -> newTops(CAPACITY));
+
+            tops.forEach((metric, top) -> top.offer(key, scores[metric.ordinal()]));
+        }
+    }
+
+    /**
+     * Update of statistics received.
+     */
+    private static class Update<K> {
+        /** Key. */
+        private final K key;
+
+        /** Branch. */
+        private final String branch;
+
+        /** Scores. */
+        private final double[] scores;
+
+        /**
+         * @param key Key.
+         * @param branch Branch.
+         * @param scores Scores.
+         */
+        Update(K key, String branch, double[] scores) {
+            this.key = key;
+            this.branch = branch;
+            this.scores = scores;
+        }
+    }
+
+    /**
+     * Calculates tops of one partition at node owning it.
+     */
+    private static class PartitionTopTask<K extends Comparable<K>>
+        implements IgniteCallable<Map<String, EnumMap<Metric, BoundedTop<K>>>> {
+        /** Serial version uid. */
+        private static final long serialVersionUID = 0L;
+
+        /** Ignite. */
+        @IgniteInstanceResource
+        private transient Ignite ignite;
+
+        /** Cache name. */
+        private final String cacheName;
+
+        /** Partition. */
+        private final int part;
+
+        /** Keys count to keep for each metric and branch. */
+        private final int capacity;
+
+        /** Closure to get branch of key. */
+        private final IgniteClosure<K, String> branchOf;
+
+        /**
+         * @param cacheName Cache name.
+         * @param part Partition.
+         * @param capacity Keys count to keep for each metric and branch.
+         * @param branchOf Closure to get branch of key.
+         */
+        PartitionTopTask(String cacheName, int part, int capacity, IgniteClosure<K, String> branchOf) {
+            this.cacheName = cacheName;
+            this.part = part;
+            this.capacity = capacity;
+            this.branchOf = branchOf;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Map<String, EnumMap<Metric, BoundedTop<K>>> call() {
+            IgniteCache<K, RunStat> cache = ignite.cache(cacheName);
+
+            Map<String, EnumMap<Metric, BoundedTop<K>>> res = new HashMap<>();
+
+            ScanQuery<K, RunStat> qry = new ScanQuery<K, RunStat>().setPartition(part);
+
+            qry.setLocal(true);
+
+            try (QueryCursor<Cache.Entry<K, RunStat>> cursor = cache.query(qry)) {
+                for (Cache.Entry<K, RunStat> entry : cursor) {
+                    if (entry.getValue() == null)
+                        continue;
+
+                    K key = entry.getKey();
+                    double[] scores = scores(entry.getValue());
+
+                    EnumMap<Metric, BoundedTop<K>> tops = res.computeIfAbsent(branchOf.apply(key),
+                        b -> newTops(capacity));
+
+                    tops.forEach((metric, top) -> top.offer(key, scores[metric.ordinal()]));
+                }
+            }
+
+            return res;
+        }
+    }
+}
@@ -30,7 +30,7 @@ import org.apache.ignite.ci.teamcity.ignited.IStringCompactor;
 import org.apache.ignite.ci.teamcity.ignited.change.ChangeCompacted;
 import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
 import org.apache.ignite.ci.teamcity.ignited.fatbuild.ProblemCompacted;
-import org.apache.ignite.ci.teamcity.ignited.fatbuild.TestCompacted;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.ITest;
 import org.apache.ignite.ci.util.FutureUtil;
 import org.jetbrains.annotations.Nullable;
 
@@ -173,7 +173,7 @@ public class SingleBuildRunCtx implements ISuiteResults {
         return isComposite() ? Stream.empty() : buildCompacted.getFailedNotMutedTestNames(compactor);
     }
 
-    public Stream<TestCompacted> getFailedNotMutedTests() {
+    public Stream<ITest> getFailedNotMutedTests() {
         return isComposite() ? Stream.empty() : buildCompacted.getFailedNotMutedTests(compactor);
     }
 
@@ -181,7 +181,7 @@ public class SingleBuildRunCtx implements ISuiteResults {
         return buildCompacted.getAllTestNames(compactor);
     }
 
-    public Stream<TestCompacted> getAllTests() {
+    public Stream<ITest> getAllTests() {
         return isComposite() ? Stream.empty() : buildCompacted.getAllTests();
     }
 
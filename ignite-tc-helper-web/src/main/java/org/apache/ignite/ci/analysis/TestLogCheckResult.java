@@ -61,4 +61,16 @@ public class TestLogCheckResult {
     public int getLogSizeBytes() {
         return cntBytes;
     }
+
+    /**
+     * Adds results of other part of same test log.
+     *
+     * @param other Other result.
+     */
+    public void merge(TestLogCheckResult other) {
+        other.getWarns().forEach(this::addWarning);
+
+        cntLines += other.cntLines;
+        cntBytes += other.cntBytes;
+    }
 }
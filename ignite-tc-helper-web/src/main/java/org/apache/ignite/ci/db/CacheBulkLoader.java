@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.db;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteDataStreamer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bulk loading mode for persistent caches, used for initial load of a fresh instance. Writes of the loader owning a
+ * session are performed by {@link IgniteDataStreamer} instead of per-batch cache updates: the session should be passed
+ * to {@link #putAll(Session, IgniteCache, Map)} explicitly, writes of other callers go to the cache directly.
+ *
+ * Data loaded through a streamer becomes visible to readers with a delay up to {@link #AUTO_FLUSH_FREQUENCY}, so a
+ * session should be used only for data not read back by other writers during the load. WAL is kept enabled, data
+ * loaded is durable as soon as it is flushed.
+ */
+public class CacheBulkLoader {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(CacheBulkLoader.class);
+
+    /** Streamer buffer size per node. */
+    public static final int PER_NODE_BUFFER_SIZE = 1024;
+
+    /** Streamer auto flush frequency, ms. Keeps data loaded visible to readers with small delay. */
+    public static final int AUTO_FLUSH_FREQUENCY = 1000;
+
+    /** Ignite provider. */
+    @Inject private Provider<Ignite> igniteProvider;
+
+    /** Lock: writes through streamers are done under read lock, opening and closing sessions requires write lock. */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Cache name -> bulk load state for this cache. */
+    @GuardedBy("lock")
+    private final Map<String, CacheLoad> loads = new HashMap<>();
+
+    /**
+     * Bulk load state of one cache.
+     */
+    private static class CacheLoad {
+        /** Sessions opened for cache. */
+        int sessions;
+
+        /** Streamer. */
+        IgniteDataStreamer<Object, Object> streamer;
+    }
+
+    /**
+     * Bulk load session, streamers are flushed when last session for a cache is closed.
+     */
+    public class Session implements AutoCloseable {
+        /** Cache names. */
+        private final Set<String> cacheNames;
+
+        /** Session was closed. */
+        private volatile boolean closed;
+
+        /**
+         * @param cacheNames Cache names.
+         */
+        private Session(String[] cacheNames) {
+            this.cacheNames = new HashSet<>(Arrays.asList(cacheNames));
+        }
+
+        /**
+         * @param cacheName Cache name.
+         * @return {@code True} if session is opened for the cache.
+         */
+        private boolean streams(String cacheName) {
+            return !closed && cacheNames.contains(cacheName);
+        }
+
+        /** {@inheritDoc} */
+        @Override public void close() {
+            if (closed)
+                return;
+
+            closed = true;
+
+            release(cacheNames);
+        }
+    }
+
+    /**
+     * Opens bulk load session for caches provided. Caches should be already created.
+     *
+     * @param cacheNames Cache names.
+     * @return Session, should be closed after loading is completed.
+     */
+    public Session open(String... cacheNames) {
+        Ignite ignite = igniteProvider.get();
+
+        lock.writeLock().lock();
+
+        try {
+            for (String cacheName : cacheNames) {
+                CacheLoad load = loads.computeIfAbsent(cacheName, k -> new CacheLoad());
+
+                if (load.sessions++ > 0)
+                    continue;
+
+                IgniteDataStreamer<Object, Object> streamer = ignite.dataStreamer(cacheName);
+
+                streamer.allowOverwrite(true);
+                streamer.perNodeBufferSize(PER_NODE_BUFFER_SIZE);
+                streamer.autoFlushFrequency(AUTO_FLUSH_FREQUENCY);
+
+                load.streamer = streamer;
+
+                logger.info("Bulk load started for cache " + cacheName);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+
+        return new Session(cacheNames);
+    }
+
+    /**
+     * Puts entries to the cache, uses streamer if bulk load session provided is opened for this cache.
+     *
+     * @param ses Bulk load session of the caller, {@code null} if caller is not a bulk loader.
+     * @param cache Cache.
+     * @param entries Entries to put, should be sorted if cache is updated directly.
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> void putAll(@Nullable Session ses, IgniteCache<K, V> cache, Map<K, V> entries) {
+        if (entries.isEmpty())
+            return;
+
+        if (ses != null && ses.streams(cache.getName())) {
+            lock.readLock().lock();
+
+            try {
+                CacheLoad load = loads.get(cache.getName());
+
+                if (load != null && load.streamer != null) {
+                    ((IgniteDataStreamer<K, V>)(IgniteDataStreamer<?, ?>)load.streamer).addData(entries);
+
+                    return;
+                }
+            }
+            finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        cache.putAll(entries);
+    }
+
+    /**
+     * @param cacheNames Cache names of session closed.
+     */
+    private void release(Set<String> cacheNames) {
+        lock.writeLock().lock();
+
+        try {
+            for (String cacheName : cacheNames) {
+                CacheLoad load = loads.get(cacheName);
+
+                if (load == null || --load.sessions > 0)
+                    continue;
+
+                loads.remove(cacheName);
+
+                long start = System.currentTimeMillis();
+
+                load.streamer.close(false);
+
+                logger.info("Bulk load finished for cache " + cacheName + ", streamer closed in "
+                    + (System.currentTimeMillis() - start) + "ms");
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
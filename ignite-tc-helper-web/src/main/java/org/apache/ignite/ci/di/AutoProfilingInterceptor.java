@@ -17,23 +17,30 @@
 package org.apache.ignite.ci.di;
 
 import com.google.common.base.Stopwatch;
-import org.aopalliance.intercept.MethodInterceptor;
-import org.aopalliance.intercept.MethodInvocation;
-
-import java.time.Duration;
+import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
 
 public class AutoProfilingInterceptor implements MethodInterceptor {
+    /** Caller name used if method was not called from other profiled method. */
+    public static final String ROOT_CALLER = "(root)";
+
     private final ConcurrentMap<String, Invocation> totalTime = new ConcurrentHashMap<>();
 
+    /** Method to its full name, is not cleared on reset because set of methods is limited. */
+    private final ConcurrentMap<Method, String> names = new ConcurrentHashMap<>();
+
+    /** Profiled method currently executed by thread, used as caller for nested profiled methods. */
+    private final ThreadLocal<String> curMtd = new ThreadLocal<>();
+
     public void reset() {
         totalTime.clear();
     }
@@ -43,6 +50,15 @@ public class AutoProfilingInterceptor implements MethodInterceptor {
         private final AtomicInteger callsCnt = new AtomicInteger();
         private String name;
 
+        /** Latencies since start or reset. */
+        private final LatencyHistogram hist = new LatencyHistogram();
+
+        /** Latencies of recent minutes. */
+        private final SlidingLatencyHistogram recentHist = new SlidingLatencyHistogram();
+
+        /** Caller name to latencies of the calls done by this caller. */
+        private final ConcurrentMap<String, LatencyHistogram> callers = new ConcurrentHashMap<>();
+
         public Invocation(String name) {
             this.name = name;
         }
@@ -53,6 +69,25 @@ public class AutoProfilingInterceptor implements MethodInterceptor {
             return timeNanos.addAndGet(elapsed);
         }
 
+        /**
+         * @param elapsed Elapsed time, nanoseconds.
+         * @param caller Caller name.
+         * @param nowNanos Current time, see {@link System#nanoTime()}.
+         */
+        void record(long elapsed, String caller, long nowNanos) {
+            addAndGet(elapsed);
+
+            hist.record(elapsed);
+            recentHist.record(elapsed, nowNanos);
+
+            LatencyHistogram callerHist = callers.get(caller);
+
+            if (callerHist == null)
+                callerHist = callers.computeIfAbsent(caller, k -> new LatencyHistogram());
+
+            callerHist.record(elapsed);
+        }
+
         public long getNanos() {
             return timeNanos.get();
         }
@@ -64,12 +99,40 @@ public class AutoProfilingInterceptor implements MethodInterceptor {
         public String getName() {
             return name;
         }
+
+        /**
+         * @return latencies since start or reset.
+         */
+        public LatencyHistogram.Snapshot getHistogram() {
+            return hist.snapshot();
+        }
+
+        /**
+         * @return latencies of recent {@link SlidingLatencyHistogram#WINDOW_MINUTES} minutes.
+         */
+        public LatencyHistogram.Snapshot getRecentHistogram() {
+            return recentHist.snapshot(System.nanoTime());
+        }
+
+        /**
+         * @return caller name to latencies of the calls done by this caller.
+         */
+        public Map<String, LatencyHistogram> getCallers() {
+            return Collections.unmodifiableMap(callers);
+        }
     }
 
     @Override
     public Object invoke(MethodInvocation invocation) throws Throwable {
-        String cls = invocation.getMethod().getDeclaringClass().getSimpleName();
-        String mtd = invocation.getMethod().getName();
+        Method method = invocation.getMethod();
+        String fullKey = names.get(method);
+
+        if (fullKey == null)
+            fullKey = names.computeIfAbsent(method, m -> m.getDeclaringClass().getSimpleName() + "." + m.getName());
+
+        String caller = curMtd.get();
+
+        curMtd.set(fullKey);
 
         Stopwatch started = Stopwatch.createStarted();
         try {
@@ -77,9 +140,17 @@ public class AutoProfilingInterceptor implements MethodInterceptor {
         } finally {
             long elapsed = started.elapsed(TimeUnit.NANOSECONDS);
 
-            String fullKey = cls + "." + mtd;
+            if (caller == null)
+                curMtd.remove();
+            else
+                curMtd.set(caller);
+
+            Invocation inv = totalTime.get(fullKey);
+
+            if (inv == null)
+                inv = totalTime.computeIfAbsent(fullKey, Invocation::new);
 
-            totalTime.computeIfAbsent(fullKey, Invocation::new).addAndGet(elapsed);
+            inv.record(elapsed, caller == null ? ROOT_CALLER : caller, System.nanoTime());
         }
     }
 
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.di;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear latency histogram (HDR-like). Each power of 2 range is split to {@link #SUB_BUCKETS} linear
+ * sub-buckets, so relative error of percentile reported does not exceed 12.5%.
+ */
+public class LatencyHistogram {
+    /** Bits used for linear sub-bucket inside power of 2 range. */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /** Sub-buckets per power of 2. */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Total buckets count, enough to cover all non-negative long values. */
+    static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /** Counts. */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /** Sum of values recorded. */
+    private final AtomicLong total = new AtomicLong();
+
+    /** Max value recorded. */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param val Value, nanoseconds.
+     */
+    public void record(long val) {
+        if (val < 0)
+            val = 0;
+
+        counts.incrementAndGet(bucket(val));
+        total.addAndGet(val);
+
+        long curMax;
+        while (val > (curMax = max.get())) {
+            if (max.compareAndSet(curMax, val))
+                break;
+        }
+    }
+
+    /**
+     * Clears histogram. Values recorded concurrently may be partially lost.
+     */
+    void clear() {
+        for (int i = 0; i < BUCKETS; i++)
+            counts.set(i, 0);
+
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Adds values of this histogram to snapshot.
+     *
+     * @param snapshot Snapshot to be updated.
+     */
+    void addTo(Snapshot snapshot) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long cnt = counts.get(i);
+
+            snapshot.counts[i] += cnt;
+            snapshot.cnt += cnt;
+        }
+
+        snapshot.total += total.get();
+        snapshot.max = Math.max(snapshot.max, max.get());
+    }
+
+    /**
+     * @return point in time copy of the histogram.
+     */
+    public Snapshot snapshot() {
+        Snapshot res = new Snapshot();
+
+        addTo(res);
+
+        return res;
+    }
+
+    /**
+     * @param val Non-negative value.
+     * @return bucket index.
+     */
+    static int bucket(long val) {
+        if (val < SUB_BUCKETS)
+            return (int)val;
+
+        int msb = 63 - Long.numberOfLeadingZeros(val);
+        int shift = msb - SUB_BUCKET_BITS;
+        int sub = (int)(val >>> shift) & (SUB_BUCKETS - 1);
+
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @param bucket Bucket index.
+     * @return maximal value falling into bucket.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        int sub = bucket % SUB_BUCKETS;
+
+        return ((long)(SUB_BUCKETS + sub) << shift) + (1L << shift) - 1;
+    }
+
+    /**
+     * Immutable after creation copy of histogram.
+     */
+    public static class Snapshot {
+        /** Counts. */
+        private final long[] counts = new long[BUCKETS];
+
+        /** Values count. */
+        private long cnt;
+
+        /** Values sum. */
+        private long total;
+
+        /** Max value. */
+        private long max;
+
+        /**
+         * @return values count.
+         */
+        public long count() {
+            return cnt;
+        }
+
+        /**
+         * @return sum of values recorded.
+         */
+        public long total() {
+            return total;
+        }
+
+        /**
+         * @return max value recorded.
+         */
+        public long max() {
+            return max;
+        }
+
+        /**
+         * @param pct Percentile, in range (0..100].
+         * @return value for percentile provided, or 0 if histogram is empty.
+         */
+        public long percentile(double pct) {
+            if (cnt == 0)
+                return 0;
+
+            long rank = Math.max(1, (long)Math.ceil(cnt * pct / 100.0));
+            long seen = 0;
+
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+
+                if (seen >= rank)
+                    return Math.min(upperBound(i), max);
+            }
+
+            return max;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.di;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram over sliding time window. Window is split to ring of slots, each slot is reused (cleared) when
+ * its time comes again, so only values from recent {@link #SLOTS} slots are reported.
+ */
+public class SlidingLatencyHistogram {
+    /** Slots in ring. */
+    private static final int SLOTS = 5;
+
+    /** Slot duration. */
+    private static final long SLOT_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /** Window duration, minutes. */
+    public static final long WINDOW_MINUTES = TimeUnit.NANOSECONDS.toMinutes(SLOT_NANOS * SLOTS);
+
+    /** Slots. */
+    private final LatencyHistogram[] slots = new LatencyHistogram[SLOTS];
+
+    /** Epoch (slot sequential number) currently recorded into the slot. */
+    private final AtomicLongArray epochs = new AtomicLongArray(SLOTS);
+
+    /**
+     * Default constructor.
+     */
+    public SlidingLatencyHistogram() {
+        for (int i = 0; i < SLOTS; i++) {
+            slots[i] = new LatencyHistogram();
+            epochs.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * @param val Value, nanoseconds.
+     * @param nowNanos Current time, see {@link System#nanoTime()}.
+     */
+    public void record(long val, long nowNanos) {
+        long epoch = Math.floorDiv(nowNanos, SLOT_NANOS);
+        int idx = (int)Math.floorMod(epoch, (long)SLOTS);
+
+        LatencyHistogram slot = slots[idx];
+
+        if (epochs.get(idx) != epoch) {
+            synchronized (slot) {
+                if (epochs.get(idx) != epoch) {
+                    slot.clear();
+
+                    epochs.set(idx, epoch);
+                }
+            }
+        }
+
+        slot.record(val);
+    }
+
+    /**
+     * @param nowNanos Current time, see {@link System#nanoTime()}.
+     * @return values recorded during current window.
+     */
+    public LatencyHistogram.Snapshot snapshot(long nowNanos) {
+        long curEpoch = Math.floorDiv(nowNanos, SLOT_NANOS);
+
+        LatencyHistogram.Snapshot res = new LatencyHistogram.Snapshot();
+
+        for (int i = 0; i < SLOTS; i++) {
+            long epoch = epochs.get(i);
+
+            if (epoch > curEpoch - SLOTS && epoch <= curEpoch)
+                slots[i].addTo(res);
+        }
+
+        return res;
+    }
+}
@@ -36,5 +36,19 @@ public interface IScheduler {
 
     public void sheduleNamed(String fullName, Runnable cmd, long queitPeriod, TimeUnit unit);
 
+    /**
+     * Schedules named task within priority class provided. By default priority is ignored.
+     *
+     * @param fullName Task unique name.
+     * @param cmd Command.
+     * @param queitPeriod Period task result considered as actual, task is not restarted during this period.
+     * @param unit Time unit of the period.
+     * @param priority Priority class, task is executed by threads of this class.
+     */
+    public default void sheduleNamed(String fullName, Runnable cmd, long queitPeriod, TimeUnit unit,
+        TaskPriority priority) {
+        sheduleNamed(fullName, cmd, queitPeriod, unit);
+    }
+
     public void stop();
 }
@@ -17,6 +17,7 @@
 package org.apache.ignite.ci.di.scheduler;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.StampedLock;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.GuardedBy;
@@ -37,12 +38,70 @@ class NamedTask {
     @GuardedBy("lock")
     private volatile long resValidityMs = 0;
 
+    /** Priority class. */
+    private final TaskPriority priority;
+
+    /** Fire time of earliest trigger pending, {@link Long#MAX_VALUE} if there is no trigger. */
+    private final AtomicLong triggerTs = new AtomicLong(Long.MAX_VALUE);
+
     enum Status {
         CREATED, RUNNING, COMPLETED ;
     }
 
-    public NamedTask(String name) {
+    public NamedTask(String name, TaskPriority priority) {
         this.name = name;
+        this.priority = priority;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public TaskPriority priority() {
+        return priority;
+    }
+
+    /**
+     * @return Time when task should be started, ms; {@link Long#MAX_VALUE} if start is not required.
+     */
+    public long nextFireTs() {
+        long readStamp = lock.readLock();
+
+        try {
+            if (cmd == null || status == Status.RUNNING)
+                return Long.MAX_VALUE;
+
+            if (status == Status.CREATED)
+                return 0;
+
+            return lastFinishedTs + resValidityMs;
+        }
+        finally {
+            lock.unlockRead(readStamp);
+        }
+    }
+
+    /**
+     * @param ts Fire time of trigger to be scheduled.
+     * @return {@code True} if trigger should be scheduled, {@code false} if the same or earlier trigger is pending.
+     */
+    public boolean reserveTrigger(long ts) {
+        while (true) {
+            long cur = triggerTs.get();
+
+            if (cur <= ts)
+                return false;
+
+            if (triggerTs.compareAndSet(cur, ts))
+                return true;
+        }
+    }
+
+    /**
+     * @param ts Fire time of trigger fired.
+     */
+    public void releaseTrigger(long ts) {
+        triggerTs.compareAndSet(ts, Long.MAX_VALUE);
     }
 
     public void sheduleWithQuitePeriod(@Nonnull Runnable cmd, long period, TimeUnit unit) {
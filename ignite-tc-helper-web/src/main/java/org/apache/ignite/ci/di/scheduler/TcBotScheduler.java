@@ -14,92 +14,162 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+
 package org.apache.ignite.ci.di.scheduler;
 
 import com.google.common.base.Preconditions;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import org.apache.ignite.ci.di.MonitoredTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-
+/**
+ * Scheduler of named tasks. Triggers are kept by timer in the heap ordered by fire time, so named task is submitted
+ * exactly when it becomes due. Tasks are executed by pools of its priority class, so interactive tasks do not wait
+ * behind bulk background syncs.
+ */
 class TcBotScheduler implements IScheduler {
-    public static final int POOL_SIZE = 10;
+    /** Threads for interactive tasks. */
+    public static final int INTERACTIVE_POOL_SIZE = 4;
+
+    /** Threads for bulk tasks, the same as all scheduler threads before interactive tasks got own pool. */
+    public static final int BULK_POOL_SIZE = 10;
+
     /** Logger. */
     private static final Logger logger = LoggerFactory.getLogger(TcBotScheduler.class);
 
-    /** Executor service. */
-    private volatile ScheduledExecutorService executorSvc = Executors.newScheduledThreadPool(POOL_SIZE);
+    /** Timer: fires triggers of named tasks and delayed commands. */
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+        threadFactory("tc-bot-sched-timer-"));
 
-    /** Submit named task checker guard. */
-    private AtomicBoolean tickGuard = new AtomicBoolean();
+    /** Executor for each priority class. */
+    private final Map<TaskPriority, ExecutorService> executors = new EnumMap<>(TaskPriority.class);
 
+    /** Named tasks. */
     private final ConcurrentMap<String, NamedTask> namedTasks = new ConcurrentHashMap<>();
 
+    /**
+     * Default constructor.
+     */
+    TcBotScheduler() {
+        executors.put(TaskPriority.INTERACTIVE,
+            Executors.newFixedThreadPool(INTERACTIVE_POOL_SIZE, threadFactory("tc-bot-sched-interactive-")));
+        executors.put(TaskPriority.BULK,
+            Executors.newFixedThreadPool(BULK_POOL_SIZE, threadFactory("tc-bot-sched-bulk-")));
+    }
+
+    /**
+     * @param prefix Thread name prefix.
+     */
+    private static ThreadFactory threadFactory(String prefix) {
+        ThreadFactory dflt = Executors.defaultThreadFactory();
+
+        return r -> {
+            Thread thread = dflt.newThread(r);
+
+            thread.setName(prefix + thread.getName());
+
+            return thread;
+        };
+    }
+
+    /** {@inheritDoc} */
     @Override public void invokeLater(Runnable cmd, long delay, TimeUnit unit) {
-        service().schedule(cmd, delay, unit);
+        ExecutorService executor = executor(TaskPriority.BULK);
+
+        timer.schedule(() -> executor.execute(cmd), delay, unit);
     }
 
+    /** {@inheritDoc} */
     @Override public void sheduleNamed(String fullName, Runnable cmd, long queitPeriod, TimeUnit unit) {
-        NamedTask task = namedTasks.computeIfAbsent(fullName, NamedTask::new);
+        sheduleNamed(fullName, cmd, queitPeriod, unit, TaskPriority.BULK);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void sheduleNamed(String fullName, Runnable cmd, long queitPeriod, TimeUnit unit,
+        TaskPriority priority) {
+        NamedTask task = namedTasks.computeIfAbsent(fullName, name -> new NamedTask(name, priority));
 
         task.sheduleWithQuitePeriod(cmd, queitPeriod, unit);
 
-        if (tickGuard.compareAndSet(false, true)) {
-            for (int i = 0; i < POOL_SIZE; i++) {
-                int threadNo = i;
+        trigger(task);
+    }
 
-                int period = 15000 + ThreadLocalRandom.current().nextInt(10000);
-                service().scheduleAtFixedRate(() -> checkNamedTasks(threadNo), 0, period, TimeUnit.MILLISECONDS);
-            }
-        }
+    /**
+     * Schedules trigger for the time task becomes due, if there is no earlier trigger.
+     *
+     * @param task Task.
+     */
+    private void trigger(NamedTask task) {
+        long fireTs = task.nextFireTs();
+
+        if (fireTs == Long.MAX_VALUE || !task.reserveTrigger(fireTs))
+            return;
+
+        long delay = Math.max(0, fireTs - System.currentTimeMillis());
+
+        timer.schedule(() -> {
+            task.releaseTrigger(fireTs);
+
+            executor(task.priority()).execute(() -> runNamedTask(task.name()));
+        }, delay, TimeUnit.MILLISECONDS);
     }
 
     /**
+     * Runs named task if it is still due, schedules next trigger if task was requested again.
      *
-     * @param threadNo
+     * @param fullName Task name.
      */
     @SuppressWarnings({"UnusedReturnValue", "WeakerAccess"})
-    @MonitoredTask(name = "Scheduled, runner", nameExtArgIndex = 0)
-    protected String checkNamedTasks(int threadNo) {
-        AtomicInteger run = new AtomicInteger();
-        List<Throwable> problems = new ArrayList<>();
-        namedTasks.forEach((s, task) -> {
-            try {
-                Runnable runnable = task.runIfNeeded();
-                if (runnable != null)
-                    run.incrementAndGet();
-            } catch (Exception e) {
-                logger.error("Background task [" + s + "] execution failure: " + e.getMessage(), e);
-                problems.add(e);
-            }
-        });
+    @MonitoredTask(name = "Scheduled", nameExtArgIndex = 0)
+    protected String runNamedTask(String fullName) {
+        NamedTask task = namedTasks.get(fullName);
 
-        return "Finished " + run.get() + " task(s) " + (problems.isEmpty() ? "" : (", exceptions: " + problems.toString()));
+        if (task == null)
+            return "Task not found";
+
+        try {
+            return task.runIfNeeded() != null ? "Finished" : "Skipped";
+        }
+        catch (Exception e) {
+            logger.error("Background task [" + fullName + "] execution failure: " + e.getMessage(), e);
+
+            return "Failed: " + e;
+        }
+        finally {
+            trigger(task);
+        }
     }
 
     /** {@inheritDoc} */
     @Override public void stop() {
-        if (executorSvc != null) {
-            executorSvc.shutdown();
-            try {
-                if(!executorSvc.awaitTermination(10, TimeUnit.SECONDS))
-                    executorSvc.shutdownNow();
-            }
-            catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+        timer.shutdownNow();
+
+        executors.values().forEach(ExecutorService::shutdown);
+
+        try {
+            for (ExecutorService executor : executors.values()) {
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS))
+                    executor.shutdownNow();
             }
         }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
-     *
+     * @param priority Priority.
      */
-    private ScheduledExecutorService service() {
-        return Preconditions.checkNotNull(executorSvc, "Service should be created");
+    private ExecutorService executor(TaskPriority priority) {
+        return Preconditions.checkNotNull(executors.get(priority), "Service should be created");
     }
 }
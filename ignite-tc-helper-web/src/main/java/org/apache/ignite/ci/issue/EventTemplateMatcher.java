@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.issue;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.ignite.ci.analysis.RunStat.RunStatus;
+
+/**
+ * Detects event templates in run history by bit-parallel matching (Shift-And): templates are packed to 64-bit words,
+ * each template position is a bit. For each run the word is shifted by one position and masked by positions allowing
+ * status of the run, so all templates of the word are checked in one pass over history.
+ */
+public class EventTemplateMatcher {
+    /** Max status code of run history, see {@link RunStatus}. */
+    private static final int MAX_STATUS = RunStatus.RES_CRITICAL_FAILURE.getCode();
+
+    /** Templates. */
+    private final List<EventTemplate> templates;
+
+    /** Word of each template. */
+    private final int[] wordOf;
+
+    /** Length of each template. */
+    private final int[] lengths;
+
+    /** Word -> Status -> Positions allowing this status. */
+    private final long[][] statusMasks;
+
+    /** Word -> First positions of templates. */
+    private final long[] starts;
+
+    /** Word -> Last positions of templates. */
+    private final long[] ends;
+
+    /** Word -> Bit of last position -> Template index. */
+    private final int[][] templateByEnd;
+
+    /**
+     * @param templates Templates, each one should be not longer than 64 runs.
+     */
+    public EventTemplateMatcher(List<EventTemplate> templates) {
+        this.templates = new ArrayList<>(templates);
+
+        int cnt = templates.size();
+
+        wordOf = new int[cnt];
+        lengths = new int[cnt];
+
+        int words = 0;
+        int bit = Long.SIZE;
+
+        for (int t = 0; t < cnt; t++) {
+            int len = templates.get(t).cntEvents();
+
+            Preconditions.checkArgument(len > 0 && len <= Long.SIZE, "Unsupported template length: " + len);
+
+            if (bit + len > Long.SIZE) {
+                words++;
+                bit = 0;
+            }
+
+            wordOf[t] = words - 1;
+            lengths[t] = len;
+            bit += len;
+        }
+
+        statusMasks = new long[words][MAX_STATUS + 1];
+        starts = new long[words];
+        ends = new long[words];
+        templateByEnd = new int[words][Long.SIZE];
+
+        int[] wordBits = new int[words];
+
+        for (int t = 0; t < cnt; t++) {
+            EventTemplate template = templates.get(t);
+            int w = wordOf[t];
+            int first = wordBits[w];
+            int pos = first;
+
+            for (int code : template.beforeEvent())
+                addPosition(w, pos++, code);
+
+            for (int code : template.eventAndAfter())
+                addPosition(w, pos++, code);
+
+            starts[w] |= 1L << first;
+            ends[w] |= 1L << (pos - 1);
+            templateByEnd[w][pos - 1] = t;
+            wordBits[w] = pos;
+        }
+    }
+
+    /**
+     * @param w Word.
+     * @param pos Bit of position.
+     * @param code Template code, see {@link RunStatus}.
+     */
+    private void addPosition(int w, int pos, int code) {
+        for (int status = 0; status <= MAX_STATUS; status++) {
+            boolean allowed = code == RunStatus.RES_OK_OR_FAILURE.getCode()
+                ? status == RunStatus.RES_OK.getCode() || status == RunStatus.RES_FAILURE.getCode()
+                : status == code;
+
+            if (allowed)
+                statusMasks[w][status] |= 1L << pos;
+        }
+    }
+
+    /**
+     * @param template Template.
+     * @return Index of template in this matcher, or -1 if template is not known.
+     */
+    public int indexOf(EventTemplate template) {
+        for (int t = 0; t < templates.size(); t++) {
+            if (templates.get(t) == template)
+                return t;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Matches template by shared matcher of {@link EventTemplates#templates}, or by separate one if template is not
+     * known.
+     *
+     * @param t Template.
+     * @param hist Run status codes from oldest to newest run, see {@link RunStatus}.
+     * @param allRunsKept {@code True} if history contains all runs registered.
+     * @return index in history of the first event of template, or -1 if template was not found.
+     */
+    public static int eventIndex(EventTemplate t, int[] hist, boolean allRunsKept) {
+        int centralEvtBuild = t.beforeEvent().length;
+
+        assert centralEvtBuild < t.cntEvents();
+        assert centralEvtBuild >= 0;
+
+        if (hist.length < t.cntEvents())
+            return -1;
+
+        EventTemplateMatcher matcher = EventTemplates.matcher;
+        int tIdx = matcher.indexOf(t);
+
+        if (tIdx < 0) {
+            matcher = new EventTemplateMatcher(Collections.singletonList(t));
+            tIdx = 0;
+        }
+
+        int off = matcher.match(hist, allRunsKept)[tIdx];
+
+        return off < 0 ? -1 : off + centralEvtBuild;
+    }
+
+    /**
+     * Matches all {@link EventTemplates#templates} by shared matcher in one pass over history.
+     *
+     * @param hist Run status codes from oldest to newest run, see {@link RunStatus}.
+     * @param allRunsKept {@code True} if history contains all runs registered.
+     * @return Template -> index in history of the first event of template, for templates found.
+     */
+    public static Map<EventTemplate, Integer> eventIndexes(int[] hist, boolean allRunsKept) {
+        EventTemplateMatcher matcher = EventTemplates.matcher;
+        int[] offs = matcher.match(hist, allRunsKept);
+        Map<EventTemplate, Integer> res = new IdentityHashMap<>();
+
+        for (int t = 0; t < offs.length; t++) {
+            EventTemplate template = matcher.templates.get(t);
+
+            if (offs[t] >= 0)
+                res.put(template, offs[t] + template.beforeEvent().length);
+        }
+
+        return res;
+    }
+
+    /**
+     * @param hist Run status codes from oldest to newest run, see {@link RunStatus}.
+     * @param allRunsKept {@code True} if history contains all runs registered, required to match templates which
+     * should be first in history.
+     * @return Offset in history of match for each template, or -1 if template was not found. The most recent match is
+     * returned, templates which should be first are matched at offset 0 only.
+     */
+    public int[] match(int[] hist, boolean allRunsKept) {
+        int[] res = new int[templates.size()];
+
+        Arrays.fill(res, -1);
+
+        for (int w = 0; w < starts.length; w++) {
+            long[] masks = statusMasks[w];
+            long state = 0;
+
+            for (int i = 0; i < hist.length; i++) {
+                int status = hist[i];
+                long mask = status >= 0 && status <= MAX_STATUS ? masks[status] : 0;
+
+                state = ((state << 1) | starts[w]) & mask;
+
+                long matched = state & ends[w];
+
+                while (matched != 0) {
+                    int t = templateByEnd[w][Long.numberOfTrailingZeros(matched)];
+                    int off = i - lengths[t] + 1;
+
+                    matched &= matched - 1;
+
+                    if (!templates.get(t).shouldBeFirst())
+                        res[t] = off;
+                    else if (off == 0 && allRunsKept)
+                        res[t] = 0;
+                }
+            }
+        }
+
+        return res;
+    }
+}
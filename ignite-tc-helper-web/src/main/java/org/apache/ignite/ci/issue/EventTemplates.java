@@ -58,8 +58,13 @@ public class EventTemplates {
 
     public static ArrayList<EventTemplate> templates;
 
+    /** Matcher of all templates above, detects them in one pass over run history. */
+    public static EventTemplateMatcher matcher;
+
     static {
         templates = Lists.newArrayList(newFailure, newCriticalFailure, fixOfFailure,
             newContributedTestFailure, newFailureForFlakyTest);
+
+        matcher = new EventTemplateMatcher(templates);
     }
 }
@@ -41,6 +41,7 @@ import org.apache.ignite.ci.teamcity.ignited.ITeamcityIgnitedProvider;
 import org.apache.ignite.ci.teamcity.ignited.change.ChangeCompacted;
 import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
 import org.apache.ignite.ci.teamcity.restcached.ITcServerProvider;
+import org.apache.ignite.ci.analysis.IRunHistory;
 import org.apache.ignite.ci.analysis.RunStat;
 import org.apache.ignite.ci.analysis.SuiteInBranch;
 import org.apache.ignite.ci.analysis.TestInBranch;
@@ -265,17 +266,19 @@ public class IssueDetector {
 
         SuiteInBranch key = new SuiteInBranch(suiteId, normalizeBranch);
 
-        RunStat runStat = teamcity.getBuildFailureRunStatProvider().apply(key);
+        IRunHistory runHist = tcIgnited.getSuiteRunHist(key);
 
-        if (runStat == null)
+        if (runHist == null)
+            runHist = teamcity.getBuildFailureRunStatProvider().apply(key);
+
+        if (runHist == null)
             return false;
 
         boolean issueFound = false;
 
-        RunStat.TestId firstFailedTestId = runStat.detectTemplate(EventTemplates.newCriticalFailure);
+        Integer firstFailedBuildId = runHist.detectTemplates().get(EventTemplates.newCriticalFailure);
 
-        if (firstFailedTestId != null && suiteFailure.hasCriticalProblem != null && suiteFailure.hasCriticalProblem) {
-            int firstFailedBuildId = firstFailedTestId.getBuildId();
+        if (firstFailedBuildId != null && suiteFailure.hasCriticalProblem != null && suiteFailure.hasCriticalProblem) {
             IssueKey issueKey = new IssueKey(srvId, firstFailedBuildId, suiteId);
 
             if (issuesStorage.cache().containsKey(issueKey))
@@ -302,7 +305,7 @@ public class IssueDetector {
     private void locateChanges(ITeamcityIgnited teamcity, int buildId, Issue issue) {
         final FatBuildCompacted fatBuild = teamcity.getFatBuild(buildId);
         final int[] changes = fatBuild.changes();
-        final Collection<ChangeCompacted> allChanges = teamcity.getAllChanges(changes);
+        final Collection<ChangeCompacted> allChanges = teamcity.getAllChanges(buildId, changes);
 
         for (ChangeCompacted next : allChanges) {
             issue.addChange(next.vcsUsername(compactor),
@@ -321,41 +324,48 @@ public class IssueDetector {
         TestInBranch testInBranch = new TestInBranch(name, normalizeBranch);
 
         RunStat runStat = teamcity.getTestRunStatProvider().apply(testInBranch);
+        IRunHistory runHist = tcIgnited.getTestRunHist(testInBranch);
+
+        if (runHist == null)
+            runHist = runStat;
 
-        if (runStat == null)
+        if (runHist == null)
             return false;
 
-        RunStat.TestId firstFailedTestId;
+        Map<EventTemplate, Integer> detected = runHist.detectTemplates();
+        Integer firstFailedBuildId;
         String displayType = null;
 
-        firstFailedTestId = runStat.detectTemplate(EventTemplates.newContributedTestFailure);
+        firstFailedBuildId = detected.get(EventTemplates.newContributedTestFailure);
 
-        if (firstFailedTestId != null)
+        if (firstFailedBuildId != null)
             displayType = "Recently contributed test failed";
 
-        if (firstFailedTestId == null) {
-            firstFailedTestId = runStat.detectTemplate(EventTemplates.newFailure);
+        if (firstFailedBuildId == null) {
+            firstFailedBuildId = detected.get(EventTemplates.newFailure);
 
-            if (firstFailedTestId != null) {
+            if (firstFailedBuildId != null) {
                 displayType = "New test failure";
-                final String flakyComments = runStat.getFlakyComments();
+
+                // Changes of runs are known only by run statistics.
+                final String flakyComments = runStat == null ? null : runStat.getFlakyComments();
 
                 if (!Strings.isNullOrEmpty(flakyComments)) {
-                    if (runStat.detectTemplate(EventTemplates.newFailureForFlakyTest) == null) {
+                    if (!detected.containsKey(EventTemplates.newFailureForFlakyTest)) {
                         logger.info("Skipping registering new issue for test fail:" +
                                 " Test seems to be flaky " + name + ": " + flakyComments);
 
-                        firstFailedTestId = null;
+                        firstFailedBuildId = null;
                     } else
                         displayType = "New stable failure of a flaky test";
                 }
             }
         }
 
-        if (firstFailedTestId == null)
+        if (firstFailedBuildId == null)
             return false;
 
-        int buildId = firstFailedTestId.getBuildId();
+        int buildId = firstFailedBuildId;
 
         IssueKey issueKey = new IssueKey(srvId, buildId, name);
 
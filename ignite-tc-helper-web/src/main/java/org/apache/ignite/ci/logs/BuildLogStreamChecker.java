@@ -42,13 +42,28 @@ public class BuildLogStreamChecker {
         Reader reader = new InputStreamReader(zipInputStream, StandardCharsets.UTF_8);
 
         try (Stream<String> lines = new BufferedReader(reader).lines()) {
-            lines.forEach(line -> lineHandlersList.forEach(h -> h.accept(line, zipFile)));
+            lines.forEach(line -> dispatch(line, zipFile));
         }
         finally {
             lineHandlersList.forEach(this::closeSilent);
         }
     }
 
+    /**
+     * Classifies line once and passes it to handlers interested in patterns found.
+     *
+     * @param line Line.
+     * @param file File.
+     */
+    private void dispatch(String line, File file) {
+        long matched = LogPatterns.classify(line);
+
+        for (ILineHandler hnd : lineHandlersList) {
+            if (hnd.isInterested(matched))
+                hnd.accept(line, matched, file);
+        }
+    }
+
     private void closeSilent(ILineHandler handler) {
         try {
             handler.close();
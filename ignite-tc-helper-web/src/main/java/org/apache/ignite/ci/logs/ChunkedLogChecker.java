@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.logs;
+
+import com.google.common.base.Throwables;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits log stream into chunks starting at test boundaries and analyzes chunks in parallel. Each chunk is processed
+ * by its own handler instance, so handlers should not keep state across tests. Handlers requiring whole stream (e.g.
+ * thread dump collector) are applied sequentially by reading thread.
+ *
+ * Use one instance per one stream, class is stateful and not thread safe.
+ *
+ * @param <H> Chunk handler type.
+ */
+public class ChunkedLogChecker<H extends ILineHandler> {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedLogChecker.class);
+
+    /** Min lines in chunk: chunk is completed at next test start after this count is reached. */
+    public static final int CHUNK_MIN_LINES = 16 * 1024;
+
+    /** Log specific. */
+    private static final ILogProductSpecific logSpecific = new LogIgniteSpecific();
+
+    /** Executor for chunks processing. */
+    private final Executor executor;
+
+    /** Max chunks submitted and not yet processed, limits memory used if reading is faster than processing. */
+    private final int maxInFlight;
+
+    /** Chunk handler factory. */
+    private final Supplier<H> chunkHndFactory;
+
+    /** Sequential handlers. */
+    private final List<ILineHandler> seqHandlers;
+
+    /** Chunks processing futures, in order of lines. */
+    private final List<CompletableFuture<H>> chunks = new ArrayList<>();
+
+    /** Chunks submitted and probably not yet processed. */
+    private final Deque<CompletableFuture<H>> inFlight = new ArrayDeque<>();
+
+    /** Lines of current chunk. */
+    private List<String> lines = new ArrayList<>();
+
+    /** Patterns of lines of current chunk. */
+    private long[] matched = new long[CHUNK_MIN_LINES];
+
+    /**
+     * @param executor Executor for chunks processing.
+     * @param maxInFlight Max chunks submitted and not yet processed.
+     * @param chunkHndFactory Chunk handler factory.
+     * @param seqHandlers Handlers to be applied to all lines sequentially.
+     */
+    public ChunkedLogChecker(Executor executor, int maxInFlight, Supplier<H> chunkHndFactory,
+        ILineHandler... seqHandlers) {
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.chunkHndFactory = chunkHndFactory;
+        this.seqHandlers = Arrays.asList(seqHandlers);
+    }
+
+    /**
+     * Reads stream till the end, stream is not closed.
+     *
+     * @param is Input stream.
+     * @param file File to be passed to handlers.
+     * @return Chunk handlers, closed, in order of lines processed.
+     */
+    public List<H> apply(InputStream is, File file) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+
+        try {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                long lineMatched = LogPatterns.classify(line);
+
+                for (ILineHandler hnd : seqHandlers) {
+                    if (hnd.isInterested(lineMatched))
+                        hnd.accept(line, lineMatched, file);
+                }
+
+                if (lines.size() >= CHUNK_MIN_LINES && logSpecific.isTestStarting(lineMatched))
+                    submitChunk(file);
+
+                if (lines.size() == matched.length)
+                    matched = Arrays.copyOf(matched, matched.length * 2);
+
+                matched[lines.size()] = lineMatched;
+                lines.add(line);
+            }
+
+            if (!lines.isEmpty())
+                submitChunk(file);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            seqHandlers.forEach(this::closeSilent);
+        }
+
+        try {
+            return chunks.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        }
+        catch (CompletionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+
+            throw e;
+        }
+    }
+
+    /**
+     * Submits current chunk to executor, waits for oldest chunk if too many chunks are in flight.
+     *
+     * @param file File.
+     */
+    private void submitChunk(File file) {
+        List<String> chunkLines = lines;
+        long[] chunkMatched = matched;
+
+        lines = new ArrayList<>();
+        matched = new long[CHUNK_MIN_LINES];
+
+        while (inFlight.size() >= maxInFlight)
+            inFlight.poll().join();
+
+        CompletableFuture<H> fut = CompletableFuture.supplyAsync(
+            () -> processChunk(chunkLines, chunkMatched, file), executor);
+
+        chunks.add(fut);
+        inFlight.add(fut);
+    }
+
+    /**
+     * @param chunkLines Lines.
+     * @param chunkMatched Patterns found in lines.
+     * @param file File.
+     */
+    private H processChunk(List<String> chunkLines, long[] chunkMatched, File file) {
+        H hnd = chunkHndFactory.get();
+
+        try {
+            for (int i = 0; i < chunkLines.size(); i++) {
+                if (hnd.isInterested(chunkMatched[i]))
+                    hnd.accept(chunkLines.get(i), chunkMatched[i], file);
+            }
+        }
+        finally {
+            closeSilent(hnd);
+        }
+
+        return hnd;
+    }
+
+    private void closeSilent(ILineHandler hnd) {
+        try {
+            hnd.close();
+        }
+        catch (Exception e) {
+            logger.error("Problem with line handler release: " + e.getMessage(), e);
+        }
+    }
+}
@@ -24,4 +24,23 @@ import java.io.File;
  */
 public interface ILineHandler extends AutoCloseable {
     public void accept(String line, File file);
+
+    /**
+     * Accepts line already classified by {@link LogPatterns}, handlers may override to avoid substring search.
+     *
+     * @param line Line.
+     * @param matched Mask of {@link LogPatterns} found in line.
+     * @param file File.
+     */
+    public default void accept(String line, long matched, File file) {
+        accept(line, file);
+    }
+
+    /**
+     * @param matched Mask of {@link LogPatterns} found in line.
+     * @return {@code False} if line may be skipped by this handler in its current state.
+     */
+    public default boolean isInterested(long matched) {
+        return true;
+    }
 }
@@ -30,4 +30,14 @@ public interface ILogProductSpecific {
      * @param line Line.
      */
     public boolean isTestStopping(String line);
+
+    /**
+     * @param matched Mask of {@link LogPatterns} found in line.
+     */
+    public boolean isTestStarting(long matched);
+
+    /**
+     * @param matched Mask of {@link LogPatterns} found in line.
+     */
+    public boolean isTestStopping(long matched);
 }
@@ -27,18 +27,33 @@ import org.apache.ignite.ci.tcmodel.result.problems.ProblemOccurrence;
     //todo include test name
     //todo add NPE
 public class LogMsgToWarn {
-
-    private static final String JAVA_LEVEL_DEADLOCK_TXT = " Java-level deadlock:";
+    /** Patterns requiring warning. */
+    private static final long WARN_PATTERNS = LogPatterns.ASSERTION_ERROR
+        | LogPatterns.JAVA_LEVEL_DEADLOCK
+        | LogPatterns.CRITICAL_FAILURE;
 
     public static boolean needWarn(String line) {
-        return line.contains("java.lang.AssertionError:")
-            || line.contains(JAVA_LEVEL_DEADLOCK_TXT)
-            || line.contains("Critical failure. Will be handled accordingly to configured handler");
+        return needWarn(LogPatterns.classify(line));
+    }
+
+    /**
+     * @param matched Mask of {@link LogPatterns} found in line.
+     */
+    public static boolean needWarn(long matched) {
+        return LogPatterns.hasAny(matched, WARN_PATTERNS);
     }
 
     @Nullable
     public static String getProblemCode(String line) {
-        if(line.contains(JAVA_LEVEL_DEADLOCK_TXT))
+        return getProblemCode(LogPatterns.classify(line));
+    }
+
+    /**
+     * @param matched Mask of {@link LogPatterns} found in line.
+     */
+    @Nullable
+    public static String getProblemCode(long matched) {
+        if (LogPatterns.hasAny(matched, LogPatterns.JAVA_LEVEL_DEADLOCK))
             return ProblemOccurrence.JAVA_LEVEL_DEADLOCK;
 
         return null;
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.logs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Substrings searched in build log lines by handlers. All patterns are compiled to one shared automaton, so each line
+ * is classified in a single pass; handlers check bits of {@link #classify(String)} result instead of calling
+ * {@link String#contains(CharSequence)}.
+ */
+public class LogPatterns {
+    /** Patterns registered, index of pattern is its bit. */
+    private static final List<String> patterns = new ArrayList<>();
+
+    /** Starting test. */
+    public static final long STARTING_TEST = register(">>> Starting test: ");
+
+    /** Test name end. */
+    public static final long TEST_NAME_END = register(" <<<");
+
+    /** Stopping test. */
+    public static final long STOPPING_TEST = register(">>> Stopping test: ");
+
+    /** Assertion error. */
+    public static final long ASSERTION_ERROR = register("java.lang.AssertionError:");
+
+    /** Java level deadlock. */
+    public static final long JAVA_LEVEL_DEADLOCK = register(" Java-level deadlock:");
+
+    /** Critical failure detected by Ignite failure handler. */
+    public static final long CRITICAL_FAILURE = register("Critical failure. Will be handled accordingly to configured handler");
+
+    /** Test timed out. */
+    public static final long TEST_TIMED_OUT = register("Test has been timed out [");
+
+    /** Thread dump start. */
+    public static final long FULL_THREAD_DUMP = register("Full thread dump ");
+
+    /** Matcher for all patterns. */
+    private static final MultiPatternMatcher MATCHER = new MultiPatternMatcher(patterns.toArray(new String[0]));
+
+    /**
+     * @param pattern Pattern.
+     * @return bit for pattern.
+     */
+    private static long register(String pattern) {
+        patterns.add(pattern);
+
+        return 1L << (patterns.size() - 1);
+    }
+
+    /**
+     * @param line Line.
+     * @return mask of patterns found in line.
+     */
+    public static long classify(String line) {
+        return MATCHER.match(line);
+    }
+
+    /**
+     * @param matched Mask of patterns found in line.
+     * @param patterns Mask of patterns required.
+     * @return {@code True} if all patterns required were found.
+     */
+    public static boolean hasAll(long matched, long patterns) {
+        return (matched & patterns) == patterns;
+    }
+
+    /**
+     * @param matched Mask of patterns found in line.
+     * @param patterns Mask of patterns.
+     * @return {@code True} if any of patterns was found.
+     */
+    public static boolean hasAny(long matched, long patterns) {
+        return (matched & patterns) != 0;
+    }
+}
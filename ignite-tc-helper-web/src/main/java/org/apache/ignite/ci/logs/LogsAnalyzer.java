@@ -52,7 +52,7 @@ public class LogsAnalyzer implements Function<File, File> {
     /** {@inheritDoc} */
     @Override public File apply(File file) {
         try (Stream<String> lines = Files.lines(file.toPath(), StandardCharsets.UTF_8)) {
-            lines.forEach(line -> lineHandlersList.forEach(h -> h.accept(line, file)));
+            lines.forEach(line -> dispatch(line, file));
         }
         catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -62,6 +62,21 @@ public class LogsAnalyzer implements Function<File, File> {
         return file;
     }
 
+    /**
+     * Classifies line once and passes it to handlers interested in patterns found.
+     *
+     * @param line Line.
+     * @param file File.
+     */
+    private void dispatch(String line, File file) {
+        long matched = LogPatterns.classify(line);
+
+        for (ILineHandler hnd : lineHandlersList) {
+            if (hnd.isInterested(matched))
+                hnd.accept(line, matched, file);
+        }
+    }
+
     private void closeSilent(ILineHandler hnd) {
         try {
             hnd.close();
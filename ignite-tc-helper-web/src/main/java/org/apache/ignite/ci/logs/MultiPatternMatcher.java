@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.logs;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton for searching up to 64 substrings in a line in one pass. Automaton is compiled to
+ * deterministic transitions table over classes of chars used in patterns, so each char of line is processed by two
+ * array lookups regardless of patterns count. Instance is immutable and thread safe.
+ */
+public class MultiPatternMatcher {
+    /** Max patterns count: result of match is a bit mask. */
+    public static final int MAX_PATTERNS = Long.SIZE;
+
+    /** ASCII chars count. */
+    private static final int ASCII = 128;
+
+    /** Root state. */
+    private static final int ROOT = 0;
+
+    /** Char class for ASCII chars, 0 is class of chars absent in all patterns. */
+    private final int[] asciiCls = new int[ASCII];
+
+    /** Char class for non-ASCII chars present in patterns. */
+    private final Map<Character, Integer> otherCls = new HashMap<>();
+
+    /** Classes count, including 0 class. */
+    private final int clsCnt;
+
+    /** Transitions: state * {@link #clsCnt} + char class -> next state. */
+    private final int[] delta;
+
+    /** State -> Mask of patterns ending in this state (including patterns ending in suffixes of state). */
+    private final long[] out;
+
+    /**
+     * @param patterns Patterns, bit {@code i} in result of {@link #match(CharSequence)} corresponds to
+     * {@code patterns[i]}.
+     */
+    public MultiPatternMatcher(String... patterns) {
+        Preconditions.checkArgument(patterns.length <= MAX_PATTERNS, "Too many patterns: " + patterns.length);
+
+        int cls = 1;
+        int maxStates = 1;
+
+        for (String pattern : patterns) {
+            Preconditions.checkArgument(!Strings.isNullOrEmpty(pattern), "Empty pattern");
+
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+
+                if (charClass(c) == 0) {
+                    if (c < ASCII)
+                        asciiCls[c] = cls++;
+                    else
+                        otherCls.put(c, cls++);
+                }
+            }
+
+            maxStates += pattern.length();
+        }
+
+        clsCnt = cls;
+
+        int[] trans = new int[maxStates * clsCnt];
+        long[] outs = new long[maxStates];
+
+        Arrays.fill(trans, -1);
+
+        int states = 1;
+
+        for (int p = 0; p < patterns.length; p++) {
+            String pattern = patterns[p];
+            int state = ROOT;
+
+            for (int i = 0; i < pattern.length(); i++) {
+                int idx = state * clsCnt + charClass(pattern.charAt(i));
+
+                if (trans[idx] < 0)
+                    trans[idx] = states++;
+
+                state = trans[idx];
+            }
+
+            outs[state] |= 1L << p;
+        }
+
+        int[] fail = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+
+        for (int c = 0; c < clsCnt; c++) {
+            int next = trans[ROOT * clsCnt + c];
+
+            if (next < 0)
+                trans[ROOT * clsCnt + c] = ROOT;
+            else {
+                fail[next] = ROOT;
+                queue.add(next);
+            }
+        }
+
+        // Breadth-first order guarantees transitions of failure state are already complete.
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+
+            outs[state] |= outs[fail[state]];
+
+            for (int c = 0; c < clsCnt; c++) {
+                int idx = state * clsCnt + c;
+                int viaFail = trans[fail[state] * clsCnt + c];
+
+                if (trans[idx] < 0)
+                    trans[idx] = viaFail;
+                else {
+                    fail[trans[idx]] = viaFail;
+                    queue.add(trans[idx]);
+                }
+            }
+        }
+
+        delta = Arrays.copyOf(trans, states * clsCnt);
+        out = Arrays.copyOf(outs, states);
+    }
+
+    /**
+     * @param c Char.
+     * @return class of char, 0 if char is not used in patterns.
+     */
+    private int charClass(char c) {
+        if (c < ASCII)
+            return asciiCls[c];
+
+        if (otherCls.isEmpty())
+            return 0;
+
+        Integer cls = otherCls.get(c);
+
+        return cls == null ? 0 : cls;
+    }
+
+    /**
+     * @param line Line.
+     * @return mask of patterns found in line: bit {@code i} is set if line contains pattern {@code i}.
+     */
+    public long match(CharSequence line) {
+        int state = ROOT;
+        long res = 0;
+
+        for (int i = 0; i < line.length(); i++) {
+            state = delta[state * clsCnt + charClass(line.charAt(i))];
+
+            res |= out[state];
+        }
+
+        return res;
+    }
+}
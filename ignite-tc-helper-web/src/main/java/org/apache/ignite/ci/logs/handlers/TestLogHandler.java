@@ -29,6 +29,7 @@ import org.apache.ignite.ci.logs.ILineHandler;
 import org.apache.ignite.ci.logs.ILogProductSpecific;
 import org.apache.ignite.ci.logs.LogIgniteSpecific;
 import org.apache.ignite.ci.logs.LogMsgToWarn;
+import org.apache.ignite.ci.logs.LogPatterns;
 
 /**
  * Use one instance per one file, class is statefull and not thread safe
@@ -55,11 +56,25 @@ public class TestLogHandler implements ILineHandler {
     /** Result. */
     private LogCheckResult res = new LogCheckResult();
 
+    /** {@inheritDoc} */
     @Override public void accept(String line, File fromLogFile) {
+        long matched = LogPatterns.classify(line);
+
+        if (isInterested(matched))
+            accept(line, matched, fromLogFile);
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean isInterested(long matched) {
+        return currentTestName != null || logSpecific.isTestStarting(matched);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void accept(String line, long matched, File fromLogFile) {
         if (workFolder == null)
             workFolder = fromLogFile.getParentFile();
 
-        if (logSpecific.isTestStarting(line)) {
+        if (logSpecific.isTestStarting(matched)) {
             if (currentTestName != null) {
                 currentTestName = null;
                 curTestLog.clear();
@@ -69,7 +84,7 @@ public class TestLogHandler implements ILineHandler {
 
             this.currentTestName = startTest;
         }
-        else if (currentTestName != null && logSpecific.isTestStopping(line)) {
+        else if (currentTestName != null && logSpecific.isTestStopping(matched)) {
             //currentTestName = null;
             //curTestLog.clear();
         }
@@ -80,10 +95,10 @@ public class TestLogHandler implements ILineHandler {
         if(SAVE_LOG_STAT)
             curTest().addLineStat(line);
 
-        if (LogMsgToWarn.needWarn(line))
+        if (LogMsgToWarn.needWarn(matched))
             curTest().addWarning(line);
 
-        String problemCode = LogMsgToWarn.getProblemCode(line);
+        String problemCode = LogMsgToWarn.getProblemCode(matched);
 
         if (problemCode != null)
             res.addProblem(problemCode);
@@ -94,7 +109,7 @@ public class TestLogHandler implements ILineHandler {
         curTestLog.add(line);
 
         if (currentTestName != null) {
-            if (line.contains("Test has been timed out [")) {
+            if (LogPatterns.hasAny(matched, LogPatterns.TEST_TIMED_OUT)) {
                 dumpCurrentToFile("timedOut_");
                 currentTestName = null;
                 curTestLog.clear();
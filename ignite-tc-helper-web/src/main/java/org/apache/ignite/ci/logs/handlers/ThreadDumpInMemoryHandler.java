@@ -20,6 +20,7 @@ package org.apache.ignite.ci.logs.handlers;
 import java.io.File;
 import javax.annotation.Nullable;
 import org.apache.ignite.ci.logs.ILineHandler;
+import org.apache.ignite.ci.logs.LogPatterns;
 
 /**
  * Saves last observed thread dump. Use one instance per one file, class is stateful and not thread safe
@@ -31,8 +32,19 @@ public class ThreadDumpInMemoryHandler implements ILineHandler {
 
     private String lastThreadDump = null;
 
+    /** {@inheritDoc} */
     @Override public void accept(String line, File fromLogFile) {
-        if (currentThDump == null && line.contains(FULL_THREAD_DUMP))
+        accept(line, LogPatterns.classify(line), fromLogFile);
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean isInterested(long matched) {
+        return currentThDump != null || LogPatterns.hasAny(matched, LogPatterns.FULL_THREAD_DUMP);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void accept(String line, long matched, File fromLogFile) {
+        if (currentThDump == null && LogPatterns.hasAny(matched, LogPatterns.FULL_THREAD_DUMP))
             currentThDump = new StringBuilder();
 
         if (line.startsWith("["))
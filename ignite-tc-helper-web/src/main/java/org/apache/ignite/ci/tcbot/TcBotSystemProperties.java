@@ -21,4 +21,6 @@ public class TcBotSystemProperties {
     public static final String DEV_MODE = "DEV_MODE";
     public static final String TEAMCITY_BOT_RECORDER_URLS = "teamcity.bot.recorder.urls";
     public static final String TEAMCITY_BOT_RECORDER = "teamcity.bot.recorder";
+    /** Disables concurrent loading of build sub-resources (tests, problems, changes, etc.) during sync. */
+    public static final String TEAMCITY_BOT_SYNC_SEQUENTIAL = "teamcity.bot.sync.sequential";
 }
@@ -19,7 +19,9 @@ package org.apache.ignite.ci.tcbot.chain;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -35,8 +37,8 @@ import javax.inject.Inject;
 import org.apache.ignite.ci.IAnalyticsEnabledTeamcity;
 import org.apache.ignite.ci.ITeamcity;
 import org.apache.ignite.ci.analysis.FullChainRunCtx;
+import org.apache.ignite.ci.analysis.IRunHistory;
 import org.apache.ignite.ci.analysis.MultBuildRunCtx;
-import org.apache.ignite.ci.analysis.RunStat;
 import org.apache.ignite.ci.analysis.SingleBuildRunCtx;
 import org.apache.ignite.ci.analysis.SuiteInBranch;
 import org.apache.ignite.ci.analysis.mode.LatestRebuildMode;
@@ -92,10 +94,16 @@ public class BuildChainProcessor {
 
         Map<Integer, FatBuildCompacted> builds = new ConcurrentHashMap<>();
 
-        final Stream<FatBuildCompacted> entryPointsFatBuilds = entryPoints.stream().map(BuildRef::getId)
+        List<Integer> entryPointsIds = entryPoints.stream().map(BuildRef::getId)
                 .filter(Objects::nonNull)
-                .filter(id -> !builds.containsKey(id)) //load and propagate only new entry points
-                .map(id -> builds.computeIfAbsent(id, teamcityIgnited::getFatBuild));
+                .distinct()
+                .collect(Collectors.toList());
+
+        builds.putAll(teamcityIgnited.getFatBuilds(entryPointsIds));
+
+        final Stream<FatBuildCompacted> entryPointsFatBuilds = entryPointsIds.stream()
+                .map(builds::get)
+                .filter(Objects::nonNull);
 
         final ExecutorService svc = tcUpdatePool.getService();
 
@@ -135,7 +143,10 @@ public class BuildChainProcessor {
             SuiteInBranch key = new SuiteInBranch(ctx.suiteId(), normalizeBranch(failRateBranch));
 
             //todo place RunStat into suite context to compare
-            RunStat runStat = teamcity.getBuildFailureRunStatProvider().apply(key);
+            IRunHistory runStat = teamcityIgnited.getSuiteRunHist(key);
+
+            if (runStat == null)
+                runStat = teamcity.getBuildFailureRunStatProvider().apply(key);
 
             if (runStat == null)
                 return 0f;
@@ -182,7 +193,7 @@ public class BuildChainProcessor {
                                                   ITeamcityIgnited tcIgnited) {
         SingleBuildRunCtx ctx = new SingleBuildRunCtx(buildCompacted, compactor);
 
-        ctx.setChanges(tcIgnited.getAllChanges(buildCompacted.changes()));
+        ctx.setChanges(tcIgnited.getAllChanges(buildCompacted.id(), buildCompacted.changes()));
 
         //todo support storing build.lastChanges.changes) ?
 
@@ -217,10 +228,17 @@ public class BuildChainProcessor {
         }
 
         if (includeLatestRebuild == LatestRebuildMode.ALL) {
-            return hist
+            List<Integer> recentIds = hist
                     .sorted(Comparator.comparing(BuildRefCompacted::id).reversed())
                     .limit(cntLimit)
-                    .map(b -> builds.computeIfAbsent(b.id(), teamcityIgnited::getFatBuild));
+                    .map(BuildRefCompacted::id)
+                    .collect(Collectors.toList());
+
+            loadAbsent(teamcityIgnited, builds, recentIds);
+
+            return recentIds.stream()
+                    .map(builds::get)
+                    .filter(Objects::nonNull);
         }
 
         throw new UnsupportedOperationException("invalid mode " + includeLatestRebuild);
@@ -286,19 +304,47 @@ public class BuildChainProcessor {
             ITeamcityIgnited teamcityIgnited,
             Map<Integer, FatBuildCompacted> builds,
         FatBuildCompacted build) {
-        return Stream.concat(
-            Stream.of(build),
-            IntStream.of(build.snapshotDependencies())
-                .mapToObj(id -> {
-                    if (builds.containsKey(id))
-                        return null; //load and propagate only new dependencies
+        List<Integer> depIds = IntStream.of(build.snapshotDependencies())
+            .boxed()
+            .collect(Collectors.toList());
+
+        //load and propagate only new dependencies
+        Map<Integer, FatBuildCompacted> loaded = loadAbsent(teamcityIgnited, builds, depIds);
+
+        return Stream.concat(Stream.of(build), loaded.values().stream());
+    }
+
+    /**
+     * Loads builds absent in the map using one batch request and puts them into the map.
+     *
+     * @param teamcityIgnited Teamcity ignited.
+     * @param builds Builds already loaded, this map is updated.
+     * @param ids Build IDs required.
+     * @return Builds loaded and put into the map by this call.
+     */
+    private static Map<Integer, FatBuildCompacted> loadAbsent(
+        ITeamcityIgnited teamcityIgnited,
+        Map<Integer, FatBuildCompacted> builds,
+        Collection<Integer> ids) {
+        List<Integer> absent = ids.stream()
+            .filter(id -> !builds.containsKey(id))
+            .distinct()
+            .collect(Collectors.toList());
+
+        if (absent.isEmpty())
+            return Collections.emptyMap();
+
+        Map<Integer, FatBuildCompacted> res = new LinkedHashMap<>();
 
-                    FatBuildCompacted buildLoaded = teamcityIgnited.getFatBuild(id);
+        Map<Integer, FatBuildCompacted> loaded = teamcityIgnited.getFatBuilds(absent);
 
-                    FatBuildCompacted prevVal = builds.putIfAbsent(id, buildLoaded);
+        for (Integer id : absent) {
+            FatBuildCompacted buildLoaded = loaded.get(id);
+
+            if (buildLoaded != null && builds.putIfAbsent(id, buildLoaded) == null)
+                res.put(id, buildLoaded);
+        }
 
-                    return prevVal == null ? buildLoaded : null;
-                }))
-            .filter(Objects::nonNull);
+        return res;
     }
 }
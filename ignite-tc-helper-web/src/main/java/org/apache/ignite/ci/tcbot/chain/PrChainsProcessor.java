@@ -144,7 +144,7 @@ public class PrChainsProcessor {
                     runningUpdates.addAndGet(cnt0);
 
                 //fail rate reference is always default (master)
-                chainStatus.initFromContext(teamcity, ctx, teamcity, baseBranch);
+                chainStatus.initFromContext(teamcity, tcIgnited, ctx, teamcity, baseBranch);
             }
         });
 
@@ -112,7 +112,7 @@ public class TrackedBranchChainsProcessor {
                 if (cnt > 0)
                     runningUpdates.addAndGet(cnt);
 
-                chainStatus.initFromContext(teamcity, ctx, teamcity, baseBranchTc);
+                chainStatus.initFromContext(teamcity, tcIgnited, ctx, teamcity, baseBranchTc);
 
                 return chainStatus;
             })
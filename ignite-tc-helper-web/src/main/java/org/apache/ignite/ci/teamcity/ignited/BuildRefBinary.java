@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.teamcity.ignited;
+
+import org.apache.ignite.binary.BinaryObject;
+
+import static org.apache.ignite.ci.tcmodel.hist.BuildRef.STATE_FINISHED;
+import static org.apache.ignite.ci.tcmodel.hist.BuildRef.STATE_QUEUED;
+import static org.apache.ignite.ci.tcmodel.hist.BuildRef.STATE_RUNNING;
+
+/**
+ * Read-only view of {@link BuildRefCompacted} kept in binary form: fields are read one by one without deserialization
+ * of the whole object. Field names are names of fields of {@link BuildRefCompacted}.
+ */
+public class BuildRefBinary {
+    /** Binary object. */
+    protected final BinaryObject obj;
+
+    /**
+     * @param obj Binary object.
+     */
+    public BuildRefBinary(BinaryObject obj) {
+        this.obj = obj;
+    }
+
+    /** */
+    public int id() {
+        return intField("id");
+    }
+
+    /** */
+    public int buildTypeId() {
+        return intField("buildTypeId");
+    }
+
+    /** */
+    public int branchName() {
+        return intField("branchName");
+    }
+
+    /** */
+    public int status() {
+        return intField("status");
+    }
+
+    /** */
+    public int state() {
+        return intField("state");
+    }
+
+    /**
+     * @param compactor Compactor.
+     * @return {@code True} if build is running.
+     */
+    public boolean isRunning(IStringCompactor compactor) {
+        return hasState(compactor, STATE_RUNNING);
+    }
+
+    /**
+     * @param compactor Compactor.
+     * @return {@code True} if build is finished.
+     */
+    public boolean isFinished(IStringCompactor compactor) {
+        return hasState(compactor, STATE_FINISHED);
+    }
+
+    /**
+     * @param compactor Compactor.
+     * @return {@code True} if build is queued.
+     */
+    public boolean isQueued(IStringCompactor compactor) {
+        return hasState(compactor, STATE_QUEUED);
+    }
+
+    /**
+     * @param compactor Compactor.
+     * @param state State.
+     * @return {@code True} if build is in the state. State not registered in compactor means that no build has it,
+     * so it is not registered by this check.
+     */
+    private boolean hasState(IStringCompactor compactor, String state) {
+        Integer stateId = compactor.getStringIdIfPresent(state);
+
+        return stateId != null && stateId == state();
+    }
+
+    /**
+     * @return Object deserialized.
+     */
+    public <T extends BuildRefCompacted> T deserialize() {
+        return obj.deserialize();
+    }
+
+    /**
+     * @param name Field name.
+     * @return Field value, or -1 if field is absent.
+     */
+    protected int intField(String name) {
+        Integer val = obj.field(name);
+
+        return val == null ? -1 : val;
+    }
+
+    /**
+     * @param name Field name.
+     * @return Field value, or -1 if field is absent.
+     */
+    protected long longField(String name) {
+        Long val = obj.field(name);
+
+        return val == null ? -1L : val;
+    }
+
+    /**
+     * @param name Field name.
+     * @return Field value, or 0 if field is absent.
+     */
+    protected short shortField(String name) {
+        Short val = obj.field(name);
+
+        return val == null ? 0 : val;
+    }
+}
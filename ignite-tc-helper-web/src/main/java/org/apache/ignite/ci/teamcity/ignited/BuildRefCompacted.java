@@ -22,6 +22,7 @@ import org.apache.ignite.cache.query.annotations.QuerySqlField;
 import org.apache.ignite.ci.db.Persisted;
 import org.apache.ignite.ci.tcmodel.hist.BuildRef;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import static org.apache.ignite.ci.tcmodel.hist.BuildRef.*;
 
@@ -54,11 +55,28 @@ public class BuildRefCompacted {
      * @param ref Reference.
      */
     public BuildRefCompacted(IStringCompactor compactor, BuildRef ref) {
-        id = ref.getId() == null ? -1 : ref.getId();
-        buildTypeId = compactor.getStringId(ref.buildTypeId());
-        branchName = compactor.getStringId(ref.branchName());
-        status = compactor.getStringId(ref.status());
-        state = compactor.getStringId(ref.state());
+        this(compactor, ref.getId(), ref.buildTypeId(), ref.branchName(), ref.status(), ref.state());
+    }
+
+    /**
+     * @param compactor Compactor.
+     * @param id Build id.
+     * @param buildTypeId Build type id.
+     * @param branchName Branch name.
+     * @param status Status.
+     * @param state State.
+     */
+    public BuildRefCompacted(IStringCompactor compactor,
+        @Nullable Integer id,
+        @Nullable String buildTypeId,
+        @Nullable String branchName,
+        @Nullable String status,
+        @Nullable String state) {
+        this.id = id == null ? -1 : id;
+        this.buildTypeId = compactor.getStringId(buildTypeId);
+        this.branchName = compactor.getStringId(branchName);
+        this.status = compactor.getStringId(status);
+        this.state = compactor.getStringId(state);
     }
 
     /**
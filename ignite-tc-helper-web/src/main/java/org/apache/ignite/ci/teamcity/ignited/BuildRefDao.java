@@ -18,6 +18,10 @@
 package org.apache.ignite.ci.teamcity.ignited;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -27,19 +31,25 @@ import javax.inject.Inject;
 import javax.inject.Provider;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
 import org.apache.ignite.cache.QueryEntity;
 import org.apache.ignite.cache.query.QueryCursor;
 import org.apache.ignite.cache.query.SqlQuery;
+import org.apache.ignite.ci.db.CacheBulkLoader;
 import org.apache.ignite.ci.db.TcHelperDb;
 import org.apache.ignite.ci.di.AutoProfiling;
-import org.apache.ignite.ci.di.cache.GuavaCached;
+import org.apache.ignite.ci.di.scheduler.IScheduler;
 import org.apache.ignite.ci.tcmodel.hist.BuildRef;
-import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
 import org.apache.ignite.configuration.CacheConfiguration;
 import org.apache.ignite.internal.util.GridIntList;
 import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class BuildRefDao {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(BuildRefDao.class);
+
     /** Cache name */
     public static final String TEAMCITY_BUILD_CACHE_NAME = "teamcityBuildRef";
 
@@ -49,9 +59,33 @@ public class BuildRefDao {
     /** Builds cache. */
     private IgniteCache<Long, BuildRefCompacted> buildRefsCache;
 
+    /** Builds cache, values are kept binary. */
+    private IgniteCache<Long, BinaryObject> buildRefsBinary;
+
     /** Compactor. */
     @Inject private IStringCompactor compactor;
 
+    /** Bulk loader. */
+    @Inject private CacheBulkLoader bulkLoader;
+
+    /** Scheduler. */
+    @Inject private IScheduler scheduler;
+
+    /**
+     * Secondary indexes: Server ID -> index for this server. Filled by {@link #loadIndexes()}, maintained by save
+     * methods since DAO creation, so updates made during load are not lost.
+     */
+    private final ConcurrentMap<Integer, BuildRefIndex> indexes = new ConcurrentHashMap<>();
+
+    /** Load of indexes was scheduled. */
+    private final AtomicBoolean idxLoadScheduled = new AtomicBoolean();
+
+    /** Indexes were filled from the cache. Until then queries use cache scan and SQL query. */
+    private volatile boolean idxLoaded;
+
+    /** Compacted IDs for queued and running states, cached after both strings were registered. */
+    @Nullable private volatile GridIntList activeStatesIds;
+
     /** */
     public void init() {
         CacheConfiguration<Long, BuildRefCompacted> cfg = TcHelperDb.getCacheV2Config(TEAMCITY_BUILD_CACHE_NAME);
@@ -59,24 +93,135 @@ public class BuildRefDao {
         cfg.setQueryEntities(Collections.singletonList(new QueryEntity(Long.class, BuildRefCompacted.class)));
 
         buildRefsCache = igniteProvider.get().getOrCreateCache(cfg);
+        buildRefsBinary = buildRefsCache.withKeepBinary();
+
+        if (idxLoadScheduled.compareAndSet(false, true))
+            scheduler.invokeLater(this::loadIndexes, 0, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Fills secondary indexes for all servers using one full scan of the cache. Performed once for DAO lifetime in
+     * background, so first request does not wait for the scan.
+     */
+    private void loadIndexes() {
+        long start = System.currentTimeMillis();
+        int cnt = 0;
+
+        try {
+            GridIntList activeStates = activeStates();
+
+            for (Cache.Entry<Long, BuildRefCompacted> next : buildRefsCache) {
+                Long key = next.getKey();
+                BuildRefCompacted ref = next.getValue();
+
+                if (key == null || ref == null)
+                    continue;
+
+                index(cacheKeyToSrvId(key)).onLoad(ref, activeStates);
+
+                cnt++;
+            }
+
+            indexes.values().forEach(BuildRefIndex::completeLoad);
+
+            idxLoaded = true;
+
+            logger.info("Build references indexes loaded: " + cnt + " entries, "
+                + (System.currentTimeMillis() - start) + "ms");
+        }
+        catch (Exception e) {
+            logger.error("Failed to load build references indexes, cache scans will be used", e);
+        }
     }
 
     /**
      * @param srvId Server id.
-     * @return all builds for a server, full scan.
+     * @return index for server, it is available for queries only if {@link #idxLoaded} is set.
      */
-    @NotNull protected Stream<BuildRefCompacted> compactedBuildsForServer(int srvId) {
+    private BuildRefIndex index(int srvId) {
+        return indexes.computeIfAbsent(srvId, k -> new BuildRefIndex());
+    }
+
+    /**
+     * @return compacted IDs for queued and running states. State not registered in compactor means there are no
+     * builds in this state.
+     */
+    private GridIntList activeStates() {
+        GridIntList cached = activeStatesIds;
+
+        if (cached != null)
+            return cached;
+
+        Integer stateQueuedId = compactor.getStringIdIfPresent(BuildRef.STATE_QUEUED);
+        Integer stateRunningId = compactor.getStringIdIfPresent(BuildRef.STATE_RUNNING);
+
+        GridIntList list = new GridIntList(2);
+
+        if (stateQueuedId != null)
+            list.add(stateQueuedId);
+
+        if (stateRunningId != null)
+            list.add(stateRunningId);
+
+        if (stateQueuedId != null && stateRunningId != null)
+            activeStatesIds = list;
+
+        return list;
+    }
+
+    /**
+     * @param srvId Server id.
+     * @return all builds for a server, full scan. Used until indexes are loaded.
+     */
+    @NotNull private Stream<BuildRefCompacted> compactedBuildsForServer(int srvId) {
         return StreamSupport.stream(buildRefsCache.spliterator(), false)
             .filter(entry -> isKeyForServer(entry.getKey(), srvId))
-            .map(javax.cache.Cache.Entry::getValue);
+            .map(Cache.Entry::getValue);
+    }
+
+    /**
+     * @param srvId Server id.
+     * @return all cache keys for a server, full scan. Used until indexes are loaded.
+     */
+    @NotNull private Stream<Long> keysForServer(int srvId) {
+        return StreamSupport.stream(buildRefsBinary.spliterator(), false)
+            .map(Cache.Entry::getKey)
+            .filter(key -> isKeyForServer(key, srvId));
     }
 
     /**
      * @param key Key.
      * @param srvId Server id.
      */
-    private boolean isKeyForServer(Long key, int srvId) {
-        return key!=null && key >> 32 == srvId;
+    private static boolean isKeyForServer(@Nullable Long key, int srvId) {
+        return key != null && cacheKeyToSrvId(key) == srvId;
+    }
+
+    /**
+     * @param srvId Server id.
+     * @param buildIds Build IDs.
+     * @return binary views of references found in cache, in the same order as IDs provided.
+     */
+    @NotNull private List<BuildRefBinary> getAllInOrder(int srvId, int[] buildIds) {
+        if (buildIds.length == 0)
+            return Collections.emptyList();
+
+        Set<Long> keys = new HashSet<>();
+
+        for (int buildId : buildIds)
+            keys.add(buildIdToCacheKey(srvId, buildId));
+
+        Map<Long, BinaryObject> all = buildRefsBinary.getAll(keys);
+        List<BuildRefBinary> res = new ArrayList<>(all.size());
+
+        for (int buildId : buildIds) {
+            BinaryObject ref = all.get(buildIdToCacheKey(srvId, buildId));
+
+            if (ref != null)
+                res.add(new BuildRefBinary(ref));
+        }
+
+        return res;
     }
 
     /**
@@ -85,19 +230,36 @@ public class BuildRefDao {
      */
     @AutoProfiling
     public Set<Long> saveChunk(long srvId, List<BuildRef> ghData) {
-        Set<Long> ids = ghData.stream().map(BuildRef::getId)
-            .filter(Objects::nonNull)
-            .map(buildId -> buildIdToCacheKey(srvId, buildId))
+        List<BuildRefCompacted> collect = ghData.stream()
+            .map(ref -> new BuildRefCompacted(compactor, ref))
+            .collect(Collectors.toList());
+
+        return saveChunkCompacted(srvId, collect, null);
+    }
+
+    /**
+     * @param srvId Server id mask high.
+     * @param chunk Build references, already compacted.
+     * @param ses Bulk load session of the caller, {@code null} if caller is not a bulk loader.
+     * @return keys of entries updated.
+     */
+    @AutoProfiling
+    public Set<Long> saveChunkCompacted(long srvId, List<BuildRefCompacted> chunk,
+        @Nullable CacheBulkLoader.Session ses) {
+        BuildRefIndex idx = index((int)srvId);
+
+        Set<Long> ids = chunk.stream()
+            .filter(ref -> !ref.isFakeStub())
+            .map(ref -> buildIdToCacheKey(srvId, ref.id()))
             .collect(Collectors.toSet());
 
         Map<Long, BuildRefCompacted> existingEntries = buildRefsCache.getAll(ids);
         Map<Long, BuildRefCompacted> entriesToPut = new TreeMap<>();
 
-        List<BuildRefCompacted> collect = ghData.stream()
-            .map(ref -> new BuildRefCompacted(compactor, ref))
-            .collect(Collectors.toList());
+        for (BuildRefCompacted next : chunk) {
+            if (next.isFakeStub())
+                continue;
 
-        for (BuildRefCompacted next : collect) {
             long cacheKey = buildIdToCacheKey(srvId, next.id());
             BuildRefCompacted buildPersisted = existingEntries.get(cacheKey);
 
@@ -106,8 +268,11 @@ public class BuildRefDao {
         }
 
         int size = entriesToPut.size();
-        if (size != 0)
-            buildRefsCache.putAll(entriesToPut);
+        if (size != 0) {
+            bulkLoader.putAll(ses, buildRefsCache, entriesToPut);
+
+            idx.onSaveAll(existingEntries, entriesToPut, activeStates());
+        }
 
         return entriesToPut.keySet();
     }
@@ -125,6 +290,14 @@ public class BuildRefDao {
         return (int) (l>>32);
     }
 
+    /**
+     * @param cacheKey Cache key.
+     * @return Server id mask high.
+     */
+    private static int cacheKeyToSrvId(long cacheKey) {
+        return (int)(cacheKey >> 32);
+    }
+
     /**
      * @param srvId Server id mask high.
      * @param buildTypeId Build type id.
@@ -143,9 +316,40 @@ public class BuildRefDao {
         if (bracnhNameQryId == null)
             return Collections.emptyList();
 
-        return getBuildsForBranch(srvId, bracnhNameQry).stream()
+        if (!idxLoaded) {
+            return getBuildsForBranch(srvId, bracnhNameQryId).stream()
                 .filter(e -> e.buildTypeId() == buildTypeIdId)
+                .sorted(Comparator.comparingInt(BuildRefCompacted::id))
                 .collect(Collectors.toList());
+        }
+
+        int[] buildIds = index(srvId).history(buildTypeIdId, bracnhNameQryId);
+
+        return getAllInOrder(srvId, buildIds).stream()
+            .filter(e -> e.buildTypeId() == buildTypeIdId && e.branchName() == bracnhNameQryId)
+            .map(BuildRefBinary::<BuildRefCompacted>deserialize)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @param srvId Server id mask high.
+     * @param branchNameId Branch name, compacted.
+     * @return builds for branch found by SQL index. Used until indexes are loaded.
+     */
+    @NotNull private List<BuildRefCompacted> getBuildsForBranch(int srvId, int branchNameId) {
+        List<BuildRefCompacted> list = new ArrayList<>();
+
+        try (QueryCursor<Cache.Entry<Long, BuildRefCompacted>> qryCursor = buildRefsCache.query(
+            new SqlQuery<Long, BuildRefCompacted>(BuildRefCompacted.class, "branchName = ?")
+                .setArgs(branchNameId))) {
+
+            for (Cache.Entry<Long, BuildRefCompacted> next : qryCursor) {
+                if (isKeyForServer(next.getKey(), srvId))
+                    list.add(next.getValue());
+            }
+        }
+
+        return list;
     }
 
     /**
@@ -167,45 +371,18 @@ public class BuildRefDao {
      */
     @AutoProfiling
     public List<BuildRefCompacted> getQueuedAndRunning(int srvId) {
-        GridIntList list = new GridIntList(2);
-        Integer stateQueuedId = compactor.getStringIdIfPresent(BuildRef.STATE_QUEUED);
-        if (stateQueuedId != null)
-            list.add(stateQueuedId);
-
-        Integer stateRunningId = compactor.getStringIdIfPresent(BuildRef.STATE_RUNNING);
-        if (stateRunningId != null)
-            list.add(stateRunningId);
-
-
-        return compactedBuildsForServer(srvId)
-            .filter(e ->  list.contains(e.state()) )
-            .collect(Collectors.toList());
-    }
-
-    @AutoProfiling
-    @GuavaCached(softValues = true, maximumSize = 1000, expireAfterAccessSecs = 30)
-    public List<BuildRefCompacted> getBuildsForBranch(int srvId, String branchName) {
-        Integer branchNameId = compactor.getStringIdIfPresent(branchName);
-        if (branchNameId == null)
-            return Collections.emptyList();
-
-        List<BuildRefCompacted> list = new ArrayList<>();
-        try (QueryCursor<Cache.Entry<Long, BuildRefCompacted>> qryCursor
-                 = buildRefsCache.query(
-            new SqlQuery<Long, BuildRefCompacted>(BuildRefCompacted.class, "branchName = ?")
-                .setArgs(branchNameId))) {
-
-            for (Cache.Entry<Long, BuildRefCompacted> next : qryCursor) {
-                Long key = next.getKey();
+        GridIntList activeStates = activeStates();
 
-                if (!isKeyForServer(key, srvId))
-                    continue;
-
-                list.add(next.getValue());
-            }
+        if (!idxLoaded) {
+            return compactedBuildsForServer(srvId)
+                .filter(e -> activeStates.contains(e.state()))
+                .collect(Collectors.toList());
         }
 
-        return list;
+        return getAllInOrder(srvId, index(srvId).queuedAndRunning()).stream()
+            .filter(e -> activeStates.contains(e.state()))
+            .map(BuildRefBinary::<BuildRefCompacted>deserialize)
+            .collect(Collectors.toList());
     }
 
     /**
@@ -214,28 +391,42 @@ public class BuildRefDao {
      */
     @AutoProfiling
     public boolean save(int srvId, BuildRefCompacted refCompacted) {
+        BuildRefIndex idx = index(srvId);
+
         long cacheKey = buildIdToCacheKey(srvId, refCompacted.id());
         BuildRefCompacted buildPersisted = buildRefsCache.get(cacheKey);
 
         if (buildPersisted == null || !buildPersisted.equals(refCompacted)) {
             buildRefsCache.put(cacheKey, refCompacted);
 
+            idx.onSave(buildPersisted, refCompacted, activeStates());
+
             return true;
         }
 
         return false;
     }
 
+    /**
+     * @param srvId Server id.
+     * @return {@code True} if there are no builds known for server.
+     */
+    public boolean isEmpty(int srvId) {
+        if (!idxLoaded)
+            return !keysForServer(srvId).findAny().isPresent();
+
+        return index(srvId).isEmpty();
+    }
+
+    /**
+     * @param srvId Server id.
+     * @return all build IDs known for server.
+     */
     @AutoProfiling
     public int[] getAllIds(int srvId) {
-        GridIntList res = new GridIntList(buildRefsCache.size());
-
-        StreamSupport.stream(buildRefsCache.spliterator(), false)
-                .map(Cache.Entry::getKey)
-                .filter(entry -> isKeyForServer(entry, srvId))
-                .map(BuildRefDao::cacheKeyToBuildId)
-                .forEach(res::add);
+        if (!idxLoaded)
+            return keysForServer(srvId).mapToInt(BuildRefDao::cacheKeyToBuildId).toArray();
 
-        return res.array();
+        return index(srvId).allIds();
     }
 }
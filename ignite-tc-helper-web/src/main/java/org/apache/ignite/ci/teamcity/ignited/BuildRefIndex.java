@@ -0,0 +1,321 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.teamcity.ignited;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.ignite.internal.util.GridIntList;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Secondary index over build references of one server. Keeps sorted build IDs for each (build type, branch) pair and
+ * set of builds being in queued or running state. Index contains only compacted IDs, values are always taken from
+ * cache, so caller should double check values returned.
+ */
+class BuildRefIndex {
+    /** Empty IDs array. */
+    private static final int[] EMPTY = new int[0];
+
+    /** Composite key (build type ID, branch name ID) -> sorted array of build IDs. Arrays are copied on write. */
+    private final ConcurrentMap<Long, int[]> history = new ConcurrentHashMap<>();
+
+    /** Builds in queued or running state. */
+    private final Set<Integer> queuedAndRunning = ConcurrentHashMap.newKeySet();
+
+    /** Unsorted build IDs collected during initial load. */
+    private final Map<Long, GridIntList> loading = new HashMap<>();
+
+    /**
+     * @param buildTypeId Build type id, compacted.
+     * @param branchName Branch name, compacted.
+     */
+    static long historyKey(int buildTypeId, int branchName) {
+        return (long)buildTypeId << 32 | (branchName & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param ref Reference.
+     */
+    private static long historyKey(BuildRefCompacted ref) {
+        return historyKey(ref.buildTypeId(), ref.branchName());
+    }
+
+    /**
+     * Appends build to index during initial load. Index is not available for queries until {@link #completeLoad()}.
+     *
+     * @param ref Reference.
+     * @param activeStates Compacted IDs of states queued and running.
+     */
+    void onLoad(BuildRefCompacted ref, GridIntList activeStates) {
+        loading.computeIfAbsent(historyKey(ref), k -> new GridIntList()).add(ref.id());
+
+        if (activeStates.contains(ref.state()))
+            queuedAndRunning.add(ref.id());
+    }
+
+    /**
+     * Completes initial load, sorts build IDs collected and merges them with IDs saved while load was in progress.
+     */
+    void completeLoad() {
+        loading.forEach((k, ids) -> {
+            int[] loaded = sorted(ids);
+
+            history.compute(k, (key, arr) -> merge(arr, loaded));
+        });
+
+        loading.clear();
+    }
+
+    /**
+     * Updates index according to new version of the reference.
+     *
+     * @param prevVer Previous version of the reference, if it was persisted.
+     * @param newVer New version.
+     * @param activeStates Compacted IDs of states queued and running.
+     */
+    void onSave(@Nullable BuildRefCompacted prevVer, BuildRefCompacted newVer, GridIntList activeStates) {
+        int buildId = newVer.id();
+        long newKey = historyKey(newVer);
+
+        if (prevVer != null) {
+            long prevKey = historyKey(prevVer);
+
+            if (prevKey != newKey)
+                history.computeIfPresent(prevKey, (k, ids) -> remove(ids, buildId));
+        }
+
+        history.compute(newKey, (k, ids) -> insert(ids, buildId));
+
+        if (activeStates.contains(newVer.state()))
+            queuedAndRunning.add(buildId);
+        else
+            queuedAndRunning.remove(buildId);
+    }
+
+    /**
+     * Updates index according to new versions of references saved by one chunk. Build IDs are grouped by history key,
+     * so each IDs array is rewritten once per chunk instead of once per reference.
+     *
+     * @param prevVers Previous versions of references persisted, by cache key.
+     * @param newVers New versions, by cache key.
+     * @param activeStates Compacted IDs of states queued and running.
+     */
+    void onSaveAll(Map<Long, BuildRefCompacted> prevVers, Map<Long, BuildRefCompacted> newVers,
+        GridIntList activeStates) {
+        Map<Long, GridIntList> removed = new HashMap<>();
+        Map<Long, GridIntList> added = new HashMap<>();
+
+        newVers.forEach((cacheKey, newVer) -> {
+            int buildId = newVer.id();
+            long newKey = historyKey(newVer);
+            BuildRefCompacted prevVer = prevVers.get(cacheKey);
+
+            if (prevVer != null) {
+                long prevKey = historyKey(prevVer);
+
+                if (prevKey != newKey)
+                    removed.computeIfAbsent(prevKey, k -> new GridIntList()).add(buildId);
+            }
+
+            added.computeIfAbsent(newKey, k -> new GridIntList()).add(buildId);
+
+            if (activeStates.contains(newVer.state()))
+                queuedAndRunning.add(buildId);
+            else
+                queuedAndRunning.remove(buildId);
+        });
+
+        removed.forEach((key, ids) -> history.computeIfPresent(key, (k, arr) -> removeAll(arr, sorted(ids))));
+        added.forEach((key, ids) -> history.compute(key, (k, arr) -> merge(arr, sorted(ids))));
+    }
+
+    /**
+     * @param buildTypeId Build type id, compacted.
+     * @param branchName Branch name, compacted.
+     * @return sorted build IDs, array should not be modified.
+     */
+    int[] history(int buildTypeId, int branchName) {
+        int[] ids = history.get(historyKey(buildTypeId, branchName));
+
+        return ids == null ? EMPTY : ids;
+    }
+
+    /**
+     * @return IDs of builds in queued or running state.
+     */
+    int[] queuedAndRunning() {
+        return queuedAndRunning.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return {@code True} if there are no builds indexed for the server.
+     */
+    boolean isEmpty() {
+        return history.isEmpty();
+    }
+
+    /**
+     * @return all build IDs indexed for the server.
+     */
+    int[] allIds() {
+        GridIntList res = new GridIntList(history.size());
+
+        for (int[] ids : history.values()) {
+            for (int id : ids)
+                res.add(id);
+        }
+
+        return res.array();
+    }
+
+    /**
+     * @param ids Sorted IDs array, nullable.
+     * @param id Id to insert.
+     * @return same array if ID already present, new array otherwise.
+     */
+    private static int[] insert(@Nullable int[] ids, int id) {
+        if (ids == null)
+            return new int[] {id};
+
+        int idx = Arrays.binarySearch(ids, id);
+
+        if (idx >= 0)
+            return ids;
+
+        int insPnt = -(idx + 1);
+        int[] res = new int[ids.length + 1];
+
+        System.arraycopy(ids, 0, res, 0, insPnt);
+        res[insPnt] = id;
+        System.arraycopy(ids, insPnt, res, insPnt + 1, ids.length - insPnt);
+
+        return res;
+    }
+
+    /**
+     * @param ids Sorted IDs array.
+     * @param id Id to remove.
+     * @return new array without ID, or null if array becomes empty (this removes key from the map).
+     */
+    @Nullable private static int[] remove(int[] ids, int id) {
+        int idx = Arrays.binarySearch(ids, id);
+
+        if (idx < 0)
+            return ids;
+
+        if (ids.length == 1)
+            return null;
+
+        int[] res = new int[ids.length - 1];
+
+        System.arraycopy(ids, 0, res, 0, idx);
+        System.arraycopy(ids, idx + 1, res, idx, ids.length - idx - 1);
+
+        return res;
+    }
+
+    /**
+     * @param ids Sorted IDs array, nullable.
+     * @param add Sorted distinct IDs to insert.
+     * @return same array if all IDs already present, new array otherwise.
+     */
+    private static int[] merge(@Nullable int[] ids, int[] add) {
+        if (ids == null)
+            return add;
+
+        int[] res = new int[ids.length + add.length];
+        int i = 0, j = 0, len = 0;
+
+        while (i < ids.length && j < add.length) {
+            if (ids[i] < add[j])
+                res[len++] = ids[i++];
+            else if (ids[i] > add[j])
+                res[len++] = add[j++];
+            else {
+                res[len++] = ids[i++];
+                j++;
+            }
+        }
+
+        while (i < ids.length)
+            res[len++] = ids[i++];
+
+        while (j < add.length)
+            res[len++] = add[j++];
+
+        if (len == ids.length)
+            return ids;
+
+        return len == res.length ? res : Arrays.copyOf(res, len);
+    }
+
+    /**
+     * @param ids Sorted IDs array.
+     * @param rmv Sorted distinct IDs to remove.
+     * @return array without IDs, or null if array becomes empty (this removes key from the map).
+     */
+    @Nullable private static int[] removeAll(int[] ids, int[] rmv) {
+        int[] res = new int[ids.length];
+        int j = 0, len = 0;
+
+        for (int id : ids) {
+            while (j < rmv.length && rmv[j] < id)
+                j++;
+
+            if (j == rmv.length || rmv[j] != id)
+                res[len++] = id;
+        }
+
+        if (len == ids.length)
+            return ids;
+
+        return len == 0 ? null : Arrays.copyOf(res, len);
+    }
+
+    /**
+     * @param ids IDs list.
+     * @return sorted array of distinct IDs.
+     */
+    private static int[] sorted(GridIntList ids) {
+        int[] arr = ids.array();
+
+        Arrays.sort(arr);
+
+        return distinct(arr);
+    }
+
+    /**
+     * @param sorted Sorted array.
+     * @return array without duplicates.
+     */
+    private static int[] distinct(int[] sorted) {
+        if (sorted.length < 2)
+            return sorted;
+
+        int len = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[len - 1])
+                sorted[len++] = sorted[i];
+        }
+
+        return len == sorted.length ? sorted : Arrays.copyOf(sorted, len);
+    }
+}
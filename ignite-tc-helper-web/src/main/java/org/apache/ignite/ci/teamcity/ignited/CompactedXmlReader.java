@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.teamcity.ignited;
+
+import com.google.common.base.Strings;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.TestCompacted;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Streaming (StAX) reader for TeamCity REST XML responses. Creates compacted entities directly from input stream
+ * without building intermediate JAXB object graph.
+ */
+public class CompactedXmlReader {
+    /** Factory. */
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    /**
+     * @return factory with DTD and external entities disabled.
+     */
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+
+        return factory;
+    }
+
+    /**
+     * Reads builds list, root element is 'builds'.
+     *
+     * @param is Input stream.
+     * @param compactor Compactor.
+     * @param outNextPage Output: reference to next page or null if this page is last.
+     */
+    public static List<BuildRefCompacted> readBuildRefs(InputStream is,
+        IStringCompactor compactor,
+        AtomicReference<String> outNextPage) throws XMLStreamException {
+        List<String[]> refs = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(is);
+
+        try {
+            outNextPage.set(null);
+
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT)
+                    continue;
+
+                String elem = reader.getLocalName();
+
+                if ("builds".equals(elem))
+                    outNextPage.set(Strings.emptyToNull(attr(reader, "nextHref")));
+                else if ("build".equals(elem)) {
+                    ids.add(intAttr(reader, "id"));
+                    refs.add(new String[] {
+                        attr(reader, "buildTypeId"),
+                        attr(reader, "branchName"),
+                        attr(reader, "status"),
+                        attr(reader, "state")});
+                }
+            }
+        }
+        finally {
+            reader.close();
+        }
+
+        // Register all strings of page using one batch, then compacting is served by local mapping.
+        Set<String> strings = new HashSet<>();
+
+        refs.forEach(ref -> Collections.addAll(strings, ref));
+
+        compactor.getStringIds(strings);
+
+        List<BuildRefCompacted> res = new ArrayList<>(refs.size());
+
+        for (int i = 0; i < refs.size(); i++) {
+            String[] ref = refs.get(i);
+
+            res.add(new BuildRefCompacted(compactor, ids.get(i), ref[0], ref[1], ref[2], ref[3]));
+        }
+
+        return res;
+    }
+
+    /**
+     * Reads test occurrences list, root element is 'testOccurrences'.
+     *
+     * @param is Input stream.
+     * @param compactor Compactor.
+     * @param outNextPage Output: reference to next page or null if this page is last.
+     */
+    public static List<TestCompacted> readTests(InputStream is,
+        IStringCompactor compactor,
+        AtomicReference<String> outNextPage) throws XMLStreamException {
+        List<TestAttrs> tests = new ArrayList<>();
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(is);
+
+        try {
+            outNextPage.set(null);
+
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT)
+                    continue;
+
+                String elem = reader.getLocalName();
+
+                if ("testOccurrences".equals(elem))
+                    outNextPage.set(Strings.emptyToNull(attr(reader, "nextHref")));
+                else if ("testOccurrence".equals(elem))
+                    tests.add(readTest(reader));
+            }
+        }
+        finally {
+            reader.close();
+        }
+
+        // Register all strings of page using one batch, then compacting is served by local mapping.
+        Set<String> strings = new HashSet<>();
+
+        for (TestAttrs test : tests) {
+            strings.add(test.name);
+            strings.add(test.status);
+        }
+
+        compactor.getStringIds(strings);
+
+        List<TestCompacted> res = new ArrayList<>(tests.size());
+
+        for (TestAttrs test : tests)
+            res.add(test.toCompacted(compactor));
+
+        return res;
+    }
+
+    /**
+     * Reads one test occurrence, reader should be positioned at 'testOccurrence' start element. Returns with reader
+     * positioned at corresponding end element.
+     *
+     * @param reader Reader.
+     */
+    private static TestAttrs readTest(XMLStreamReader reader) throws XMLStreamException {
+        TestAttrs test = new TestAttrs();
+
+        test.id = attr(reader, "id");
+        test.name = attr(reader, "name");
+        test.status = attr(reader, "status");
+        test.duration = intAttr(reader, "duration");
+        test.muted = boolAttr(reader, "muted");
+        test.currentlyMuted = boolAttr(reader, "currentlyMuted");
+        test.currentlyInvestigated = boolAttr(reader, "currentlyInvestigated");
+        test.ignored = boolAttr(reader, "ignored");
+
+        int depth = 1;
+
+        while (depth > 0 && reader.hasNext()) {
+            int evt = reader.next();
+
+            if (evt == XMLStreamConstants.END_ELEMENT)
+                depth--;
+            else if (evt == XMLStreamConstants.START_ELEMENT) {
+                String elem = reader.getLocalName();
+
+                if (depth == 1 && "details".equals(elem)) {
+                    // getElementText() leaves reader at the end of 'details' element.
+                    test.details = reader.getElementText();
+
+                    continue;
+                }
+
+                if (depth == 1 && "test".equals(elem)) {
+                    String testIdStr = attr(reader, "id");
+
+                    test.testId = Strings.isNullOrEmpty(testIdStr) ? null : Long.parseLong(testIdStr);
+                }
+                else if (depth == 1 && "build".equals(elem))
+                    test.actualBuildId = intAttr(reader, "id");
+
+                depth++;
+            }
+        }
+
+        return test;
+    }
+
+    /**
+     * @param reader Reader.
+     * @param name Attribute name.
+     */
+    @Nullable private static String attr(XMLStreamReader reader, String name) {
+        return reader.getAttributeValue(null, name);
+    }
+
+    /**
+     * @param reader Reader.
+     * @param name Attribute name.
+     */
+    @Nullable private static Integer intAttr(XMLStreamReader reader, String name) {
+        String val = attr(reader, name);
+
+        return Strings.isNullOrEmpty(val) ? null : Integer.parseInt(val);
+    }
+
+    /**
+     * @param reader Reader.
+     * @param name Attribute name.
+     */
+    @Nullable private static Boolean boolAttr(XMLStreamReader reader, String name) {
+        String val = attr(reader, name);
+
+        return Strings.isNullOrEmpty(val) ? null : Boolean.valueOf(val);
+    }
+
+    /**
+     * Test occurrence attributes read, before compacting.
+     */
+    private static class TestAttrs {
+        /** Id. */
+        String id;
+
+        /** Name. */
+        String name;
+
+        /** Status. */
+        String status;
+
+        /** Duration. */
+        Integer duration;
+
+        /** Muted. */
+        Boolean muted;
+
+        /** Currently muted. */
+        Boolean currentlyMuted;
+
+        /** Currently investigated. */
+        Boolean currentlyInvestigated;
+
+        /** Ignored. */
+        Boolean ignored;
+
+        /** Actual build id. */
+        Integer actualBuildId;
+
+        /** Test id. */
+        Long testId;
+
+        /** Details. */
+        String details;
+
+        /**
+         * @param compactor Compactor.
+         */
+        TestCompacted toCompacted(IStringCompactor compactor) {
+            return new TestCompacted(compactor, id, name, status, duration, muted, currentlyMuted,
+                currentlyInvestigated, ignored, actualBuildId, testId, details);
+        }
+    }
+}
@@ -16,6 +16,10 @@
  */
 package org.apache.ignite.ci.teamcity.ignited;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  *
  */
@@ -34,4 +38,22 @@ public interface IStringCompactor {
      * @param val Value to check in the compactor.
      */
     public Integer getStringIdIfPresent(String val);
+
+    /**
+     * Registers several strings at once. Implementations may use batch operations here, so it is useful to call this
+     * method before compacting of entity with many strings.
+     *
+     * @param vals Values, nulls are ignored.
+     * @return Value -> ID mapping.
+     */
+    public default Map<String, Integer> getStringIds(Collection<String> vals) {
+        Map<String, Integer> res = new HashMap<>();
+
+        for (String val : vals) {
+            if (val != null)
+                res.put(val, getStringId(val));
+        }
+
+        return res;
+    }
 }
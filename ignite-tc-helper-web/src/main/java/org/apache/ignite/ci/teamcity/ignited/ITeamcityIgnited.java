@@ -19,7 +19,11 @@ package org.apache.ignite.ci.teamcity.ignited;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.Nullable;
+import org.apache.ignite.ci.analysis.IRunHistory;
+import org.apache.ignite.ci.analysis.SuiteInBranch;
+import org.apache.ignite.ci.analysis.TestInBranch;
 import org.apache.ignite.ci.teamcity.ignited.buildcondition.BuildCondition;
 import org.apache.ignite.ci.tcmodel.hist.BuildRef;
 import org.apache.ignite.ci.tcmodel.result.Build;
@@ -123,5 +127,32 @@ public interface ITeamcityIgnited {
      */
     public FatBuildCompacted getFatBuild(int id, boolean acceptQueued);
 
-    public Collection<ChangeCompacted> getAllChanges(int[] changeIds);
+    /**
+     * Batch version of {@link #getFatBuild(int)}: builds existing in the DB are loaded using one cache operation.
+     *
+     * @param ids Build IDs.
+     * @return Build ID -> Fat Build.
+     */
+    public Map<Integer, FatBuildCompacted> getFatBuilds(Collection<Integer> ids);
+
+    /**
+     * Returns changes of the build, missing changes are requested by pages of build changes.
+     *
+     * @param buildId Build ID the changes belong to.
+     * @param changeIds Change IDs.
+     * @return Changes.
+     */
+    public Collection<ChangeCompacted> getAllChanges(int buildId, int[] changeIds);
+
+    /**
+     * @param testInBranch Test name and normalized branch.
+     * @return run history maintained from fat builds saved, or null if test runs were not registered.
+     */
+    @Nullable public IRunHistory getTestRunHist(TestInBranch testInBranch);
+
+    /**
+     * @param suiteInBranch Suite (build type) ID and normalized branch.
+     * @return run history maintained from fat builds saved, or null if suite runs were not registered.
+     */
+    @Nullable public IRunHistory getSuiteRunHist(SuiteInBranch suiteInBranch);
 }
@@ -17,11 +17,24 @@
 package org.apache.ignite.ci.teamcity.ignited;
 
 import com.google.common.base.MoreObjects;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.cache.Cache;
+import javax.cache.processor.EntryProcessorResult;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import org.apache.ignite.Ignite;
@@ -32,8 +45,8 @@ import org.apache.ignite.cache.affinity.rendezvous.RendezvousAffinityFunction;
 import org.apache.ignite.cache.query.QueryCursor;
 import org.apache.ignite.cache.query.SqlQuery;
 import org.apache.ignite.cache.query.annotations.QuerySqlField;
+import org.apache.ignite.ci.db.CacheBulkLoader;
 import org.apache.ignite.ci.di.AutoProfiling;
-import org.apache.ignite.ci.di.cache.GuavaCached;
 import org.apache.ignite.ci.util.ExceptionUtil;
 import org.apache.ignite.ci.util.ObjectInterner;
 import org.apache.ignite.configuration.CacheConfiguration;
@@ -51,18 +64,45 @@ public class IgniteStringCompactor implements IStringCompactor {
     /** Cache name */
     public static final String STRINGS_CACHE = "stringsCache";
 
+    /** Cache name for reverse (ID to string) mapping. */
+    public static final String STRINGS_BY_ID_CACHE = "stringsByIdCache";
+
     /** Strings sequence. */
     public static final String STRINGS_SEQ = "stringsSeq";
 
+    /** Batch size for migrating strings into reverse mapping cache. */
+    private static final int REVERSE_MIGRATION_BATCH = 1000;
+
+    /** IDs reserved from the sequence at once by this node. */
+    private static final int ID_BLOCK_SIZE = 100;
+
     /** Ignite provider. */
     @Inject private Provider<Ignite> igniteProvider;
 
+    /** Bulk loader. */
+    @Inject private CacheBulkLoader bulkLoader;
+
     /** Builds cache. */
     private IgniteCache<String, CompactorEntity> stringsCache;
 
+    /** Reverse mapping cache: ID -> String. */
+    private IgniteCache<Integer, String> stringsByIdCache;
+
+    /** Dense local copy of reverse mapping, index is string ID. Replaced on growth, guarded by this for writes. */
+    private volatile String[] stringsById = new String[0];
+
+    /** Local mapping: String -> ID, filled on first use. */
+    private final ConcurrentMap<String, Integer> idsByString = new ConcurrentHashMap<>();
+
     /** Sequence. */
     private IgniteAtomicSequence seq;
 
+    /** Block of IDs reserved from sequence by this node. */
+    private final AtomicReference<IdBlock> idBlock = new AtomicReference<>(new IdBlock(0, 0));
+
+    /** IDs allocated but not used because the same string was registered concurrently, these are used first. */
+    private final Queue<Integer> spareIds = new ConcurrentLinkedQueue<>();
+
     public static class CompactorEntity {
         @QuerySqlField
         String val;
@@ -82,6 +122,26 @@ public class IgniteStringCompactor implements IStringCompactor {
         }
     }
 
+    /**
+     * Range of IDs reserved from sequence.
+     */
+    private static class IdBlock {
+        /** Next ID to allocate. */
+        private final AtomicInteger next;
+
+        /** End of range, exclusive. */
+        private final int end;
+
+        /**
+         * @param start Start of range.
+         * @param end End of range, exclusive.
+         */
+        IdBlock(int start, int end) {
+            this.next = new AtomicInteger(start);
+            this.end = end;
+        }
+    }
+
     private void initIfNeeded() {
         if (initGuard.compareAndSet(false, true)) {
             init();
@@ -109,68 +169,292 @@ public class IgniteStringCompactor implements IStringCompactor {
 
         stringsCache = ignite.getOrCreateCache(cfg);
 
+        stringsByIdCache = ignite.getOrCreateCache(getCache8PartsConfig(STRINGS_BY_ID_CACHE));
+
         seq = ignite.atomicSequence(STRINGS_SEQ, 0, true);
+
+        warmUpReverseMapping();
+    }
+
+    /**
+     * Loads reverse mapping into local array. Fills reverse mapping cache from strings cache if it is not complete, e.g.
+     * for DB created by previous versions. Filling is done in bulk load mode: reverse mapping lost in case of crash
+     * will be filled again on next start.
+     */
+    private void warmUpReverseMapping() {
+        long start = System.currentTimeMillis();
+
+        if (stringsByIdCache.size() < stringsCache.size()) {
+            try (CacheBulkLoader.Session ses = bulkLoader.open(STRINGS_BY_ID_CACHE)) {
+                Map<Integer, String> batch = new HashMap<>();
+
+                for (Cache.Entry<String, CompactorEntity> next : stringsCache) {
+                    CompactorEntity entity = next.getValue();
+
+                    batch.put(entity.id, entity.val);
+
+                    if (batch.size() >= REVERSE_MIGRATION_BATCH) {
+                        bulkLoader.putAll(ses, stringsByIdCache, batch);
+
+                        batch = new HashMap<>();
+                    }
+                }
+
+                bulkLoader.putAll(ses, stringsByIdCache, batch);
+            }
+        }
+
+        int cnt = 0;
+
+        for (Cache.Entry<Integer, String> next : stringsByIdCache) {
+            saveLocally(next.getKey(), next.getValue());
+
+            cnt++;
+        }
+
+        logger.info("Strings reverse mapping loaded: " + cnt + " entries, " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * @param id Id.
+     * @param val Value.
+     * @return interned value.
+     */
+    private synchronized String saveLocally(int id, String val) {
+        String interned = ObjectInterner.internString(val);
+        String[] arr = stringsById;
+
+        if (id >= arr.length) {
+            String[] newArr = new String[Math.max(id + 1, arr.length + (arr.length >> 1))];
+
+            System.arraycopy(arr, 0, newArr, 0, arr.length);
+
+            arr = newArr;
+        }
+
+        arr[id] = interned;
+
+        stringsById = arr;
+
+        idsByString.put(interned, id);
+
+        return interned;
+    }
+
+    /**
+     * Allocates ID for new string. Sequence is requested once per {@link #ID_BLOCK_SIZE} IDs.
+     */
+    private int allocateId() {
+        Integer spare = spareIds.poll();
+
+        if (spare != null)
+            return spare;
+
+        while (true) {
+            IdBlock block = idBlock.get();
+
+            int id = block.next.getAndIncrement();
+
+            if (id < block.end)
+                return id;
+
+            synchronized (idBlock) {
+                if (idBlock.get() == block) {
+                    // Sequence value is the last ID reserved.
+                    int start = (int)seq.getAndAdd(ID_BLOCK_SIZE) + 1;
+
+                    idBlock.set(new IdBlock(start, start + ID_BLOCK_SIZE));
+                }
+            }
+        }
     }
 
     /** {@inheritDoc} */
     @AutoProfiling
-    @GuavaCached(cacheNegativeNumbersRval = false)
     @Override public int getStringId(String val) {
         if (val == null)
             return -1;
 
+        Integer locId = idsByString.get(val);
+
+        if (locId != null)
+            return locId;
+
         initIfNeeded();
 
         CompactorEntity entity = stringsCache.get(val);
-        if (entity != null)
+        if (entity != null) {
+            saveLocally(entity.id, entity.val);
+
             return entity.id;
+        }
 
-        int codeCandidate = (int)seq.incrementAndGet();
+        int codeCandidate = allocateId();
 
         boolean valWasSet = stringsCache.putIfAbsent(val, new CompactorEntity(codeCandidate, val));
 
-        return valWasSet ? codeCandidate : stringsCache.get(val).id;
+        if (!valWasSet) {
+            spareIds.add(codeCandidate);
+
+            CompactorEntity existing = stringsCache.get(val);
+
+            saveLocally(existing.id, existing.val);
+
+            return existing.id;
+        }
+
+        stringsByIdCache.put(codeCandidate, val);
+
+        saveLocally(codeCandidate, val);
+
+        return codeCandidate;
+    }
+
+    /** {@inheritDoc} */
+    @AutoProfiling
+    @Override public Map<String, Integer> getStringIds(Collection<String> vals) {
+        Map<String, Integer> res = new HashMap<>();
+        Set<String> missing = new TreeSet<>();
+
+        for (String val : vals) {
+            if (val == null)
+                continue;
+
+            Integer locId = idsByString.get(val);
+
+            if (locId != null)
+                res.put(val, locId);
+            else
+                missing.add(val);
+        }
+
+        if (missing.isEmpty())
+            return res;
+
+        initIfNeeded();
+
+        for (CompactorEntity entity : stringsCache.getAll(missing).values()) {
+            saveLocally(entity.id, entity.val);
+
+            res.put(entity.val, entity.id);
+            missing.remove(entity.val);
+        }
+
+        if (missing.isEmpty())
+            return res;
+
+        Map<String, Integer> candidates = new TreeMap<>();
+
+        for (String val : missing)
+            candidates.put(val, allocateId());
+
+        Map<String, EntryProcessorResult<Integer>> registered = stringsCache.invokeAll(candidates.keySet(),
+            (entry, args) -> {
+                CompactorEntity existing = entry.getValue();
+
+                if (existing != null)
+                    return existing.id;
+
+                int candidate = ((Map<String, Integer>)args[0]).get(entry.getKey());
+
+                entry.setValue(new CompactorEntity(candidate, entry.getKey()));
+
+                return candidate;
+            }, candidates);
+
+        Map<Integer, String> newIds = new TreeMap<>();
+
+        candidates.forEach((val, candidate) -> {
+            int id = registered.get(val).get();
+
+            if (id == candidate)
+                newIds.put(id, val);
+            else
+                spareIds.add(candidate);
+
+            saveLocally(id, val);
+
+            res.put(val, id);
+        });
+
+        if (!newIds.isEmpty())
+            stringsByIdCache.putAll(newIds);
+
+        return res;
     }
 
     /** {@inheritDoc} */
     @AutoProfiling
-    @GuavaCached(cacheNullRval = false)
     @Override public String getStringFromId(int id) {
         if (id < 0)
             return null;
 
         initIfNeeded();
 
-        QueryCursor<Cache.Entry<String, CompactorEntity>> qryCursor
-            = stringsCache.query(new SqlQuery<String, CompactorEntity>(CompactorEntity.class, "id = ?").setArgs(id));
+        String[] arr = stringsById;
 
-        Iterator<Cache.Entry<String, CompactorEntity>> iter = qryCursor.iterator();
+        if (id < arr.length) {
+            String val = arr[id];
 
-        if (!iter.hasNext()) {
-            System.err.println("Not found string by id " + id);
+            if (val != null)
+                return val;
+        }
+
+        String val = stringsByIdCache.get(id);
+
+        if (val == null)
+            val = findStringByIdSql(id);
 
+        if (val == null)
             return null;
-        }
 
-        Cache.Entry<String, CompactorEntity> next = iter.next();
+        return saveLocally(id, val);
+    }
 
-        qryCursor.close();
+    /**
+     * Fallback for strings which are absent in reverse mapping cache, e.g. if string was saved by other node.
+     *
+     * @param id Id.
+     */
+    private String findStringByIdSql(int id) {
+        try (QueryCursor<Cache.Entry<String, CompactorEntity>> qryCursor = stringsCache.query(
+            new SqlQuery<String, CompactorEntity>(CompactorEntity.class, "id = ?").setArgs(id))) {
+
+            Iterator<Cache.Entry<String, CompactorEntity>> iter = qryCursor.iterator();
+
+            if (!iter.hasNext()) {
+                System.err.println("Not found string by id " + id);
+
+                return null;
+            }
 
-        return ObjectInterner.internString(next.getValue().val);
+            String val = iter.next().getValue().val;
+
+            stringsByIdCache.put(id, val);
+
+            return val;
+        }
     }
 
     /** {@inheritDoc} */
-    @GuavaCached(cacheNullRval = false, cacheNegativeNumbersRval = false)
     @Override public Integer getStringIdIfPresent(String val) {
         if (val == null)
             return -1;
 
+        Integer locId = idsByString.get(val);
+
+        if (locId != null)
+            return locId;
+
         initIfNeeded();
 
         CompactorEntity entity = stringsCache.get(val);
 
-        if (entity != null)
+        if (entity != null) {
+            saveLocally(entity.id, entity.val);
+
             return entity.id;
+        }
 
         return null;
 
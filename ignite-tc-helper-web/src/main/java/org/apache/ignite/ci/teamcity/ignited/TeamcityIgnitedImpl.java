@@ -18,22 +18,33 @@ package org.apache.ignite.ci.teamcity.ignited;
 
 
 import com.google.common.collect.Sets;
-import java.util.concurrent.atomic.AtomicBoolean;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.apache.ignite.ci.ITeamcity;
+import org.apache.ignite.ci.analysis.IRunHistory;
+import org.apache.ignite.ci.analysis.SuiteInBranch;
+import org.apache.ignite.ci.analysis.TestInBranch;
+import org.apache.ignite.ci.db.CacheBulkLoader;
 import org.apache.ignite.ci.di.AutoProfiling;
 import org.apache.ignite.ci.di.MonitoredTask;
 import org.apache.ignite.ci.di.scheduler.IScheduler;
+import org.apache.ignite.ci.tcbot.TcBotSystemProperties;
 import org.apache.ignite.ci.teamcity.ignited.buildcondition.BuildCondition;
 import org.apache.ignite.ci.teamcity.ignited.buildcondition.BuildConditionDao;
+import org.apache.ignite.ci.teamcity.ignited.buildtime.BuildStartTimeDao;
+import org.apache.ignite.ci.teamcity.ignited.buildtime.BuildStartTimeKey;
+import org.apache.ignite.ci.teamcity.ignited.buildtime.BuildStartTimes;
 import org.apache.ignite.ci.tcmodel.hist.BuildRef;
 import org.apache.ignite.ci.tcmodel.result.Build;
 import org.apache.ignite.ci.teamcity.ignited.change.ChangeCompacted;
 import org.apache.ignite.ci.teamcity.ignited.change.ChangeDao;
-import org.apache.ignite.ci.teamcity.ignited.change.ChangeSync;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildBinary;
 import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
 import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildDao;
 import org.apache.ignite.ci.teamcity.ignited.fatbuild.ProactiveFatBuildSync;
+import org.apache.ignite.ci.teamcity.ignited.runhist.RunHistCompactedDao;
 import org.apache.ignite.ci.teamcity.pure.ITeamcityConn;
+import org.apache.ignite.ci.util.FutureUtil;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +52,10 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
@@ -60,6 +75,26 @@ public class TeamcityIgnitedImpl implements ITeamcityIgnited {
      */
     public static final int MAX_INCREMENTAL_BUILDS_TO_CHECK = 5000;
 
+    /** Build references requested from TC in one page during full reindex. */
+    public static final int FULL_REINDEX_PAGE_SIZE = 1000;
+
+    /** Build references requested from TC in one page during incremental actualization, TC default. */
+    public static final int INCREMENTAL_PAGE_SIZE = 100;
+
+    /** Build references pages requested in parallel during full reindex. */
+    public static final int FULL_REINDEX_PARALLEL_PAGES = 8;
+
+    /** Executor for loading build references pages, shared by all servers. */
+    private static final ExecutorService buildRefsExecutor = Executors.newFixedThreadPool(FULL_REINDEX_PARALLEL_PAGES,
+        r -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(r);
+
+            thread.setName("build-refs-sync-" + thread.getName());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
     /** Server id. */
     private String srvNme;
 
@@ -83,12 +118,18 @@ public class TeamcityIgnitedImpl implements ITeamcityIgnited {
     /** Changes DAO. */
     @Inject private ChangeDao changesDao;
 
-    /** Changes DAO. */
-    @Inject private ChangeSync changeSync;
-
     /** Changes DAO. */
     @Inject private IStringCompactor compactor;
 
+    /** Build start times index DAO. */
+    @Inject private BuildStartTimeDao buildStartTimeDao;
+
+    /** Run history DAO. */
+    @Inject private RunHistCompactedDao runHistDao;
+
+    /** Bulk loader. */
+    @Inject private CacheBulkLoader bulkLoader;
+
     /** Server ID mask for cache Entries. */
     private int srvIdMaskHigh;
 
@@ -125,145 +166,83 @@ public class TeamcityIgnitedImpl implements ITeamcityIgnited {
         @Nullable String branchName,
         @Nullable Date sinceDate,
         @Nullable Date untilDate) {
-        final int allDatesOutOfBounds = -1;
-        final int someDatesOutOfBounds = -2;
-        final int invalidVal = -3;
         final int unknownStatus = compactor.getStringId(STATUS_UNKNOWN);
 
         List<BuildRefCompacted> buildRefs = getBuildHistoryCompacted(buildTypeId, branchName)
             .stream().filter(b -> b.status() != unknownStatus).collect(Collectors.toList());
 
-        int idSince = 0;
-        int idUntil = buildRefs.size() - 1;
+        if (sinceDate == null && untilDate == null)
+            return buildRefs;
 
-        if (sinceDate != null) {
-            idSince = binarySearchDate(buildRefs, 0, buildRefs.size(), sinceDate, true);
-            idSince = (idSince == someDatesOutOfBounds) ? 0 : idSince;
-        }
+        long since = sinceDate == null ? 0 : sinceDate.getTime();
+        long until = untilDate == null ? Long.MAX_VALUE : untilDate.getTime();
 
-        if (untilDate != null) {
-            idUntil = (idSince < 0) ? allDatesOutOfBounds :
-                binarySearchDate(buildRefs, idSince, buildRefs.size(), untilDate, false);
-            idUntil = (idUntil == someDatesOutOfBounds) ? buildRefs.size() - 1 : idUntil;
-        }
+        Map<BuildStartTimeKey, List<BuildRefCompacted>> refsByKey = buildRefs.stream()
+            .collect(Collectors.groupingBy(ref -> BuildStartTimeDao.key(srvIdMaskHigh, ref)));
 
-        if (idSince == invalidVal || idUntil == invalidVal) {
-            AtomicBoolean stopFilter = new AtomicBoolean();
-            AtomicBoolean addBuild = new AtomicBoolean();
-
-            return buildRefs.stream()
-                .filter(b -> {
-                    if (stopFilter.get())
-                        return addBuild.get();
-
-                    FatBuildCompacted build = getFatBuild(b.id());
-
-                    if (build == null || build.isFakeStub())
-                        return false;
-
-                    Date date = build.getStartDate();
-
-                    if (sinceDate != null && untilDate != null)
-                        if ((date.after(sinceDate) || date.equals(sinceDate)) &&
-                            (date.before(untilDate) || date.equals(untilDate)))
-                            return true;
-                        else {
-                            if (date.after(untilDate)) {
-                                stopFilter.set(true);
-                                addBuild.set(false);
-                            }
-
-                            return false;
-                        }
-                    else if (sinceDate != null) {
-                        if (date.after(sinceDate) || date.equals(sinceDate)) {
-                            stopFilter.set(true);
-                            addBuild.set(true);
-
-                            return true;
-                        }
-
-                        return false;
-                    }
-                    else {
-                        if (date.after(untilDate)) {
-                            stopFilter.set(true);
-                            addBuild.set(false);
-
-                            return false;
-                        }
-
-                        return true;
-                    }
-                })
-                .collect(Collectors.toList());
-        } else if (idSince == allDatesOutOfBounds || idUntil == allDatesOutOfBounds)
-            return Collections.emptyList();
-        else
-            return buildRefs.subList(idSince, idUntil + 1);
+        Map<BuildStartTimeKey, BuildStartTimes> startTimes = buildStartTimeDao.getAll(refsByKey.keySet());
+
+        Set<Integer> inRange = new HashSet<>();
+        List<Integer> notIndexed = new ArrayList<>();
+
+        refsByKey.forEach((key, refs) -> {
+            int[] ids = refs.stream().mapToInt(BuildRefCompacted::id).toArray();
+            BuildStartTimes times = startTimes.get(key);
+
+            if (times == null) {
+                notIndexed.addAll(Ints.asList(ids));
+
+                return;
+            }
+
+            for (int id : times.buildIds(since, until))
+                inRange.add(id);
+
+            notIndexed.addAll(Ints.asList(times.absent(ids)));
+        });
+
+        if (!notIndexed.isEmpty())
+            inRange.addAll(indexStartTimes(notIndexed, since, until));
+
+        return buildRefs.stream()
+            .filter(ref -> inRange.contains(ref.id()))
+            .collect(Collectors.toList());
     }
 
     /**
-     * @param buildRefs Build refs list.
-     * @param fromIdx From index.
-     * @param toIdx To index.
-     * @param key Key.
-     * @param since {@code true} If key is sinceDate, {@code false} is untilDate.
+     * Adds start times of builds absent in the index, e.g. builds saved before index was introduced. Start times of
+     * persisted builds are read from binary fields, missing and outdated builds are scheduled for reload by proactive
+     * sync, and are indexed when saved.
      *
-     * @return {@value >= 0} Build id from list with min interval between key. If since {@code true}, min interval
-     * between key and same day or later. If since {@code false}, min interval between key and same day or earlier;
-     * {@value -1} All dates out of bounds. If sinceDate after last list element date or untilDate before first list
-     * element;
-     * {@value -2} Some dates out of bounds. If sinceDate before first list element or untilDate after last list
-     * element;
-     * {@value -3} Invalid value. If method get null or fake stub build.
+     * @param buildIds Build IDs absent in the index.
+     * @param since Lower bound of start time, inclusive.
+     * @param until Upper bound of start time, inclusive.
+     * @return IDs of persisted builds started in range.
      */
-    private int binarySearchDate(List<BuildRefCompacted> buildRefs, int fromIdx, int toIdx, Date key, boolean since) {
-        final int allDatesOutOfBounds = -1;
-        final int someDatesOutOfBounds = -2;
-        final int invalidVal = -3;
-
-        int low = fromIdx;
-        int high = toIdx - 1;
-        long minDiff = key.getTime();
-        int minDiffId = since ? low : high;
-        long temp;
-
-        FatBuildCompacted highBuild = getFatBuild(buildRefs.get(high).id());
-        FatBuildCompacted lowBuild = getFatBuild(buildRefs.get(low).id());
-
-        if (highBuild != null && !highBuild.isFakeStub()){
-            if (highBuild.getStartDate().before(key))
-                return since ? allDatesOutOfBounds : someDatesOutOfBounds;
-        }
+    private Set<Integer> indexStartTimes(Collection<Integer> buildIds, long since, long until) {
+        Set<Integer> inRange = new HashSet<>();
+        Set<Integer> notLoaded = new HashSet<>(buildIds);
+        List<FatBuildBinary> actual = new ArrayList<>();
 
-        if (lowBuild != null && !lowBuild.isFakeStub()){
-            if (lowBuild.getStartDate().after(key))
-                return since ? someDatesOutOfBounds : allDatesOutOfBounds;
-        }
+        for (FatBuildBinary build : fatBuildDao.getFatBuildsBinary(srvIdMaskHigh, buildIds).values()) {
+            long startTime = build.isFakeStub() ? BuildStartTimes.NO_START_TIME : build.getStartDateTs();
 
-        while (low <= high) {
-            int mid = (low + high) >>> 1;
-            FatBuildCompacted midVal = getFatBuild(buildRefs.get(mid).id());
+            if (startTime >= 0 && startTime >= since && startTime <= until)
+                inRange.add(build.id());
 
-            if (midVal != null && !midVal.isFakeStub()) {
-                if (midVal.getStartDate().after(key))
-                    high = mid - 1;
-                else if (midVal.getStartDate().before(key))
-                    low = mid + 1;
-                else
-                    return mid;
+            if (build.isOutdatedEntityVersion())
+                continue;
 
-                temp = midVal.getStartDate().getTime() - key.getTime();
-
-                if ((temp > 0 == since) && (Math.abs(temp) < minDiff)) {
-                    minDiff = Math.abs(temp);
-                    minDiffId = mid;
-                }
-            } else
-                return invalidVal;
+            actual.add(build);
+            notLoaded.remove(build.id());
         }
-        return minDiffId;
+
+        buildStartTimeDao.addBuildsBinary(srvIdMaskHigh, actual);
+
+        if (!notLoaded.isEmpty())
+            buildSync.scheduleBuildsLoad(conn, notLoaded);
+
+        return inRange;
     }
 
     /** {@inheritDoc} */
@@ -326,6 +305,7 @@ public class TeamcityIgnitedImpl implements ITeamcityIgnited {
     }
 
     /** {@inheritDoc} */
+    @AutoProfiling
     @Override public FatBuildCompacted getFatBuild(int buildId, boolean acceptQueued) {
         ensureActualizeRequested();
         FatBuildCompacted existingBuild = fatBuildDao.getFatBuild(srvIdMaskHigh, buildId);
@@ -341,27 +321,48 @@ public class TeamcityIgnitedImpl implements ITeamcityIgnited {
 
     /** {@inheritDoc} */
     @AutoProfiling
-    @Override public Collection<ChangeCompacted> getAllChanges(int[] changeIds) {
-        final Map<Long, ChangeCompacted> all = changesDao.getAll(srvIdMaskHigh, changeIds);
+    @Override public Map<Integer, FatBuildCompacted> getFatBuilds(Collection<Integer> ids) {
+        ensureActualizeRequested();
 
-        final Map<Integer, ChangeCompacted> changes = new HashMap<>();
+        Map<Integer, FatBuildCompacted> existingBuilds = fatBuildDao.getFatBuilds(srvIdMaskHigh, ids);
+        Map<Integer, FatBuildCompacted> res = new HashMap<>(existingBuilds);
 
-        //todo support change version upgrade
-        all.forEach((k, v) -> {
-            final int changeId = ChangeDao.cacheKeyToChangeId(k);
+        buildSync.loadBuilds(conn, existingBuilds, ids).forEach((buildId, savedVer) -> {
+            //build was modified, probably we need also to update reference accordindly
+            buildRefDao.save(srvIdMaskHigh, new BuildRefCompacted(savedVer));
 
-            changes.put(changeId, v);
+            res.put(buildId, savedVer);
         });
 
-        for (int changeId : changeIds) {
-            if (!changes.containsKey(changeId)) {
-                final ChangeCompacted change = changeSync.reloadChange(srvIdMaskHigh, changeId, conn);
+        return res;
+    }
 
-                changes.put(changeId, change);
-            }
-        }
+    /** {@inheritDoc} */
+    @Nullable @Override public IRunHistory getTestRunHist(TestInBranch testInBranch) {
+        Integer testName = compactor.getStringIdIfPresent(testInBranch.name);
+        Integer branch = compactor.getStringIdIfPresent(testInBranch.branch);
+
+        if (testName == null || branch == null)
+            return null;
+
+        return runHistDao.getTestRunHist(srvIdMaskHigh, testName, branch);
+    }
+
+    /** {@inheritDoc} */
+    @Nullable @Override public IRunHistory getSuiteRunHist(SuiteInBranch suiteInBranch) {
+        Integer suiteId = compactor.getStringIdIfPresent(suiteInBranch.id);
+        Integer branch = compactor.getStringIdIfPresent(suiteInBranch.branch);
+
+        if (suiteId == null || branch == null)
+            return null;
 
-        return changes.values();
+        return runHistDao.getSuiteRunHist(srvIdMaskHigh, suiteId, branch);
+    }
+
+    /** {@inheritDoc} */
+    @AutoProfiling
+    @Override public Collection<ChangeCompacted> getAllChanges(int buildId, int[] changeIds) {
+        return buildSync.loadChanges(conn, buildId, changeIds).values();
     }
 
 
@@ -427,44 +428,81 @@ public class TeamcityIgnitedImpl implements ITeamcityIgnited {
     @AutoProfiling
     protected String runActualizeBuildRefs(String srvId, boolean fullReindex,
                                            @Nullable Set<Integer> mandatoryToReload) {
-        AtomicReference<String> outLinkNext = new AtomicReference<>();
-        List<BuildRef> tcDataFirstPage = conn.getBuildRefsPage(null, outLinkNext);
-
-        Set<Long> buildsUpdated = buildRefDao.saveChunk(srvIdMaskHigh, tcDataFirstPage);
-        int totalUpdated = buildsUpdated.size();
-        buildSync.scheduleBuildsLoad(conn, cacheKeysToBuildIds(buildsUpdated));
+        // Nothing is known for the server yet, whole TC history is loaded in bulk mode.
+        boolean bootstrap = buildRefDao.isEmpty(srvIdMaskHigh);
 
-        int totalChecked = tcDataFirstPage.size();
-        int neededToFind = 0;
-        if (mandatoryToReload != null) {
-            neededToFind = mandatoryToReload.size();
+        if (!bootstrap)
+            return actualizeBuildRefs(fullReindex, mandatoryToReload, null);
 
-            tcDataFirstPage.stream().map(BuildRef::getId).forEach(mandatoryToReload::remove);
+        try (CacheBulkLoader.Session ses = bulkLoader.open(BuildRefDao.TEAMCITY_BUILD_CACHE_NAME)) {
+            return actualizeBuildRefs(true, mandatoryToReload, ses);
         }
+    }
+
+    /**
+     * Loads build references from the newest build. Parallel full reindex requests pages ahead by offsets in history.
+     * Sequential scans, e.g. incremental one, follow next page reference returned by TC, as before pages were loaded in
+     * parallel.
+     *
+     * @param fullReindex Reindex all builds from TC history.
+     * @param mandatoryToReload [in/out] Build ID should be found before end of sync. Ignored if fullReindex mode.
+     * @param ses Bulk load session for build references, {@code null} if references are saved directly.
+     */
+    private String actualizeBuildRefs(boolean fullReindex, @Nullable Set<Integer> mandatoryToReload,
+        @Nullable CacheBulkLoader.Session ses) {
+        int neededToFind = mandatoryToReload == null ? 0 : mandatoryToReload.size();
+
+        boolean parallel = fullReindex
+            && !Boolean.valueOf(System.getProperty(TcBotSystemProperties.TEAMCITY_BOT_SYNC_SEQUENTIAL));
+        int window = parallel ? FULL_REINDEX_PARALLEL_PAGES : 1;
+        int pageSize = fullReindex ? FULL_REINDEX_PAGE_SIZE : INCREMENTAL_PAGE_SIZE;
+        Executor executor = parallel ? buildRefsExecutor : MoreExecutors.directExecutor();
+
+        // Pages are requested ahead, but stop condition is checked in order of pages.
+        Deque<CompletableFuture<BuildRefsPage>> pages = new ArrayDeque<>();
+        int nextStart = 0;
+        String nextHref = null;
+        boolean stop = false;
+        int totalUpdated = 0;
+        int totalChecked = 0;
+
+        while (true) {
+            while (!stop && pages.size() < window) {
+                int start = nextStart;
+                String href = parallel ? null : nextHref;
+
+                pages.add(CompletableFuture.supplyAsync(() -> loadBuildRefsPage(start, href, pageSize, ses),
+                    executor));
+
+                nextStart += pageSize;
+            }
+
+            if (pages.isEmpty())
+                break;
 
-        while (outLinkNext.get() != null) {
-            String nextPageUrl = outLinkNext.get();
-            outLinkNext.set(null);
-            List<BuildRef> tcDataNextPage = conn.getBuildRefsPage(nextPageUrl, outLinkNext);
-            Set<Long> curChunkBuildsSaved = buildRefDao.saveChunk(srvIdMaskHigh, tcDataNextPage);
-            totalUpdated += curChunkBuildsSaved.size();
-            buildSync.scheduleBuildsLoad(conn, cacheKeysToBuildIds(curChunkBuildsSaved));
+            BuildRefsPage page = FutureUtil.getResult(pages.poll());
 
-            int savedCurChunk = curChunkBuildsSaved.size();
+            nextHref = page.nextHref;
 
-            totalChecked += tcDataNextPage.size();
+            totalUpdated += page.saved.size();
+            totalChecked += page.refs.size();
 
-            if (!fullReindex) {
-                if (mandatoryToReload != null && !mandatoryToReload.isEmpty())
-                    tcDataNextPage.stream().map(BuildRef::getId).forEach(mandatoryToReload::remove);
+            if (mandatoryToReload != null && !mandatoryToReload.isEmpty())
+                page.refs.stream().map(BuildRefCompacted::id).forEach(mandatoryToReload::remove);
 
-                if (savedCurChunk == 0 &&
+            if (stop)
+                continue; // Speculatively requested page, already saved.
+
+            if (page.last)
+                stop = true;
+            else if (!fullReindex && page.start > 0) {
+                if (page.saved.isEmpty() &&
                     (mandatoryToReload == null
                         || mandatoryToReload.isEmpty()
                         || totalChecked > MAX_INCREMENTAL_BUILDS_TO_CHECK)
                 ) {
                     // There are no modification at current page, hopefully no modifications at all
-                    break;
+                    stop = true;
                 }
             }
         }
@@ -473,7 +511,67 @@ public class TeamcityIgnitedImpl implements ITeamcityIgnited {
         return "Entries saved " + totalUpdated + " Builds checked " + totalChecked + " Needed to find " + neededToFind + " remained to find " + leftToFind;
     }
 
+    /**
+     * Loads page of build references and saves modified references.
+     *
+     * @param start Index of first build in TC history.
+     * @param href Reference to the page returned by TC with previous page, {@code null} to request page by offset.
+     * @param cnt Builds count to request.
+     * @param ses Bulk load session for build references, {@code null} if references are saved directly.
+     */
+    private BuildRefsPage loadBuildRefsPage(int start, @Nullable String href, int cnt,
+        @Nullable CacheBulkLoader.Session ses) {
+        AtomicReference<String> outLinkNext = new AtomicReference<>();
+        String url = href != null
+            ? href
+            : "app/rest/latest/builds?locator=defaultFilter:false,count:" + cnt + ",start:" + start;
+
+        List<BuildRefCompacted> refs = conn.getBuildRefsPageCompacted(url, outLinkNext, compactor);
+
+        Set<Long> saved = buildRefDao.saveChunkCompacted(srvIdMaskHigh, refs, ses);
+
+        buildSync.scheduleBuildsLoad(conn, cacheKeysToBuildIds(saved));
+
+        return new BuildRefsPage(start, refs, saved, outLinkNext.get(), outLinkNext.get() == null || refs.isEmpty());
+    }
+
     @NotNull private List<Integer> cacheKeysToBuildIds(Collection<Long> cacheKeysUpdated) {
         return cacheKeysUpdated.stream().map(BuildRefDao::cacheKeyToBuildId).collect(Collectors.toList());
     }
+
+    /**
+     * Page of build references loaded from TC.
+     */
+    private static class BuildRefsPage {
+        /** Index of first build in TC history. */
+        private final int start;
+
+        /** References loaded. */
+        private final List<BuildRefCompacted> refs;
+
+        /** Cache keys of references saved. */
+        private final Set<Long> saved;
+
+        /** Reference to the next page returned by TC, {@code null} if page is last. */
+        @Nullable private final String nextHref;
+
+        /** Page is last in history. */
+        private final boolean last;
+
+        /**
+         * @param start Index of first build in TC history.
+         * @param refs References loaded.
+         * @param saved Cache keys of references saved.
+         * @param nextHref Reference to the next page returned by TC.
+         * @param last Page is last in history.
+         */
+        BuildRefsPage(int start, List<BuildRefCompacted> refs, Set<Long> saved, @Nullable String nextHref,
+            boolean last) {
+            this.start = start;
+            this.refs = refs;
+            this.saved = saved;
+            this.nextHref = nextHref;
+            this.last = last;
+        }
+    }
 }
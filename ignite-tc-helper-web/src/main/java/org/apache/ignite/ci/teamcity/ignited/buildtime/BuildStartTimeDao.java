@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.teamcity.ignited.buildtime;
+
+import com.google.common.base.Preconditions;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.ci.db.TcHelperDb;
+import org.apache.ignite.ci.di.AutoProfiling;
+import org.apache.ignite.ci.teamcity.ignited.BuildRefBinary;
+import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildBinary;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+
+/**
+ * Index of builds start times by suite and branch, updated when fat build is saved. Allows to select builds by date
+ * range without fat builds loading.
+ */
+public class BuildStartTimeDao {
+    /** Cache name. */
+    public static final String TEAMCITY_BUILD_START_TIME_CACHE_NAME = "teamcityBuildStartTime";
+
+    /** Ignite provider. */
+    @Inject private Provider<Ignite> igniteProvider;
+
+    /** Start times cache. */
+    private IgniteCache<BuildStartTimeKey, BuildStartTimes> cache;
+
+    /**
+     *
+     */
+    public void init() {
+        Ignite ignite = igniteProvider.get();
+
+        cache = ignite.getOrCreateCache(TcHelperDb.getCacheV2Config(TEAMCITY_BUILD_START_TIME_CACHE_NAME));
+    }
+
+    /**
+     * @param srvId Server id.
+     * @param ref Build reference.
+     * @return Key of index for suite and branch of build.
+     */
+    public static BuildStartTimeKey key(int srvId, BuildRefCompacted ref) {
+        return new BuildStartTimeKey(srvId, ref.buildTypeId(), ref.branchName());
+    }
+
+    /**
+     * @param srvId Server id.
+     * @param ref Build reference binary view.
+     * @return Key of index for suite and branch of build.
+     */
+    public static BuildStartTimeKey key(int srvId, BuildRefBinary ref) {
+        return new BuildStartTimeKey(srvId, ref.buildTypeId(), ref.branchName());
+    }
+
+    /**
+     * @param keys Keys.
+     * @return Start times of builds for keys found.
+     */
+    public Map<BuildStartTimeKey, BuildStartTimes> getAll(Collection<BuildStartTimeKey> keys) {
+        Preconditions.checkNotNull(cache, "init() was not called");
+
+        return cache.getAll(new TreeSet<>(keys));
+    }
+
+    /**
+     * Registers start times of builds saved.
+     *
+     * @param srvId Server id.
+     * @param builds Builds saved.
+     */
+    @AutoProfiling
+    public void addBuilds(int srvId, Collection<FatBuildCompacted> builds) {
+        Map<BuildStartTimeKey, Map<Integer, Long>> times = new HashMap<>();
+
+        for (FatBuildCompacted build : builds) {
+            long startTime = build.isFakeStub() ? BuildStartTimes.NO_START_TIME : build.getStartDateTs();
+
+            times.computeIfAbsent(key(srvId, build), k -> new HashMap<>()).put(build.id(), startTime);
+        }
+
+        addTimes(times);
+    }
+
+    /**
+     * Registers start times of builds persisted, builds are read from binary views.
+     *
+     * @param srvId Server id.
+     * @param builds Builds binary views.
+     */
+    @AutoProfiling
+    public void addBuildsBinary(int srvId, Collection<FatBuildBinary> builds) {
+        Map<BuildStartTimeKey, Map<Integer, Long>> times = new HashMap<>();
+
+        for (FatBuildBinary build : builds) {
+            long startTime = build.isFakeStub() ? BuildStartTimes.NO_START_TIME : build.getStartDateTs();
+
+            times.computeIfAbsent(key(srvId, build), k -> new HashMap<>()).put(build.id(), startTime);
+        }
+
+        addTimes(times);
+    }
+
+    /**
+     * @param times Index key -> Build ID -> Start time.
+     */
+    private void addTimes(Map<BuildStartTimeKey, Map<Integer, Long>> times) {
+        Preconditions.checkNotNull(cache, "init() was not called");
+
+        if (times.isEmpty())
+            return;
+
+        cache.invokeAll(new TreeSet<>(times.keySet()), (entry, args) -> {
+            Map<Integer, Long> buildTimes = ((Map<BuildStartTimeKey, Map<Integer, Long>>)args[0]).get(entry.getKey());
+
+            BuildStartTimes idx = entry.getValue();
+
+            if (idx == null)
+                idx = new BuildStartTimes();
+
+            boolean modified = false;
+
+            for (Map.Entry<Integer, Long> e : buildTimes.entrySet())
+                modified |= idx.add(e.getKey(), e.getValue());
+
+            if (modified)
+                entry.setValue(idx);
+
+            return null;
+        }, times);
+    }
+}
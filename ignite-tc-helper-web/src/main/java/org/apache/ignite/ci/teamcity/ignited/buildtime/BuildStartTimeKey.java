@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.teamcity.ignited.buildtime;
+
+import com.google.common.base.MoreObjects;
+import org.apache.ignite.ci.db.Persisted;
+
+/**
+ * Key of build start times index: server, suite (build type) and branch as it is stored in build reference. Names are
+ * compacted.
+ */
+@Persisted
+public class BuildStartTimeKey implements Comparable<BuildStartTimeKey> {
+    /** Server ID. */
+    private int srvId;
+
+    /** Build type ID, compacted. */
+    private int buildTypeId;
+
+    /** Branch name, compacted. */
+    private int branch;
+
+    /**
+     * @param srvId Server id.
+     * @param buildTypeId Build type id.
+     * @param branch Branch.
+     */
+    public BuildStartTimeKey(int srvId, int buildTypeId, int branch) {
+        this.srvId = srvId;
+        this.buildTypeId = buildTypeId;
+        this.branch = branch;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int compareTo(BuildStartTimeKey o) {
+        int res = Integer.compare(srvId, o.srvId);
+
+        if (res != 0)
+            return res;
+
+        res = Integer.compare(buildTypeId, o.buildTypeId);
+
+        if (res != 0)
+            return res;
+
+        return Integer.compare(branch, o.branch);
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        BuildStartTimeKey key = (BuildStartTimeKey)o;
+        return srvId == key.srvId &&
+            buildTypeId == key.buildTypeId &&
+            branch == key.branch;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int hashCode() {
+        int res = srvId;
+        res = 31 * res + buildTypeId;
+        res = 31 * res + branch;
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("srvId", srvId)
+            .add("buildTypeId", buildTypeId)
+            .add("branch", branch)
+            .toString();
+    }
+}
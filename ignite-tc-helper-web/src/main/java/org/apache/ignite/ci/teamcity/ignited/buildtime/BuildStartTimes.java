@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.teamcity.ignited.buildtime;
+
+import java.util.Arrays;
+import org.apache.ignite.ci.db.Persisted;
+
+/**
+ * Start times of builds of one suite in one branch, kept sorted by (start time, build ID). Builds without start date
+ * (queued builds, fake stubs) are stored with negative time and are never returned by range queries.
+ */
+@Persisted
+public class BuildStartTimes {
+    /** Time used for builds without start date. */
+    public static final long NO_START_TIME = -1L;
+
+    /** Entries count. */
+    private int size;
+
+    /** Start timestamps, sorted. */
+    private long[] startTimes = new long[4];
+
+    /** Build IDs, in the same order as {@link #startTimes}. */
+    private int[] buildIds = new int[4];
+
+    /** Positions of entries sorted by build ID, lazily built for lookups by build ID. */
+    private transient int[] byId;
+
+    /**
+     * @return Entries count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds or updates start time of build.
+     *
+     * @param buildId Build id.
+     * @param startTime Start timestamp, or negative value if build was not started.
+     * @return {@code True} if index was modified.
+     */
+    public boolean add(int buildId, long startTime) {
+        long time = startTime < 0 ? NO_START_TIME : startTime;
+        int pos = position(buildId);
+
+        if (pos >= 0) {
+            if (startTimes[pos] == time)
+                return false;
+
+            System.arraycopy(startTimes, pos + 1, startTimes, pos, size - pos - 1);
+            System.arraycopy(buildIds, pos + 1, buildIds, pos, size - pos - 1);
+            size--;
+        }
+
+        if (size == buildIds.length) {
+            startTimes = Arrays.copyOf(startTimes, size * 2);
+            buildIds = Arrays.copyOf(buildIds, size * 2);
+        }
+
+        int ins = lowerBound(time, buildId);
+
+        System.arraycopy(startTimes, ins, startTimes, ins + 1, size - ins);
+        System.arraycopy(buildIds, ins, buildIds, ins + 1, size - ins);
+
+        startTimes[ins] = time;
+        buildIds[ins] = buildId;
+        size++;
+
+        byId = null;
+
+        return true;
+    }
+
+    /**
+     * @param buildId Build id.
+     * @return {@code True} if build is present in index.
+     */
+    public boolean contains(int buildId) {
+        return position(buildId) >= 0;
+    }
+
+    /**
+     * @param buildId Build id.
+     * @return Start time of build, {@link #NO_START_TIME} if build was not started or is absent in index.
+     */
+    public long startTime(int buildId) {
+        int pos = position(buildId);
+
+        return pos < 0 ? NO_START_TIME : startTimes[pos];
+    }
+
+    /**
+     * @param since Lower bound of start time, inclusive.
+     * @param until Upper bound of start time, inclusive.
+     * @return IDs of builds started in range, ordered by start time.
+     */
+    public int[] buildIds(long since, long until) {
+        int from = lowerBound(Math.max(since, 0), Integer.MIN_VALUE);
+        int to = until == Long.MAX_VALUE ? size : lowerBound(until + 1, Integer.MIN_VALUE);
+
+        return from >= to ? new int[0] : Arrays.copyOfRange(buildIds, from, to);
+    }
+
+    /**
+     * @param ids Build IDs.
+     * @return IDs of builds absent in index, sorted.
+     */
+    public int[] absent(int[] ids) {
+        int[] sorted = ids.clone();
+
+        Arrays.sort(sorted);
+
+        int[] order = byId();
+        int[] res = new int[sorted.length];
+        int cnt = 0;
+        int pos = 0;
+
+        for (int id : sorted) {
+            while (pos < order.length && buildIds[order[pos]] < id)
+                pos++;
+
+            if (pos == order.length || buildIds[order[pos]] != id)
+                res[cnt++] = id;
+        }
+
+        return Arrays.copyOf(res, cnt);
+    }
+
+    /**
+     * @param time Time.
+     * @param buildId Build id.
+     * @return Index of first entry not less than (time, buildId).
+     */
+    private int lowerBound(long time, int buildId) {
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            int cmp = startTimes[mid] != time
+                ? Long.compare(startTimes[mid], time)
+                : Integer.compare(buildIds[mid], buildId);
+
+            if (cmp < 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    /**
+     * @param buildId Build id.
+     * @return Index of entry for build, or negative value if build is absent.
+     */
+    private int position(int buildId) {
+        int[] order = byId();
+
+        int low = 0;
+        int high = order.length - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = buildIds[order[mid]];
+
+            if (midId < buildId)
+                low = mid + 1;
+            else if (midId > buildId)
+                high = mid - 1;
+            else
+                return order[mid];
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return Positions of entries sorted by build ID, built lazily.
+     */
+    private int[] byId() {
+        int[] order = byId;
+
+        if (order == null)
+            byId = order = sortedById();
+
+        return order;
+    }
+
+    /**
+     * @return Positions of entries sorted by build ID.
+     */
+    private int[] sortedById() {
+        long[] packed = new long[size];
+
+        for (int i = 0; i < size; i++)
+            packed[i] = ((long)buildIds[i] << 32) | i;
+
+        Arrays.sort(packed);
+
+        int[] res = new int[size];
+
+        for (int i = 0; i < size; i++)
+            res[i] = (int)packed[i];
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        BuildStartTimes times = (BuildStartTimes)o;
+        return size == times.size &&
+            Arrays.equals(Arrays.copyOf(startTimes, size), Arrays.copyOf(times.startTimes, times.size)) &&
+            Arrays.equals(Arrays.copyOf(buildIds, size), Arrays.copyOf(times.buildIds, times.size));
+    }
+
+    /** {@inheritDoc} */
+    @Override public int hashCode() {
+        int res = size;
+        res = 31 * res + Arrays.hashCode(Arrays.copyOf(startTimes, size));
+        res = 31 * res + Arrays.hashCode(Arrays.copyOf(buildIds, size));
+        return res;
+    }
+}
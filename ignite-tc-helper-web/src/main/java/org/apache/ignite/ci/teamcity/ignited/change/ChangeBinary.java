@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.teamcity.ignited.change;
+
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.ci.analysis.IVersionedEntity;
+
+/**
+ * Read-only view of {@link ChangeCompacted} kept in binary form, fields are read without deserialization of the whole
+ * object.
+ */
+public class ChangeBinary implements IVersionedEntity {
+    /** Binary object. */
+    private final BinaryObject obj;
+
+    /**
+     * @param obj Binary object.
+     */
+    public ChangeBinary(BinaryObject obj) {
+        this.obj = obj;
+    }
+
+    /** */
+    public int id() {
+        Integer id = obj.field("id");
+
+        return id == null ? -1 : id;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int version() {
+        Short ver = obj.field("_ver");
+
+        return ver == null ? 0 : ver;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int latestVersion() {
+        return ChangeCompacted.LATEST_VERSION;
+    }
+
+    /**
+     * @return Change date timestamp.
+     */
+    public long date() {
+        Long date = obj.field("date");
+
+        return date == null ? -1L : date;
+    }
+
+    /**
+     * @return Object deserialized.
+     */
+    public ChangeCompacted deserialize() {
+        return obj.deserialize();
+    }
+}
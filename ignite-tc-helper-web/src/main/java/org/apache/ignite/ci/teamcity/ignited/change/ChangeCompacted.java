@@ -34,7 +34,7 @@ public class ChangeCompacted implements IVersionedEntity {
     private static final Logger logger = LoggerFactory.getLogger(FatBuildDao.class);
 
     /** Latest version. */
-    private static final int LATEST_VERSION = 3;
+    static final int LATEST_VERSION = 3;
 
     /** Entity fields version. */
     @SuppressWarnings("FieldCanBeLocal")
@@ -17,13 +17,16 @@
 
 package org.apache.ignite.ci.teamcity.ignited.change;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
 import org.apache.ignite.ci.db.TcHelperDb;
 import org.apache.ignite.ci.di.AutoProfiling;
 import org.apache.ignite.ci.teamcity.ignited.IStringCompactor;
@@ -39,6 +42,9 @@ public class ChangeDao {
     /** Change Compacted cache. */
     private IgniteCache<Long, ChangeCompacted> changesCache;
 
+    /** Changes cache, values are kept binary. */
+    private IgniteCache<Long, BinaryObject> changesBinary;
+
     /** Compactor. */
     @Inject private IStringCompactor compactor;
 
@@ -47,6 +53,7 @@ public class ChangeDao {
         CacheConfiguration<Long, ChangeCompacted> cfg = TcHelperDb.getCacheV2Config(TEAMCITY_CHANGE_CACHE_NAME);
 
         changesCache = igniteProvider.get().getOrCreateCache(cfg);
+        changesBinary = changesCache.withKeepBinary();
     }
 
     /**
@@ -102,4 +109,48 @@ public class ChangeDao {
 
         return changesCache.getAll(collect);
     }
+
+    /**
+     * Provides changes fields without deserialization of changes.
+     *
+     * @param srvIdMaskHigh Server id mask high.
+     * @param changeIds Change ids.
+     * @return Cache key -> Binary view of change, changes absent in the DB are not included.
+     */
+    @AutoProfiling
+    public Map<Long, ChangeBinary> getAllBinary(int srvIdMaskHigh, int[] changeIds) {
+        final Set<Long> keys = new HashSet<>();
+
+        for (int changeId : changeIds)
+            keys.add(changeIdToCacheKey(srvIdMaskHigh, changeId));
+
+        Map<Long, ChangeBinary> res = new HashMap<>();
+
+        changesBinary.getAll(keys).forEach((key, change) -> res.put(key, new ChangeBinary(change)));
+
+        return res;
+    }
+
+    /**
+     * Saves changes modified using one cache operation.
+     *
+     * @param srvId Server id.
+     * @param changes Change ID -> change compacted.
+     * @return count of changes saved.
+     */
+    @AutoProfiling
+    public int saveAll(int srvId, Map<Integer, ChangeCompacted> changes) {
+        Map<Long, ChangeCompacted> entriesToPut = new TreeMap<>();
+
+        changes.forEach((changeId, change) -> entriesToPut.put(changeIdToCacheKey(srvId, changeId), change));
+
+        Map<Long, ChangeCompacted> existingEntries = changesCache.getAll(entriesToPut.keySet());
+
+        entriesToPut.entrySet().removeIf(e -> e.getValue().equals(existingEntries.get(e.getKey())));
+
+        if (!entriesToPut.isEmpty())
+            changesCache.putAll(entriesToPut);
+
+        return entriesToPut.size();
+    }
 }
@@ -16,41 +16,189 @@
  */
 package org.apache.ignite.ci.teamcity.ignited.change;
 
+import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
+import com.google.common.primitives.Ints;
 import org.apache.ignite.ci.di.AutoProfiling;
 import org.apache.ignite.ci.tcmodel.changes.Change;
+import org.apache.ignite.ci.tcmodel.changes.ChangesListFull;
 import org.apache.ignite.ci.teamcity.ignited.IStringCompactor;
 import org.apache.ignite.ci.teamcity.pure.ITeamcityConn;
 import org.apache.ignite.ci.util.ExceptionUtil;
+import org.apache.ignite.ci.util.FutureUtil;
+import org.apache.ignite.ci.util.SingleFlight;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXParseException;
 
 import javax.inject.Inject;
 import java.io.FileNotFoundException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class ChangeSync {
     /** Logger. */
     private static final Logger logger = LoggerFactory.getLogger(ChangeSync.class);
 
+    /** Min missing changes of a build to request these by pages of build changes instead of one by one. */
+    public static final int MIN_CHANGES_FOR_PAGES = 2;
+
     /** Changes DAO. */
     @Inject private ChangeDao changeDao;
 
     @Inject private IStringCompactor compactor;
 
-    public ChangeCompacted change(int srvId, int changeId, ITeamcityConn conn) {
-        final ChangeCompacted load = changeDao.load(srvId, changeId);
+    /** Change requests in progress: change cache key -> request shared by concurrent callers. */
+    private final SingleFlight<Long, ChangeCompacted> changeReloads = new SingleFlight<>();
+
+    /**
+     * Returns persisted changes, missing and outdated changes are loaded from the server and saved using one cache
+     * operation. If build is known and several changes are missing, these are requested by pages of build changes with
+     * details, remaining changes are requested one by one concurrently. Concurrent requests of the same change are
+     * performed once.
+     *
+     * @param srvId Server id.
+     * @param buildId Build id the changes belong to, {@code null} if unknown.
+     * @param changeIds Change ids.
+     * @param conn Connection.
+     * @param executor Executor for requests of single changes.
+     * @return Change ID -> change.
+     */
+    @AutoProfiling
+    public Map<Integer, ChangeCompacted> changes(int srvId, @Nullable Integer buildId, int[] changeIds,
+        ITeamcityConn conn, Executor executor) {
+        Map<Long, ChangeCompacted> persisted = changeDao.getAll(srvId, changeIds);
+        Map<Integer, ChangeCompacted> res = new HashMap<>();
+        Set<Integer> missing = new HashSet<>();
+
+        for (int changeId : changeIds) {
+            ChangeCompacted change = persisted.get(changeDao.changeIdToCacheKey(srvId, changeId));
+
+            if (change != null && !change.isOutdatedEntityVersion())
+                res.put(changeId, change);
+            else
+                missing.add(changeId);
+        }
+
+        if (missing.isEmpty())
+            return res;
 
-        if (load != null && !load.isOutdatedEntityVersion())
-            return load;
+        res.putAll(loadMissing(srvId, buildId, missing, conn, executor));
 
-        return reloadChange(srvId, changeId, conn);
+        return res;
     }
 
-    @NotNull
+    /**
+     * Ensures changes are persisted: missing and outdated changes are loaded and saved the same way as by
+     * {@link #changes(int, Integer, int[], ITeamcityConn, Executor)}. Changes persisted are checked by binary fields
+     * without deserialization.
+     *
+     * @param srvId Server id.
+     * @param buildId Build id the changes belong to, {@code null} if unknown.
+     * @param changeIds Change ids.
+     * @param conn Connection.
+     * @param executor Executor for requests of single changes.
+     */
     @AutoProfiling
-    public ChangeCompacted reloadChange(int srvId, int changeId, ITeamcityConn conn) {
+    public void ensureChanges(int srvId, @Nullable Integer buildId, int[] changeIds, ITeamcityConn conn,
+        Executor executor) {
+        Map<Long, ChangeBinary> persisted = changeDao.getAllBinary(srvId, changeIds);
+        Set<Integer> missing = new HashSet<>();
+
+        for (int changeId : changeIds) {
+            ChangeBinary change = persisted.get(changeDao.changeIdToCacheKey(srvId, changeId));
+
+            if (change == null || change.isOutdatedEntityVersion())
+                missing.add(changeId);
+        }
+
+        if (!missing.isEmpty())
+            loadMissing(srvId, buildId, missing, conn, executor);
+    }
+
+    /**
+     * @param srvId Server id.
+     * @param buildId Build id the changes belong to, {@code null} if unknown.
+     * @param missing Change ids to be loaded, modified by this method.
+     * @param conn Connection.
+     * @param executor Executor for requests of single changes.
+     * @return Change ID -> change loaded and saved.
+     */
+    private Map<Integer, ChangeCompacted> loadMissing(int srvId, @Nullable Integer buildId, Set<Integer> missing,
+        ITeamcityConn conn, Executor executor) {
+        Map<Integer, ChangeCompacted> loaded = new HashMap<>();
+
+        if (buildId != null && missing.size() >= MIN_CHANGES_FOR_PAGES) {
+            loaded.putAll(loadBuildChanges(buildId, missing, conn));
+
+            missing.removeAll(loaded.keySet());
+        }
+
+        Map<Integer, CompletableFuture<ChangeCompacted>> futs = new HashMap<>();
+
+        for (Integer changeId : missing) {
+            long cacheKey = changeDao.changeIdToCacheKey(srvId, changeId);
+
+            futs.put(changeId, CompletableFuture.supplyAsync(
+                () -> changeReloads.load(cacheKey, () -> fetchChange(changeId, conn)), executor));
+        }
+
+        futs.forEach((changeId, fut) -> loaded.put(changeId, FutureUtil.getResult(fut)));
+
+        changeDao.saveAll(srvId, loaded);
+
+        return loaded;
+    }
+
+    /**
+     * Requests pages of build changes with details, until all changes required are found.
+     *
+     * @param buildId Build id.
+     * @param changeIds Change ids required.
+     * @param conn Connection.
+     * @return Change ID -> change for changes found, may be incomplete if request failed.
+     */
+    private Map<Integer, ChangeCompacted> loadBuildChanges(int buildId, Set<Integer> changeIds, ITeamcityConn conn) {
+        Map<Integer, ChangeCompacted> res = new HashMap<>();
+        String href = null;
+
+        try {
+            do {
+                ChangesListFull page = conn.getChangesPage(buildId, href);
+
+                for (Change change : page.changes()) {
+                    Integer changeId = change.id == null ? null : Ints.tryParse(change.id);
+
+                    if (changeId != null && changeIds.contains(changeId))
+                        res.put(changeId, new ChangeCompacted(compactor, change));
+                }
+
+                href = page.nextHref();
+            }
+            while (!Strings.isNullOrEmpty(href) && res.size() < changeIds.size());
+        }
+        catch (Exception e) {
+            logger.info("Loading changes of build [" + buildId + "] failed, changes will be requested one by one: "
+                + e.getMessage());
+        }
+
+        return res;
+    }
+
+    /**
+     * Loads change from the server, does not save it.
+     *
+     * @param changeId Change id.
+     * @param conn Connection.
+     */
+    @NotNull
+    private ChangeCompacted fetchChange(int changeId, ITeamcityConn conn) {
         Change change;
         try {
             change = conn.getChange(changeId);
@@ -69,10 +217,6 @@ public class ChangeSync {
                 throw ExceptionUtil.propagateException(e);
         }
 
-        final ChangeCompacted changeCompacted = new ChangeCompacted(compactor, change);
-
-        changeDao.save(srvId, changeId, changeCompacted);
-
-        return changeCompacted;
+        return new ChangeCompacted(compactor, change);
     }
 }
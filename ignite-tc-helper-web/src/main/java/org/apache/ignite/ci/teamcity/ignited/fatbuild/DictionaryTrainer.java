@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.teamcity.ignited.fatbuild;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Trains preset dictionary for DEFLATE from sample values. Sample is split to segments, segment is scored by count of
+ * its k-grams which occur in other samples too. Segments are selected greedily: k-grams of selected segment are not
+ * counted anymore, so repeated content is included in dictionary once.
+ */
+class DictionaryTrainer {
+    /** K-gram length. */
+    static final int GRAM = 8;
+
+    /** Segment length. */
+    static final int SEGMENT = 64;
+
+    /** Bits of k-gram hash. */
+    private static final int HASH_BITS = 20;
+
+    /**
+     * Segment of sample.
+     */
+    private static class Segment {
+        /** Sample index. */
+        final int sample;
+
+        /** Offset in sample. */
+        final int off;
+
+        /** Score, may be outdated. */
+        long score;
+
+        /**
+         * @param sample Sample index.
+         * @param off Offset in sample.
+         * @param score Score.
+         */
+        Segment(int sample, int off, long score) {
+            this.sample = sample;
+            this.off = off;
+            this.score = score;
+        }
+    }
+
+    /**
+     * @param samples Samples.
+     * @param maxSize Max dictionary size.
+     * @return Dictionary, most valuable segments are placed at the end (closest to the data compressed).
+     */
+    static byte[] train(List<byte[]> samples, int maxSize) {
+        int[] freq = new int[1 << HASH_BITS];
+        int[] lastSample = new int[1 << HASH_BITS];
+
+        // Each k-gram is counted once per sample: content repeated across samples is preferred.
+        for (int s = 0; s < samples.size(); s++) {
+            byte[] sample = samples.get(s);
+
+            for (int i = 0; i + GRAM <= sample.length; i++) {
+                int h = gramHash(sample, i);
+
+                if (lastSample[h] != s + 1) {
+                    lastSample[h] = s + 1;
+                    freq[h]++;
+                }
+            }
+        }
+
+        PriorityQueue<Segment> queue = new PriorityQueue<>((s1, s2) -> Long.compare(s2.score, s1.score));
+
+        for (int s = 0; s < samples.size(); s++) {
+            byte[] sample = samples.get(s);
+
+            for (int off = 0; off + SEGMENT <= sample.length; off += SEGMENT) {
+                long score = score(sample, off, freq);
+
+                if (score > 0)
+                    queue.add(new Segment(s, off, score));
+            }
+        }
+
+        List<Segment> selected = new ArrayList<>();
+        int size = 0;
+
+        while (size + SEGMENT <= maxSize && !queue.isEmpty()) {
+            Segment seg = queue.poll();
+            byte[] sample = samples.get(seg.sample);
+
+            // Lazy greedy: score could be decreased by segments selected before.
+            long score = score(sample, seg.off, freq);
+
+            if (score <= 0)
+                continue;
+
+            if (score < seg.score && !queue.isEmpty() && score < queue.peek().score) {
+                seg.score = score;
+
+                queue.add(seg);
+
+                continue;
+            }
+
+            selected.add(seg);
+            size += SEGMENT;
+
+            for (int i = seg.off; i + GRAM <= seg.off + SEGMENT; i++)
+                freq[gramHash(sample, i)] = 0;
+        }
+
+        ByteArrayOutputStream dict = new ByteArrayOutputStream(size);
+
+        for (int i = selected.size() - 1; i >= 0; i--) {
+            Segment seg = selected.get(i);
+
+            dict.write(samples.get(seg.sample), seg.off, SEGMENT);
+        }
+
+        return dict.toByteArray();
+    }
+
+    /**
+     * @param sample Sample.
+     * @param off Segment offset.
+     * @param freq K-gram frequencies.
+     * @return Score: sum of frequencies of k-grams which occur in several samples.
+     */
+    private static long score(byte[] sample, int off, int[] freq) {
+        long score = 0;
+
+        for (int i = off; i + GRAM <= off + SEGMENT; i++) {
+            int f = freq[gramHash(sample, i)];
+
+            if (f > 1)
+                score += f;
+        }
+
+        return score;
+    }
+
+    /**
+     * @param data Data.
+     * @param off K-gram offset.
+     */
+    private static int gramHash(byte[] data, int off) {
+        long gram = 0;
+
+        for (int i = 0; i < GRAM; i++)
+            gram = gram << 8 | (data[off + i] & 0xFF);
+
+        return (int)((gram * 0x9E3779B97F4A7C15L) >>> (64 - HASH_BITS));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.teamcity.ignited.fatbuild;
+
+import java.util.BitSet;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.ci.analysis.IVersionedEntity;
+import org.apache.ignite.ci.teamcity.ignited.BuildRefBinary;
+
+/**
+ * Read-only view of {@link FatBuildCompacted} kept in binary form. Allows to read build fields without deserialization
+ * and decompression of tests, problems and statistics.
+ */
+public class FatBuildBinary extends BuildRefBinary implements IVersionedEntity {
+    /**
+     * @param obj Binary object.
+     */
+    public FatBuildBinary(BinaryObject obj) {
+        super(obj);
+    }
+
+    /** {@inheritDoc} */
+    @Override public int version() {
+        return shortField("_ver");
+    }
+
+    /** {@inheritDoc} */
+    @Override public int latestVersion() {
+        return FatBuildCompacted.LATEST_VERSION;
+    }
+
+    /**
+     * @return Start timestamp, or negative value if build was not started.
+     */
+    public long getStartDateTs() {
+        return longField("startDate");
+    }
+
+    /**
+     * @return Finish timestamp, or negative value if build was not finished.
+     */
+    public long getFinishDateTs() {
+        return longField("finishDate");
+    }
+
+    /**
+     * @return Queued timestamp.
+     */
+    public long getQueuedDateTs() {
+        return longField("queuedDate");
+    }
+
+    /** */
+    public int projectId() {
+        return intField("projectId");
+    }
+
+    /** */
+    public boolean isFakeStub() {
+        BitSet flags = obj.field("flags");
+        int off = FatBuildCompacted.FAKE_BUILD_F;
+
+        // Same encoding as FatBuildCompacted flags: presence bit, then value bit.
+        return flags != null && flags.get(off) && flags.get(off + 1);
+    }
+}
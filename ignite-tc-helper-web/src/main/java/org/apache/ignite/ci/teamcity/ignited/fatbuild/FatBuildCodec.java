@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.teamcity.ignited.fatbuild;
+
+import com.google.common.base.Preconditions;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntFunction;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import javax.cache.Cache;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.ci.db.TcHelperDb;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compresses serialized tests of fat build as one DEFLATE block with preset dictionary. Dictionary is trained from
+ * first builds saved and is persisted, so it is shared between builds and survives restarts. Block header refers to
+ * dictionary by its ID, so blocks compressed using older dictionaries remain readable.
+ */
+public class FatBuildCodec {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(FatBuildCodec.class);
+
+    /** Dictionaries cache name. */
+    public static final String TEAMCITY_FAT_BUILD_DICT_CACHE_NAME = "teamcityFatBuildDict";
+
+    /** Block format: DEFLATE with optional preset dictionary. */
+    public static final byte FORMAT_DEFLATE = 1;
+
+    /** Dictionary ID for blocks compressed without dictionary. */
+    public static final int NO_DICT = 0;
+
+    /** Samples to be collected for training. */
+    public static final int TRAINING_SAMPLES = 64;
+
+    /** Max bytes of one sample used for training. */
+    public static final int MAX_SAMPLE_SIZE = 256 * 1024;
+
+    /** Dictionary size, DEFLATE window does not allow to reference more. */
+    public static final int DICT_SIZE = 32 * 1024;
+
+    /** Block header size: format, dictionary ID, uncompressed length. */
+    private static final int HEADER_SIZE = 1 + 4 + 4;
+
+    /** Ignite provider. */
+    @Inject private Provider<Ignite> igniteProvider;
+
+    /** Dictionaries cache. */
+    private IgniteCache<Integer, byte[]> dictCache;
+
+    /** Dictionaries loaded: ID -> Dictionary. */
+    private final ConcurrentMap<Integer, byte[]> dicts = new ConcurrentHashMap<>();
+
+    /** Dictionary used for compression. */
+    private volatile int curDictId = NO_DICT;
+
+    /** Samples collected for training, guarded by itself. */
+    private final List<byte[]> samples = new ArrayList<>();
+
+    /**
+     *
+     */
+    public void init() {
+        if (dictCache != null)
+            return;
+
+        dictCache = igniteProvider.get().getOrCreateCache(
+            TcHelperDb.getCacheV2Config(TEAMCITY_FAT_BUILD_DICT_CACHE_NAME));
+
+        for (Cache.Entry<Integer, byte[]> entry : dictCache)
+            dicts.put(entry.getKey(), entry.getValue());
+
+        curDictId = dicts.keySet().stream().mapToInt(Integer::intValue).max().orElse(NO_DICT);
+    }
+
+    /**
+     * @param raw Uncompressed data.
+     * @return Compressed block.
+     */
+    public byte[] encode(byte[] raw) {
+        Preconditions.checkNotNull(dictCache, "init() was not called");
+
+        int dictId = curDictId;
+
+        if (dictId == NO_DICT)
+            dictId = sample(raw);
+
+        return deflate(raw, dictId, dictId == NO_DICT ? null : dicts.get(dictId));
+    }
+
+    /**
+     * @param block Compressed block.
+     * @return Uncompressed data.
+     */
+    public byte[] decode(byte[] block) {
+        Preconditions.checkNotNull(dictCache, "init() was not called");
+
+        return inflate(block, this::dictionary);
+    }
+
+    /**
+     * @param dictId Dictionary ID.
+     * @return Dictionary, or null if it is not known.
+     */
+    @Nullable private byte[] dictionary(int dictId) {
+        byte[] dict = dicts.get(dictId);
+
+        if (dict != null)
+            return dict;
+
+        // Dictionary could be trained by another node.
+        dict = dictCache.get(dictId);
+
+        if (dict != null)
+            dicts.put(dictId, dict);
+
+        return dict;
+    }
+
+    /**
+     * Adds data to training samples, trains dictionary if enough samples were collected.
+     *
+     * @param raw Uncompressed data.
+     * @return Dictionary ID to be used.
+     */
+    private int sample(byte[] raw) {
+        synchronized (samples) {
+            if (curDictId != NO_DICT)
+                return curDictId;
+
+            samples.add(raw.length > MAX_SAMPLE_SIZE ? Arrays.copyOf(raw, MAX_SAMPLE_SIZE) : raw);
+
+            if (samples.size() < TRAINING_SAMPLES)
+                return NO_DICT;
+
+            List<byte[]> trainingSet = new ArrayList<>(samples);
+
+            samples.clear();
+
+            byte[] dict = DictionaryTrainer.train(trainingSet, DICT_SIZE);
+
+            int dictId = NO_DICT + 1;
+
+            // Concurrently trained dictionary wins, its ID is used.
+            byte[] existing = dictCache.getAndPutIfAbsent(dictId, dict);
+
+            dicts.put(dictId, existing != null ? existing : dict);
+
+            curDictId = dictId;
+
+            logger.info("Fat build compression dictionary trained: id=" + dictId + ", size=" +
+                (existing != null ? existing : dict).length + ", samples=" + trainingSet.size());
+
+            return dictId;
+        }
+    }
+
+    /**
+     * @param raw Uncompressed data.
+     * @param dictId Dictionary ID.
+     * @param dict Dictionary, null for {@link #NO_DICT}.
+     * @return Compressed block.
+     */
+    static byte[] deflate(byte[] raw, int dictId, @Nullable byte[] dict) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+        try {
+            if (dict != null)
+                deflater.setDictionary(dict);
+
+            deflater.setInput(raw);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_SIZE + raw.length / 4 + 64);
+
+            out.write(ByteBuffer.allocate(HEADER_SIZE)
+                .put(FORMAT_DEFLATE)
+                .putInt(dict != null ? dictId : NO_DICT)
+                .putInt(raw.length)
+                .array(), 0, HEADER_SIZE);
+
+            byte[] buf = new byte[8192];
+
+            while (!deflater.finished()) {
+                int len = deflater.deflate(buf);
+
+                out.write(buf, 0, len);
+            }
+
+            return out.toByteArray();
+        }
+        finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @param block Compressed block.
+     * @param dicts Dictionary ID -> Dictionary or null if dictionary is unknown.
+     * @return Uncompressed data.
+     */
+    static byte[] inflate(byte[] block, IntFunction<byte[]> dicts) {
+        ByteBuffer buf = ByteBuffer.wrap(block);
+
+        byte format = buf.get();
+
+        if (format != FORMAT_DEFLATE)
+            throw new IllegalStateException("Unknown fat build block format: " + format);
+
+        int dictId = buf.getInt();
+        byte[] raw = new byte[buf.getInt()];
+
+        Inflater inflater = new Inflater();
+
+        try {
+            inflater.setInput(block, HEADER_SIZE, block.length - HEADER_SIZE);
+
+            int off = 0;
+
+            while (off < raw.length) {
+                int len = inflater.inflate(raw, off, raw.length - off);
+
+                if (len == 0 && inflater.needsDictionary()) {
+                    byte[] dict = dictId == NO_DICT ? null : dicts.apply(dictId);
+
+                    if (dict == null)
+                        throw new IllegalStateException("Fat build compression dictionary not found: " + dictId);
+
+                    inflater.setDictionary(dict);
+                }
+                else if (len == 0 && (inflater.finished() || inflater.needsInput()))
+                    throw new IllegalStateException("Fat build block is truncated: " + off + " of " + raw.length);
+
+                off += len;
+            }
+
+            return raw;
+        }
+        catch (DataFormatException e) {
+            throw new IllegalStateException("Fat build block is corrupted", e);
+        }
+        finally {
+            inflater.end();
+        }
+    }
+}
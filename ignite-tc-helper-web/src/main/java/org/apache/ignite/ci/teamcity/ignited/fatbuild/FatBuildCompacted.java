@@ -18,6 +18,7 @@ package org.apache.ignite.ci.teamcity.ignited.fatbuild;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
 import java.util.Date;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.ignite.ci.analysis.IVersionedEntity;
@@ -43,12 +44,16 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
- *
+ * Build with tests, problems, statistics and changes compacted. Build is modified only by DAO and sync of this package
+ * before save, it is read-only for other callers: builds read are shared by {@link FatBuildNearCache}.
  */
 @Persisted
 public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEntity {
-    /** Latest version. */
-    private static final int LATEST_VERSION = 5;
+    /**
+     * Latest version. Tests of builds saved as list by older code are readable as is, and are converted to columns
+     * when build is saved again, so storing tests column-wise doesn't require reload of all builds.
+     */
+    static final int LATEST_VERSION = 5;
 
     /** Default branch flag offset. */
     public static final int DEF_BR_F = 0;
@@ -82,8 +87,18 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
     /** Suite Name for this builds. */
     private int name = -1;
 
+    /** Tests stored as list by older code, converted to {@link #testsCols} on save. */
     @Nullable private List<TestCompacted> tests;
 
+    /** Tests stored column-wise. */
+    @Nullable private TestsColumns testsCols;
+
+    /** Tests columns compressed as one block by {@link FatBuildCodec}, replaces {@link #testsCols} if present. */
+    @Nullable private byte[] testsBlock;
+
+    /** Tests columns decompressed from {@link #testsBlock}. */
+    @Nullable private transient TestsColumns testsBlockCols;
+
     @Nullable private int snapshotDeps[];
 
     private BitSet flags = new BitSet();
@@ -189,10 +204,12 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
         type.projectId(projectId(compactor));
         res.setBuildType(type);
 
-        if (tests != null) {
+        TestsColumns cols = cols();
+
+        if (cols != null || tests != null) {
             TestOccurrencesRef testOccurrencesRef = new TestOccurrencesRef();
             testOccurrencesRef.href = "/app/rest/latest/testOccurrences?locator=build:(id:" + id() + ")";
-            testOccurrencesRef.count = tests.size();
+            testOccurrencesRef.count = cols != null ? cols.size() : tests.size();
             res.testOccurrences = testOccurrencesRef;
         }
 
@@ -219,15 +236,106 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
      * @param compactor Compactor.
      * @param page Page.
      */
-    public void addTests(IStringCompactor compactor, List<TestOccurrenceFull> page) {
-        for (TestOccurrenceFull next : page) {
-            TestCompacted compacted = new TestCompacted(compactor, next);
+    void addTests(IStringCompactor compactor, List<TestOccurrenceFull> page) {
+        addTests(page.stream()
+            .map(occurrence -> new TestCompacted(compactor, occurrence))
+            .collect(Collectors.toList()));
+    }
 
-            if (tests == null)
-                tests = new ArrayList<>();
+    /**
+     * @param page Tests, already compacted.
+     */
+    void addTests(List<TestCompacted> page) {
+        if (page.isEmpty())
+            return;
+
+        if (cols() == null && tests == null) {
+            testsCols = new TestsColumns(page);
 
-            tests.add(compacted);
+            return;
         }
+
+        List<TestCompacted> all = new ArrayList<>(getAllTestsCompacted());
+
+        all.addAll(page);
+
+        tests = null;
+        testsBlock = null;
+        testsBlockCols = null;
+        testsCols = new TestsColumns(all);
+    }
+
+    /**
+     * @return Tests columns, either plain or decompressed from block.
+     */
+    @Nullable private TestsColumns cols() {
+        if (testsCols != null)
+            return testsCols;
+
+        Preconditions.checkState(testsBlock == null || testsBlockCols != null,
+            "Tests block was not decompressed for build " + id());
+
+        return testsBlockCols;
+    }
+
+    /**
+     * Compresses tests columns as one block, should be called before build is saved.
+     *
+     * @param codec Codec.
+     */
+    void compressTests(FatBuildCodec codec) {
+        if (tests != null) {
+            testsCols = new TestsColumns(tests);
+            tests = null;
+        }
+
+        if (testsCols == null)
+            return;
+
+        byte[] raw = testsCols.toBytes();
+
+        testsBlock = codec.encode(raw);
+        testsBlockCols = TestsColumns.fromBytes(raw);
+        testsCols = null;
+    }
+
+    /**
+     * @return approximate size of build in bytes, including tests decompressed.
+     */
+    public int byteSize() {
+        TestsColumns cols = cols();
+
+        int size = 128;
+
+        if (testsBlock != null)
+            size += testsBlock.length;
+
+        if (cols != null)
+            size += cols.byteSize();
+
+        if (tests != null)
+            size += tests.size() * 64;
+
+        if (snapshotDeps != null)
+            size += snapshotDeps.length * 4;
+
+        if (changesIds != null)
+            size += changesIds.length * 4;
+
+        if (problems != null)
+            size += problems.size() * 32;
+
+        return size;
+    }
+
+    /**
+     * Decompresses tests block, should be called after build is loaded.
+     *
+     * @param codec Codec.
+     */
+    void decompressTests(FatBuildCodec codec) {
+        if (testsBlock != null && testsBlockCols == null)
+            testsBlockCols = TestsColumns.fromBytes(codec.decode(testsBlock));
     }
 
     /**
@@ -259,13 +367,12 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
      * @param compactor Compactor.
      */
     public TestOccurrencesFull getTestOcurrences(IStringCompactor compactor) {
-        if (tests == null)
+        if (cols() == null && tests == null)
             return new TestOccurrencesFull();
 
-        List<TestOccurrenceFull> res = new ArrayList<>();
-
-        for (TestCompacted compacted : tests)
-            res.add(compacted.toTestOccurrence(compactor, id()));
+        List<TestOccurrenceFull> res = getAllTests()
+            .map(test -> test.toTestOccurrence(compactor, id()))
+            .collect(Collectors.toList());
 
         TestOccurrencesFull testOccurrences = new TestOccurrencesFull();
 
@@ -280,6 +387,13 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
         return new Date(startDate);
     }
 
+    /**
+     * @return Start timestamp, or negative value if build was not started.
+     */
+    public long getStartDateTs() {
+        return startDate;
+    }
+
     /** {@inheritDoc} */
     @Override public boolean equals(Object o) {
         if (this == o)
@@ -296,6 +410,7 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
             projectId == that.projectId &&
             name == that.name &&
             Objects.equal(tests, that.tests) &&
+            Objects.equal(cols(), that.cols()) &&
             Objects.equal(snapshotDeps, that.snapshotDeps) &&
             Objects.equal(flags, that.flags) &&
                 Objects.equal(problems, that.problems) &&
@@ -306,7 +421,7 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
     /** {@inheritDoc} */
     @Override public int hashCode() {
         return Objects.hashCode(super.hashCode(), _ver, startDate, finishDate, queuedDate, projectId, name, tests,
-                snapshotDeps, flags, problems, statistics, changesIds);
+                cols(), snapshotDeps, flags, problems, statistics, changesIds);
     }
 
     /**
@@ -336,23 +451,52 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
         return flag != null && flag;
     }
 
-    public Stream<TestCompacted> getFailedNotMutedTests(IStringCompactor compactor) {
+    public Stream<ITest> getFailedNotMutedTests(IStringCompactor compactor) {
+        TestsColumns cols = cols();
+
+        if (cols != null)
+            return cols.failedNotMuted(compactor);
+
         if (tests == null)
             return Stream.of();
 
         return tests.stream()
-                .filter(t -> t.isFailedButNotMuted(compactor));
+                .filter(t -> t.isFailedButNotMuted(compactor))
+                .map(ITest.class::cast);
     }
 
     public Stream<String> getFailedNotMutedTestNames(IStringCompactor compactor) {
         return getFailedNotMutedTests(compactor).map(t -> t.testName(compactor));
     }
 
-    public Stream<TestCompacted> getAllTests() {
+    /**
+     * @return all tests, flyweight accessors are returned for column-wise stored tests.
+     */
+    public Stream<ITest> getAllTests() {
+        TestsColumns cols = cols();
+
+        if (cols != null)
+            return cols.all();
+
         if (tests == null)
             return Stream.of();
 
-        return tests.stream();
+        return tests.stream().map(ITest.class::cast);
+    }
+
+    /**
+     * @return all tests as standalone objects.
+     */
+    public List<TestCompacted> getAllTestsCompacted() {
+        TestsColumns cols = cols();
+
+        if (cols != null)
+            return cols.toTestsCompacted();
+
+        if (tests == null)
+            return Collections.emptyList();
+
+        return Collections.unmodifiableList(tests);
     }
 
     public Stream<String> getAllTestNames(IStringCompactor compactor) {
@@ -383,8 +527,8 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
         return Collections.unmodifiableList(this.problems);
     }
 
-    public void addProblems(IStringCompactor compactor,
-                            @NotNull List<ProblemOccurrence> occurrences) {
+    void addProblems(IStringCompactor compactor,
+                     @NotNull List<ProblemOccurrence> occurrences) {
         if (occurrences.isEmpty())
             return;
 
@@ -400,19 +544,36 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
         return statistics == null ? null : statistics.buildDuration(compactor);
     }
 
-    public void statistics(IStringCompactor compactor, Statistics statistics) {
+    void statistics(IStringCompactor compactor, Statistics statistics) {
         this.statistics = new StatisticsCompacted(compactor, statistics);
     }
 
-    public void changes(int[] changes) {
+    /**
+     * @return Statistics compacted, {@code null} if statistics was not loaded.
+     */
+    @Nullable StatisticsCompacted statistics() {
+        return statistics;
+    }
+
+    /**
+     * @param statistics Statistics compacted.
+     */
+    void statistics(@Nullable StatisticsCompacted statistics) {
+        this.statistics = statistics;
+    }
+
+    void changes(int[] changes) {
         this.changesIds = changes;
     }
 
+    /**
+     * @return IDs of changes, copy is returned because build may be shared by near cache.
+     */
     public int[] changes() {
         if (changesIds == null)
             return EMPTY;
 
-        return changesIds;
+        return changesIds.clone();
     }
 
     public int[] snapshotDependencies() {
@@ -432,6 +593,9 @@ public class FatBuildCompacted extends BuildRefCompacted implements IVersionedEn
             .add("projectId", projectId)
             .add("name", name)
             .add("tests", tests)
+            .add("testsCols", testsCols)
+            .add("testsBlock", testsBlock != null ? testsBlock.length : null)
+            .add("testsBlockCols", testsBlockCols)
             .add("snapshotDeps", snapshotDeps)
             .add("flags", flags)
             .add("problems", problems)
@@ -18,24 +18,34 @@
 package org.apache.ignite.ci.teamcity.ignited.fatbuild;
 
 import com.google.common.base.Preconditions;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.validation.constraints.NotNull;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.ci.db.CacheBulkLoader;
 import org.apache.ignite.ci.db.TcHelperDb;
 import org.apache.ignite.ci.tcmodel.changes.ChangesList;
 import org.apache.ignite.ci.tcmodel.result.Build;
 import org.apache.ignite.ci.tcmodel.result.problems.ProblemOccurrence;
 import org.apache.ignite.ci.tcmodel.result.stat.Statistics;
+import org.apache.ignite.ci.tcmodel.result.tests.TestOccurrenceFull;
 import org.apache.ignite.ci.tcmodel.result.tests.TestOccurrencesFull;
 import org.apache.ignite.ci.teamcity.ignited.IStringCompactor;
+import org.apache.ignite.ci.teamcity.ignited.buildtime.BuildStartTimeDao;
+import org.apache.ignite.ci.teamcity.ignited.runhist.RunHistCompactedDao;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,14 +66,37 @@ public class FatBuildDao {
     /** Builds cache. */
     private IgniteCache<Long, FatBuildCompacted> buildsCache;
 
+    /** Builds cache, values are kept binary. */
+    private IgniteCache<Long, BinaryObject> buildsBinary;
+
     /** Compactor. */
     @Inject private IStringCompactor compactor;
 
+    /** Run history DAO, updated for each build saved. */
+    @Inject private RunHistCompactedDao runHistDao;
+
+    /** Builds start times index DAO. */
+    @Inject private BuildStartTimeDao buildStartTimeDao;
+
+    /** Bulk loader. */
+    @Inject private CacheBulkLoader bulkLoader;
+
+    /** Codec for tests of builds. */
+    @Inject private FatBuildCodec codec;
+
+    /** Builds recently read. */
+    @Inject private FatBuildNearCache nearCache;
+
     /**
      *
      */
     public void init() {
         buildsCache = igniteProvider.get().getOrCreateCache(TcHelperDb.getCacheV2Config(TEAMCITY_FAT_BUILD_CACHE_NAME));
+        buildsBinary = buildsCache.withKeepBinary();
+
+        codec.init();
+        runHistDao.init();
+        buildStartTimeDao.init();
     }
 
     /**
@@ -85,13 +118,65 @@ public class FatBuildDao {
                                        @Nullable Statistics statistics,
                                        @Nullable ChangesList changesList,
                                        @Nullable FatBuildCompacted existingBuild) {
-        Preconditions.checkNotNull(buildsCache, "init() was not called");
+        List<TestCompacted> testsCompacted = new ArrayList<>();
+
+        for (TestOccurrencesFull next : tests) {
+            for (TestOccurrenceFull occurrence : next.getTests())
+                testsCompacted.add(new TestCompacted(compactor, occurrence));
+        }
+
+        return saveBuildCompacted(srvIdMaskHigh, buildId, build, testsCompacted, problems, statistics, changesList,
+            existingBuild);
+    }
+
+    /**
+     * @param srvIdMaskHigh Server id mask high.
+     * @param buildId
+     * @param build Build data.
+     * @param tests Tests of all pages, already compacted.
+     * @param problems
+     * @param statistics
+     * @param changesList
+     * @param existingBuild existing version of build in the DB.
+     * @return Fat Build saved (if modifications detected), otherwise null.
+     */
+    public FatBuildCompacted saveBuildCompacted(long srvIdMaskHigh,
+                                                int buildId,
+                                                @NotNull Build build,
+                                                @NotNull List<TestCompacted> tests,
+                                                @Nullable List<ProblemOccurrence> problems,
+                                                @Nullable Statistics statistics,
+                                                @Nullable ChangesList changesList,
+                                                @Nullable FatBuildCompacted existingBuild) {
+        FatBuildCompacted newBuild = createFatBuild(build, tests, problems, statistics, changesList);
+
+        Map<Integer, FatBuildCompacted> existingBuilds = existingBuild == null
+            ? Collections.emptyMap()
+            : Collections.singletonMap(buildId, existingBuild);
+
+        return saveBuilds(srvIdMaskHigh, Collections.singletonMap(buildId, newBuild), existingBuilds, null)
+            .get(buildId);
+    }
+
+    /**
+     * Creates compacted version of the build, does not save it.
+     *
+     * @param build Build data.
+     * @param tests Tests of all pages, already compacted.
+     * @param problems Problems.
+     * @param statistics Statistics.
+     * @param changesList Changes.
+     */
+    public FatBuildCompacted createFatBuild(@NotNull Build build,
+                                            @NotNull List<TestCompacted> tests,
+                                            @Nullable List<ProblemOccurrence> problems,
+                                            @Nullable Statistics statistics,
+                                            @Nullable ChangesList changesList) {
         Preconditions.checkNotNull(build, "build can't be null");
 
         FatBuildCompacted newBuild = new FatBuildCompacted(compactor, build);
 
-        for (TestOccurrencesFull next : tests)
-            newBuild.addTests(compactor, next.getTests());
+        newBuild.addTests(tests);
 
         if (problems != null)
             newBuild.addProblems(compactor, problems);
@@ -102,13 +187,47 @@ public class FatBuildDao {
         if (changesList != null)
             newBuild.changes(extractChangeIds(changesList));
 
-        if (existingBuild == null || !existingBuild.equals(newBuild)) {
-            buildsCache.put(buildIdToCacheKey(srvIdMaskHigh, buildId), newBuild);
+        return newBuild;
+    }
+
+    /**
+     * Saves builds using one cache operation. Build is skipped if it is equal to its existing version.
+     *
+     * @param srvIdMaskHigh Server id mask high.
+     * @param builds Build ID -> New version of build.
+     * @param existingBuilds Build ID -> Existing version of build in the DB, may not contain build if it is new.
+     * @param ses Bulk load session of the caller, {@code null} if caller is not a bulk loader.
+     * @return Build ID -> Fat Build saved (modifications detected).
+     */
+    public Map<Integer, FatBuildCompacted> saveBuilds(long srvIdMaskHigh,
+                                                      Map<Integer, FatBuildCompacted> builds,
+                                                      Map<Integer, FatBuildCompacted> existingBuilds,
+                                                      @Nullable CacheBulkLoader.Session ses) {
+        Preconditions.checkNotNull(buildsCache, "init() was not called");
 
-            return newBuild;
+        Map<Integer, FatBuildCompacted> saved = new HashMap<>();
+        Map<Long, FatBuildCompacted> toPut = new TreeMap<>();
+
+        builds.forEach((buildId, newBuild) -> {
+            FatBuildCompacted existingBuild = existingBuilds.get(buildId);
+
+            newBuild.compressTests(codec);
+
+            if (existingBuild == null || !existingBuild.equals(newBuild)) {
+                toPut.put(buildIdToCacheKey(srvIdMaskHigh, buildId), newBuild);
+                saved.put(buildId, newBuild);
+            }
+        });
+
+        if (!toPut.isEmpty()) {
+            bulkLoader.putAll(ses, buildsCache, toPut);
+            nearCache.saved(toPut);
+
+            runHistDao.addBuilds((int)srvIdMaskHigh, saved.values());
+            buildStartTimeDao.addBuilds((int)srvIdMaskHigh, saved.values());
         }
 
-        return null;
+        return saved;
     }
 
     public static int[] extractChangeIds(@NotNull ChangesList changesList) {
@@ -139,22 +258,93 @@ public class FatBuildDao {
     public FatBuildCompacted getFatBuild(int srvIdMaskHigh, int buildId) {
         Preconditions.checkNotNull(buildsCache, "init() was not called");
 
-        return buildsCache.get(buildIdToCacheKey(srvIdMaskHigh, buildId));
+        long key = buildIdToCacheKey(srvIdMaskHigh, buildId);
+
+        FatBuildCompacted build = nearCache.get(key);
+
+        if (build != null)
+            return build;
+
+        build = buildsCache.get(key);
+
+        if (build != null) {
+            build.decompressTests(codec);
+
+            nearCache.loaded(key, build);
+        }
+
+        return build;
     }
 
     /**
      * @param srvIdMaskHigh Server id mask high.
-     * @param buildsIds Builds ids.
+     * @param buildIds Builds ids.
+     * @return Build ID -> Fat Build, builds absent in the DB are not included.
      */
-    public Map<Long, FatBuildCompacted> getAllFatBuilds(int srvIdMaskHigh, Collection<Integer> buildsIds) {
+    public Map<Integer, FatBuildCompacted> getFatBuilds(int srvIdMaskHigh, Collection<Integer> buildIds) {
         Preconditions.checkNotNull(buildsCache, "init() was not called");
 
-        Set<Long> ids = buildsIds.stream()
+        Set<Long> ids = buildIds.stream()
             .filter(Objects::nonNull)
             .map(buildId -> buildIdToCacheKey(srvIdMaskHigh, buildId))
-            .collect(Collectors.toSet());
+            .collect(Collectors.toCollection(TreeSet::new));
+
+        if (ids.isEmpty())
+            return new HashMap<>();
+
+        Map<Integer, FatBuildCompacted> res = new HashMap<>();
+
+        nearCache.getAll(ids).forEach((key, build) -> {
+            ids.remove(key);
+
+            res.put(cacheKeyToBuildId(key), build);
+        });
+
+        if (ids.isEmpty())
+            return res;
+
+        buildsCache.getAll(ids).forEach((key, build) -> {
+            build.decompressTests(codec);
+
+            nearCache.loaded(key, build);
 
-        return buildsCache.getAll(ids);
+            res.put(cacheKeyToBuildId(key), build);
+        });
+
+        return res;
+    }
+
+    /**
+     * Provides builds fields without deserialization of tests, problems and statistics.
+     *
+     * @param srvIdMaskHigh Server id mask high.
+     * @param buildIds Builds ids.
+     * @return Build ID -> Binary view of Fat Build, builds absent in the DB are not included.
+     */
+    public Map<Integer, FatBuildBinary> getFatBuildsBinary(int srvIdMaskHigh, Collection<Integer> buildIds) {
+        Preconditions.checkNotNull(buildsBinary, "init() was not called");
+
+        Set<Long> ids = buildIds.stream()
+            .filter(Objects::nonNull)
+            .map(buildId -> buildIdToCacheKey(srvIdMaskHigh, buildId))
+            .collect(Collectors.toCollection(TreeSet::new));
+
+        Map<Integer, FatBuildBinary> res = new HashMap<>();
+
+        if (ids.isEmpty())
+            return res;
+
+        buildsBinary.getAll(ids).forEach((key, build) -> res.put(cacheKeyToBuildId(key), new FatBuildBinary(build)));
+
+        return res;
+    }
+
+    /**
+     * @param key Cache key.
+     * @return Build ID.
+     */
+    private static int cacheKeyToBuildId(long key) {
+        return (int)key;
     }
 
     /**
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.teamcity.ignited.fatbuild;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * On-heap cache of fat builds recently read, bounded by approximate size of builds in bytes. Builds cached are shared
+ * between callers, so these should not be modified. Saved build replaces cached version instead of invalidation, and
+ * build loaded from the DB is cached only if absent: version loaded concurrently with save can't replace saved one.
+ */
+public class FatBuildNearCache {
+    /** Cache name for metrics. */
+    public static final String NEAR_CACHE_NAME = FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME + "Near";
+
+    /** Max size of builds cached in bytes. */
+    public static final long MAX_BYTES = 256L * 1024 * 1024;
+
+    /** Cache key -> Build. */
+    private final Cache<Long, FatBuildCompacted> builds = CacheBuilder.newBuilder()
+        .maximumWeight(MAX_BYTES)
+        .<Long, FatBuildCompacted>weigher((key, build) -> build.byteSize())
+        .recordStats()
+        .build();
+
+    /**
+     * @param key Cache key.
+     * @return Build cached or null.
+     */
+    public FatBuildCompacted get(long key) {
+        return builds.getIfPresent(key);
+    }
+
+    /**
+     * @param keys Cache keys.
+     * @return Cache key -> Build, for builds cached only.
+     */
+    public Map<Long, FatBuildCompacted> getAll(Collection<Long> keys) {
+        return new HashMap<>(builds.getAllPresent(keys));
+    }
+
+    /**
+     * Caches build loaded from the DB if there is no cached version yet.
+     *
+     * @param key Cache key.
+     * @param build Build loaded.
+     */
+    public void loaded(long key, FatBuildCompacted build) {
+        builds.asMap().putIfAbsent(key, build);
+    }
+
+    /**
+     * Replaces cached version of the build by saved one, should be called after build was saved to the DB.
+     *
+     * @param builds Cache key -> Build saved.
+     */
+    public void saved(Map<Long, FatBuildCompacted> builds) {
+        this.builds.putAll(builds);
+    }
+
+    /**
+     * @return Builds cached.
+     */
+    public long size() {
+        return builds.size();
+    }
+
+    /**
+     * @return Approximate size of builds cached in bytes.
+     */
+    public long bytes() {
+        return builds.asMap().values().stream().mapToLong(FatBuildCompacted::byteSize).sum();
+    }
+
+    /**
+     * @return Hits, misses and evictions.
+     */
+    public CacheStats stats() {
+        return builds.stats();
+    }
+}
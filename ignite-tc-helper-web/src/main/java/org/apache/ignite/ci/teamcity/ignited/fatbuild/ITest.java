@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.teamcity.ignited.fatbuild;
+
+import org.apache.ignite.ci.tcmodel.result.tests.TestOccurrenceFull;
+import org.apache.ignite.ci.teamcity.ignited.IStringCompactor;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Test occurrence in build, read-only view. Implemented by standalone {@link TestCompacted} and by flyweight rows of
+ * {@link TestsColumns}.
+ */
+public interface ITest {
+    /**
+     * @return test name, compacted.
+     */
+    public int testName();
+
+    /**
+     * @param compactor Compactor.
+     */
+    public String testName(IStringCompactor compactor);
+
+    /**
+     * @return status, compacted.
+     */
+    public int status();
+
+    /**
+     * @return duration or null if duration is unknown.
+     */
+    @Nullable public Integer getDuration();
+
+    public Boolean getMutedFlag();
+
+    public Boolean getIgnoredFlag();
+
+    public Boolean getCurrInvestigatedFlag();
+
+    public boolean isInvestigated();
+
+    /**
+     * @param compactor Compactor.
+     */
+    public boolean isFailedTest(IStringCompactor compactor);
+
+    /**
+     * @param compactor Compactor.
+     */
+    public boolean isFailedButNotMuted(IStringCompactor compactor);
+
+    /**
+     * @return uncompressed test details.
+     */
+    @Nullable public String getDetailsText();
+
+    /**
+     * @param compactor Compactor.
+     * @param buildId Build id.
+     */
+    public TestOccurrenceFull toTestOccurrence(IStringCompactor compactor, int buildId);
+}
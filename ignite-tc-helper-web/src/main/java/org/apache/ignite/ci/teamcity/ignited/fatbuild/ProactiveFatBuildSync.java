@@ -18,20 +18,27 @@ package org.apache.ignite.ci.teamcity.ignited.fatbuild;
 
 import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.apache.ignite.ci.db.CacheBulkLoader;
 import org.apache.ignite.ci.di.AutoProfiling;
 import org.apache.ignite.ci.di.MonitoredTask;
 import org.apache.ignite.ci.di.scheduler.IScheduler;
 import org.apache.ignite.ci.tcmodel.changes.ChangesList;
 import org.apache.ignite.ci.tcmodel.result.Build;
 import org.apache.ignite.ci.tcmodel.result.problems.ProblemOccurrence;
+import org.apache.ignite.ci.tcmodel.result.problems.ProblemOccurrences;
 import org.apache.ignite.ci.tcmodel.result.stat.Statistics;
-import org.apache.ignite.ci.tcmodel.result.tests.TestOccurrencesFull;
+import org.apache.ignite.ci.tcbot.TcBotSystemProperties;
 import org.apache.ignite.ci.teamcity.ignited.BuildRefDao;
 import org.apache.ignite.ci.teamcity.ignited.IStringCompactor;
 import org.apache.ignite.ci.teamcity.ignited.ITeamcityIgnited;
+import org.apache.ignite.ci.teamcity.ignited.change.ChangeCompacted;
 import org.apache.ignite.ci.teamcity.ignited.change.ChangeSync;
 import org.apache.ignite.ci.teamcity.pure.ITeamcityConn;
+import org.apache.ignite.ci.teamcity.pure.TcRequestLimiter;
 import org.apache.ignite.ci.util.ExceptionUtil;
+import org.apache.ignite.ci.util.FutureUtil;
+import org.apache.ignite.ci.util.SingleFlight;
 import org.apache.ignite.internal.util.GridConcurrentHashSet;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -42,13 +49,35 @@ import javax.annotation.concurrent.GuardedBy;
 import javax.inject.Inject;
 import java.io.FileNotFoundException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
 
 public class ProactiveFatBuildSync {
     public static final int FAT_BUILD_PROACTIVE_TASKS = 5;
 
+    /** Max parallel requests for build sub-resources (tests, problems, changes, etc.) to one server. */
+    public static final int SUB_RESOURCES_REQUESTS_PER_SRV = 6;
+
+    /** Max parallel builds loads requested by one caller, e.g. for builds of a chain, from one server. */
+    public static final int BUILD_LOADS_PER_SRV = 4;
+
+    /** Max builds reloaded by proactive sync saved by one cache operation. */
+    public static final int SAVE_BATCH_SIZE = 32;
+
+    /** Min builds count loaded by one task to enable bulk load mode, e.g. for initial load of a fresh instance. */
+    public static final int BULK_LOAD_MIN_BUILDS = 1000;
+
     /** Logger. */
     private static final Logger logger = LoggerFactory.getLogger(ProactiveFatBuildSync.class);
 
@@ -59,6 +88,12 @@ public class ProactiveFatBuildSync {
     /** Build DAO. */
     @Inject private FatBuildDao fatBuildDao;
 
+    /** Bulk loader. */
+    @Inject private CacheBulkLoader bulkLoader;
+
+    /** Single build reloads in progress: build cache key -> load shared by concurrent callers. */
+    private final SingleFlight<Long, FatBuildCompacted> buildReloads = new SingleFlight<>();
+
     /** Scheduler. */
     @Inject private IScheduler scheduler;
 
@@ -69,6 +104,12 @@ public class ProactiveFatBuildSync {
     @GuardedBy("this")
     private Map<String, SyncTask> buildToLoad = new HashMap<>();
 
+    /** Server ID -> Executor for build sub-resources requests, limits number of parallel requests to server. */
+    private final ConcurrentMap<String, Executor> subResourcesExecutors = new ConcurrentHashMap<>();
+
+    /** Server ID -> Executor for builds loads requested by {@link #loadBuilds(ITeamcityConn, Map, Collection)}. */
+    private final ConcurrentMap<String, Executor> buildLoadsExecutors = new ConcurrentHashMap<>();
+
     public void doLoadBuilds(int i, String srvNme, ITeamcityConn conn, Set<Integer> paginateUntil) {
         doLoadBuilds(i, srvNme, conn, paginateUntil, getSyncTask(conn).loadingBuilds);
     }
@@ -188,35 +229,139 @@ public class ProactiveFatBuildSync {
         if(load.isEmpty())
             return "Nothing to load";
 
+        if (load.size() < BULK_LOAD_MIN_BUILDS)
+            return loadBuilds(srvId, conn, load, loadingBuilds, null);
+
+        try (CacheBulkLoader.Session ses = bulkLoader.open(FatBuildDao.TEAMCITY_FAT_BUILD_CACHE_NAME)) {
+            return loadBuilds(srvId, conn, load, loadingBuilds, ses);
+        }
+    }
+
+    /**
+     * Loads builds and saves these by batches. Reload of each build is registered in {@link #buildReloads} until its
+     * batch is saved, so builds being reloaded by other callers are skipped, and concurrent
+     * {@link #reloadBuild(ITeamcityConn, int, FatBuildCompacted)} of the same build doesn't request it again. Reload is
+     * completed as soon as build is fetched, so such callers get new version without waiting for save of whole batch.
+     *
+     * @param srvId Server id.
+     * @param conn Connection.
+     * @param load Builds to load.
+     * @param loadingBuilds Builds in progress, saved builds are removed from this set.
+     * @param ses Bulk load session for fat builds, {@code null} if builds are saved directly.
+     */
+    private String loadBuilds(String srvId, ITeamcityConn conn, Set<Integer> load,
+        GridConcurrentHashSet<Integer> loadingBuilds, @Nullable CacheBulkLoader.Session ses) {
         final int srvIdMaskHigh = ITeamcityIgnited.serverIdToInt(srvId);
 
         AtomicInteger err = new AtomicInteger();
         AtomicInteger ld = new AtomicInteger();
 
-        Map<Long, FatBuildCompacted> builds = fatBuildDao.getAllFatBuilds(srvIdMaskHigh, load);
+        Map<Integer, FatBuildCompacted> existingBuilds = fatBuildDao.getFatBuilds(srvIdMaskHigh, load);
+        Map<Integer, FatBuildCompacted> reloaded = new HashMap<>();
+        Map<Integer, CompletableFuture<FatBuildCompacted>> reloads = new HashMap<>();
 
-        load.forEach(
-                buildId -> {
-                    try {
-                        FatBuildCompacted existingBuild = builds.get(FatBuildDao.buildIdToCacheKey(srvIdMaskHigh, buildId));
+        try {
+            for (Integer buildId : load) {
+                FatBuildCompacted existingBuild = existingBuilds.get(buildId);
 
-                        FatBuildCompacted savedVer = loadBuild(conn, buildId, existingBuild, false);
+                if (isActual(existingBuild, false)) {
+                    loadingBuilds.remove(buildId);
 
-                        if (savedVer != null)
-                            ld.incrementAndGet();
+                    continue;
+                }
+
+                long cacheKey = BuildRefDao.buildIdToCacheKey(srvIdMaskHigh, buildId);
+                CompletableFuture<FatBuildCompacted> reload = buildReloads.start(cacheKey);
+
+                if (reload == null) {
+                    // Build is being reloaded and saved by other caller.
+                    loadingBuilds.remove(buildId);
+
+                    continue;
+                }
+
+                reloads.put(buildId, reload);
+
+                try {
+                    FatBuildCompacted newBuild = fetchBuild(conn, buildId, existingBuild);
+
+                    reloaded.put(buildId, newBuild);
 
-                        loadingBuilds.remove(buildId);
-                    }
-                    catch (Exception e) {
-                        logger.error("", e);
-                        err.incrementAndGet();
-                    }
+                    reload.complete(newBuild);
                 }
-        );
+                catch (Exception e) {
+                    logger.error("", e);
+                    err.incrementAndGet();
+
+                    buildReloads.finish(cacheKey, reloads.remove(buildId), null, e);
+                }
+
+                if (reloaded.size() >= SAVE_BATCH_SIZE)
+                    ld.addAndGet(saveReloaded(srvIdMaskHigh, reloaded, reloads, loadingBuilds, ses, err));
+            }
+
+            ld.addAndGet(saveReloaded(srvIdMaskHigh, reloaded, reloads, loadingBuilds, ses, err));
+        }
+        catch (Error e) {
+            reloads.forEach((buildId, reload) ->
+                buildReloads.finish(BuildRefDao.buildIdToCacheKey(srvIdMaskHigh, buildId), reload, null, e));
+
+            throw e;
+        }
 
         return "Builds updated " + ld.get() + " from " + load.size() + " requested, errors: " + err;
     }
 
+    /**
+     * Saves builds reloaded using one cache operation, completes their reloads, and clears provided maps. Existing
+     * builds are read again before save: these may be saved by other callers after start of the load.
+     *
+     * @param srvIdMaskHigh Server id mask high.
+     * @param reloaded Build ID -> New build version.
+     * @param reloads Build ID -> Reload registered in {@link #buildReloads}.
+     * @param loadingBuilds Builds in progress, saved builds are removed from this set.
+     * @param ses Bulk load session for fat builds, {@code null} if builds are saved directly.
+     * @param err Errors counter, incremented by count of builds of batch if save failed.
+     * @return count of builds modified.
+     */
+    private int saveReloaded(int srvIdMaskHigh,
+        Map<Integer, FatBuildCompacted> reloaded,
+        Map<Integer, CompletableFuture<FatBuildCompacted>> reloads,
+        GridConcurrentHashSet<Integer> loadingBuilds,
+        @Nullable CacheBulkLoader.Session ses,
+        AtomicInteger err) {
+        if (reloaded.isEmpty())
+            return 0;
+
+        Map<Integer, FatBuildCompacted> saved = Collections.emptyMap();
+        Exception failure = null;
+
+        try {
+            Map<Integer, FatBuildCompacted> existingBuilds = fatBuildDao.getFatBuilds(srvIdMaskHigh, reloaded.keySet());
+
+            saved = fatBuildDao.saveBuilds(srvIdMaskHigh, reloaded, existingBuilds, ses);
+
+            loadingBuilds.removeAll(reloaded.keySet());
+        }
+        catch (Exception e) {
+            logger.error("Saving builds " + reloaded.keySet() + " failed", e);
+            err.addAndGet(reloaded.size());
+
+            failure = e;
+        }
+
+        for (Map.Entry<Integer, CompletableFuture<FatBuildCompacted>> e : reloads.entrySet()) {
+            long cacheKey = BuildRefDao.buildIdToCacheKey(srvIdMaskHigh, e.getKey());
+
+            buildReloads.finish(cacheKey, e.getValue(), saved.get(e.getKey()), failure);
+        }
+
+        reloaded.clear();
+        reloads.clear();
+
+        return saved.size();
+    }
+
     @NotNull
     private String taskName(String taskName, String srvName) {
         return ProactiveFatBuildSync.class.getSimpleName() +"." + taskName + "." + srvName;
@@ -240,14 +385,63 @@ public class ProactiveFatBuildSync {
     public FatBuildCompacted loadBuild(ITeamcityConn conn, int buildId,
                                        @Nullable FatBuildCompacted existingBuild,
                                        boolean acceptQueued) {
-        if (existingBuild != null && !existingBuild.isOutdatedEntityVersion()) {
-            boolean finished = !existingBuild.isRunning(compactor) && !existingBuild.isQueued(compactor);
+        if (isActual(existingBuild, acceptQueued))
+            return null;
+
+        return reloadBuild(conn, buildId, existingBuild);
+    }
+
+    /**
+     * Loads missing and not actual builds in parallel, each build is loaded as by
+     * {@link #loadBuild(ITeamcityConn, int, FatBuildCompacted, boolean)}.
+     *
+     * @param conn Connection.
+     * @param existingBuilds Build ID -> Existing version of build in the DB, may not contain build if it is missing.
+     * @param buildIds Build IDs.
+     * @return Build ID -> New version of build, for builds modified only.
+     */
+    public Map<Integer, FatBuildCompacted> loadBuilds(ITeamcityConn conn,
+        Map<Integer, FatBuildCompacted> existingBuilds,
+        Collection<Integer> buildIds) {
+        Executor executor = buildLoadsExecutor(conn.serverId());
+        Map<Integer, CompletableFuture<FatBuildCompacted>> loads = new HashMap<>();
+
+        for (Integer buildId : buildIds) {
+            if (buildId == null || loads.containsKey(buildId))
+                continue;
+
+            FatBuildCompacted existingBuild = existingBuilds.get(buildId);
+
+            if (isActual(existingBuild, false))
+                continue;
 
-            if(finished || acceptQueued)
-                return null;
+            loads.put(buildId, supplyAsync(() -> reloadBuild(conn, buildId, existingBuild), executor));
         }
 
-        return reloadBuild(conn, buildId, existingBuild);
+        Map<Integer, FatBuildCompacted> res = new HashMap<>();
+
+        loads.forEach((buildId, load) -> {
+            FatBuildCompacted newBuild = FutureUtil.getResult(load);
+
+            if (newBuild != null)
+                res.put(buildId, newBuild);
+        });
+
+        return res;
+    }
+
+    /**
+     * @param existingBuild Existing build.
+     * @param acceptQueued Accept queued or running build as actual.
+     * @return {@code True} if build should not be reloaded from the server.
+     */
+    private boolean isActual(@Nullable FatBuildCompacted existingBuild, boolean acceptQueued) {
+        if (existingBuild == null || existingBuild.isOutdatedEntityVersion())
+            return false;
+
+        boolean finished = !existingBuild.isRunning(compactor) && !existingBuild.isQueued(compactor);
+
+        return finished || acceptQueued;
     }
 
     /**
@@ -255,52 +449,91 @@ public class ProactiveFatBuildSync {
      * @param conn
      * @param buildId
      * @param existingBuild
-     * @return new build if it was updated or null if no updates detected
+     * @return new build if it was updated or null if no updates detected. Concurrent reloads of the same build are
+     * performed once, all callers get result of this reload. If build is reloaded by proactive sync, its new version is
+     * returned as soon as it is fetched, and it is saved by the batch of proactive sync.
      */
     @SuppressWarnings({"WeakerAccess"})
     @AutoProfiling
     public FatBuildCompacted reloadBuild(ITeamcityConn conn, int buildId, @Nullable FatBuildCompacted existingBuild) {
-        //  System.err.println(Thread.currentThread().getName()+ ": Build " + buildId);
-        //todo some sort of locking to avoid double requests
+        int srvIdMask = ITeamcityIgnited.serverIdToInt(conn.serverId());
+
+        return buildReloads.load(BuildRefDao.buildIdToCacheKey(srvIdMask, buildId),
+            () -> doReloadBuild(conn, srvIdMask, buildId, existingBuild));
+    }
+
+    /**
+     * @param conn Connection.
+     * @param srvIdMask Server id mask high.
+     * @param buildId Build id.
+     * @param existingBuild Existing version of the build.
+     * @return new build if it was updated or null if no updates detected.
+     */
+    private FatBuildCompacted doReloadBuild(ITeamcityConn conn, int srvIdMask, int buildId,
+        @Nullable FatBuildCompacted existingBuild) {
+        FatBuildCompacted newBuild = fetchBuild(conn, buildId, existingBuild);
+
+        Map<Integer, FatBuildCompacted> existingBuilds = existingBuild == null
+            ? Collections.emptyMap()
+            : Collections.singletonMap(buildId, existingBuild);
+
+        //if we are here because of some sort of outdated version of build,
+        // new save will be performed with new entity version for compacted build
+        return fatBuildDao.saveBuilds(srvIdMask, Collections.singletonMap(buildId, newBuild), existingBuilds, null)
+            .get(buildId);
+    }
 
+    /**
+     * Loads build and its sub-resources from the server, does not save it.
+     *
+     * @param conn Connection.
+     * @param buildId Build id.
+     * @param existingBuild Existing version of the build, used if build was removed from the server.
+     * @return new version of compacted build.
+     */
+    private FatBuildCompacted fetchBuild(ITeamcityConn conn, int buildId, @Nullable FatBuildCompacted existingBuild) {
         final String srvNme = conn.serverId();
         final int srvIdMask = ITeamcityIgnited.serverIdToInt(srvNme);
 
         Build build;
-        List<TestOccurrencesFull> tests = new ArrayList<>();
+        List<TestCompacted> tests = new ArrayList<>();
         List<ProblemOccurrence> problems = null;
         Statistics statistics = null;
         ChangesList changesList = null;
+        boolean keepExisting = false;
         try {
             build = conn.getBuild(buildId);
 
-            if(build.testOccurrences!=null) {
-                String nextHref = null;
-                do {
-                    boolean testDtls = !build.isComposite(); // don't query test details for compoite
-                    TestOccurrencesFull page = conn.getTestsPage(buildId, nextHref, testDtls);
-                    nextHref = page.nextHref();
+            Executor executor = subResourcesExecutor(srvNme);
+            boolean testDtls = !build.isComposite(); // don't query test details for compoite
 
-                    tests.add(page);
-                }
-                while (!Strings.isNullOrEmpty(nextHref));
-            }
+            // Sub-resources are independent, so these are requested concurrently, and joined before save.
+            CompletableFuture<List<TestCompacted>> testsFut = build.testOccurrences != null
+                ? supplyAsync(() -> loadTestsPages(conn, buildId, testDtls), executor)
+                : completedFuture(new ArrayList<>());
 
-            if (build.problemOccurrences != null)
-                problems = conn.getProblems(buildId).getProblemsNonNull();
+            CompletableFuture<ProblemOccurrences> problemsFut = build.problemOccurrences != null
+                ? supplyAsync(() -> conn.getProblems(buildId), executor)
+                : completedFuture(null);
 
-            if (build.statisticsRef != null)
-                statistics = conn.getStatistics(buildId);
+            CompletableFuture<Statistics> statisticsFut = build.statisticsRef != null
+                ? supplyAsync(() -> conn.getStatistics(buildId), executor)
+                : completedFuture(null);
 
             if (build.changesRef != null) {
                 changesList = conn.getChangesList(buildId);
 
-                for (int changeId : FatBuildDao.extractChangeIds(changesList)) {
-                    // consult change sync for provided changes data
-
-                    changeSync.change(srvIdMask, changeId, conn);
-                }
+                // consult change sync for provided changes data, missing changes are loaded in batch
+                changeSync.ensureChanges(srvIdMask, buildId, FatBuildDao.extractChangeIds(changesList), conn, executor);
             }
+
+            tests = testsFut.get();
+
+            ProblemOccurrences problemOccurrences = problemsFut.get();
+            if (problemOccurrences != null)
+                problems = problemOccurrences.getProblemsNonNull();
+
+            statistics = statisticsFut.get();
         }
         catch (Exception e) {
             if (Throwables.getRootCause(e) instanceof FileNotFoundException) {
@@ -312,9 +545,11 @@ public class ProactiveFatBuildSync {
                     if(build.isRunning() || build.isQueued())
                         build.setCancelled();
 
-                    tests = Collections.singletonList(existingBuild.getTestOcurrences(compactor));
+                    tests = existingBuild.getAllTestsCompacted();
 
                     problems = existingBuild.problems(compactor);
+
+                    keepExisting = true;
                 }
                 else {
                     build = Build.createFakeStub();
@@ -328,8 +563,96 @@ public class ProactiveFatBuildSync {
             }
         }
 
-        //if we are here because of some sort of outdated version of build,
-        // new save will be performed with new entity version for compacted build
-        return fatBuildDao.saveBuild(srvIdMask, buildId, build, tests, problems, statistics, changesList, existingBuild);
+        FatBuildCompacted res = fatBuildDao.createFatBuild(build, tests, problems, statistics, changesList);
+
+        if (keepExisting) {
+            // build is not available anymore, keep statistics and changes loaded before
+            res.statistics(existingBuild.statistics());
+
+            int[] changes = existingBuild.changes();
+
+            if (changes.length > 0)
+                res.changes(changes);
+        }
+
+        return res;
+    }
+
+    /**
+     * Loads all test occurrences pages. Pages are loaded one by one because next page reference is known only after
+     * parsing of current page.
+     *
+     * @param conn Connection.
+     * @param buildId Build id.
+     * @param testDtls Query test details.
+     */
+    private List<TestCompacted> loadTestsPages(ITeamcityConn conn, int buildId, boolean testDtls) {
+        List<TestCompacted> tests = new ArrayList<>();
+        AtomicReference<String> nextHref = new AtomicReference<>();
+
+        do {
+            tests.addAll(conn.getTestsPageCompacted(buildId, nextHref.get(), testDtls, nextHref, compactor));
+        }
+        while (!Strings.isNullOrEmpty(nextHref.get()));
+
+        return tests;
+    }
+
+    /**
+     * Returns persisted changes, loads missing changes from the server by pages of build changes.
+     *
+     * @param conn Connection.
+     * @param buildId Build id the changes belong to.
+     * @param changeIds Change ids.
+     * @return Change ID -> change.
+     */
+    public Map<Integer, ChangeCompacted> loadChanges(ITeamcityConn conn, int buildId, int[] changeIds) {
+        int srvIdMask = ITeamcityIgnited.serverIdToInt(conn.serverId());
+
+        return changeSync.changes(srvIdMask, buildId, changeIds, conn, subResourcesExecutor(conn.serverId()));
+    }
+
+    /**
+     * @param srvNme Server name.
+     * @return Executor for requesting build sub-resources. Direct executor is used if sequential sync is enabled by
+     * {@link TcBotSystemProperties#TEAMCITY_BOT_SYNC_SEQUENTIAL}.
+     */
+    private Executor subResourcesExecutor(String srvNme) {
+        return executor(subResourcesExecutors, srvNme, SUB_RESOURCES_REQUESTS_PER_SRV, "fat-build-sync-");
+    }
+
+    /**
+     * Builds loads use own executor: these wait for sub-resources requests, which could deadlock in the same pool.
+     *
+     * @param srvNme Server name.
+     * @return Executor for loading builds requested by one caller. Direct executor is used if sequential sync is enabled
+     * by {@link TcBotSystemProperties#TEAMCITY_BOT_SYNC_SEQUENTIAL}.
+     */
+    private Executor buildLoadsExecutor(String srvNme) {
+        return executor(buildLoadsExecutors, srvNme, BUILD_LOADS_PER_SRV, "fat-build-load-");
+    }
+
+    /**
+     * @param executors Server ID -> Executor.
+     * @param srvNme Server name.
+     * @param threads Threads count.
+     * @param namePrefix Thread name prefix.
+     * @return Executor for the server, created on first request. Tasks are run with priority of requests of the thread
+     * which submitted these, see {@link TcRequestLimiter#withSubmitterPriority(Executor)}.
+     */
+    private static Executor executor(ConcurrentMap<String, Executor> executors, String srvNme, int threads,
+        String namePrefix) {
+        if (Boolean.valueOf(System.getProperty(TcBotSystemProperties.TEAMCITY_BOT_SYNC_SEQUENTIAL)))
+            return MoreExecutors.directExecutor();
+
+        return executors.computeIfAbsent(srvNme,
+            srv -> TcRequestLimiter.withSubmitterPriority(Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = Executors.defaultThreadFactory().newThread(r);
+
+                thread.setName(namePrefix + srv + "-" + thread.getName());
+                thread.setDaemon(true);
+
+                return thread;
+            })));
     }
 }
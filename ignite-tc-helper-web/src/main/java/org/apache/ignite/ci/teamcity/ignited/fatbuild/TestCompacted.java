@@ -41,7 +41,7 @@ import org.xerial.snappy.Snappy;
 /**
  *
  */
-public class TestCompacted {
+public class TestCompacted implements ITest {
     public static final int MUTED_F = 0;
     public static final int CUR_MUTED_F = 2;
     public static final int CUR_INV_F = 4;
@@ -85,33 +85,98 @@ public class TestCompacted {
      * @param testOccurrence TestOccurrence.
      */
     public TestCompacted(IStringCompactor compactor, TestOccurrenceFull testOccurrence) {
-        String testOccurrenceId = testOccurrence.getId();
+        this(compactor,
+            testOccurrence.getId(),
+            testOccurrence.name,
+            testOccurrence.status,
+            testOccurrence.duration,
+            testOccurrence.muted,
+            testOccurrence.currentlyMuted,
+            testOccurrence.currentlyInvestigated,
+            testOccurrence.ignored,
+            testOccurrence.build == null ? null : testOccurrence.build.getId(),
+            testOccurrence.test == null ? null : testOccurrence.test.id,
+            testOccurrence.details);
+    }
+
+    /**
+     * Creates test from raw values, e.g. parsed from XML without creation of intermediate test occurrence.
+     *
+     * @param compactor Compactor.
+     * @param testOccurrenceId Test occurrence ID, something like: 'id:15666,build:(id:1093907)'.
+     * @param name Test name.
+     * @param status Status.
+     * @param duration Duration.
+     * @param muted Muted flag.
+     * @param currentlyMuted Currently muted flag.
+     * @param currentlyInvestigated Currently investigated flag.
+     * @param ignored Ignored flag.
+     * @param actualBuildId Actual build ID.
+     * @param testId Test global ID.
+     * @param details Failure text details.
+     */
+    public TestCompacted(IStringCompactor compactor,
+        @Nullable String testOccurrenceId,
+        @Nullable String name,
+        @Nullable String status,
+        @Nullable Integer duration,
+        @Nullable Boolean muted,
+        @Nullable Boolean currentlyMuted,
+        @Nullable Boolean currentlyInvestigated,
+        @Nullable Boolean ignored,
+        @Nullable Integer actualBuildId,
+        @Nullable Long testId,
+        @Nullable String details) {
         if (!Strings.isNullOrEmpty(testOccurrenceId)) {
             try {
-                final RunStat.TestId testId = RunStat.extractFullId(testOccurrenceId);
-                if (testId != null)
-                    idInBuild = testId.getTestId();
+                final RunStat.TestId fullId = RunStat.extractFullId(testOccurrenceId);
+                if (fullId != null)
+                    idInBuild = fullId.getTestId();
             } catch (Exception e) {
                 logger.error("Failed to handle TC response: " + testOccurrenceId, e);
             }
         }
 
-        name = compactor.getStringId(testOccurrence.name);
-        status = compactor.getStringId(testOccurrence.status);
-        duration = testOccurrence.duration == null ? -1 : testOccurrence.duration;
+        this.name = compactor.getStringId(name);
+        this.status = compactor.getStringId(status);
+        this.duration = duration == null ? -1 : duration;
 
-        setFlag(MUTED_F, testOccurrence.muted);
-        setFlag(CUR_MUTED_F, testOccurrence.currentlyMuted);
-        setFlag(CUR_INV_F, testOccurrence.currentlyInvestigated);
-        setFlag(IGNORED_F, testOccurrence.ignored);
+        setFlag(MUTED_F, muted);
+        setFlag(CUR_MUTED_F, currentlyMuted);
+        setFlag(CUR_INV_F, currentlyInvestigated);
+        setFlag(IGNORED_F, ignored);
 
-        if (testOccurrence.build != null && testOccurrence.build.getId() != null)
-            actualBuildId = testOccurrence.build.getId();
+        if (actualBuildId != null)
+            this.actualBuildId = actualBuildId;
 
-        if (testOccurrence.test != null && testOccurrence.test.id != null)
-            testId = testOccurrence.test.id;
+        if (testId != null)
+            this.testId = testId;
 
-        setDetails(testOccurrence.details);
+        setDetailsUncompressed(details);
+    }
+
+    /**
+     * Creates test from already compacted values, see {@link TestsColumns}.
+     *
+     * @param idInBuild Id in build.
+     * @param name Name, compacted.
+     * @param status Status, compacted.
+     * @param duration Duration or -1.
+     * @param flags Flags packed by {@link #flagsPacked()}.
+     * @param testId Test global ID.
+     * @param actualBuildId Actual build ID.
+     * @param details Details, compressed according to flags.
+     */
+    TestCompacted(int idInBuild, int name, int status, int duration, short flags, long testId, int actualBuildId,
+        @Nullable byte[] details) {
+        this.idInBuild = idInBuild;
+        this.name = name;
+        this.status = status;
+        this.duration = duration;
+        this.flags = BitSet.valueOf(new long[] {flags & 0xFFFFL});
+        this.testId = testId;
+        this.actualBuildId = actualBuildId;
+        this.details = details;
     }
 
     private void setFlag(int off, Boolean val) {
@@ -135,7 +200,8 @@ public class TestCompacted {
         return flags.get(off + 1);
     }
 
-    public TestOccurrenceFull toTestOccurrence(IStringCompactor compactor, int buildId) {
+    /** {@inheritDoc} */
+    @Override public TestOccurrenceFull toTestOccurrence(IStringCompactor compactor, int buildId) {
         TestOccurrenceFull occurrence = new TestOccurrenceFull();
 
         String fullStrId = "id:" +
@@ -174,14 +240,13 @@ public class TestCompacted {
         return occurrence;
     }
 
-    public Boolean getCurrInvestigatedFlag() {
+    /** {@inheritDoc} */
+    @Override public Boolean getCurrInvestigatedFlag() {
         return getFlag(CUR_INV_F);
     }
 
-    /**
-     *
-     */
-    @Nullable public String getDetailsText() {
+    /** {@inheritDoc} */
+    @Override @Nullable public String getDetailsText() {
         if (details == null)
             return "";
 
@@ -217,6 +282,33 @@ public class TestCompacted {
             return null;
     }
 
+    /**
+     * Keeps details uncompressed: tests of build are saved as one block, which is compressed as a whole by
+     * {@link FatBuildCodec}, so details are compressed once on save.
+     *
+     * @param dtlsStr Details text.
+     */
+    private void setDetailsUncompressed(@Nullable String dtlsStr) {
+        if (Strings.isNullOrEmpty(dtlsStr)) {
+            details = null;
+
+            return;
+        }
+
+        flags.set(COMPRESS_TYPE_FLAG1, true);
+        flags.set(COMPRESS_TYPE_FLAG2, false);
+
+        details = dtlsStr.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param flags Flags packed by {@link #flagsPacked()}.
+     * @return {@code True} if details are kept uncompressed.
+     */
+    static boolean isDetailsUncompressed(short flags) {
+        return (flags & (1 << COMPRESS_TYPE_FLAG1)) != 0 && (flags & (1 << COMPRESS_TYPE_FLAG2)) == 0;
+    }
+
     public void setDetails(String dtlsStr) {
         if (Strings.isNullOrEmpty(dtlsStr)) {
             this.details = null;
@@ -272,23 +364,56 @@ public class TestCompacted {
         }
 
 
-        logger.info("U " + uncompressed.length + " S " + snappyLen + " Z " + gzipLen + ": F (" +
+        logger.debug("U " + uncompressed.length + " S " + snappyLen + " Z " + gzipLen + ": F (" +
                 flags.get(COMPRESS_TYPE_FLAG1) + ", " +
                 flags.get(COMPRESS_TYPE_FLAG2) +")");
     }
 
-    public Boolean getIgnoredFlag() {
+    /** {@inheritDoc} */
+    @Override public Boolean getIgnoredFlag() {
         return getFlag(IGNORED_F);
     }
 
-    public Boolean getMutedFlag() {
+    /** {@inheritDoc} */
+    @Override public Boolean getMutedFlag() {
         return getFlag(MUTED_F);
     }
 
-    private int idInBuild() {
+    int idInBuild() {
         return idInBuild;
     }
 
+    /**
+     * @return all flags (including details compression type) packed to short.
+     */
+    short flagsPacked() {
+        long[] words = flags.toLongArray();
+
+        return words.length == 0 ? 0 : (short)words[0];
+    }
+
+    /**
+     * @return duration or -1 if unknown.
+     */
+    int rawDuration() {
+        return duration;
+    }
+
+    long testId() {
+        return testId;
+    }
+
+    int actualBuildId() {
+        return actualBuildId;
+    }
+
+    /**
+     * @return details, compressed according to flags.
+     */
+    @Nullable byte[] detailsBytes() {
+        return details;
+    }
+
     /** {@inheritDoc} */
     @Override public boolean equals(Object o) {
         if (this == o)
@@ -311,7 +436,8 @@ public class TestCompacted {
         return Objects.hashCode(idInBuild, name, status, duration, flags, testId, actualBuildId, details);
     }
 
-    public boolean isFailedButNotMuted(IStringCompactor compactor) {
+    /** {@inheritDoc} */
+    @Override public boolean isFailedButNotMuted(IStringCompactor compactor) {
         return isFailedTest(compactor) && !(isMutedTest() || isIgnoredTest());
     }
 
@@ -327,30 +453,35 @@ public class TestCompacted {
         return flag != null && flag;
     }
 
-    public boolean isFailedTest(IStringCompactor compactor) {
+    /** {@inheritDoc} */
+    @Override public boolean isFailedTest(IStringCompactor compactor) {
         return compactor.getStringId(TestOccurrence.STATUS_SUCCESS) != status;
     }
 
-    public String testName(IStringCompactor compactor) {
+    /** {@inheritDoc} */
+    @Override public String testName(IStringCompactor compactor) {
         return compactor.getStringFromId(name);
     }
 
-    public int testName() {
+    /** {@inheritDoc} */
+    @Override public int testName() {
         return name;
     }
 
-    public boolean isInvestigated() {
+    /** {@inheritDoc} */
+    @Override public boolean isInvestigated() {
         final Boolean investigatedFlag = getCurrInvestigatedFlag();
 
         return investigatedFlag != null && investigatedFlag;
     }
 
-    public int status() {
+    /** {@inheritDoc} */
+    @Override public int status() {
         return status;
     }
 
-    @Nullable
-    public Integer getDuration() {
+    /** {@inheritDoc} */
+    @Override @Nullable public Integer getDuration() {
         return duration < 0 ? null : duration;
     }
 
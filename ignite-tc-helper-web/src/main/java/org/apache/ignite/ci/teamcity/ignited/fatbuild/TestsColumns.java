@@ -0,0 +1,460 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.teamcity.ignited.fatbuild;
+
+import com.google.common.base.MoreObjects;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.apache.ignite.ci.tcmodel.result.tests.TestOccurrence;
+import org.apache.ignite.ci.tcmodel.result.tests.TestOccurrenceFull;
+import org.apache.ignite.ci.teamcity.ignited.IStringCompactor;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Tests of one build stored column-wise: each field of test is kept in its own array, and details of all tests are
+ * kept in one shared blob. Build with thousands of tests is persisted and deserialized as several arrays instead of
+ * several objects per test. Tests are accessed using flyweight {@link Row}s created on demand.
+ */
+public class TestsColumns {
+    /** Empty bytes. */
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    /** Id in build of each test. */
+    private int[] idInBuild;
+
+    /** Test name, compacted. */
+    private int[] names;
+
+    /** Status, compacted. */
+    private int[] statuses;
+
+    /** Duration or -1 if unknown. */
+    private int[] durations;
+
+    /** Flags of test, see {@link TestCompacted#MUTED_F} and others. */
+    private short[] flags;
+
+    /** Test global ID. */
+    private long[] testIds;
+
+    /** Actual build ID, or -1. */
+    private int[] actualBuildIds;
+
+    /**
+     * Offsets of test details in {@link #details}, length is tests count + 1. Details of test {@code i} are located in
+     * range [detailsOff[i], detailsOff[i + 1]), empty range means no details.
+     */
+    private int[] detailsOff;
+
+    /** Details of all tests, each one is compressed according to its flags. */
+    private byte[] details;
+
+    /**
+     * Default constructor.
+     */
+    public TestsColumns() {
+    }
+
+    /**
+     * @param tests Tests.
+     */
+    public TestsColumns(List<TestCompacted> tests) {
+        int cnt = tests.size();
+
+        idInBuild = new int[cnt];
+        names = new int[cnt];
+        statuses = new int[cnt];
+        durations = new int[cnt];
+        flags = new short[cnt];
+        testIds = new long[cnt];
+        actualBuildIds = new int[cnt];
+        detailsOff = new int[cnt + 1];
+
+        int detailsLen = 0;
+        for (TestCompacted test : tests) {
+            byte[] dtls = test.detailsBytes();
+
+            if (dtls != null)
+                detailsLen += dtls.length;
+        }
+
+        details = detailsLen == 0 ? EMPTY_BYTES : new byte[detailsLen];
+
+        int off = 0;
+        for (int i = 0; i < cnt; i++) {
+            TestCompacted test = tests.get(i);
+
+            idInBuild[i] = test.idInBuild();
+            names[i] = test.testName();
+            statuses[i] = test.status();
+            durations[i] = test.rawDuration();
+            flags[i] = test.flagsPacked();
+            testIds[i] = test.testId();
+            actualBuildIds[i] = test.actualBuildId();
+
+            detailsOff[i] = off;
+
+            byte[] dtls = test.detailsBytes();
+
+            if (dtls != null) {
+                System.arraycopy(dtls, 0, details, off, dtls.length);
+
+                off += dtls.length;
+            }
+        }
+
+        detailsOff[cnt] = off;
+    }
+
+    /**
+     * Serializes columns one after another, so values of the same column are adjacent, which is good for compression.
+     * Details of tests are serialized uncompressed (these are compressed with the whole block).
+     *
+     * @return columns serialized, see {@link #fromBytes(byte[])}.
+     */
+    public byte[] toBytes() {
+        int cnt = size();
+        byte[][] rawDetails = new byte[cnt][];
+        short[] rawFlags = new short[cnt];
+        int detailsLen = 0;
+
+        for (int i = 0; i < cnt; i++) {
+            rawFlags[i] = flags[i];
+
+            if (detailsOff[i + 1] == detailsOff[i])
+                continue;
+
+            // Details of tests just loaded are uncompressed, and are copied as is.
+            String text = TestCompacted.isDetailsUncompressed(flags[i]) ? null : toTestCompacted(i).getDetailsText();
+
+            if (text != null) {
+                rawDetails[i] = text.getBytes(StandardCharsets.UTF_8);
+                rawFlags[i] = (short)((flags[i] | (1 << TestCompacted.COMPRESS_TYPE_FLAG1))
+                    & ~(1 << TestCompacted.COMPRESS_TYPE_FLAG2));
+            }
+            else // Uncompressed or unable to decompress, kept as is.
+                rawDetails[i] = Arrays.copyOfRange(details, detailsOff[i], detailsOff[i + 1]);
+
+            detailsLen += rawDetails[i].length;
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(4 + cnt * (4 + 4 + 4 + 4 + 2 + 8 + 4) + (cnt + 1) * 4 + detailsLen);
+
+        buf.putInt(cnt);
+
+        for (int i = 0; i < cnt; i++)
+            buf.putInt(idInBuild[i]);
+        for (int i = 0; i < cnt; i++)
+            buf.putInt(names[i]);
+        for (int i = 0; i < cnt; i++)
+            buf.putInt(statuses[i]);
+        for (int i = 0; i < cnt; i++)
+            buf.putInt(durations[i]);
+        for (int i = 0; i < cnt; i++)
+            buf.putShort(rawFlags[i]);
+        for (int i = 0; i < cnt; i++)
+            buf.putLong(testIds[i]);
+        for (int i = 0; i < cnt; i++)
+            buf.putInt(actualBuildIds[i]);
+
+        int off = 0;
+        for (int i = 0; i < cnt; i++) {
+            buf.putInt(off);
+
+            if (rawDetails[i] != null)
+                off += rawDetails[i].length;
+        }
+        buf.putInt(off);
+
+        for (int i = 0; i < cnt; i++) {
+            if (rawDetails[i] != null)
+                buf.put(rawDetails[i]);
+        }
+
+        return buf.array();
+    }
+
+    /**
+     * @param bytes Columns serialized by {@link #toBytes()}.
+     * @return columns.
+     */
+    public static TestsColumns fromBytes(byte[] bytes) {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        TestsColumns res = new TestsColumns();
+
+        int cnt = buf.getInt();
+
+        res.idInBuild = new int[cnt];
+        res.names = new int[cnt];
+        res.statuses = new int[cnt];
+        res.durations = new int[cnt];
+        res.flags = new short[cnt];
+        res.testIds = new long[cnt];
+        res.actualBuildIds = new int[cnt];
+        res.detailsOff = new int[cnt + 1];
+
+        for (int i = 0; i < cnt; i++)
+            res.idInBuild[i] = buf.getInt();
+        for (int i = 0; i < cnt; i++)
+            res.names[i] = buf.getInt();
+        for (int i = 0; i < cnt; i++)
+            res.statuses[i] = buf.getInt();
+        for (int i = 0; i < cnt; i++)
+            res.durations[i] = buf.getInt();
+        for (int i = 0; i < cnt; i++)
+            res.flags[i] = buf.getShort();
+        for (int i = 0; i < cnt; i++)
+            res.testIds[i] = buf.getLong();
+        for (int i = 0; i < cnt; i++)
+            res.actualBuildIds[i] = buf.getInt();
+        for (int i = 0; i <= cnt; i++)
+            res.detailsOff[i] = buf.getInt();
+
+        int detailsLen = res.detailsOff[cnt];
+
+        res.details = detailsLen == 0 ? EMPTY_BYTES : new byte[detailsLen];
+
+        buf.get(res.details);
+
+        return res;
+    }
+
+    /**
+     * @return tests count.
+     */
+    public int size() {
+        return names == null ? 0 : names.length;
+    }
+
+    /**
+     * @return approximate size of columns in bytes.
+     */
+    public int byteSize() {
+        int cnt = size();
+
+        return cnt * (4 + 4 + 4 + 4 + 2 + 8 + 4 + 4) + (details == null ? 0 : details.length);
+    }
+
+    /**
+     * @param idx Test index.
+     * @return flyweight accessor for test.
+     */
+    public Row row(int idx) {
+        return new Row(idx);
+    }
+
+    /**
+     * @return all tests.
+     */
+    public Stream<ITest> all() {
+        return IntStream.range(0, size()).mapToObj(this::row);
+    }
+
+    /**
+     * Selects failed and not muted (or ignored) tests using columns, rows are created only for tests selected.
+     *
+     * @param compactor Compactor.
+     */
+    public Stream<ITest> failedNotMuted(IStringCompactor compactor) {
+        int successId = compactor.getStringId(TestOccurrence.STATUS_SUCCESS);
+
+        return IntStream.range(0, size())
+            .filter(i -> statuses[i] != successId
+                && !isTrue(i, TestCompacted.MUTED_F)
+                && !isTrue(i, TestCompacted.IGNORED_F))
+            .mapToObj(this::row);
+    }
+
+    /**
+     * @return all tests as standalone objects.
+     */
+    public List<TestCompacted> toTestsCompacted() {
+        TestCompacted[] res = new TestCompacted[size()];
+
+        for (int i = 0; i < res.length; i++)
+            res[i] = toTestCompacted(i);
+
+        return Arrays.asList(res);
+    }
+
+    /**
+     * @param idx Index.
+     * @return test as standalone object.
+     */
+    private TestCompacted toTestCompacted(int idx) {
+        int from = detailsOff[idx];
+        int to = detailsOff[idx + 1];
+
+        byte[] dtls = to > from ? Arrays.copyOfRange(details, from, to) : null;
+
+        return new TestCompacted(idInBuild[idx], names[idx], statuses[idx], durations[idx], flags[idx], testIds[idx],
+            actualBuildIds[idx], dtls);
+    }
+
+    /**
+     * @param idx Index.
+     * @param off Flag offset.
+     * @return flag value, or null if flag is absent.
+     */
+    @Nullable private Boolean flag(int idx, int off) {
+        int f = flags[idx];
+
+        if ((f & (1 << off)) == 0)
+            return null;
+
+        return (f & (1 << (off + 1))) != 0;
+    }
+
+    /**
+     * @param idx Index.
+     * @param off Flag offset.
+     */
+    private boolean isTrue(int idx, int off) {
+        Boolean flag = flag(idx, off);
+
+        return flag != null && flag;
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        TestsColumns columns = (TestsColumns)o;
+        return Arrays.equals(idInBuild, columns.idInBuild) &&
+            Arrays.equals(names, columns.names) &&
+            Arrays.equals(statuses, columns.statuses) &&
+            Arrays.equals(durations, columns.durations) &&
+            Arrays.equals(flags, columns.flags) &&
+            Arrays.equals(testIds, columns.testIds) &&
+            Arrays.equals(actualBuildIds, columns.actualBuildIds) &&
+            Arrays.equals(detailsOff, columns.detailsOff) &&
+            Arrays.equals(details, columns.details);
+    }
+
+    /** {@inheritDoc} */
+    @Override public int hashCode() {
+        int res = Arrays.hashCode(idInBuild);
+        res = 31 * res + Arrays.hashCode(names);
+        res = 31 * res + Arrays.hashCode(statuses);
+        res = 31 * res + Arrays.hashCode(durations);
+        res = 31 * res + Arrays.hashCode(flags);
+        res = 31 * res + Arrays.hashCode(testIds);
+        res = 31 * res + Arrays.hashCode(actualBuildIds);
+        res = 31 * res + Arrays.hashCode(detailsOff);
+        res = 31 * res + Arrays.hashCode(details);
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("size", size())
+            .add("names", names)
+            .add("statuses", statuses)
+            .add("detailsBytes", details == null ? 0 : details.length)
+            .toString();
+    }
+
+    /**
+     * Flyweight accessor for one test, refers to columns.
+     */
+    public class Row implements ITest {
+        /** Index. */
+        private final int idx;
+
+        /**
+         * @param idx Index.
+         */
+        private Row(int idx) {
+            this.idx = idx;
+        }
+
+        /** {@inheritDoc} */
+        @Override public int testName() {
+            return names[idx];
+        }
+
+        /** {@inheritDoc} */
+        @Override public String testName(IStringCompactor compactor) {
+            return compactor.getStringFromId(names[idx]);
+        }
+
+        /** {@inheritDoc} */
+        @Override public int status() {
+            return statuses[idx];
+        }
+
+        /** {@inheritDoc} */
+        @Nullable @Override public Integer getDuration() {
+            int duration = durations[idx];
+
+            return duration < 0 ? null : duration;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Boolean getMutedFlag() {
+            return flag(idx, TestCompacted.MUTED_F);
+        }
+
+        /** {@inheritDoc} */
+        @Override public Boolean getIgnoredFlag() {
+            return flag(idx, TestCompacted.IGNORED_F);
+        }
+
+        /** {@inheritDoc} */
+        @Override public Boolean getCurrInvestigatedFlag() {
+            return flag(idx, TestCompacted.CUR_INV_F);
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean isInvestigated() {
+            return isTrue(idx, TestCompacted.CUR_INV_F);
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean isFailedTest(IStringCompactor compactor) {
+            return compactor.getStringId(TestOccurrence.STATUS_SUCCESS) != statuses[idx];
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean isFailedButNotMuted(IStringCompactor compactor) {
+            return isFailedTest(compactor)
+                && !(isTrue(idx, TestCompacted.MUTED_F) || isTrue(idx, TestCompacted.IGNORED_F));
+        }
+
+        /** {@inheritDoc} */
+        @Nullable @Override public String getDetailsText() {
+            return toTestCompacted(idx).getDetailsText();
+        }
+
+        /** {@inheritDoc} */
+        @Override public TestOccurrenceFull toTestOccurrence(IStringCompactor compactor, int buildId) {
+            return toTestCompacted(idx).toTestOccurrence(compactor, buildId);
+        }
+
+        /** {@inheritDoc} */
+        @Override public String toString() {
+            return toTestCompacted(idx).toString();
+        }
+    }
+}
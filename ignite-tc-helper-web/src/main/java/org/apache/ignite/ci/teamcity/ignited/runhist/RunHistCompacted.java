@@ -0,0 +1,330 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.teamcity.ignited.runhist;
+
+import com.google.common.base.MoreObjects;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.apache.ignite.ci.analysis.IRunHistory;
+import org.apache.ignite.ci.analysis.RunStat;
+import org.apache.ignite.ci.db.Persisted;
+import org.apache.ignite.ci.issue.EventTemplate;
+import org.apache.ignite.ci.issue.EventTemplateMatcher;
+
+/**
+ * Compact run history of test or suite: ring buffer of last {@link #MAX_RUNS} results ordered by build ID. Counters
+ * for runs kept in the buffer are maintained on each update, so statistics queries don't require iteration.
+ */
+@Persisted
+public class RunHistCompacted implements IRunHistory {
+    /** Max runs kept. */
+    public static final int MAX_RUNS = RunStat.MAX_LATEST_RUNS;
+
+    /** Initial capacity, buffer grows up to {@link #MAX_RUNS}. */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /** Build IDs. */
+    private int[] buildIds = new int[INITIAL_CAPACITY];
+
+    /** Run results, see {@link RunStat.RunStatus#getCode()}. */
+    private byte[] results = new byte[INITIAL_CAPACITY];
+
+    /** Durations, or -1 if unknown. */
+    private int[] durations = new int[INITIAL_CAPACITY];
+
+    /** Physical index of the oldest run. */
+    private int head;
+
+    /** Runs count. */
+    private int cnt;
+
+    /** Failures count among runs kept. */
+    private int failures;
+
+    /** Critical failures count among runs kept. */
+    private int criticalFailures;
+
+    /** Sum of known durations among runs kept. */
+    private long totalDuration;
+
+    /** Runs with known duration among runs kept. */
+    private int runsWithDuration;
+
+    /**
+     * Adds or replaces run result.
+     *
+     * @param buildId Build id.
+     * @param res Run result code.
+     * @param duration Duration, or -1.
+     * @return {@code True} if history was modified.
+     */
+    public boolean addRun(int buildId, int res, int duration) {
+        int pos;
+
+        if (cnt == 0 || buildIds[phys(cnt - 1)] < buildId)
+            pos = cnt;
+        else {
+            int idx = search(buildId);
+
+            if (idx >= 0) {
+                if (results[phys(idx)] == res && durations[phys(idx)] == duration)
+                    return false;
+
+                uncount(idx);
+                set(idx, buildId, res, duration);
+
+                return true;
+            }
+
+            pos = -(idx + 1);
+        }
+
+        if (cnt == MAX_RUNS) {
+            if (pos == 0)
+                return false; // Older than all runs kept.
+
+            uncount(0);
+
+            head = (head + 1) % buildIds.length;
+            cnt--;
+            pos--;
+        }
+        else if (cnt == buildIds.length)
+            grow();
+
+        // Builds are usually added in ID order, so shift is required only for builds synced out of order.
+        for (int i = cnt; i > pos; i--) {
+            int dst = phys(i);
+            int src = phys(i - 1);
+
+            buildIds[dst] = buildIds[src];
+            results[dst] = results[src];
+            durations[dst] = durations[src];
+        }
+
+        cnt++;
+        set(pos, buildId, res, duration);
+
+        return true;
+    }
+
+    /**
+     * @param idx Logical index.
+     * @param buildId Build id.
+     * @param res Result.
+     * @param duration Duration.
+     */
+    private void set(int idx, int buildId, int res, int duration) {
+        int p = phys(idx);
+
+        buildIds[p] = buildId;
+        results[p] = (byte)res;
+        durations[p] = duration;
+
+        if (res != RunStat.RunStatus.RES_OK.getCode())
+            failures++;
+
+        if (res == RunStat.RunStatus.RES_CRITICAL_FAILURE.getCode())
+            criticalFailures++;
+
+        if (duration >= 0) {
+            totalDuration += duration;
+            runsWithDuration++;
+        }
+    }
+
+    /**
+     * Removes run from counters.
+     *
+     * @param idx Logical index.
+     */
+    private void uncount(int idx) {
+        int p = phys(idx);
+        int res = results[p];
+
+        if (res != RunStat.RunStatus.RES_OK.getCode())
+            failures--;
+
+        if (res == RunStat.RunStatus.RES_CRITICAL_FAILURE.getCode())
+            criticalFailures--;
+
+        if (durations[p] >= 0) {
+            totalDuration -= durations[p];
+            runsWithDuration--;
+        }
+    }
+
+    /**
+     * Grows buffer, runs are placed starting from index 0.
+     */
+    private void grow() {
+        int newCap = Math.min(MAX_RUNS, buildIds.length * 2);
+
+        int[] newBuildIds = new int[newCap];
+        byte[] newResults = new byte[newCap];
+        int[] newDurations = new int[newCap];
+
+        for (int i = 0; i < cnt; i++) {
+            int p = phys(i);
+
+            newBuildIds[i] = buildIds[p];
+            newResults[i] = results[p];
+            newDurations[i] = durations[p];
+        }
+
+        buildIds = newBuildIds;
+        results = newResults;
+        durations = newDurations;
+        head = 0;
+    }
+
+    /**
+     * @param buildId Build id.
+     * @return logical index of build if found, otherwise {@code -(insertion point) - 1}.
+     */
+    private int search(int buildId) {
+        int low = 0;
+        int high = cnt - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midVal = buildIds[phys(mid)];
+
+            if (midVal < buildId)
+                low = mid + 1;
+            else if (midVal > buildId)
+                high = mid - 1;
+            else
+                return mid;
+        }
+
+        return -(low + 1);
+    }
+
+    /**
+     * @param idx Logical index, 0 is the oldest run.
+     * @return physical index.
+     */
+    private int phys(int idx) {
+        return (head + idx) % buildIds.length;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getRunsCount() {
+        return cnt;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getFailuresCount() {
+        return failures;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getCriticalFailuresCount() {
+        return criticalFailures;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getAverageDurationMs() {
+        if (runsWithDuration == 0)
+            return 0;
+
+        return (long)(1.0 * totalDuration / runsWithDuration);
+    }
+
+    /** {@inheritDoc} */
+    @Override public List<Integer> getLatestRunResults() {
+        List<Integer> res = new ArrayList<>(cnt);
+
+        for (int i = 0; i < cnt; i++)
+            res.add((int)results[phys(i)]);
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Nullable @Override public Integer detectTemplate(EventTemplate t) {
+        // Runs are evicted only when buffer is full, so history is complete while it is not full.
+        int idx = EventTemplateMatcher.eventIndex(t, results(), cnt < MAX_RUNS);
+
+        return idx < 0 ? null : buildIds[phys(idx)];
+    }
+
+    /** {@inheritDoc} */
+    @Override public Map<EventTemplate, Integer> detectTemplates() {
+        Map<EventTemplate, Integer> res = EventTemplateMatcher.eventIndexes(results(), cnt < MAX_RUNS);
+
+        res.replaceAll((t, idx) -> buildIds[phys(idx)]);
+
+        return res;
+    }
+
+    /**
+     * @return run results codes from oldest to newest run.
+     */
+    private int[] results() {
+        int[] hist = new int[cnt];
+
+        for (int i = 0; i < cnt; i++)
+            hist[i] = results[phys(i)];
+
+        return hist;
+    }
+
+    /**
+     * @return build IDs from oldest to newest run.
+     */
+    public int[] buildIds() {
+        int[] res = new int[cnt];
+
+        for (int i = 0; i < cnt; i++)
+            res[i] = buildIds[phys(i)];
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        RunHistCompacted hist = (RunHistCompacted)o;
+        return Arrays.equals(buildIds(), hist.buildIds()) &&
+            getLatestRunResults().equals(hist.getLatestRunResults()) &&
+            totalDuration == hist.totalDuration &&
+            runsWithDuration == hist.runsWithDuration;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int hashCode() {
+        return 31 * Arrays.hashCode(buildIds()) + getLatestRunResults().hashCode();
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("runs", cnt)
+            .add("failures", failures)
+            .add("criticalFailures", criticalFailures)
+            .add("failRate", getFailPercentPrintable())
+            .toString();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.teamcity.ignited.runhist;
+
+import com.google.common.base.Preconditions;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.ci.analysis.RunStat;
+import org.apache.ignite.ci.db.TcHelperDb;
+import org.apache.ignite.ci.di.AutoProfiling;
+import org.apache.ignite.ci.tcbot.chain.BuildChainProcessor;
+import org.apache.ignite.ci.tcmodel.hist.BuildRef;
+import org.apache.ignite.ci.teamcity.ignited.IStringCompactor;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildCompacted;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.ITest;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Run history of tests and suites, updated incrementally when finished fat build is saved.
+ */
+public class RunHistCompactedDao {
+    /** Tests history cache name. */
+    public static final String TEST_HIST_CACHE_NAME = "teamcityTestRunHist";
+
+    /** Suites history cache name. */
+    public static final String SUITE_HIST_CACHE_NAME = "teamcitySuiteRunHist";
+
+    /** Ignite provider. */
+    @Inject private Provider<Ignite> igniteProvider;
+
+    /** Compactor. */
+    @Inject private IStringCompactor compactor;
+
+    /** Tests history cache. */
+    private IgniteCache<RunHistKey, RunHistCompacted> testHistCache;
+
+    /** Suites history cache. */
+    private IgniteCache<RunHistKey, RunHistCompacted> suiteHistCache;
+
+    /**
+     *
+     */
+    public void init() {
+        Ignite ignite = igniteProvider.get();
+
+        testHistCache = ignite.getOrCreateCache(TcHelperDb.getCacheV2Config(TEST_HIST_CACHE_NAME));
+        suiteHistCache = ignite.getOrCreateCache(TcHelperDb.getCacheV2Config(SUITE_HIST_CACHE_NAME));
+    }
+
+    /**
+     * @param srvId Server id.
+     * @param testName Test name, compacted.
+     * @param branch Normalized branch name, compacted.
+     */
+    @Nullable public RunHistCompacted getTestRunHist(int srvId, int testName, int branch) {
+        Preconditions.checkNotNull(testHistCache, "init() was not called");
+
+        return testHistCache.get(new RunHistKey(srvId, testName, branch));
+    }
+
+    /**
+     * @param srvId Server id.
+     * @param buildTypeId Suite (build type) ID, compacted.
+     * @param branch Normalized branch name, compacted.
+     */
+    @Nullable public RunHistCompacted getSuiteRunHist(int srvId, int buildTypeId, int branch) {
+        Preconditions.checkNotNull(suiteHistCache, "init() was not called");
+
+        return suiteHistCache.get(new RunHistKey(srvId, buildTypeId, branch));
+    }
+
+    /**
+     * Registers runs of tests and suites for builds saved. Builds not finished yet are skipped.
+     *
+     * @param srvId Server id.
+     * @param builds Builds saved.
+     */
+    @AutoProfiling
+    public void addBuilds(int srvId, Collection<FatBuildCompacted> builds) {
+        Preconditions.checkNotNull(testHistCache, "init() was not called");
+
+        for (FatBuildCompacted build : builds) {
+            if (build.isFakeStub() || !build.isFinished(compactor) || !build.isNotCancelled(compactor))
+                continue;
+
+            addBuild(srvId, build);
+        }
+    }
+
+    /**
+     * Updates history of all tests of build using one cache operation.
+     *
+     * @param srvId Server id.
+     * @param build Build.
+     */
+    private void addBuild(int srvId, FatBuildCompacted build) {
+        int branch = compactor.getStringId(BuildChainProcessor.normalizeBranch(build.branchName(compactor)));
+        int buildId = build.id();
+
+        Map<RunHistKey, int[]> runs = new HashMap<>();
+
+        build.getAllTests().forEach(test -> {
+            RunHistKey key = new RunHistKey(srvId, test.testName(), branch);
+
+            // Same as legacy statistics: muted and ignored tests are not registered.
+            if (!isMutedOrIgnored(test))
+                runs.put(key, new int[] {testResult(test), durationOrUnknown(test.getDuration())});
+        });
+
+        if (!runs.isEmpty()) {
+            testHistCache.invokeAll(new TreeSet<>(runs.keySet()), (entry, args) -> {
+                int[] run = ((Map<RunHistKey, int[]>)args[1]).get(entry.getKey());
+
+                RunHistCompacted hist = entry.getValue();
+
+                if (hist == null)
+                    hist = new RunHistCompacted();
+
+                if (hist.addRun((Integer)args[0], run[0], run[1]))
+                    entry.setValue(hist);
+
+                return null;
+            }, buildId, runs);
+        }
+
+        Long buildDuration = build.buildDuration(compactor);
+        int suiteRes = suiteResult(build);
+        int suiteDuration = buildDuration == null ? -1 : (int)Math.min(Integer.MAX_VALUE, buildDuration);
+
+        suiteHistCache.invoke(new RunHistKey(srvId, build.buildTypeId(), branch), (entry, args) -> {
+            RunHistCompacted hist = entry.getValue();
+
+            if (hist == null)
+                hist = new RunHistCompacted();
+
+            if (hist.addRun((Integer)args[0], (Integer)args[1], (Integer)args[2]))
+                entry.setValue(hist);
+
+            return null;
+        }, buildId, suiteRes, suiteDuration);
+    }
+
+    /**
+     * @param test Test.
+     */
+    private static boolean isMutedOrIgnored(ITest test) {
+        return Boolean.TRUE.equals(test.getMutedFlag()) || Boolean.TRUE.equals(test.getIgnoredFlag());
+    }
+
+    /**
+     * @param test Test.
+     */
+    private int testResult(ITest test) {
+        RunStat.RunStatus res = test.isFailedTest(compactor)
+            ? RunStat.RunStatus.RES_FAILURE
+            : RunStat.RunStatus.RES_OK;
+
+        return res.getCode();
+    }
+
+    /**
+     * @param build Build.
+     */
+    private int suiteResult(FatBuildCompacted build) {
+        boolean critical = build.problems().stream()
+            .anyMatch(p -> p.isExecutionTimeout(compactor) || p.isJvmCrash(compactor));
+
+        if (critical)
+            return RunStat.RunStatus.RES_CRITICAL_FAILURE.getCode();
+
+        if (compactor.getStringId(BuildRef.STATUS_SUCCESS) != build.status())
+            return RunStat.RunStatus.RES_FAILURE.getCode();
+
+        return RunStat.RunStatus.RES_OK.getCode();
+    }
+
+    /**
+     * @param duration Duration.
+     */
+    private static int durationOrUnknown(@Nullable Integer duration) {
+        return duration == null ? -1 : duration;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.teamcity.ignited.runhist;
+
+import com.google.common.base.MoreObjects;
+import org.apache.ignite.ci.db.Persisted;
+
+/**
+ * Key of run history: server, test (or suite) name and normalized branch. Names are compacted.
+ */
+@Persisted
+public class RunHistKey implements Comparable<RunHistKey> {
+    /** Server ID. */
+    private int srvId;
+
+    /** Test name or suite (build type) ID, compacted. */
+    private int testOrSuiteName;
+
+    /** Normalized branch name, compacted. */
+    private int branch;
+
+    /**
+     * @param srvId Server id.
+     * @param testOrSuiteName Test or suite name.
+     * @param branch Branch.
+     */
+    public RunHistKey(int srvId, int testOrSuiteName, int branch) {
+        this.srvId = srvId;
+        this.testOrSuiteName = testOrSuiteName;
+        this.branch = branch;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int compareTo(RunHistKey o) {
+        int res = Integer.compare(srvId, o.srvId);
+
+        if (res != 0)
+            return res;
+
+        res = Integer.compare(testOrSuiteName, o.testOrSuiteName);
+
+        if (res != 0)
+            return res;
+
+        return Integer.compare(branch, o.branch);
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        RunHistKey key = (RunHistKey)o;
+        return srvId == key.srvId &&
+            testOrSuiteName == key.testOrSuiteName &&
+            branch == key.branch;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int hashCode() {
+        int res = srvId;
+        res = 31 * res + testOrSuiteName;
+        res = 31 * res + branch;
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("srvId", srvId)
+            .add("testOrSuiteName", testOrSuiteName)
+            .add("branch", branch)
+            .toString();
+    }
+}
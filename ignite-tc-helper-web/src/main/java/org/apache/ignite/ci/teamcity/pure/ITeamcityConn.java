@@ -24,11 +24,15 @@ import javax.annotation.Nullable;
 
 import org.apache.ignite.ci.tcmodel.changes.Change;
 import org.apache.ignite.ci.tcmodel.changes.ChangesList;
+import org.apache.ignite.ci.tcmodel.changes.ChangesListFull;
 import org.apache.ignite.ci.tcmodel.hist.BuildRef;
 import org.apache.ignite.ci.tcmodel.result.Build;
 import org.apache.ignite.ci.tcmodel.result.problems.ProblemOccurrences;
 import org.apache.ignite.ci.tcmodel.result.stat.Statistics;
 import org.apache.ignite.ci.tcmodel.result.tests.TestOccurrencesFull;
+import org.apache.ignite.ci.teamcity.ignited.BuildRefCompacted;
+import org.apache.ignite.ci.teamcity.ignited.IStringCompactor;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.TestCompacted;
 
 /**
  * Pure Teamcity Connection API for calling methods from REST service: https://confluence.jetbrains.com/display/TCD10/REST+API
@@ -48,6 +52,16 @@ public interface ITeamcityConn {
 
     public List<BuildRef> getBuildRefsPage(String fullUrl, AtomicReference<String> nextPage);
 
+    /**
+     * Same as {@link #getBuildRefsPage(String, AtomicReference)}, but response is streamed directly to compacted form.
+     *
+     * @param fullUrl Full url, null activates first page loaded.
+     * @param nextPage Output: next page reference.
+     * @param compactor Compactor.
+     */
+    public List<BuildRefCompacted> getBuildRefsPageCompacted(String fullUrl, AtomicReference<String> nextPage,
+        IStringCompactor compactor);
+
     /**
      * @param buildId Build id.
      * @param href Href. Null activates first page loaded.
@@ -55,6 +69,18 @@ public interface ITeamcityConn {
      */
     public TestOccurrencesFull getTestsPage(int buildId, @Nullable String href, boolean testDtls);
 
+    /**
+     * Same as {@link #getTestsPage(int, String, boolean)}, but response is streamed directly to compacted form.
+     *
+     * @param buildId Build id.
+     * @param href Href. Null activates first page loaded.
+     * @param testDtls Query test details.
+     * @param nextPage Output: next page reference.
+     * @param compactor Compactor.
+     */
+    public List<TestCompacted> getTestsPageCompacted(int buildId, @Nullable String href, boolean testDtls,
+        AtomicReference<String> nextPage, IStringCompactor compactor);
+
     /**
      * Trigger build.
      *
@@ -71,5 +97,12 @@ public interface ITeamcityConn {
 
     ChangesList getChangesList(int buildId);
 
+    /**
+     * @param buildId Build id.
+     * @param href Next page href, {@code null} for first page.
+     * @return Page of build changes with details.
+     */
+    ChangesListFull getChangesPage(int buildId, @Nullable String href);
+
     Change getChange(int changeId);
 }
@@ -38,6 +38,7 @@ public class TcRealConnectionModule extends AbstractModule {
             bind(ITeamcityHttpConnection.class).to(TeamcityRecordingConnection.class);
 
         bind(TeamcityRecorder.class).in(new SingletonScope());
+        bind(TcRequestLimiter.class).in(new SingletonScope());
         bind(ITcLogin.class).to(TcLoginImpl.class).in(new SingletonScope());
     }
 
@@ -0,0 +1,362 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.teamcity.pure;
+
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.concurrent.GuardedBy;
+import javax.ws.rs.BadRequestException;
+import org.apache.ignite.ci.web.rest.exception.ServiceUnauthorizedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adaptive (AIMD) limiter of concurrent HTTP requests to each TeamCity server. Window is widened additively while
+ * response latency stays close to usual for the server, and is narrowed multiplicatively if server responds with error
+ * (e.g. 5xx) or request fails by timeout.
+ *
+ * Request occupies the window until response stream is closed. Requests marked as interactive (see {@link
+ * #setInteractive(boolean)}) are granted before waiting background (sync) requests.
+ */
+public class TcRequestLimiter {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(TcRequestLimiter.class);
+
+    /** Min concurrent requests to server. */
+    public static final int MIN_LIMIT = 2;
+
+    /** Max concurrent requests to server. */
+    public static final int MAX_LIMIT = 64;
+
+    /** Initial concurrent requests limit. */
+    public static final int INITIAL_LIMIT = 8;
+
+    /** Multiplier applied to limit on server overload. */
+    public static final double BACKOFF_RATIO = 0.5;
+
+    /** Latency is considered flat if it is not greater than usual latency multiplied to this value. */
+    public static final double LATENCY_TOLERANCE = 2.0;
+
+    /** Weight of new sample in usual latency average. */
+    public static final double LATENCY_EWMA_WEIGHT = 0.05;
+
+    /** Min interval between two back offs, failures of requests sent concurrently are counted once. */
+    public static final long BACKOFF_INTERVAL_NS = TimeUnit.SECONDS.toNanos(1);
+
+    /** Requests of current thread are interactive, e.g. thread processes user's request. */
+    private static final ThreadLocal<Boolean> INTERACTIVE = ThreadLocal.withInitial(() -> false);
+
+    /** Host -> requests window for this host. */
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * @param interactive Requests sent by current thread are interactive and should be prioritized.
+     */
+    public static void setInteractive(boolean interactive) {
+        if (interactive)
+            INTERACTIVE.set(true);
+        else
+            INTERACTIVE.remove();
+    }
+
+    /**
+     * @return {@code True} if requests of current thread are interactive.
+     */
+    public static boolean isInteractive() {
+        return INTERACTIVE.get();
+    }
+
+    /**
+     * Wraps task to be run with priority of current thread, e.g. by executor thread: priority is thread local, and is
+     * not inherited by pool threads.
+     *
+     * @param task Task.
+     * @return Task setting priority of the thread which created it, previous priority is restored after run.
+     */
+    public static Runnable withCurrentPriority(Runnable task) {
+        boolean interactive = isInteractive();
+
+        return () -> {
+            boolean prev = isInteractive();
+
+            setInteractive(interactive);
+
+            try {
+                task.run();
+            }
+            finally {
+                setInteractive(prev);
+            }
+        };
+    }
+
+    /**
+     * @param executor Executor.
+     * @return Executor running each task with priority of the thread which submitted it.
+     */
+    public static Executor withSubmitterPriority(Executor executor) {
+        return task -> executor.execute(withCurrentPriority(task));
+    }
+
+    /**
+     * Sends request within window of the server.
+     *
+     * @param url Url.
+     * @param req Request sending, returns response stream.
+     * @return Response stream, window slot is released when stream is closed.
+     */
+    public InputStream send(String url, HttpGet req) throws IOException {
+        Window win = windows.computeIfAbsent(new URL(url).getHost(), Window::new);
+
+        win.acquire(isInteractive());
+
+        long start = System.nanoTime();
+        InputStream is;
+
+        try {
+            is = req.send();
+        }
+        catch (IOException | RuntimeException e) {
+            win.release(isOverload(e) ? Window.OVERLOAD : Window.NEUTRAL, 0);
+
+            throw e;
+        }
+
+        long latency = System.nanoTime() - start;
+
+        return new FilterInputStream(is) {
+            /** Slot was released. */
+            private final AtomicBoolean released = new AtomicBoolean();
+
+            /** {@inheritDoc} */
+            @Override public void close() throws IOException {
+                try {
+                    super.close();
+                }
+                finally {
+                    if (released.compareAndSet(false, true))
+                        win.release(Window.SUCCESS, latency);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param e Request failure.
+     * @return {@code True} if failure signals server overload: server error or timeout.
+     */
+    private static boolean isOverload(Exception e) {
+        // Client errors: request itself is wrong, server is OK.
+        return !(e instanceof FileNotFoundException
+            || e instanceof BadRequestException
+            || e instanceof ServiceUnauthorizedException);
+    }
+
+    /**
+     * @param host Host.
+     * @return Current concurrent requests limit for the host.
+     */
+    public int limit(String host) {
+        Window win = windows.get(host);
+
+        return win == null ? INITIAL_LIMIT : win.limit();
+    }
+
+    /**
+     * Sends HTTP GET request.
+     */
+    @FunctionalInterface
+    public interface HttpGet {
+        /**
+         * @return Response stream.
+         */
+        public InputStream send() throws IOException;
+    }
+
+    /**
+     * Requests window of one server.
+     */
+    private static class Window {
+        /** Request completed successfully. */
+        static final int SUCCESS = 0;
+
+        /** Request failed, failure is not related to server load. */
+        static final int NEUTRAL = 1;
+
+        /** Server overload detected. */
+        static final int OVERLOAD = 2;
+
+        /** Host. */
+        private final String host;
+
+        /** Lock. */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /** Interactive request may be sent. */
+        private final Condition interactiveReady = lock.newCondition();
+
+        /** Background request may be sent. */
+        private final Condition backgroundReady = lock.newCondition();
+
+        /** Concurrent requests limit, fractional part accumulates additive increases. */
+        @GuardedBy("lock") private double limit = INITIAL_LIMIT;
+
+        /** Requests in progress. */
+        @GuardedBy("lock") private int inFlight;
+
+        /** Interactive requests waiting for window. */
+        @GuardedBy("lock") private int interactiveWaiting;
+
+        /** Usual latency, ns, {@code 0} if unknown. */
+        @GuardedBy("lock") private double usualLatency;
+
+        /** Time of last back off, ns. */
+        @GuardedBy("lock") private long lastBackoff = System.nanoTime() - BACKOFF_INTERVAL_NS;
+
+        /**
+         * @param host Host.
+         */
+        Window(String host) {
+            this.host = host;
+        }
+
+        /**
+         * @param interactive Request is interactive.
+         */
+        void acquire(boolean interactive) throws InterruptedIOException {
+            lock.lock();
+
+            try {
+                if (interactive) {
+                    interactiveWaiting++;
+
+                    try {
+                        while (inFlight >= (int)limit)
+                            interactiveReady.await();
+                    }
+                    finally {
+                        interactiveWaiting--;
+                    }
+                }
+                else {
+                    while (inFlight >= (int)limit || interactiveWaiting > 0)
+                        backgroundReady.await();
+                }
+
+                inFlight++;
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new InterruptedIOException("Interrupted while waiting for request to " + host);
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @param outcome Request outcome.
+         * @param latency Latency of successful request, ns.
+         */
+        void release(int outcome, long latency) {
+            lock.lock();
+
+            try {
+                inFlight--;
+
+                if (outcome == SUCCESS)
+                    onSuccess(latency);
+                else if (outcome == OVERLOAD)
+                    onOverload();
+
+                int free = (int)limit - inFlight;
+
+                if (free <= 0)
+                    return;
+
+                if (interactiveWaiting > 0)
+                    interactiveReady.signalAll();
+                else
+                    backgroundReady.signalAll();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @param latency Latency, ns.
+         */
+        @GuardedBy("lock")
+        private void onSuccess(long latency) {
+            boolean flat = usualLatency == 0 || latency <= usualLatency * LATENCY_TOLERANCE;
+
+            usualLatency = usualLatency == 0
+                ? latency
+                : usualLatency + (latency - usualLatency) * LATENCY_EWMA_WEIGHT;
+
+            // Widen by one slot per window of successful requests, only if window is really used.
+            if (flat && inFlight + 1 >= (int)limit)
+                limit = Math.min(MAX_LIMIT, limit + 1.0 / limit);
+        }
+
+        /** */
+        @GuardedBy("lock")
+        private void onOverload() {
+            long now = System.nanoTime();
+
+            if (now - lastBackoff < BACKOFF_INTERVAL_NS)
+                return;
+
+            lastBackoff = now;
+
+            double prev = limit;
+
+            limit = Math.max(MIN_LIMIT, limit * BACKOFF_RATIO);
+
+            logger.warn("TeamCity " + host + " seems to be overloaded, concurrent requests limit reduced "
+                + (int)prev + " -> " + (int)limit);
+        }
+
+        /**
+         * @return Current limit.
+         */
+        int limit() {
+            lock.lock();
+
+            try {
+                return (int)limit;
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+}
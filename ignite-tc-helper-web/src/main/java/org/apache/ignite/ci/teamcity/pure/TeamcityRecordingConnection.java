@@ -26,8 +26,13 @@ public class TeamcityRecordingConnection implements ITeamcityHttpConnection {
     /** Recorder. */
     @Inject private TeamcityRecorder recorder;
 
+    /** Concurrent requests limiter. */
+    @Inject private TcRequestLimiter limiter;
+
     /** {@inheritDoc} */
     @Override public InputStream sendGet(String basicAuthTok, String url) throws IOException {
-        return recorder.onGet(HttpUtil.sendGetWithBasicAuth(basicAuthTok, url), url);
+        InputStream is = limiter.send(url, () -> HttpUtil.sendGetWithBasicAuth(basicAuthTok, url));
+
+        return recorder.onGet(is, url);
     }
 }
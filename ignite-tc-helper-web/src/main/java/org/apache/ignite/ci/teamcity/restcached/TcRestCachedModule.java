@@ -20,6 +20,7 @@ import com.google.inject.AbstractModule;
 import com.google.inject.internal.SingletonScope;
 import org.apache.ignite.ci.IAnalyticsEnabledTeamcity;
 import org.apache.ignite.ci.IgnitePersistentTeamcity;
+import org.apache.ignite.ci.analysis.RunStatTops;
 import org.apache.ignite.ci.teamcity.pure.ITeamcityHttpConnection;
 import org.apache.ignite.ci.teamcity.pure.TcRealConnectionModule;
 import org.jetbrains.annotations.Nullable;
@@ -37,6 +38,7 @@ public class TcRestCachedModule extends AbstractModule {
         bind(ITcServerFactory.class).to(InitializingServerFactory.class).in(new SingletonScope());
 
         bind(ITcServerProvider.class).to(TcServerCachingProvider.class).in(new SingletonScope());
+        bind(RunStatTops.class).in(new SingletonScope());
 
         TcRealConnectionModule module = new TcRealConnectionModule();
 
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Input stream saving all bytes read to file. Bytes are written to temporary file with unique name in the directory of
+ * target file, which is renamed to target file only if source stream was read till its end, so partially downloaded
+ * content is never visible under target name and concurrent downloads of the same file do not share temporary file.
+ * Remaining bytes are read from source during close.
+ */
+public class CopyingInputStream extends FilterInputStream {
+    /** Target file. */
+    private final File file;
+
+    /** Temporary file. */
+    private final File tmpFile;
+
+    /** Output stream for temporary file. */
+    private final OutputStream out;
+
+    /** End of source stream reached. */
+    private boolean eof;
+
+    /** Closed flag. */
+    private boolean closed;
+
+    /**
+     * @param in Source stream.
+     * @param file Target file.
+     */
+    public CopyingInputStream(InputStream in, File file) throws IOException {
+        super(in);
+
+        this.file = file;
+        this.tmpFile = Files.createTempFile(file.getAbsoluteFile().getParentFile().toPath(), file.getName(), ".tmp")
+            .toFile();
+
+        try {
+            this.out = new FileOutputStream(tmpFile);
+        }
+        catch (IOException e) {
+            Files.deleteIfExists(tmpFile.toPath());
+
+            throw e;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public int read() throws IOException {
+        int b = super.read();
+
+        if (b < 0)
+            eof = true;
+        else
+            out.write(b);
+
+        return b;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int read(byte[] b, int off, int len) throws IOException {
+        int cnt = super.read(b, off, len);
+
+        if (cnt < 0)
+            eof = true;
+        else
+            out.write(b, off, cnt);
+
+        return cnt;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long skip(long n) throws IOException {
+        byte[] buf = new byte[(int)Math.min(n, 8192)];
+        long skipped = 0;
+
+        while (skipped < n) {
+            int cnt = read(buf, 0, (int)Math.min(buf.length, n - skipped));
+
+            if (cnt < 0)
+                break;
+
+            skipped += cnt;
+        }
+
+        return skipped;
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean markSupported() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void close() throws IOException {
+        if (closed)
+            return;
+
+        closed = true;
+
+        try {
+            byte[] buf = new byte[8192];
+
+            while (!eof)
+                read(buf, 0, buf.length);
+        }
+        finally {
+            try {
+                out.close();
+
+                super.close();
+            }
+            finally {
+                if (eof)
+                    Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                else
+                    Files.deleteIfExists(tmpFile.toPath());
+            }
+        }
+    }
+}
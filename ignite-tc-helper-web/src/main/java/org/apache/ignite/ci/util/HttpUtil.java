@@ -33,6 +33,7 @@ import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 import org.apache.ignite.ci.web.rest.exception.ServiceUnauthorizedException;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
@@ -41,12 +42,37 @@ import org.slf4j.LoggerFactory;
 import javax.ws.rs.BadRequestException;
 
 /**
- * Methods for sending HTTP requests
+ * Methods for sending HTTP requests.
+ *
+ * Connections are reused using keep-alive cache of {@link HttpURLConnection}: it holds idle connections per host, so
+ * streams returned should be closed by caller, the same applies to error streams closed by this class. Responses are
+ * requested gzip-compressed and decompressed during reading.
  */
 public class HttpUtil {
     /** Logger. */
     private static final Logger logger = LoggerFactory.getLogger(HttpUtil.class);
 
+    /** System property: max idle keep-alive connections kept per host, see {@link #KEEP_ALIVE_CONNECTIONS}. */
+    public static final String HTTP_MAX_CONNECTIONS = "http.maxConnections";
+
+    /** Max idle keep-alive connections kept per host, if not specified by system property. JDK default is 5. */
+    public static final int KEEP_ALIVE_CONNECTIONS = 32;
+
+    /** Connect timeout, ms. */
+    public static final int CONNECT_TIMEOUT = (int)TimeUnit.SECONDS.toMillis(30);
+
+    /** Read timeout (max delay between data packets), ms. */
+    public static final int READ_TIMEOUT = (int)TimeUnit.MINUTES.toMillis(3);
+
+    /** Gzip content encoding. */
+    private static final String GZIP = "gzip";
+
+    static {
+        // Read by JDK HTTP client once, so should be set before first connection is opened.
+        if (System.getProperty(HTTP_MAX_CONNECTIONS) == null)
+            System.setProperty(HTTP_MAX_CONNECTIONS, Integer.toString(KEEP_ALIVE_CONNECTIONS));
+    }
+
     /**
      * @param inputStream Input stream.
      */
@@ -54,16 +80,55 @@ public class HttpUtil {
         if (inputStream == null)
             return "<null>";
 
-        BufferedReader in = new BufferedReader(
-            new InputStreamReader(inputStream));
-        String inputLine;
-        StringBuilder res = new StringBuilder();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(inputStream))) {
+            String inputLine;
+            StringBuilder res = new StringBuilder();
 
-        while ((inputLine = in.readLine()) != null) {
-            res.append(inputLine);
-            res.append("\n");
+            while ((inputLine = in.readLine()) != null) {
+                res.append(inputLine);
+                res.append("\n");
+            }
+            return res.toString();
+        }
+    }
+
+    /**
+     * Opens connection with common settings: timeouts, keep-alive and compression.
+     *
+     * @param url URL.
+     * @return Connection, not yet connected.
+     * @throws IOException If failed.
+     */
+    private static HttpURLConnection openConnection(String url) throws IOException {
+        HttpURLConnection con = (HttpURLConnection)new URL(url).openConnection();
+
+        con.setConnectTimeout(CONNECT_TIMEOUT);
+        con.setReadTimeout(READ_TIMEOUT);
+        con.setRequestProperty("Connection", "Keep-Alive");
+        con.setRequestProperty("Accept-Encoding", GZIP);
+        con.setRequestProperty("accept-charset", StandardCharsets.UTF_8.toString());
+
+        return con;
+    }
+
+    /**
+     * @param con Connection.
+     * @param is Raw response stream.
+     * @return Stream decompressing response if it was compressed by server.
+     * @throws IOException If failed.
+     */
+    @Nullable private static InputStream decoded(HttpURLConnection con, @Nullable InputStream is) throws IOException {
+        if (is == null || !GZIP.equalsIgnoreCase(con.getContentEncoding()))
+            return is;
+
+        try {
+            return new GZIPInputStream(is);
+        }
+        catch (IOException e) {
+            is.close();
+
+            throw e;
         }
-        return res.toString();
     }
 
     /**
@@ -76,13 +141,9 @@ public class HttpUtil {
      */
     public static InputStream sendGetWithBasicAuth(String basicAuthTok, String url) throws IOException {
         final Stopwatch started = Stopwatch.createStarted();
-        URL obj = new URL(url);
-        HttpURLConnection con = (HttpURLConnection)obj.openConnection();
+        HttpURLConnection con = openConnection(url);
 
         con.setRequestProperty("Authorization", "Basic " + basicAuthTok);
-        con.setRequestProperty("Connection", "Keep-Alive");
-        con.setRequestProperty("Keep-Alive", "header");
-        con.setRequestProperty("accept-charset", StandardCharsets.UTF_8.toString());
 
         int resCode = con.getResponseCode();
 
@@ -103,16 +164,11 @@ public class HttpUtil {
      */
     public static InputStream sendGetToGit(String githubAuthTok, String url, @Nullable Map<String, String> rspHeaders) throws IOException {
         Stopwatch started = Stopwatch.createStarted();
-        URL obj = new URL(url);
-        HttpURLConnection con = (HttpURLConnection)obj.openConnection();
+        HttpURLConnection con = openConnection(url);
 
         if (githubAuthTok != null)
             con.setRequestProperty("Authorization", "token " + githubAuthTok);
 
-        con.setRequestProperty("accept-charset", StandardCharsets.UTF_8.toString());
-        con.setRequestProperty("Connection", "Keep-Alive");
-        con.setRequestProperty("Keep-Alive", "header");
-
         int resCode = con.getResponseCode();
 
         if(rspHeaders != null) {
@@ -142,16 +198,12 @@ public class HttpUtil {
 
     private static InputStream sendPostWithBasicAuth(String tok, String url,
         String body) throws IOException {
-        URL obj = new URL(url);
-        HttpURLConnection con = (HttpURLConnection)obj.openConnection();
+        HttpURLConnection con = openConnection(url);
 
         con.setRequestMethod("POST");
         con.setRequestProperty("Authorization", "Basic " + tok);
-        con.setRequestProperty("Connection", "Keep-Alive");
-        con.setRequestProperty("Keep-Alive", "header");
         Charset charset = StandardCharsets.UTF_8;
 
-        con.setRequestProperty("accept-charset", charset.toString());
         con.setRequestProperty("content-type", "application/xml");
 
         con.setDoOutput(true);
@@ -165,7 +217,8 @@ public class HttpUtil {
     }
 
     /**
-     * Get input stream for successful connection. Throws exception if connection response wasn't successful.
+     * Get input stream for successful connection. Throws exception if connection response wasn't successful, error
+     * stream is read and closed in that case, so connection may be reused.
      *
      * @param con Http connection.
      * @return Input stream from connection.
@@ -176,20 +229,20 @@ public class HttpUtil {
 
         // Successful responses (with code 200+).
         if (resCode / 100 == 2)
-            return con.getInputStream();
+            return decoded(con, con.getInputStream());
+
+        String err = readIsToString(decoded(con, con.getErrorStream()));
 
         if (resCode == 400)
-            throw new BadRequestException(readIsToString(con.getErrorStream()));
+            throw new BadRequestException(err);
 
         if (resCode == 401)
             throw new ServiceUnauthorizedException("Service " + con.getURL() + " returned forbidden error.");
 
         if (resCode == 404)
-            throw new FileNotFoundException("Service " + con.getURL() + " returned not found error."
-                    + readIsToString(con.getErrorStream()));
+            throw new FileNotFoundException("Service " + con.getURL() + " returned not found error." + err);
 
-        throw new IllegalStateException("Invalid Response Code : " + resCode + ":\n"
-                + readIsToString(con.getErrorStream()));
+        throw new IllegalStateException("Invalid Response Code : " + resCode + ":\n" + err);
     }
 
     /**
@@ -202,14 +255,10 @@ public class HttpUtil {
      * @throws IOException If failed.
      */
     public static String sendPostAsStringToGit(String githubAuthTok, String url, String body) throws IOException {
-        URL obj = new URL(url);
-        HttpURLConnection con = (HttpURLConnection)obj.openConnection();
+        HttpURLConnection con = openConnection(url);
         Charset charset = StandardCharsets.UTF_8;
 
-        con.setRequestProperty("accept-charset", charset.toString());
         con.setRequestProperty("Authorization", "token " + githubAuthTok);
-        con.setRequestProperty("Connection", "Keep-Alive");
-        con.setRequestProperty("Keep-Alive", "header");
         con.setRequestProperty("content-type", "application/json");
 
         con.setRequestMethod("POST");
@@ -237,15 +286,11 @@ public class HttpUtil {
      * @throws IOException If failed.
      */
     public static String sendPostAsStringToJira(String jiraAuthTok, String url, String body) throws IOException {
-        URL obj = new URL(url);
-        HttpURLConnection con = (HttpURLConnection)obj.openConnection();
+        HttpURLConnection con = openConnection(url);
         Charset charset = StandardCharsets.UTF_8;
 
-        con.setRequestProperty("accept-charset", charset.toString());
         con.setRequestProperty("Authorization", "Basic " + jiraAuthTok);
         con.setRequestProperty("content-type", "application/json");
-        con.setRequestProperty("Connection", "Keep-Alive");
-        con.setRequestProperty("Keep-Alive", "header");
 
         con.setRequestMethod("POST");
 
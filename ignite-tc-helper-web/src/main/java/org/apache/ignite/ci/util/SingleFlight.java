@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * Coalesces concurrent loads of the same key: first caller performs load in its thread, callers arriving while load is
+ * in progress wait for and share its result (or failure). Nothing is cached after load is completed.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ */
+public class SingleFlight<K, V> {
+    /** Loads in progress. */
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param key Key.
+     * @param ldr Loader, called only if there is no load in progress for the key.
+     * @return Loaded value.
+     */
+    public V load(K key, Supplier<V> ldr) {
+        CompletableFuture<V> fut = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, fut);
+
+        if (existing != null)
+            return await(existing);
+
+        try {
+            V val = ldr.get();
+
+            fut.complete(val);
+
+            return val;
+        }
+        catch (RuntimeException | Error e) {
+            fut.completeExceptionally(e);
+
+            throw e;
+        }
+        finally {
+            inFlight.remove(key, fut);
+        }
+    }
+
+    /**
+     * Registers load of the key to be completed later by caller, e.g. as a part of a batch. Callers of
+     * {@link #load(Object, Supplier)} arriving before {@link #finish(Object, CompletableFuture, Object, Throwable)} wait
+     * for its result.
+     *
+     * @param key Key.
+     * @return Future of the load to be passed to {@link #finish(Object, CompletableFuture, Object, Throwable)}, or
+     * {@code null} if load of the key is already in progress.
+     */
+    @Nullable public CompletableFuture<V> start(K key) {
+        CompletableFuture<V> fut = new CompletableFuture<>();
+
+        return inFlight.putIfAbsent(key, fut) == null ? fut : null;
+    }
+
+    /**
+     * Completes load registered by {@link #start(Object)}.
+     *
+     * @param key Key.
+     * @param fut Future returned by {@link #start(Object)}.
+     * @param val Loaded value.
+     * @param err Load failure, {@code null} if value was loaded.
+     */
+    public void finish(K key, CompletableFuture<V> fut, @Nullable V val, @Nullable Throwable err) {
+        try {
+            if (err != null)
+                fut.completeExceptionally(err);
+            else
+                fut.complete(val);
+        }
+        finally {
+            inFlight.remove(key, fut);
+        }
+    }
+
+    /**
+     * @param fut Future of load performed by other thread.
+     */
+    private static <V> V await(CompletableFuture<V> fut) {
+        try {
+            return fut.get();
+        }
+        catch (InterruptedException e) {
+            throw ExceptionUtil.propagateException(e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof Exception)
+                throw ExceptionUtil.propagateException((Exception)cause);
+
+            throw (Error)cause;
+        }
+    }
+
+    /**
+     * @return Count of loads in progress.
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.web;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.ext.Provider;
+import org.apache.ignite.ci.teamcity.pure.TcRequestLimiter;
+
+/**
+ * Marks TeamCity requests sent while processing user's request as interactive, so these requests are prioritized over
+ * background sync.
+ */
+@Provider
+@PreMatching
+public class InteractiveRequestFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    /** {@inheritDoc} */
+    @Override public void filter(ContainerRequestContext reqCtx) {
+        TcRequestLimiter.setInteractive(true);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void filter(ContainerRequestContext reqCtx, ContainerResponseContext resCtx) {
+        TcRequestLimiter.setInteractive(false);
+    }
+}
@@ -36,6 +36,8 @@ public class TcApplicationResCfg extends ResourceConfig {
         //Register Auth Filter here
         register(AuthenticationFilter.class);
 
+        register(InteractiveRequestFilter.class);
+
         register(ServiceUnauthorizedException.class);
         register(ServiceStartingException.class);
 
@@ -19,8 +19,11 @@ package org.apache.ignite.ci.web;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import org.apache.ignite.ci.teamcity.pure.TcRequestLimiter;
 
 /**
  * Component for storing catchable results into ignite and get updates
@@ -28,13 +31,20 @@ import java.util.concurrent.TimeUnit;
 public class TcUpdatePool {
     private ThreadFactory threadFactory = Executors.defaultThreadFactory();
 
-    private ExecutorService service = Executors.newFixedThreadPool(30, r -> {
-        Thread thread = threadFactory.newThread(r);
+    /** Service, tasks are run with priority of TC requests of the thread which submitted these. */
+    private ExecutorService service = new ThreadPoolExecutor(30, 30, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(), r -> {
+            Thread thread = threadFactory.newThread(r);
 
-        thread.setName("tc-upd-" + thread.getName());
+            thread.setName("tc-upd-" + thread.getName());
 
-        return thread;
-    });
+            return thread;
+        }) {
+        /** {@inheritDoc} */
+        @Override public void execute(Runnable cmd) {
+            super.execute(TcRequestLimiter.withCurrentPriority(cmd));
+        }
+    };
 
 
     /**
@@ -29,6 +29,7 @@ import org.apache.ignite.ci.ITeamcity;
 import org.apache.ignite.ci.analysis.FullChainRunCtx;
 import org.apache.ignite.ci.analysis.ITestFailures;
 import org.apache.ignite.ci.analysis.MultBuildRunCtx;
+import org.apache.ignite.ci.teamcity.ignited.ITeamcityIgnited;
 import org.apache.ignite.ci.util.CollectionUtil;
 import org.apache.ignite.internal.util.typedef.T2;
 
@@ -86,6 +87,7 @@ public class ChainAtServerCurrentStatus {
     }
 
     public void initFromContext(ITeamcity teamcity,
+        ITeamcityIgnited tcIgnited,
         FullChainRunCtx ctx,
         @Nullable ITcAnalytics tcAnalytics,
         @Nullable String baseBranchTc) {
@@ -97,7 +99,7 @@ public class ChainAtServerCurrentStatus {
         stream.forEach(
             suite -> {
                 final SuiteCurrentStatus suiteCurStatus = new SuiteCurrentStatus();
-                suiteCurStatus.initFromContext(teamcity, suite, tcAnalytics, baseBranchTc);
+                suiteCurStatus.initFromContext(teamcity, tcIgnited, suite, tcAnalytics, baseBranchTc);
 
                 failedTests += suiteCurStatus.failedTests;
                 if (suite.hasAnyBuildProblemExceptTestOrSnapshot())
@@ -121,7 +123,8 @@ public class ChainAtServerCurrentStatus {
                 MultBuildRunCtx suite = pairCtxAndOccur.get1();
                 ITestFailures longRunningOccur = pairCtxAndOccur.get2();
 
-                TestFailure failure = createOrrucForLongRun(teamcity, suite, tcAnalytics, longRunningOccur, baseBranchTc);
+                TestFailure failure = createOrrucForLongRun(teamcity, tcIgnited, suite, tcAnalytics, longRunningOccur,
+                    baseBranchTc);
 
                 failure.testName = "[" + suite.suiteName() + "] " + failure.testName; //may be separate field
 
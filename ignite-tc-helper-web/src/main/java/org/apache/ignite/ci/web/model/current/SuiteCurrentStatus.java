@@ -31,14 +31,17 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.ignite.ci.ITcAnalytics;
 import org.apache.ignite.ci.ITeamcity;
+import org.apache.ignite.ci.analysis.IRunHistory;
 import org.apache.ignite.ci.analysis.ITestFailures;
 import org.apache.ignite.ci.analysis.MultBuildRunCtx;
 import org.apache.ignite.ci.analysis.RunStat;
 import org.apache.ignite.ci.analysis.SuiteInBranch;
 import org.apache.ignite.ci.analysis.TestInBranch;
 import org.apache.ignite.ci.analysis.TestLogCheckResult;
+import org.apache.ignite.ci.issue.EventTemplate;
 import org.apache.ignite.ci.issue.EventTemplates;
 import org.apache.ignite.ci.issue.ProblemRef;
+import org.apache.ignite.ci.teamcity.ignited.ITeamcityIgnited;
 import org.apache.ignite.ci.web.model.hist.FailureSummary;
 import org.apache.ignite.ci.web.rest.GetBuildLog;
 import org.jetbrains.annotations.NotNull;
@@ -114,6 +117,7 @@ import static org.apache.ignite.ci.util.UrlUtil.escape;
     public Boolean possibleBlocker;
 
     public void initFromContext(@Nonnull final ITeamcity teamcity,
+        @Nonnull final ITeamcityIgnited tcIgnited,
         @Nonnull final MultBuildRunCtx suite,
         @NotNull final ITcAnalytics tcAnalytics,
         @Nullable final String baseBranch) {
@@ -124,7 +128,7 @@ import static org.apache.ignite.ci.util.UrlUtil.escape;
         String curBranchNormalized = normalizeBranch(suite.branchName());
 
         String suiteId = suite.suiteId();
-        initStat(tcAnalytics, failRateNormalizedBranch, curBranchNormalized, suiteId);
+        initStat(tcIgnited, tcAnalytics, failRateNormalizedBranch, curBranchNormalized, suiteId);
 
         Set<String> collect = suite.lastChangeUsers().collect(Collectors.toSet());
 
@@ -143,7 +147,10 @@ import static org.apache.ignite.ci.util.UrlUtil.escape;
         Function<ITestFailures, Float> function = foccur -> {
             TestInBranch testInBranch = new TestInBranch(foccur.getName(), failRateNormalizedBranch);
 
-            RunStat apply = tcAnalytics.getTestRunStatProvider().apply(testInBranch);
+            IRunHistory apply = tcIgnited.getTestRunHist(testInBranch);
+
+            if (apply == null)
+                apply = tcAnalytics.getTestRunStatProvider().apply(testInBranch);
 
             return apply == null ? 0f : apply.getFailRate();
         };
@@ -153,13 +160,15 @@ import static org.apache.ignite.ci.util.UrlUtil.escape;
         tests.forEach(occurrence -> {
             final TestFailure failure = new TestFailure();
             failure.initFromOccurrence(occurrence, teamcity, suite.projectId(), suite.branchName(), baseBranch);
-            failure.initStat(tcAnalytics.getTestRunStatProvider(), failRateNormalizedBranch, curBranchNormalized);
+            failure.initStat(tcAnalytics.getTestRunStatProvider(), tcIgnited::getTestRunHist, failRateNormalizedBranch,
+                curBranchNormalized);
 
             testFailures.add(failure);
         });
 
         suite.getTopLongRunning().forEach(occurrence -> {
-            final TestFailure failure = createOrrucForLongRun(teamcity, suite, tcAnalytics, occurrence, baseBranch);
+            final TestFailure failure = createOrrucForLongRun(teamcity, tcIgnited, suite, tcAnalytics, occurrence,
+                baseBranch);
 
             topLongRunning.add(failure);
         });
@@ -207,54 +216,70 @@ import static org.apache.ignite.ci.util.UrlUtil.escape;
         // todo implement this logic in suite possibleBlocker = suite.hasPossibleBlocker();
     }
 
-    private void initStat(@Nullable ITcAnalytics tcAnalytics, String failRateNormalizedBranch, String curBranchNormalized, String suiteId) {
+    private void initStat(ITeamcityIgnited tcIgnited, @Nullable ITcAnalytics tcAnalytics,
+        String failRateNormalizedBranch, String curBranchNormalized, String suiteId) {
         if (Strings.isNullOrEmpty(suiteId) || tcAnalytics == null)
             return;
 
         SuiteInBranch key = new SuiteInBranch(suiteId, failRateNormalizedBranch);
 
         final RunStat stat = tcAnalytics.getBuildFailureRunStatProvider().apply(key);
+        final IRunHistory hist = runHist(tcIgnited, key, stat);
 
-        if (stat != null) {
-            failures = stat.getFailuresCount();
-            runs = stat.getRunsCount();
-            failureRate = stat.getFailPercentPrintable();
+        if (hist != null) {
+            failures = hist.getFailuresCount();
+            runs = hist.getRunsCount();
+            failureRate = hist.getFailPercentPrintable();
 
-            criticalFails.failures = stat.getCriticalFailuresCount();
+            criticalFails.failures = hist.getCriticalFailuresCount();
             criticalFails.runs = runs;
-            criticalFails.failureRate = stat.getCriticalFailPercentPrintable();
+            criticalFails.failureRate = hist.getCriticalFailPercentPrintable();
+
+            latestRuns = hist.getLatestRunResults();
+        }
 
+        if (stat != null) {
             failsAllHist.failures = stat.getFailuresAllHist();
             failsAllHist.runs = stat.getRunsAllHist();
             failsAllHist.failureRate = stat.getFailPercentAllHistPrintable();
-
-            latestRuns = stat.getLatestRunResults();
         }
 
-        RunStat latestRunsSrc = null;
+        IRunHistory latestRunsSrc = null;
         if (!failRateNormalizedBranch.equals(curBranchNormalized)) {
             SuiteInBranch keyForStripe = new SuiteInBranch(suiteId, curBranchNormalized);
 
-            final RunStat statForStripe = tcAnalytics.getBuildFailureRunStatProvider().apply(keyForStripe);
+            final IRunHistory statForStripe = runHist(tcIgnited, keyForStripe,
+                tcAnalytics.getBuildFailureRunStatProvider().apply(keyForStripe));
 
             latestRunsSrc = statForStripe;
             latestRuns = statForStripe != null ? statForStripe.getLatestRunResults() : null;
         } else
-            latestRunsSrc = stat;
+            latestRunsSrc = hist;
 
         if (latestRunsSrc != null) {
-            RunStat.TestId testId = latestRunsSrc.detectTemplate(EventTemplates.newFailureForFlakyTest); //extended runs required for suite
+            Map<EventTemplate, Integer> detected = latestRunsSrc.detectTemplates();
 
-            if (testId != null)
+            if (detected.containsKey(EventTemplates.newFailureForFlakyTest)) //extended runs required for suite
                 problemRef = new ProblemRef("New Failure");
 
-            RunStat.TestId buildIdCritical = latestRunsSrc.detectTemplate(EventTemplates.newCriticalFailure);
-
-            if (buildIdCritical != null)
+            if (detected.containsKey(EventTemplates.newCriticalFailure))
                 problemRef = new ProblemRef("New Critical Failure");
         }
     }
 
+    /**
+     * @param tcIgnited Teamcity ignited.
+     * @param key Suite in branch.
+     * @param stat Run statistics of suite, used if suite runs were not registered from fat builds.
+     * @return latest runs history of suite.
+     */
+    @Nullable private static IRunHistory runHist(ITeamcityIgnited tcIgnited, SuiteInBranch key,
+        @Nullable RunStat stat) {
+        IRunHistory hist = tcIgnited.getSuiteRunHist(key);
+
+        return hist != null ? hist : stat;
+    }
+
     @NotNull
     public static TestFailure createOccurForLogConsumer(Map.Entry<String, Long> entry) {
         TestFailure failure = new TestFailure();
@@ -264,6 +289,7 @@ import static org.apache.ignite.ci.util.UrlUtil.escape;
     }
 
     @NotNull public static TestFailure createOrrucForLongRun(@Nonnull ITeamcity teamcity,
+        @Nonnull ITeamcityIgnited tcIgnited,
         @Nonnull MultBuildRunCtx suite,
         @Nullable final ITcAnalytics tcAnalytics,
         final ITestFailures occurrence,
@@ -274,6 +300,7 @@ import static org.apache.ignite.ci.util.UrlUtil.escape;
 
         if (tcAnalytics != null) {
             failure.initStat(tcAnalytics.getTestRunStatProvider(),
+                tcIgnited::getTestRunHist,
                 normalizeBranch(failRateBranch),
                 normalizeBranch(suite.branchName()));
         }
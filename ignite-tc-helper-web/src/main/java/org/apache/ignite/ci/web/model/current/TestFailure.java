@@ -21,15 +21,18 @@ import com.google.common.base.Objects;
 import com.google.common.base.Strings;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.ignite.ci.ITeamcity;
+import org.apache.ignite.ci.analysis.IRunHistory;
 import org.apache.ignite.ci.analysis.ITestFailures;
 import org.apache.ignite.ci.analysis.RunStat;
 import org.apache.ignite.ci.analysis.TestInBranch;
+import org.apache.ignite.ci.issue.EventTemplate;
 import org.apache.ignite.ci.issue.EventTemplates;
 import org.apache.ignite.ci.issue.ProblemRef;
 import org.apache.ignite.ci.logs.LogMsgToWarn;
@@ -187,10 +190,13 @@ import static org.apache.ignite.ci.web.model.current.SuiteCurrentStatus.branchFo
 
     /**
      * @param runStatSupplier Run stat supplier.
+     * @param runHistSupplier Run history supplier, history maintained from fat builds is preferred to run stat for
+     * latest runs.
      * @param failRateNormalizedBranch Base branch: Fail rate and flakyness detection normalized branch.
      * @param curBranchNormalized Cur branch normalized.
      */
     public void initStat(@Nullable final Function<TestInBranch, RunStat> runStatSupplier,
+        Function<TestInBranch, IRunHistory> runHistSupplier,
         String failRateNormalizedBranch,
         String curBranchNormalized) {
         if (runStatSupplier == null)
@@ -199,35 +205,36 @@ import static org.apache.ignite.ci.web.model.current.SuiteCurrentStatus.branchFo
         TestInBranch testInBranch = new TestInBranch(name, failRateNormalizedBranch);
 
         final RunStat stat = runStatSupplier.apply(testInBranch);
+        final IRunHistory hist = runHistSupplier.apply(testInBranch);
 
-        histBaseBranch.init(stat);
+        histBaseBranch.init(hist, stat);
 
-        RunStat statForProblemsDetection = null;
+        IRunHistory histForProblemsDetection;
 
         if (!curBranchNormalized.equals(failRateNormalizedBranch)) {
             TestInBranch testInBranchS = new TestInBranch(name, curBranchNormalized);
 
-            statForProblemsDetection = runStatSupplier.apply(testInBranchS);
+            RunStat statForProblemsDetection = runStatSupplier.apply(testInBranchS);
+            IRunHistory histForCurBranch = runHistSupplier.apply(testInBranchS);
 
-            if(statForProblemsDetection!=null) {
+            if (statForProblemsDetection != null || histForCurBranch != null) {
                 histCurBranch = new TestHistory();
 
-                histCurBranch.init(statForProblemsDetection);
+                histCurBranch.init(histForCurBranch, statForProblemsDetection);
             }
+
+            histForProblemsDetection = histForCurBranch != null ? histForCurBranch : statForProblemsDetection;
         } else
-            statForProblemsDetection = stat;
+            histForProblemsDetection = hist != null ? hist : stat;
 
-        if (statForProblemsDetection != null) {
-            RunStat.TestId testId = statForProblemsDetection.detectTemplate(EventTemplates.newFailure);
+        if (histForProblemsDetection != null) {
+            Map<EventTemplate, Integer> detected = histForProblemsDetection.detectTemplates();
 
-            if (testId != null)
+            if (detected.containsKey(EventTemplates.newFailure))
                 problemRef = new ProblemRef("New Failure");
 
-            RunStat.TestId recentContributedTestId = statForProblemsDetection.detectTemplate(EventTemplates.newContributedTestFailure);
-
-            if (recentContributedTestId != null)
+            if (detected.containsKey(EventTemplates.newContributedTestFailure))
                 problemRef = new ProblemRef("Recently contributed test failure");
-
         }
     }
 
@@ -20,6 +20,7 @@ package org.apache.ignite.ci.web.model.hist;
 import com.google.common.base.Objects;
 import java.util.List;
 import javax.annotation.Nullable;
+import org.apache.ignite.ci.analysis.IRunHistory;
 import org.apache.ignite.ci.analysis.RunStat;
 import org.jetbrains.annotations.NotNull;
 
@@ -39,20 +40,29 @@ public class TestHistory {
     /** Non null flaky comments means there is flakiness detected in the the branch. */
     @Nullable public String flakyComments;
 
-    public void init(@Nullable RunStat stat) {
+    /**
+     * @param hist Latest runs history maintained from fat builds, {@code null} if runs were not registered there.
+     * @param stat Run statistics, source of all the time statistic and flakiness, and of latest runs if {@code hist}
+     * is absent.
+     */
+    public void init(@Nullable IRunHistory hist, @Nullable RunStat stat) {
+        IRunHistory recentHist = hist != null ? hist : stat;
+
+        if (recentHist != null) {
+            recent.failures = recentHist.getFailuresCount();
+            recent.runs = recentHist.getRunsCount();
+            recent.failureRate = recentHist.getFailPercentPrintable();
+
+            latestRuns = recentHist.getLatestRunResults();
+        }
+
         if (stat == null)
             return;
 
-        recent.failures = stat.getFailuresCount();
-        recent.runs = stat.getRunsCount();
-        recent.failureRate = stat.getFailPercentPrintable();
-
         allTime.failures = stat.getFailuresAllHist();
         allTime.runs = stat.getRunsAllHist();
         allTime.failureRate = stat.getFailPercentAllHistPrintable();
 
-        latestRuns = stat.getLatestRunResults();
-
         flakyComments = stat.getFlakyComments();
     }
 
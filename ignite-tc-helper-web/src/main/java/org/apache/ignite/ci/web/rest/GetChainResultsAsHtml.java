@@ -93,7 +93,7 @@ public class GetChainResultsAsHtml {
 
         status.chainName = ctx.suiteName();
 
-        status.initFromContext(teamcity, ctx, teamcity, failRateBranch);
+        status.initFromContext(teamcity, teamcityIgnited, ctx, teamcity, failRateBranch);
 
         res.append(showChainAtServerData(status));
 
@@ -154,7 +154,7 @@ public class GetBuildTestFailures {
         if (cnt > 0)
             runningUpdates.addAndGet(cnt);
 
-        chainStatus.initFromContext(teamcity, ctx, teamcity, failRateBranch);
+        chainStatus.initFromContext(teamcity, teamcityIgnited, ctx, teamcity, failRateBranch);
 
         res.addChainOnServer(chainStatus);
 
@@ -17,15 +17,44 @@
 
 package org.apache.ignite.ci.web.rest.monitoring;
 
+import com.google.common.cache.CacheStats;
+
 @SuppressWarnings("WeakerAccess")
 public class CacheMetricsUi {
     public String name;
     public Integer size;
     public Integer parts;
 
+    /** Hits, filled for on-heap caches only. */
+    public Long hits;
+
+    /** Misses, filled for on-heap caches only. */
+    public Long misses;
+
+    /** Evictions, filled for on-heap caches only. */
+    public Long evictions;
+
+    /** Approximate size in bytes, filled for on-heap caches only. */
+    public Long bytes;
+
     public CacheMetricsUi(String name, int size, int parts) {
         this.name = name;
         this.size = size;
         this.parts = parts;
     }
+
+    /**
+     * @param name Name.
+     * @param size Entries count.
+     * @param stats Statistics.
+     * @param bytes Approximate size in bytes.
+     */
+    public CacheMetricsUi(String name, long size, CacheStats stats, long bytes) {
+        this.name = name;
+        this.size = (int)size;
+        this.hits = stats.hitCount();
+        this.misses = stats.missCount();
+        this.evictions = stats.evictionCount();
+        this.bytes = bytes;
+    }
 }
@@ -16,6 +16,8 @@
  */
 package org.apache.ignite.ci.web.rest.monitoring;
 
+import java.util.List;
+import org.apache.ignite.ci.di.LatencyHistogram;
 import org.apache.ignite.ci.util.TimeUtil;
 
 @SuppressWarnings("WeakerAccess")
@@ -25,6 +27,21 @@ public class HotSpot {
     public int count;
     public String avgDuration;
 
+    /** Percentiles and max duration since start or reset. */
+    public String p50;
+    public String p90;
+    public String p99;
+    public String max;
+
+    /** Calls count and percentiles during recent minutes. */
+    public long recentCount;
+    public String recentP50;
+    public String recentP99;
+    public String recentMax;
+
+    /** Breakdown by callers (other profiled methods), null for caller itself. */
+    public List<HotSpot> callers;
+
     private transient long ns;
 
     public long getNanos() {
@@ -38,6 +55,8 @@ public class HotSpot {
                 ", count='" + count + "'" +
                 ", duration='" + duration + "'" +
                 ", avg='" + avgDuration + "'" +
+                ", p99='" + p99 + "'" +
+                ", max='" + max + "'" +
                 '}';
     }
 
@@ -45,6 +64,26 @@ public class HotSpot {
         this.ns = nanos;
         this.count = count;
         duration = TimeUtil.nanosToDurationPrintable(ns);
-        avgDuration = TimeUtil.nanosToDurationPrintable(ns / count);
+        avgDuration = TimeUtil.nanosToDurationPrintable(count == 0 ? 0 : ns / count);
+    }
+
+    /**
+     * @param hist Latencies since start or reset.
+     */
+    public void setPercentiles(LatencyHistogram.Snapshot hist) {
+        p50 = TimeUtil.nanosToDurationPrintable(hist.percentile(50));
+        p90 = TimeUtil.nanosToDurationPrintable(hist.percentile(90));
+        p99 = TimeUtil.nanosToDurationPrintable(hist.percentile(99));
+        max = TimeUtil.nanosToDurationPrintable(hist.max());
+    }
+
+    /**
+     * @param hist Latencies of recent minutes.
+     */
+    public void setRecentPercentiles(LatencyHistogram.Snapshot hist) {
+        recentCount = hist.count();
+        recentP50 = TimeUtil.nanosToDurationPrintable(hist.percentile(50));
+        recentP99 = TimeUtil.nanosToDurationPrintable(hist.percentile(99));
+        recentMax = TimeUtil.nanosToDurationPrintable(hist.max());
     }
 }
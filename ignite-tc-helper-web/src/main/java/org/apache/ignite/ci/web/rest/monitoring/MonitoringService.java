@@ -22,7 +22,9 @@ import org.apache.ignite.IgniteCache;
 import org.apache.ignite.cache.CacheMetrics;
 import org.apache.ignite.cache.affinity.Affinity;
 import org.apache.ignite.ci.di.AutoProfilingInterceptor;
+import org.apache.ignite.ci.di.LatencyHistogram;
 import org.apache.ignite.ci.di.MonitoredTaskInterceptor;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.FatBuildNearCache;
 import org.apache.ignite.ci.teamcity.pure.TeamcityRecorder;
 import org.apache.ignite.ci.web.CtxListener;
 
@@ -77,6 +79,21 @@ public class MonitoringService {
 
             hotSpot.setTiming(inv.getNanos(), inv.getCount());
             hotSpot.method = inv.getName();
+            hotSpot.setPercentiles(inv.getHistogram());
+            hotSpot.setRecentPercentiles(inv.getRecentHistogram());
+
+            hotSpot.callers = inv.getCallers().entrySet().stream().map(e -> {
+                LatencyHistogram.Snapshot hist = e.getValue().snapshot();
+
+                HotSpot caller = new HotSpot();
+
+                caller.method = e.getKey();
+                caller.setTiming(hist.total(), (int)hist.count());
+                caller.setPercentiles(hist);
+
+                return caller;
+            }).sorted(Comparator.comparing(HotSpot::getNanos).reversed())
+                .collect(Collectors.toList());
 
             return hotSpot;
         });
@@ -128,6 +145,12 @@ public class MonitoringService {
 
             res.add(new CacheMetricsUi(next, size, affinity.partitions()));
         }
+
+        FatBuildNearCache nearCache = CtxListener.getInjector(ctx).getInstance(FatBuildNearCache.class);
+
+        res.add(new CacheMetricsUi(FatBuildNearCache.NEAR_CACHE_NAME, nearCache.size(), nearCache.stats(),
+            nearCache.bytes()));
+
         return res;
     }
 
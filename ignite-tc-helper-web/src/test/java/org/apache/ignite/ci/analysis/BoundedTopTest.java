@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.analysis;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Bounded top test.
+ */
+public class BoundedTopTest {
+    /** */
+    @Test
+    public void topIsExactUntilKeysDropped() {
+        BoundedTop<String> top = new BoundedTop<>(3);
+
+        top.offer("a", 0.1);
+        top.offer("b", 0.5);
+        top.offer("c", 0.3);
+
+        assertEquals(asList("b", "c", "a"), keys(top.top(10)));
+
+        top.offer("d", 0.7);
+
+        assertEquals(3, top.size());
+        assertEquals(asList("d", "b", "c"), keys(top.top(3)));
+        assertNull("Key 'a' was dropped, 4 keys can't be provided", top.top(4));
+
+        top.offer("b", 0.05);
+
+        assertEquals(asList("d", "c"), keys(top.top(2)));
+        assertNull("Score of 'b' is less than score of 'a' dropped", top.top(3));
+    }
+
+    /** */
+    @Test
+    public void partitionTopsMerged() {
+        BoundedTop<String> part1 = new BoundedTop<>(2);
+        BoundedTop<String> part2 = new BoundedTop<>(2);
+
+        part1.offer("a", 1);
+        part1.offer("b", 2);
+        part1.offer("c", 3);
+
+        part2.offer("d", 1.5);
+        part2.offer("e", 2.5);
+
+        BoundedTop<String> res = new BoundedTop<>(2);
+
+        res.merge(part1);
+        res.merge(part2);
+
+        assertEquals(asList("c", "e"), keys(res.top(2)));
+        assertNull(res.top(3));
+    }
+
+    /**
+     * @param top Top.
+     * @return Keys of top.
+     */
+    private static List<String> keys(List<BoundedTop.Scored<String>> top) {
+        return top.stream().map(BoundedTop.Scored::key).collect(Collectors.toList());
+    }
+}
@@ -17,10 +17,14 @@
 
 package org.apache.ignite.ci.analysis;
 
+import java.util.List;
+import java.util.TreeMap;
 import org.apache.ignite.ci.tcmodel.result.tests.TestOccurrence;
 import org.junit.Test;
 
 import static org.apache.ignite.ci.analysis.RunStat.ChangesState.UNKNOWN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class RunStatTest {
     @Test
@@ -61,4 +65,45 @@ public class RunStatTest {
 
         System.out.println(stat.getLatestRunResults());
     }
+
+    @Test
+    public void latestRunsCountersMatchResults() {
+        RunStat stat = new RunStat("");
+        TestOccurrence occurrence = new TestOccurrence();
+
+        for (int i = 0; i < RunStat.MAX_LATEST_RUNS + 30; i++) {
+            occurrence.status = i % 3 == 0 ? "FAILURE" : TestOccurrence.STATUS_SUCCESS;
+            occurrence.muted = i % 9 == 0;
+            occurrence.duration = i;
+            occurrence.setId("id:10231,build:(id:" + (2000 - i) + ")");
+
+            stat.addTestRunToLatest(occurrence, UNKNOWN);
+        }
+
+        List<Integer> results = stat.getLatestRunResults();
+
+        assertEquals(RunStat.MAX_LATEST_RUNS, stat.getRunsCount());
+        assertEquals(results.stream().filter(res -> res != 0).count(), stat.getFailuresCount());
+        assertEquals(12, results.stream().filter(res -> res == 2).count());
+
+        // Newest builds have the lowest durations.
+        assertEquals((RunStat.MAX_LATEST_RUNS - 1) / 2, stat.getAverageDurationMs());
+    }
+
+    @Test
+    public void legacyLatestRunsAreConverted() {
+        RunStat stat = new RunStat("");
+
+        stat.latestRuns = new TreeMap<>();
+        stat.latestRuns.put(new RunStat.TestId(12, 1),
+            new RunStat.RunInfo(RunStat.RunStatus.RES_CRITICAL_FAILURE, UNKNOWN));
+        stat.latestRuns.put(new RunStat.TestId(10, 1), new RunStat.RunInfo(RunStat.RunStatus.RES_OK, UNKNOWN));
+        stat.latestRuns.put(new RunStat.TestId(11, 1), new RunStat.RunInfo(RunStat.RunStatus.RES_FAILURE, UNKNOWN));
+
+        assertEquals(3, stat.getRunsCount());
+        assertNull(stat.latestRuns);
+        assertEquals(2, stat.getFailuresCount());
+        assertEquals(1, stat.getCriticalFailuresCount());
+        assertEquals("[0, 1, 3]", stat.getLatestRunResults().toString());
+    }
 }
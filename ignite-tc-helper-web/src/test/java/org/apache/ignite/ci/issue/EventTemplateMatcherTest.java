@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.issue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Bit-parallel template detection test.
+ */
+public class EventTemplateMatcherTest {
+    /** */
+    @Test
+    public void allTemplatesDetectedInOnePass() {
+        EventTemplateMatcher matcher = EventTemplates.matcher;
+
+        int[] hist = {1, 1, 1, 1, 0, 0, 0, 0, 0, 1, 1, 1, 1, 0, 0, 0, 0, 0, 1, 1, 1, 1};
+
+        int[] res = matcher.match(hist, true);
+
+        assertEquals(13, res[matcher.indexOf(EventTemplates.newFailure)]);
+        assertEquals(10, res[matcher.indexOf(EventTemplates.fixOfFailure)]);
+        assertEquals(0, res[matcher.indexOf(EventTemplates.newContributedTestFailure)]);
+        assertEquals(-1, res[matcher.indexOf(EventTemplates.newCriticalFailure)]);
+        assertEquals(-1, res[matcher.indexOf(EventTemplates.newFailureForFlakyTest)]);
+
+        res = matcher.match(hist, false);
+
+        assertEquals(-1, res[matcher.indexOf(EventTemplates.newContributedTestFailure)]);
+    }
+
+    /** */
+    @Test
+    public void okOrFailureMatchesBothStatuses() {
+        EventTemplateMatcher matcher = new EventTemplateMatcher(Collections.singletonList(
+            EventTemplates.newCriticalFailure));
+
+        assertEquals(1, matcher.match(new int[] {2, 0, 1, 0, 1, 0, 3, 3, 3, 3}, true)[0]);
+        assertEquals(-1, matcher.match(new int[] {2, 0, 2, 0, 1, 0, 3, 3, 3, 3}, true)[0]);
+    }
+
+    /** */
+    @Test
+    public void templatesSpanSeveralWords() {
+        EventTemplate longFailure = new EventTemplate(new int[40], new int[] {1, 1, 1});
+
+        EventTemplateMatcher matcher = new EventTemplateMatcher(Arrays.asList(longFailure, EventTemplates.newFailure,
+            EventTemplates.fixOfFailure));
+
+        int[] hist = new int[50];
+
+        Arrays.fill(hist, 45, 50, 1);
+
+        int[] res = matcher.match(hist, true);
+
+        assertEquals(5, res[0]);
+        assertEquals(40, res[1]);
+        assertEquals(-1, res[2]);
+        assertTrue(matcher.indexOf(EventTemplates.newCriticalFailure) < 0);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.logs;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.apache.ignite.ci.logs.ChunkedLogChecker.CHUNK_MIN_LINES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks log is split into chunks at test starts and results are returned in order of lines.
+ */
+public class ChunkedLogCheckerTest {
+    /** File passed to handlers. */
+    private static final File FILE = new File("build.log");
+
+    @Test
+    public void chunksStartAtTestBoundaries() {
+        List<String> log = new ArrayList<>();
+
+        log.add(testStart(0));
+        addLines(log, 4);
+        log.add(testStart(1)); // Chunk has less than min lines, test start does not complete it.
+        addLines(log, CHUNK_MIN_LINES - log.size() + 2);
+
+        List<String> chunk0 = new ArrayList<>(log);
+
+        log.add(testStart(2));
+        addLines(log, CHUNK_MIN_LINES - 1);
+
+        List<String> chunk1 = new ArrayList<>(log.subList(chunk0.size(), log.size()));
+
+        log.add(testStart(3)); // Chunk has exactly min lines, test start completes it.
+        log.add("tail");
+
+        List<String> chunk2 = new ArrayList<>(log.subList(chunk0.size() + chunk1.size(), log.size()));
+
+        RecordingHandler seqHnd = new RecordingHandler();
+
+        List<RecordingHandler> chunks = new ChunkedLogChecker<>(reversingExecutor(3), 3, RecordingHandler::new, seqHnd)
+            .apply(stream(log), FILE);
+
+        assertEquals(3, chunks.size());
+        assertEquals(chunk0, chunks.get(0).lines);
+        assertEquals(chunk1, chunks.get(1).lines);
+        assertEquals(chunk2, chunks.get(2).lines);
+
+        for (RecordingHandler chunk : chunks)
+            assertTrue(chunk.closed);
+
+        assertEquals(log, seqHnd.lines);
+        assertTrue(seqHnd.closed);
+    }
+
+    @Test
+    public void chunksInFlightAreLimited() {
+        List<String> log = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            log.add(testStart(i));
+            addLines(log, CHUNK_MIN_LINES);
+        }
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        Executor executor = cmd -> new Thread(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+
+            sleep(20);
+
+            running.decrementAndGet();
+
+            cmd.run();
+        }).start();
+
+        List<RecordingHandler> chunks = new ChunkedLogChecker<>(executor, 1, RecordingHandler::new)
+            .apply(stream(log), FILE);
+
+        assertEquals(4, chunks.size());
+        assertEquals(1, maxRunning.get());
+
+        for (int i = 0; i < chunks.size(); i++)
+            assertEquals(testStart(i), chunks.get(i).lines.get(0));
+    }
+
+    /**
+     * @param chunks Expected chunks count.
+     * @return executor completing chunks submitted later earlier.
+     */
+    private static Executor reversingExecutor(int chunks) {
+        AtomicInteger submitted = new AtomicInteger();
+
+        return cmd -> {
+            int delay = (chunks - submitted.getAndIncrement()) * 50;
+
+            new Thread(() -> {
+                sleep(delay);
+
+                cmd.run();
+            }).start();
+        };
+    }
+
+    /**
+     * @param ms Milliseconds.
+     */
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param idx Test index.
+     */
+    private static String testStart(int idx) {
+        return "[12:00:00] >>> Starting test: Test" + idx + "#test <<<";
+    }
+
+    /**
+     * @param log Log lines.
+     * @param cnt Count of lines to add.
+     */
+    private static void addLines(List<String> log, int cnt) {
+        for (int i = 0; i < cnt; i++)
+            log.add("[12:00:00] line " + log.size());
+    }
+
+    /**
+     * @param log Log lines.
+     */
+    private static InputStream stream(List<String> log) {
+        return new ByteArrayInputStream(String.join("\n", log).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Collects lines accepted.
+     */
+    private static class RecordingHandler implements ILineHandler {
+        /** Lines. */
+        private final List<String> lines = new ArrayList<>();
+
+        /** Closed flag. */
+        private volatile boolean closed;
+
+        /** {@inheritDoc} */
+        @Override public void accept(String line, File file) {
+            lines.add(line);
+        }
+
+        /** {@inheritDoc} */
+        @Override public void close() {
+            closed = true;
+        }
+    }
+}
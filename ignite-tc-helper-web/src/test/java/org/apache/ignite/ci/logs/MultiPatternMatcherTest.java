@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.logs;
+
+import org.apache.ignite.ci.tcmodel.result.problems.ProblemOccurrence;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks automaton gives same results as substring search.
+ */
+public class MultiPatternMatcherTest {
+    @Test
+    public void matchIsEqualToContains() {
+        String[] patterns = {"he", "she", "his", "hers", "été", "abcab"};
+        String[] lines = {"", "ushers", "h", "his hers", "été abcabcab", "abca", "xhexsh"};
+
+        MultiPatternMatcher matcher = new MultiPatternMatcher(patterns);
+
+        for (String line : lines) {
+            long exp = 0;
+
+            for (int i = 0; i < patterns.length; i++) {
+                if (line.contains(patterns[i]))
+                    exp |= 1L << i;
+            }
+
+            assertEquals(line, exp, matcher.match(line));
+        }
+    }
+
+    @Test
+    public void logPatternsAreClassified() {
+        LogIgniteSpecific specific = new LogIgniteSpecific();
+
+        assertTrue(specific.isTestStarting("[12:00] >>> Starting test: Test#test <<<"));
+        assertFalse(specific.isTestStarting("[12:00] >>> Starting test: Test#test"));
+        assertTrue(LogMsgToWarn.needWarn("Found one Java-level deadlock:"));
+        assertEquals(ProblemOccurrence.JAVA_LEVEL_DEADLOCK,
+            LogMsgToWarn.getProblemCode("Found one Java-level deadlock:"));
+        assertFalse(LogMsgToWarn.needWarn("java.lang.AssertionError"));
+    }
+}
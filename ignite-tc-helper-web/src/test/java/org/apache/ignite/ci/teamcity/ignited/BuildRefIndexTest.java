@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.teamcity.ignited;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.ignite.internal.util.GridIntList;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks build references index updated by chunks.
+ */
+public class BuildRefIndexTest {
+    /** Compacted ID of active state. */
+    private static final int RUNNING = 9;
+
+    /** Compactor, uses numeric strings as IDs. */
+    private final IStringCompactor compactor = mock(IStringCompactor.class);
+
+    {
+        when(compactor.getStringId(anyString())).thenAnswer(inv -> Integer.parseInt(inv.getArgument(0)));
+    }
+
+    @Test
+    public void chunkIsMergedIntoHistory() {
+        BuildRefIndex idx = new BuildRefIndex();
+        GridIntList activeStates = new GridIntList(1);
+
+        activeStates.add(RUNNING);
+
+        idx.onLoad(ref(10, 1, 2, 0), activeStates);
+        idx.onLoad(ref(30, 1, 2, 0), activeStates);
+        idx.onLoad(ref(20, 1, 3, 0), activeStates);
+        idx.completeLoad();
+
+        Map<Long, BuildRefCompacted> prevVers = new HashMap<>();
+        Map<Long, BuildRefCompacted> newVers = new HashMap<>();
+
+        prevVers.put(20L, ref(20, 1, 3, 0));
+
+        for (BuildRefCompacted ref : new BuildRefCompacted[] {
+            ref(40, 1, 2, RUNNING), ref(5, 1, 2, 0), ref(30, 1, 2, 0), ref(20, 1, 2, 0), ref(50, 1, 3, 0)})
+            newVers.put((long)ref.id(), ref);
+
+        idx.onSaveAll(prevVers, newVers, activeStates);
+
+        assertArrayEquals(new int[] {5, 10, 20, 30, 40}, idx.history(1, 2));
+        assertArrayEquals(new int[] {50}, idx.history(1, 3));
+        assertArrayEquals(new int[] {40}, idx.queuedAndRunning());
+
+        prevVers.clear();
+        newVers.clear();
+
+        prevVers.put(50L, ref(50, 1, 3, 0));
+        newVers.put(50L, ref(50, 1, 2, 0));
+        newVers.put(40L, ref(40, 1, 2, 0));
+
+        idx.onSaveAll(prevVers, newVers, activeStates);
+
+        assertArrayEquals(new int[] {5, 10, 20, 30, 40, 50}, idx.history(1, 2));
+        assertArrayEquals(new int[0], idx.history(1, 3));
+        assertArrayEquals(new int[0], idx.queuedAndRunning());
+    }
+
+    /**
+     * @param id Build ID.
+     * @param buildTypeId Build type ID, compacted.
+     * @param branchName Branch name, compacted.
+     * @param state State, compacted.
+     */
+    private BuildRefCompacted ref(int id, int buildTypeId, int branchName, int state) {
+        return new BuildRefCompacted(compactor, id, String.valueOf(buildTypeId), String.valueOf(branchName), null,
+            String.valueOf(state));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.teamcity.ignited;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import org.apache.ignite.ci.tcmodel.hist.Builds;
+import org.apache.ignite.ci.tcmodel.result.tests.TestOccurrencesFull;
+import org.apache.ignite.ci.teamcity.ignited.fatbuild.TestCompacted;
+import org.apache.ignite.ci.util.XmlUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks streaming reader produces same compacted entities as JAXB based parsing.
+ */
+public class CompactedXmlReaderTest {
+    /** Compactor. */
+    private final IStringCompactor compactor = new InMemoryStringCompactor();
+
+    @Test
+    public void testsPageIsEqualToJaxbParsed() throws Exception {
+        TestOccurrencesFull jaxbPage;
+        try (InputStream is = getClass().getResourceAsStream("/testList.xml")) {
+            jaxbPage = XmlUtil.load(TestOccurrencesFull.class, new InputStreamReader(is, StandardCharsets.UTF_8));
+        }
+
+        List<TestCompacted> exp = jaxbPage.getTests().stream()
+            .map(t -> new TestCompacted(compactor, t))
+            .collect(Collectors.toList());
+
+        AtomicReference<String> nextPage = new AtomicReference<>();
+        List<TestCompacted> act;
+        try (InputStream is = getClass().getResourceAsStream("/testList.xml")) {
+            act = CompactedXmlReader.readTests(is, compactor, nextPage);
+        }
+
+        assertFalse(exp.isEmpty());
+        assertEquals(exp, act);
+        assertEquals(jaxbPage.nextHref(), nextPage.get());
+    }
+
+    @Test
+    public void buildRefsPageIsEqualToJaxbParsed() throws Exception {
+        checkBuildRefsPage("/buildHistoryMaster.xml");
+        checkBuildRefsPage("/buildHistoryMasterPage2.xml");
+    }
+
+    /**
+     * @param rsrc Resource name.
+     */
+    private void checkBuildRefsPage(String rsrc) throws Exception {
+        Builds jaxbPage;
+        try (InputStream is = getClass().getResourceAsStream(rsrc)) {
+            jaxbPage = XmlUtil.load(Builds.class, new InputStreamReader(is, StandardCharsets.UTF_8));
+        }
+
+        List<BuildRefCompacted> exp = jaxbPage.getBuildsNonNull().stream()
+            .map(ref -> new BuildRefCompacted(compactor, ref))
+            .collect(Collectors.toList());
+
+        AtomicReference<String> nextPage = new AtomicReference<>("garbage");
+        List<BuildRefCompacted> act;
+        try (InputStream is = getClass().getResourceAsStream(rsrc)) {
+            act = CompactedXmlReader.readBuildRefs(is, compactor, nextPage);
+        }
+
+        assertFalse(exp.isEmpty());
+        assertEquals(exp, act);
+
+        if (jaxbPage.nextHref() == null || jaxbPage.nextHref().isEmpty())
+            assertNull(nextPage.get());
+        else
+            assertEquals(jaxbPage.nextHref(), nextPage.get());
+    }
+
+    /**
+     * Simple compactor without persistence.
+     */
+    private static class InMemoryStringCompactor implements IStringCompactor {
+        /** String to ID mapping. */
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+        /** ID to string mapping. */
+        private final List<String> strings = new ArrayList<>();
+
+        /** Sequence. */
+        private final AtomicInteger seq = new AtomicInteger();
+
+        /** {@inheritDoc} */
+        @Override public synchronized int getStringId(String val) {
+            if (val == null)
+                return -1;
+
+            return ids.computeIfAbsent(val, v -> {
+                strings.add(v);
+
+                return seq.getAndIncrement();
+            });
+        }
+
+        /** {@inheritDoc} */
+        @Override public synchronized String getStringFromId(int id) {
+            return id < 0 || id >= strings.size() ? null : strings.get(id);
+        }
+
+        /** {@inheritDoc} */
+        @Override public Integer getStringIdIfPresent(String val) {
+            return val == null ? -1 : ids.get(val);
+        }
+    }
+}
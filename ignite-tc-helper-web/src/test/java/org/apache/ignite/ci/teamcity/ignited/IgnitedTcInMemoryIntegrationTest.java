@@ -26,9 +26,16 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import javax.xml.bind.JAXBException;
 import org.apache.ignite.Ignite;
@@ -325,6 +332,90 @@ public class IgnitedTcInMemoryIntegrationTest {
         assertEquals(6, ch.length);
     }
 
+    @Test
+    public void testStringCompactorConcurrentRegistration() throws Exception {
+        Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override protected void configure() {
+                bind(Ignite.class).toInstance(ignite);
+            }
+        });
+
+        // Two instances emulate two nodes: both share caches and sequence, but have own local mappings and spare IDs.
+        IStringCompactor[] compactors = {
+            injector.getInstance(IgniteStringCompactor.class),
+            injector.getInstance(IgniteStringCompactor.class)
+        };
+
+        int threads = 8;
+        int strCnt = 1000;
+        int batch = 50;
+
+        String prefix = "concurrentString" + System.nanoTime() + "-";
+        List<String> vals = new ArrayList<>();
+
+        for (int i = 0; i < strCnt; i++)
+            vals.add(prefix + i);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        List<Future<Map<String, Integer>>> futs = new ArrayList<>();
+        Map<String, Integer> ids;
+
+        try {
+            for (int t = 0; t < threads; t++) {
+                int threadIdx = t;
+                IStringCompactor compactor = compactors[t % compactors.length];
+
+                futs.add(pool.submit(() -> {
+                    // Each thread registers all strings starting from own offset, so threads overlap on all strings.
+                    List<String> order = new ArrayList<>(vals.subList(threadIdx * strCnt / threads, strCnt));
+                    order.addAll(vals.subList(0, threadIdx * strCnt / threads));
+
+                    Map<String, Integer> res = new HashMap<>();
+
+                    barrier.await();
+
+                    if (threadIdx % 4 < 2) {
+                        for (String val : order)
+                            res.put(val, compactor.getStringId(val));
+                    }
+                    else {
+                        for (int i = 0; i < order.size(); i += batch)
+                            res.putAll(compactor.getStringIds(order.subList(i, Math.min(i + batch, order.size()))));
+                    }
+
+                    return res;
+                }));
+            }
+
+            ids = futs.get(0).get();
+
+            assertEquals(strCnt, ids.size());
+
+            for (Future<Map<String, Integer>> fut : futs)
+                assertEquals(ids, fut.get());
+        }
+        finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals("IDs should be unique", strCnt, new HashSet<>(ids.values()).size());
+
+        // New instance loads reverse mapping from cache, it should be consistent with IDs registered.
+        IStringCompactor restarted = injector.getInstance(IgniteStringCompactor.class);
+
+        for (String val : vals) {
+            Integer id = ids.get(val);
+
+            assertEquals(id, compactors[0].getStringIdIfPresent(val));
+            assertEquals(id, compactors[1].getStringIdIfPresent(val));
+
+            assertEquals(val, compactors[0].getStringFromId(id));
+            assertEquals(val, compactors[1].getStringFromId(id));
+            assertEquals(val, restarted.getStringFromId(id));
+        }
+    }
+
     public void saveTmpFile(Object obj, String name) throws IOException, JAXBException {
         ensureDirExist(new File(name).getParentFile());
 
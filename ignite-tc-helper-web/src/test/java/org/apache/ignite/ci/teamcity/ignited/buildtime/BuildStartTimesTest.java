@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.teamcity.ignited.buildtime;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks start times index of one suite and branch.
+ */
+public class BuildStartTimesTest {
+    @Test
+    public void rangeQueryReturnsBuildsOrderedByTime() {
+        BuildStartTimes times = new BuildStartTimes();
+
+        for (int i = 0; i < 100; i++)
+            assertTrue(times.add(1000 - i, 10_000L + i * 10));
+
+        assertTrue(times.add(2000, BuildStartTimes.NO_START_TIME));
+
+        assertEquals(101, times.size());
+        assertArrayEquals(new int[] {990, 989, 988}, times.buildIds(10_100, 10_120));
+        assertArrayEquals(new int[] {1000}, times.buildIds(0, 10_009));
+        assertEquals(100, times.buildIds(0, Long.MAX_VALUE).length);
+        assertEquals(0, times.buildIds(20_000, Long.MAX_VALUE).length);
+        assertEquals(BuildStartTimes.NO_START_TIME, times.startTime(2000));
+    }
+
+    @Test
+    public void buildStartTimeIsUpdated() {
+        BuildStartTimes times = new BuildStartTimes();
+
+        assertTrue(times.add(1, BuildStartTimes.NO_START_TIME));
+        assertTrue(times.add(2, 200));
+        assertFalse(times.add(2, 200));
+        assertTrue(times.add(1, 300));
+
+        assertEquals(2, times.size());
+        assertEquals(300, times.startTime(1));
+        assertArrayEquals(new int[] {2, 1}, times.buildIds(0, Long.MAX_VALUE));
+        assertFalse(times.contains(3));
+    }
+
+    @Test
+    public void absentBuildsAreFound() {
+        BuildStartTimes times = new BuildStartTimes();
+
+        times.add(5, 500);
+        times.add(3, BuildStartTimes.NO_START_TIME);
+        times.add(9, 100);
+
+        assertArrayEquals(new int[] {1, 4, 10}, times.absent(new int[] {10, 9, 5, 4, 3, 1}));
+        assertArrayEquals(new int[0], times.absent(new int[] {9, 3}));
+        assertArrayEquals(new int[] {7}, new BuildStartTimes().absent(new int[] {7}));
+    }
+}
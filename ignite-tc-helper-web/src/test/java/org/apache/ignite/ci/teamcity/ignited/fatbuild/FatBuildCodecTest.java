@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.teamcity.ignited.fatbuild;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks tests columns survive serialization and block compression with trained dictionary.
+ */
+public class FatBuildCodecTest {
+    /** Stack trace repeated in test details. */
+    private static final String TRACE = "java.lang.AssertionError: Unexpected value\n" +
+        "\tat org.apache.ignite.testframework.junits.GridAbstractTest.runTest(GridAbstractTest.java:2156)\n" +
+        "\tat org.apache.ignite.testframework.junits.GridAbstractTest.access$000(GridAbstractTest.java:143)\n";
+
+    @Test
+    public void testsColumnsAreRestoredFromBytes() {
+        List<TestCompacted> tests = tests(0, 100);
+
+        TestsColumns restored = TestsColumns.fromBytes(new TestsColumns(tests).toBytes());
+
+        List<TestCompacted> restoredTests = restored.toTestsCompacted();
+
+        assertEquals(tests.size(), restoredTests.size());
+
+        for (int i = 0; i < tests.size(); i++) {
+            TestCompacted exp = tests.get(i);
+            TestCompacted act = restoredTests.get(i);
+
+            assertEquals(exp.testName(), act.testName());
+            assertEquals(exp.getDuration(), act.getDuration());
+            assertEquals(exp.getDetailsText(), act.getDetailsText());
+        }
+
+        assertEquals(restored, TestsColumns.fromBytes(restored.toBytes()));
+    }
+
+    @Test
+    public void blockIsRestoredWithTrainedDictionary() {
+        List<byte[]> samples = new ArrayList<>();
+
+        for (int i = 0; i < FatBuildCodec.TRAINING_SAMPLES; i++)
+            samples.add(new TestsColumns(tests(i * 100, 50)).toBytes());
+
+        byte[] dict = DictionaryTrainer.train(samples, FatBuildCodec.DICT_SIZE);
+
+        assertTrue(dict.length > 0 && dict.length <= FatBuildCodec.DICT_SIZE);
+
+        byte[] raw = new TestsColumns(tests(100_000, 50)).toBytes();
+
+        byte[] plain = FatBuildCodec.deflate(raw, FatBuildCodec.NO_DICT, null);
+        byte[] withDict = FatBuildCodec.deflate(raw, 1, dict);
+
+        assertTrue(withDict.length < plain.length);
+
+        assertArrayEquals(raw, FatBuildCodec.inflate(plain, id -> null));
+        assertArrayEquals(raw, FatBuildCodec.inflate(withDict, id -> id == 1 ? dict : null));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void blockWithUnknownDictionaryIsRejected() {
+        byte[] raw = TRACE.getBytes(StandardCharsets.UTF_8);
+
+        FatBuildCodec.inflate(FatBuildCodec.deflate(raw, 1, raw), id -> null);
+    }
+
+    /**
+     * @param firstId First test ID.
+     * @param cnt Count.
+     */
+    private static List<TestCompacted> tests(int firstId, int cnt) {
+        List<TestCompacted> res = new ArrayList<>();
+
+        for (int id = firstId; id < firstId + cnt; id++) {
+            TestCompacted test = new TestCompacted(id, id, 1, id % 1000, (short)0, id * 31L, -1, null);
+
+            if (id % 3 == 0)
+                test.setDetails(TRACE + "\tat Test" + id + ".run(Test" + id + ".java:" + id % 97 + ")\n");
+
+            res.add(test);
+        }
+
+        return res;
+    }
+}
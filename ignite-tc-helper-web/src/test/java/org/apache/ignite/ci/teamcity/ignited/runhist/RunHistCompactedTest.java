@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.teamcity.ignited.runhist;
+
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.apache.ignite.ci.issue.EventTemplate;
+import org.apache.ignite.ci.issue.EventTemplates;
+import org.junit.Test;
+
+import static org.apache.ignite.ci.analysis.RunStat.RunStatus.RES_CRITICAL_FAILURE;
+import static org.apache.ignite.ci.analysis.RunStat.RunStatus.RES_FAILURE;
+import static org.apache.ignite.ci.analysis.RunStat.RunStatus.RES_OK;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks ring buffer of run history.
+ */
+public class RunHistCompactedTest {
+    @Test
+    public void latestRunsAreKeptInBuildIdOrder() {
+        RunHistCompacted hist = new RunHistCompacted();
+
+        int total = RunHistCompacted.MAX_RUNS + 50;
+
+        for (int buildId = total; buildId > 0; buildId -= 2)
+            hist.addRun(buildId, buildId % 3 == 0 ? RES_FAILURE.getCode() : RES_OK.getCode(), 10);
+
+        for (int buildId = 1; buildId <= total; buildId += 2)
+            hist.addRun(buildId, buildId % 3 == 0 ? RES_FAILURE.getCode() : RES_OK.getCode(), 10);
+
+        int[] exp = IntStream.rangeClosed(total - RunHistCompacted.MAX_RUNS + 1, total).toArray();
+
+        assertArrayEquals(exp, hist.buildIds());
+        assertEquals(RunHistCompacted.MAX_RUNS, hist.getRunsCount());
+        assertEquals(IntStream.of(exp).filter(id -> id % 3 == 0).count(), hist.getFailuresCount());
+        assertEquals(10, hist.getAverageDurationMs());
+
+        assertFalse(hist.addRun(1, RES_OK.getCode(), 10));
+        assertFalse(hist.addRun(total - 1, RES_OK.getCode(), 10));
+        assertTrue(hist.addRun(total - 1, RES_FAILURE.getCode(), 10));
+        assertEquals(IntStream.of(exp).filter(id -> id % 3 == 0 || id == total - 1).count(), hist.getFailuresCount());
+    }
+
+    @Test
+    public void templatesAreDetected() {
+        RunHistCompacted hist = new RunHistCompacted();
+
+        for (int buildId = 100; buildId < 105; buildId++)
+            hist.addRun(buildId, RES_OK.getCode(), -1);
+
+        for (int buildId = 110; buildId < 114; buildId++)
+            hist.addRun(buildId, RES_CRITICAL_FAILURE.getCode(), -1);
+
+        assertEquals(Integer.valueOf(110), hist.detectTemplate(EventTemplates.newCriticalFailure));
+        assertNull(hist.detectTemplate(EventTemplates.newFailure));
+        assertNull(hist.detectTemplate(EventTemplates.newContributedTestFailure));
+
+        RunHistCompacted contributed = new RunHistCompacted();
+
+        for (int buildId = 200; buildId < 205; buildId++)
+            contributed.addRun(buildId, RES_FAILURE.getCode(), -1);
+
+        assertEquals(Integer.valueOf(200), contributed.detectTemplate(EventTemplates.newContributedTestFailure));
+
+        for (int buildId = 0; buildId < RunHistCompacted.MAX_RUNS; buildId++)
+            contributed.addRun(300 + buildId, RES_FAILURE.getCode(), -1);
+
+        // Older runs were evicted, so it is not known if failures are first.
+        assertNull(contributed.detectTemplate(EventTemplates.newContributedTestFailure));
+    }
+
+    /** */
+    @Test
+    public void allTemplatesAreDetectedByOnePass() {
+        RunHistCompacted hist = new RunHistCompacted();
+
+        for (int buildId = 100; buildId < 105; buildId++)
+            hist.addRun(buildId, RES_OK.getCode(), -1);
+
+        for (int buildId = 110; buildId < 118; buildId++)
+            hist.addRun(buildId, RES_FAILURE.getCode(), -1);
+
+        Map<EventTemplate, Integer> detected = hist.detectTemplates();
+
+        for (EventTemplate t : EventTemplates.templates)
+            assertEquals(hist.detectTemplate(t), detected.get(t));
+
+        assertEquals(Integer.valueOf(110), detected.get(EventTemplates.newFailure));
+        assertEquals(Integer.valueOf(110), detected.get(EventTemplates.newFailureForFlakyTest));
+        assertFalse(detected.containsKey(EventTemplates.newCriticalFailure));
+    }
+}
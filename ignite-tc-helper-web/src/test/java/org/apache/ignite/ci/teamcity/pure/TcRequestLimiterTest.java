@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.teamcity.pure;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link TcRequestLimiter}.
+ */
+public class TcRequestLimiterTest {
+    /** Host. */
+    private static final String HOST = "tc.test";
+
+    /** Url. */
+    private static final String URL = "http://" + HOST + "/app/rest/latest/builds";
+
+    /** Limiter. */
+    private final TcRequestLimiter limiter = new TcRequestLimiter();
+
+    /** Executor for requests waiting for window. */
+    private final ExecutorService exec = Executors.newCachedThreadPool();
+
+    /** */
+    @After
+    public void tearDown() {
+        exec.shutdownNow();
+    }
+
+    /**
+     * @param latencyMs Response latency.
+     * @return Open response stream.
+     */
+    private InputStream send(long latencyMs) throws IOException {
+        return limiter.send(URL, () -> {
+            try {
+                Thread.sleep(latencyMs);
+            }
+            catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+
+            return new ByteArrayInputStream(new byte[1]);
+        });
+    }
+
+    /**
+     * @param e Failure of request.
+     */
+    private void sendFailing(IOException e) {
+        try {
+            limiter.send(URL, () -> {
+                throw e;
+            });
+
+            fail("Request should fail");
+        }
+        catch (IOException ignored) {
+            // Expected.
+        }
+    }
+
+    /**
+     * @param cnt Count of requests.
+     * @return Streams of requests occupying window.
+     */
+    private List<InputStream> occupy(int cnt) throws IOException {
+        List<InputStream> res = new ArrayList<>();
+
+        for (int i = 0; i < cnt; i++)
+            res.add(send(0));
+
+        return res;
+    }
+
+    /**
+     * @param interactive Request is interactive.
+     * @return Future of request sent from other thread, completed when request is granted.
+     */
+    private Future<InputStream> sendAsync(boolean interactive) {
+        return exec.submit(() -> {
+            TcRequestLimiter.setInteractive(interactive);
+
+            try {
+                return send(0);
+            }
+            finally {
+                TcRequestLimiter.setInteractive(false);
+            }
+        });
+    }
+
+    /** */
+    @Test
+    public void testLimitGrowsWhileLatencyIsFlat() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            List<InputStream> streams = new ArrayList<>();
+
+            for (int i = 0; i < limiter.limit(HOST); i++)
+                streams.add(send(1));
+
+            for (InputStream is : streams)
+                is.close();
+        }
+
+        assertTrue("Limit should grow: " + limiter.limit(HOST), limiter.limit(HOST) > TcRequestLimiter.INITIAL_LIMIT);
+        assertTrue(limiter.limit(HOST) <= TcRequestLimiter.MAX_LIMIT);
+    }
+
+    /** */
+    @Test
+    public void testLimitIsNotGrownIfWindowIsNotUsed() throws Exception {
+        for (int i = 0; i < 100; i++)
+            send(0).close();
+
+        assertEquals(TcRequestLimiter.INITIAL_LIMIT, limiter.limit(HOST));
+    }
+
+    /** */
+    @Test
+    public void testBackoffOnServerFailure() {
+        sendFailing(new IOException("Server returned HTTP response code: 503"));
+
+        assertEquals((int)(TcRequestLimiter.INITIAL_LIMIT * TcRequestLimiter.BACKOFF_RATIO), limiter.limit(HOST));
+
+        // Failures of concurrent requests are counted once.
+        sendFailing(new IOException("Server returned HTTP response code: 503"));
+
+        assertEquals((int)(TcRequestLimiter.INITIAL_LIMIT * TcRequestLimiter.BACKOFF_RATIO), limiter.limit(HOST));
+    }
+
+    /** */
+    @Test
+    public void testNoBackoffOnClientFailure() {
+        sendFailing(new FileNotFoundException(URL));
+
+        assertEquals(TcRequestLimiter.INITIAL_LIMIT, limiter.limit(HOST));
+    }
+
+    /** */
+    @Test
+    public void testSlotIsReleasedOnStreamClose() throws Exception {
+        List<InputStream> streams = occupy(TcRequestLimiter.INITIAL_LIMIT);
+
+        Future<InputStream> waiting = sendAsync(false);
+
+        Thread.sleep(200);
+
+        assertFalse("Request should wait for window", waiting.isDone());
+
+        InputStream first = streams.get(0);
+
+        first.close();
+        first.close(); // Second close should not release one more slot.
+
+        waiting.get(10, TimeUnit.SECONDS);
+
+        Future<InputStream> next = sendAsync(false);
+
+        Thread.sleep(200);
+
+        assertFalse("Window should be full", next.isDone());
+
+        streams.get(1).close();
+
+        next.get(10, TimeUnit.SECONDS);
+    }
+
+    /** */
+    @Test
+    public void testSlotIsReleasedOnFailure() throws Exception {
+        occupy(TcRequestLimiter.INITIAL_LIMIT - 1);
+
+        for (int i = 0; i < TcRequestLimiter.INITIAL_LIMIT; i++)
+            sendFailing(new FileNotFoundException(URL));
+
+        // Last slot is still free.
+        sendAsync(false).get(10, TimeUnit.SECONDS);
+    }
+
+    /** */
+    @Test
+    public void testInteractiveRequestIsGrantedFirst() throws Exception {
+        List<InputStream> streams = occupy(TcRequestLimiter.INITIAL_LIMIT);
+
+        Future<InputStream> background = sendAsync(false);
+
+        Thread.sleep(200);
+
+        Future<InputStream> interactive = sendAsync(true);
+
+        Thread.sleep(200);
+
+        assertFalse(background.isDone());
+        assertFalse(interactive.isDone());
+
+        streams.get(0).close();
+
+        interactive.get(10, TimeUnit.SECONDS);
+
+        Thread.sleep(200);
+
+        assertFalse("Background request should wait while window is full", background.isDone());
+
+        streams.get(1).close();
+
+        background.get(10, TimeUnit.SECONDS);
+    }
+
+    /** */
+    @Test
+    public void testPriorityIsPassedToExecutorThreads() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+
+        try {
+            AtomicBoolean interactive = new AtomicBoolean();
+
+            TcRequestLimiter.setInteractive(true);
+
+            try {
+                TcRequestLimiter.withSubmitterPriority(pool)
+                    .execute(() -> interactive.set(TcRequestLimiter.isInteractive()));
+            }
+            finally {
+                TcRequestLimiter.setInteractive(false);
+            }
+
+            assertTrue(pool.submit(() -> !TcRequestLimiter.isInteractive()).get(10, TimeUnit.SECONDS));
+            assertTrue("Task should be run as interactive", interactive.get());
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ignite.ci.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks target file appears only when source stream was read till its end.
+ */
+public class CopyingInputStreamTest {
+    /** Content. */
+    private static final byte[] CONTENT = "build log content, build log content".getBytes(StandardCharsets.UTF_8);
+
+    /** Directory for files. */
+    private Path dir;
+
+    /** Target file. */
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("copying-stream-test");
+        file = new File(dir.toFile(), "build.log.zip");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void fileIsRenamedWhenSourceIsReadTillEnd() throws IOException {
+        byte[] read = new byte[CONTENT.length];
+
+        try (InputStream is = new CopyingInputStream(new ByteArrayInputStream(CONTENT), file)) {
+            int off = 0;
+            int cnt;
+
+            while ((cnt = is.read(read, off, read.length - off)) > 0)
+                off += cnt;
+
+            assertEquals(-1, is.read());
+            assertFalse(file.exists());
+            assertEquals(1, filesInDir());
+        }
+
+        assertArrayEquals(CONTENT, read);
+        assertArrayEquals(CONTENT, Files.readAllBytes(file.toPath()));
+        assertEquals(1, filesInDir());
+    }
+
+    @Test
+    public void remainingBytesAreCopiedOnClose() throws IOException {
+        try (InputStream is = new CopyingInputStream(new ByteArrayInputStream(CONTENT), file)) {
+            assertEquals(CONTENT[0], is.read());
+            assertEquals(3, is.skip(3));
+        }
+
+        assertArrayEquals(CONTENT, Files.readAllBytes(file.toPath()));
+        assertEquals(1, filesInDir());
+    }
+
+    @Test
+    public void fileIsNotRenamedIfSourceFailed() throws IOException {
+        InputStream failing = new InputStream() {
+            private int pos;
+
+            @Override public int read() throws IOException {
+                if (pos == 5)
+                    throw new IOException("Connection reset");
+
+                return CONTENT[pos++];
+            }
+        };
+
+        InputStream is = new CopyingInputStream(failing, file);
+
+        for (int i = 0; i < 5; i++)
+            assertEquals(CONTENT[i], is.read());
+
+        try {
+            is.close();
+
+            fail();
+        }
+        catch (IOException e) {
+            assertEquals("Connection reset", e.getMessage());
+        }
+
+        assertFalse(file.exists());
+        assertEquals(0, filesInDir());
+    }
+
+    @Test
+    public void concurrentDownloadsUseOwnTemporaryFiles() throws IOException {
+        byte[] other = "other content".getBytes(StandardCharsets.UTF_8);
+
+        InputStream first = new CopyingInputStream(new ByteArrayInputStream(other), file);
+        InputStream second = new CopyingInputStream(new ByteArrayInputStream(CONTENT), file);
+
+        assertEquals(2, filesInDir());
+
+        assertEquals(other[0], first.read());
+        assertEquals(CONTENT[0], second.read());
+
+        first.close();
+
+        assertArrayEquals(other, Files.readAllBytes(file.toPath()));
+
+        second.close();
+
+        assertArrayEquals(CONTENT, Files.readAllBytes(file.toPath()));
+        assertEquals(1, filesInDir());
+    }
+
+    /**
+     * @return count of files in directory.
+     */
+    private long filesInDir() throws IOException {
+        try (Stream<Path> paths = Files.list(dir)) {
+            return paths.count();
+        }
+    }
+}
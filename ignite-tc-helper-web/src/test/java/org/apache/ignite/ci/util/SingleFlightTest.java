@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.ci.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for {@link SingleFlight}.
+ */
+public class SingleFlightTest {
+    /** */
+    @Test
+    public void testConcurrentLoadsAreCoalesced() throws Exception {
+        SingleFlight<Long, String> sf = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService exec = Executors.newFixedThreadPool(4);
+
+        try {
+            Future<String> first = exec.submit(() -> sf.load(1L, () -> {
+                loads.incrementAndGet();
+                started.countDown();
+
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    throw ExceptionUtil.propagateException(e);
+                }
+
+                return "val";
+            }));
+
+            started.await(10, TimeUnit.SECONDS);
+
+            Future<String> second = exec.submit(() -> sf.load(1L, () -> "other" + loads.incrementAndGet()));
+
+            Thread.sleep(200);
+
+            release.countDown();
+
+            assertEquals("val", first.get(10, TimeUnit.SECONDS));
+            assertEquals("val", second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+            assertEquals(0, sf.inFlight());
+
+            assertEquals("next", sf.load(1L, () -> "next"));
+        }
+        finally {
+            exec.shutdownNow();
+        }
+    }
+
+    /** */
+    @Test
+    public void testLoadWaitsForStartedLoad() throws Exception {
+        SingleFlight<Long, String> sf = new SingleFlight<>();
+
+        CompletableFuture<String> started = sf.start(1L);
+
+        assertNotNull(started);
+        assertNull("Load is already in progress", sf.start(1L));
+
+        ExecutorService exec = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<String> waiter = exec.submit(() -> sf.load(1L, () -> "other"));
+
+            Thread.sleep(200);
+
+            assertFalse(waiter.isDone());
+
+            sf.finish(1L, started, "batch", null);
+
+            assertEquals("batch", waiter.get(10, TimeUnit.SECONDS));
+            assertEquals(0, sf.inFlight());
+        }
+        finally {
+            exec.shutdownNow();
+        }
+    }
+
+    /** */
+    @Test(expected = IllegalStateException.class)
+    public void testFailureIsPropagated() {
+        new SingleFlight<Long, String>().load(1L, () -> {
+            throw new IllegalStateException();
+        });
+    }
+}